@@ -0,0 +1,213 @@
+package JK.pfm.config;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.RecurringExpense;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.SyncChange;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.model.UserCategoryPreference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hibernate listener that feeds {@code /api/sync}.
+ *
+ * <p>Every insert, update and delete of a user-owned entity (accounts, transactions, budgets,
+ * recurring expenses, savings goals and category preferences) is collected per session. Just
+ * before the transaction commits, the user's {@code sync_cursors} row is advanced by the number
+ * of changed records and each record's {@code sync_changes} row is upserted with its new
+ * sequence number. Both writes happen in the same transaction as the change itself, so a
+ * rolled-back change never shows up in the feed. Closing an account is recorded as a delete.</p>
+ *
+ * <p>Recording at the persistence layer covers every service and scheduled job that writes
+ * through JPA. Bulk JPQL updates bypass entity events and are not recorded.</p>
+ */
+public class ChangeFeedListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final Map<SharedSessionContractImplementor, Batch> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), Kind.INSERTED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        // closing an account removes it from the snapshot, so the feed reports it as deleted
+        boolean closed = entity instanceof Account account && !account.getIsActive();
+        record(event.getSession(), entity, closed ? Kind.DELETED : Kind.UPDATED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), Kind.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, Kind kind) {
+        Change change = describe(entity);
+        if (change == null) {
+            return;
+        }
+        pending.computeIfAbsent(session, s -> {
+            Batch batch = new Batch();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) batch);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) batch);
+            return batch;
+        }).add(change, kind);
+    }
+
+    /**
+     * Maps an entity to its feed type, id and owner, or {@code null} if it is not synced.
+     */
+    private static Change describe(Object entity) {
+        return switch (entity) {
+            case Transaction t when t.getAccount() != null ->
+                change(SyncChange.TRANSACTION, t.getId(), t.getAccount().getUser());
+            case Account a ->
+                change(SyncChange.ACCOUNT, a.getId(), a.getUser());
+            case Budget b ->
+                change(SyncChange.BUDGET, b.getId(), b.getUser());
+            case RecurringExpense r when r.getAccount() != null ->
+                change(SyncChange.RECURRING_EXPENSE, r.getId(), r.getAccount().getUser());
+            case SavingsGoal g ->
+                change(SyncChange.SAVINGS_GOAL, g.getId(), g.getUser());
+            case UserCategoryPreference p when p.getCategory() != null ->
+                change(SyncChange.CATEGORY, p.getCategory().getId(), p.getUser());
+            default -> null;
+        };
+    }
+
+    private static Change change(String type, Long id, User owner) {
+        if (id == null || owner == null || owner.getId() == null) {
+            return null;
+        }
+        return new Change(owner.getId(), type, id);
+    }
+
+    private record Change(Long userId, String type, Long id) {}
+
+    private enum Kind { INSERTED, UPDATED, DELETED }
+
+    /**
+     * Changes collected in one session during one transaction.
+     */
+    private final class Batch implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        // user id -> (change -> kind); users in id order so concurrent batches lock cursors in the same order
+        private final Map<Long, Map<Change, Kind>> byUser = new TreeMap<>();
+
+        synchronized void add(Change change, Kind kind) {
+            Map<Change, Kind> changes = byUser.computeIfAbsent(change.userId(), id -> new LinkedHashMap<>());
+            // re-insert so the last change to a record gets the highest sequence number
+            Kind previous = changes.remove(change);
+            if (previous == Kind.INSERTED) {
+                if (kind == Kind.DELETED) {
+                    // created and deleted in the same transaction: no client has seen it
+                    return;
+                }
+                kind = Kind.INSERTED;
+            }
+            changes.put(change, kind);
+        }
+
+        @Override
+        public synchronized void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (byUser.isEmpty()) {
+                return;
+            }
+            session.doWork(connection -> {
+                for (Map.Entry<Long, Map<Change, Kind>> entry : byUser.entrySet()) {
+                    Map<Change, Kind> changes = entry.getValue();
+                    if (changes.isEmpty()) {
+                        continue;
+                    }
+                    long seq = reserve(connection, entry.getKey(), changes.size()) - changes.size();
+                    for (Map.Entry<Change, Kind> change : changes.entrySet()) {
+                        write(connection, change.getKey(), ++seq, change.getValue());
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(session, this);
+        }
+    }
+
+    /**
+     * Advances the user's cursor by {@code count} and returns the new value. The cursor row
+     * stays locked until the transaction ends.
+     */
+    private static long reserve(Connection connection, Long userId, int count) throws SQLException {
+        if (update(connection, "UPDATE sync_cursors SET seq = seq + ? WHERE user_id = ?", count, userId) == 0) {
+            try {
+                update(connection, "INSERT INTO sync_cursors (seq, user_id) VALUES (?, ?)", count, userId);
+                return count;
+            } catch (SQLException raced) {
+                // another transaction created the row first; its lock has been released by now
+                update(connection, "UPDATE sync_cursors SET seq = seq + ? WHERE user_id = ?", count, userId);
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement("SELECT seq FROM sync_cursors WHERE user_id = ?")) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Writes the record's feed row. New records are inserted directly; others are updated and
+     * only inserted when they predate the feed.
+     */
+    private static void write(Connection connection, Change change, long seq, Kind kind) throws SQLException {
+        String update = "UPDATE sync_changes SET seq = ?, deleted = ? "
+                + "WHERE user_id = ? AND entity_type = ? AND entity_id = ?";
+        String insert = "INSERT INTO sync_changes (seq, deleted, user_id, entity_type, entity_id) "
+                + "VALUES (?, ?, ?, ?, ?)";
+        boolean deleted = kind == Kind.DELETED;
+        if (kind == Kind.INSERTED
+                || update(connection, update, seq, deleted, change.userId(), change.type(), change.id()) == 0) {
+            update(connection, insert, seq, deleted, change.userId(), change.type(), change.id());
+        }
+    }
+
+    private static int update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, Objects.requireNonNull(params[i]));
+            }
+            return ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package JK.pfm.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Concurrency settings for request handling and database access.
+ *
+ * <p><b>Virtual threads</b> are switched on with Spring Boot's own flag
+ * {@code spring.threads.virtual.enabled=true}. With it Tomcat serves every request on a new
+ * virtual thread, and the auto-configured {@code @Scheduled} scheduler and {@code @Async}
+ * executor run their tasks on virtual threads too. Nothing else in the code base has to change.</p>
+ *
+ * <p><b>JDBC limiter</b>: when {@code pfm.jdbc.limiter.enabled=true} (it defaults to the virtual
+ * thread flag) the application {@link DataSource} is wrapped in a
+ * {@link ConcurrencyLimitingDataSource}. Permits default to the Hikari pool size, so blocked
+ * virtual threads wait in a fair queue in front of the pool instead of timing out inside it.
+ * With a read replica configured ({@link ReplicaDataSourceConfig}) each pool gets its own
+ * limiter sized to that pool.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.jdbc.limiter.enabled} – wrap the data source (default: {@code spring.threads.virtual.enabled})</li>
+ *   <li>{@code pfm.jdbc.limiter.max-concurrency} – permits (default: the Hikari pool's maximum size, or 10)</li>
+ *   <li>{@code pfm.jdbc.limiter.acquire-timeout-ms} – how long a caller may wait for a permit (default 30000)</li>
+ * </ul>
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Wraps the application {@link DataSource} bean in a {@link ConcurrencyLimitingDataSource}.
+     *
+     * <p>Declared {@code static} so the post-processor is registered before the data source is
+     * created.</p>
+     *
+     * @param environment used to resolve limiter properties
+     * @return the post-processor that applies the limiter
+     */
+    @Bean
+    @ConditionalOnProperty(name = "pfm.jdbc.limiter.enabled", havingValue = "true")
+    public static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        Integer configured = environment.getProperty("pfm.jdbc.limiter.max-concurrency", Integer.class);
+        int defaultConcurrency = environment.getProperty(
+            "spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        long acquireTimeout = environment.getProperty(
+            "pfm.jdbc.limiter.acquire-timeout-ms", Long.class, 30_000L);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                // only real pools are limited; proxies and routers delegate to limited pools
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof DelegatingDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource)) {
+                    int maxConcurrency = configured != null ? configured
+                        : bean instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0
+                            ? hikari.getMaximumPoolSize()
+                        : defaultConcurrency;
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
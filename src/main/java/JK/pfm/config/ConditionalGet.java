@@ -0,0 +1,22 @@
+package JK.pfm.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code GET} handler whose response depends only on the authenticated user's data,
+ * the request URI and the current date, so it can be revalidated with {@code If-None-Match}.
+ *
+ * <p>{@link DataVersionInterceptor} tags such responses with a weak ETag derived from the
+ * user's data version and answers a matching {@code If-None-Match} with {@code 304} before the
+ * handler runs. Only annotate handlers whose data is recorded in the change feed (see
+ * {@link ChangeFeedListener}), or is written by jobs that advance the user's cursor.</p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConditionalGet {
+}
@@ -0,0 +1,108 @@
+package JK.pfm.config;
+
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.util.SecurityUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers conditional {@code GET}s of {@link ConditionalGet} handlers from the user's data
+ * version, without running the handler.
+ *
+ * <p>The data version is the user's change feed sequence ({@code sync_cursors.seq}), which
+ * every committed change to the user's accounts, transactions, budgets, recurring expenses,
+ * savings goals and category preferences advances. The weak ETag combines it with a hash of the
+ * user, the current date and the request URI with its query string, so different endpoints and
+ * parameters get different tags, and date-relative defaults ("this month", "recent") are
+ * revalidated once a day. When {@code If-None-Match} matches, the response is {@code 304} and
+ * costs one primary-key lookup; otherwise the tag is set and the handler runs as usual.</p>
+ *
+ * <p>The version is read before the handler, so a response is never older than its tag. It is
+ * read in a named read-only transaction, which {@link ReplicaRoutingDataSource} routes like the
+ * handler's own read-only transactions: to the replica when they go there. A lagging replica can
+ * therefore only make a tag older than its data, which costs one extra full response later, and
+ * never a tag newer than data that would then be revalidated with {@code 304} for good.
+ * Responses are marked {@code Cache-Control: private, no-cache}, so clients keep them but
+ * revalidate every time.</p>
+ *
+ * <p>No-op when no {@link SyncCursorRepository} or transaction manager is available (for example
+ * in MVC slice tests).</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.http.etag.enabled} – tag and revalidate responses (default {@code true})</li>
+ * </ul>
+ */
+@Component
+public class DataVersionInterceptor implements HandlerInterceptor {
+
+    /** Name of the version read's transaction; not a Spring Data default, so it may use the replica. */
+    static final String TRANSACTION_NAME = DataVersionInterceptor.class.getName() + ".preHandle";
+
+    private final ObjectProvider<SyncCursorRepository> syncCursorRepository;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final boolean enabled;
+
+    public DataVersionInterceptor(
+            ObjectProvider<SyncCursorRepository> syncCursorRepository,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            @Value("${pfm.http.etag.enabled:true}") boolean enabled
+    ) {
+        this.syncCursorRepository = syncCursorRepository;
+        this.transactionManager   = transactionManager;
+        this.enabled              = enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled
+                || !(handler instanceof HandlerMethod method)
+                || !method.hasMethodAnnotation(ConditionalGet.class)
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        SyncCursorRepository cursors = syncCursorRepository.getIfAvailable();
+        PlatformTransactionManager transactions = transactionManager.getIfAvailable();
+        Optional<Long> userId = SecurityUtil.findUserId();
+        if (cursors == null || transactions == null || userId.isEmpty()) {
+            return true;
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactions);
+        readOnly.setReadOnly(true);
+        readOnly.setName(TRANSACTION_NAME);
+        Long version = readOnly.execute(status -> cursors.findSeqByUserId(userId.get()).orElse(0L));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        String etag = etag(userId.get(), version, LocalDate.now(), request);
+        // sets the ETag header, and the 304 status when If-None-Match matches
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    /**
+     * @return weak ETag {@code W/"<version>-<hash>"}
+     */
+    static String etag(Long userId, long version, LocalDate today, HttpServletRequest request) {
+        String query = request.getQueryString();
+        String key = userId + "|" + today + "|" + request.getRequestURI() + (query != null ? "?" + query : "");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + version + "-" + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
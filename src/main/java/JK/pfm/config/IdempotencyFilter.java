@@ -0,0 +1,269 @@
+package JK.pfm.config;
+
+import JK.pfm.exception.GlobalExceptionHandler.ApiError;
+import JK.pfm.service.idempotency.IdempotencyService;
+import JK.pfm.service.idempotency.IdempotentResponse;
+import JK.pfm.util.SecurityUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Makes mutating requests that carry an {@code Idempotency-Key} header safe to retry.
+ *
+ * <p>Applies to authenticated {@code POST}, {@code PUT}, {@code PATCH} and {@code DELETE}
+ * requests with the header, such as creating a transaction or transferring funds. The request
+ * goes through {@link IdempotencyService}: the first request with a key executes, and retries
+ * with the same key receive its status, {@code Content-Type}, {@code Location} and body again,
+ * marked with {@code Idempotency-Replayed: true}. Errors raised here use the
+ * {@link JK.pfm.exception.GlobalExceptionHandler} format:</p>
+ * <ul>
+ *   <li>400 – the key is blank or longer than 255 characters</li>
+ *   <li>409 – a request with the key is still executing, or executed without a stored response</li>
+ *   <li>413 – the body is larger than {@code pfm.idempotency.max-body-bytes} (default 1 MB); it is
+ *   held in memory to be hashed, so it is limited</li>
+ *   <li>422 – the key was used for a request with a different method, URI or body</li>
+ * </ul>
+ *
+ * <p>The filter has the default (lowest) order, so it runs after Spring Security and sees the
+ * authenticated user. Requests without the header are passed through untouched, as are all
+ * requests when no {@link IdempotencyService} is available (for example in MVC slice tests).</p>
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ObjectProvider<IdempotencyService> idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public IdempotencyFilter(
+            ObjectProvider<IdempotencyService> idempotencyService,
+            ObjectMapper objectMapper,
+            @Value("${pfm.idempotency.max-body-bytes:1048576}") int maxBodyBytes
+    ) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper       = objectMapper;
+        this.maxBodyBytes       = Math.max(0, Math.min(maxBodyBytes, Integer.MAX_VALUE - 1));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        IdempotencyService service = idempotencyService.getIfAvailable();
+        return service == null
+            || !service.isEnabled()
+            || !METHODS.contains(request.getMethod())
+            || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+                                    throws ServletException, IOException {
+        Optional<Long> userId = SecurityUtil.findUserId();
+        if (userId.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER).strip();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters"
+            ));
+            return;
+        }
+
+        byte[] body = readBody(request);
+        if (body == null) {
+            writeError(request, response, new ResponseStatusException(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                "Requests with an Idempotency-Key are limited to " + maxBodyBytes + " bytes"
+            ));
+            return;
+        }
+        BufferedRequest buffered = new BufferedRequest(request, body);
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean[] executed = new boolean[1];
+        IdempotentResponse result;
+        try {
+            result = idempotencyService.getObject().execute(userId.get(), key, hash(buffered), () -> {
+                executed[0] = true;
+                try {
+                    filterChain.doFilter(buffered, captured);
+                } catch (IOException | ServletException ex) {
+                    throw new ChainException(ex);
+                }
+                return new IdempotentResponse(captured.getStatus(), captured.getContentType(),
+                    captured.getHeader(HttpHeaders.LOCATION), captured.getContentAsByteArray());
+            });
+        } catch (ChainException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw (ServletException) ex.getCause();
+        } catch (ResponseStatusException ex) {
+            if (executed[0]) {
+                throw ex;
+            }
+            writeError(request, response, ex);
+            return;
+        }
+
+        if (executed[0]) {
+            captured.copyBodyToResponse();
+            return;
+        }
+        response.setStatus(result.status());
+        if (result.contentType() != null) {
+            response.setContentType(result.contentType());
+        }
+        if (result.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, result.location());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(result.body().length);
+        response.getOutputStream().write(result.body());
+    }
+
+    /**
+     * @return the body, or {@code null} if it is larger than the limit
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response,
+                            ResponseStatusException ex) throws IOException {
+        response.setStatus(ex.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+            new ApiError(ex.getReason(), request.getRequestURI(), LocalDateTime.now()));
+    }
+
+    /**
+     * @return hex SHA-256 of the method, URI, query string and body
+     */
+    static String hash(BufferedRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?"
+                + (request.getQueryString() != null ? request.getQueryString() : "") + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /** Carries a checked exception of the filter chain through the service's {@code Supplier}. */
+    private static final class ChainException extends RuntimeException {
+        ChainException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    /** Reads the body up front, so it can be hashed and still be read by the controller. */
+    static final class BufferedRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the body is already in memory, so all of it is available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException | RuntimeException ex) {
+                        listener.onError(ex);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package JK.pfm.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+/**
+ * JCache region factory that gives every Hibernate {@code SessionFactory} its own Ehcache
+ * {@link CacheManager}.
+ *
+ * <p>The stock factory asks the caching provider for the manager registered under
+ * {@code hibernate.javax.cache.uri}, and the provider returns the same instance to every
+ * caller in the JVM. Two application contexts pointing at different databases (as happens in
+ * the test suite) would then share cached rows, and closing one context would close the
+ * other's cache. Here the XML file is read the same way, but the manager is registered under
+ * a unique URI. It is closed together with its session factory.</p>
+ *
+ * <p>Enabled with {@code hibernate.cache.region.factory_class=JK.pfm.config.IsolatedJCacheRegionFactory}.
+ * Providers other than Ehcache fall back to the default lookup.</p>
+ */
+public class IsolatedJCacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map<String, Object> properties) {
+        CachingProvider provider = getCachingProvider(properties);
+        URI config = getUri(settings, properties);
+        if (!(provider instanceof EhcacheCachingProvider ehcache) || config == null) {
+            return super.resolveCacheManager(settings, properties);
+        }
+        try {
+            ClassLoader classLoader = getClassLoader(provider);
+            XmlConfiguration xml = new XmlConfiguration(config.toURL(), classLoader);
+            return ehcache.getCacheManager(URI.create("urn:pfm:l2:" + UUID.randomUUID()), xml);
+        } catch (IOException | RuntimeException ex) {
+            throw new CacheException("Unable to create cache manager from " + config, ex);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package JK.pfm.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a scheduled job that must run on only one node of a cluster at a time.
+ *
+ * <p>Each call first acquires the job's database lease (see
+ * {@link JK.pfm.service.JobLeaseService}) and is skipped if another node holds it. Skipped calls
+ * return {@code null}, or {@code 0} for primitive numeric return types. Completed calls are
+ * recorded in {@code job_runs}. A job that returns a number reports it as the number of processed
+ * items.</p>
+ *
+ * <p>When the method also has a {@code @Scheduled} cron, the lease is kept after the run until
+ * just before the cron fires next. Calling the method directly again in the meantime is skipped as
+ * well.</p>
+ *
+ * <p>The lease is taken outside the method's own {@code @Transactional} boundary.</p>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeasedJob {
+
+    /**
+     * @return the job name, shared by all nodes
+     */
+    String value();
+}
@@ -0,0 +1,91 @@
+package JK.pfm.config;
+
+import JK.pfm.service.JobLeaseService;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies {@link LeasedJob}.
+ *
+ * <p>Ordered ahead of the transaction and metrics interceptors: the lease is held across the
+ * job's whole transaction, and a run skipped on this node is neither timed nor counted.</p>
+ *
+ * <p>For a method with a {@code @Scheduled} cron, the lease is kept after the run until
+ * {@code pfm.scheduler.lease-hold-margin-ms} (default 60000) before the cron's next fire time.
+ * Other methods release it when the job ends.</p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LeasedJobAspect {
+
+    private final JobLeaseService jobLeaseService;
+    private final Environment environment;
+    private final long holdMarginMillis;
+
+    public LeasedJobAspect(
+            JobLeaseService jobLeaseService,
+            Environment environment,
+            @Value("${pfm.scheduler.lease-hold-margin-ms:60000}") long holdMarginMillis
+    ) {
+        this.jobLeaseService  = jobLeaseService;
+        this.environment      = environment;
+        this.holdMarginMillis = holdMarginMillis;
+    }
+
+    // the annotation is read from the method rather than bound as an advice argument, because
+    // argument binding needs the invocation-exposing interceptor to run first
+    @Around("@annotation(JK.pfm.config.LeasedJob)")
+    public Object aroundLeasedJob(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        LeasedJob job = method.getAnnotation(LeasedJob.class);
+        return jobLeaseService.run(job.value(), holdUntil(method), joinPoint::proceed)
+            .orElseGet(() -> skippedResult(method.getReturnType()));
+    }
+
+    /**
+     * @return shortly before the next fire time of the method's cron, or {@code null} if it has none
+     */
+    private LocalDateTime holdUntil(Method method) {
+        Scheduled scheduled = AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class);
+        if (scheduled == null || scheduled.cron().isEmpty()) {
+            return null;
+        }
+        String cron = environment.resolvePlaceholders(scheduled.cron());
+        if (Scheduled.CRON_DISABLED.equals(cron)) {
+            return null;
+        }
+        String zone = environment.resolvePlaceholders(scheduled.zone());
+        ZoneId zoneId = zone.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(zone);
+        ZonedDateTime next = CronExpression.parse(cron).next(ZonedDateTime.now(zoneId));
+        if (next == null) {
+            return null;
+        }
+        return next.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+            .minusNanos(holdMarginMillis * 1_000_000);
+    }
+
+    private static Object skippedResult(Class<?> returnType) {
+        if (returnType == int.class) {
+            return 0;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
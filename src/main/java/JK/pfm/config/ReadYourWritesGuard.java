@@ -0,0 +1,66 @@
+package JK.pfm.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently so their reads can stay on the primary while the
+ * replica catches up.
+ *
+ * <p>Every read-write transaction run for an authenticated user refreshes that user's
+ * timestamp. For {@code windowMillis} afterwards {@link #recentlyWrote(Long)} returns
+ * {@code true} and {@link ReplicaRoutingDataSource} keeps the user's read-only work on the
+ * primary. The window should be set above the replica's usual replication lag.</p>
+ *
+ * <p>The state is per application instance. A window of {@code 0} turns the guard off.</p>
+ */
+public class ReadYourWritesGuard {
+
+    /** Expired entries are purged once the map grows past this size. */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final Map<Long, Long> lastWrite = new ConcurrentHashMap<>();
+    private final long windowMillis;
+
+    public ReadYourWritesGuard(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative");
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Records that the given user has just written to the primary.
+     *
+     * @param userId the writing user, ignored when {@code null}
+     */
+    public void recordWrite(Long userId) {
+        if (userId == null || windowMillis == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastWrite.put(userId, now);
+        if (lastWrite.size() > PURGE_THRESHOLD) {
+            lastWrite.values().removeIf(at -> now - at >= windowMillis);
+        }
+    }
+
+    /**
+     * @param userId the user about to read, may be {@code null}
+     * @return {@code true} if the user wrote within the window and must read from the primary
+     */
+    public boolean recentlyWrote(Long userId) {
+        if (userId == null || windowMillis == 0) {
+            return false;
+        }
+        Long at = lastWrite.get(userId);
+        return at != null && System.currentTimeMillis() - at < windowMillis;
+    }
+
+    /**
+     * @return the configured read-your-writes window in milliseconds
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
@@ -0,0 +1,106 @@
+package JK.pfm.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Primary/replica data source setup.
+ *
+ * <p>Active only when {@code pfm.datasource.replica.url} is set. The regular
+ * {@code spring.datasource.*} pool stays the primary (writer); a second Hikari pool is opened
+ * against the replica, and the application {@link DataSource} becomes a
+ * {@link ReplicaRoutingDataSource} behind a {@link LazyConnectionDataSourceProxy}. Without the
+ * property Spring Boot's single auto-configured pool is used as before.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.datasource.replica.url}, {@code .username}, {@code .password},
+ *       {@code .driver-class-name} – replica connection</li>
+ *   <li>{@code pfm.datasource.replica.hikari.*} – replica pool settings</li>
+ *   <li>{@code pfm.datasource.replica.read-your-writes-ms} – how long a user's reads stay on the
+ *       primary after a write (default 5000, {@code 0} disables)</li>
+ *   <li>{@code pfm.datasource.replica.failover-ms} – how long the replica is skipped after a
+ *       failed connection attempt (default 10000)</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "pfm.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Writer pool built from the standard {@code spring.datasource.*} properties.
+     *
+     * @param properties Spring Boot's data source properties
+     * @return the primary Hikari pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        dataSource.setPoolName("pfm-primary");
+        return dataSource;
+    }
+
+    /**
+     * Reader pool built from {@code pfm.datasource.replica.*}.
+     *
+     * @param url replica JDBC URL
+     * @param username replica user, defaults to the primary user
+     * @param password replica password, defaults to the primary password
+     * @param driverClassName optional JDBC driver class
+     * @return the replica Hikari pool
+     */
+    @Bean
+    @ConfigurationProperties("pfm.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${pfm.datasource.replica.url}") String url,
+            @Value("${pfm.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${pfm.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${pfm.datasource.replica.driver-class-name:}") String driverClassName) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password);
+        if (!driverClassName.isBlank()) {
+            builder.driverClassName(driverClassName);
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setPoolName("pfm-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The application data source used by JPA and everything else.
+     *
+     * @param primary writer pool
+     * @param replica reader pool
+     * @param readYourWritesMillis read-your-writes window
+     * @param failoverMillis replica back-off after a connection failure
+     * @return a lazy proxy over the primary/replica router
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${pfm.datasource.replica.read-your-writes-ms:5000}") long readYourWritesMillis,
+            @Value("${pfm.datasource.replica.failover-ms:10000}") long failoverMillis) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+            primary, replica, new ReadYourWritesGuard(readYourWritesMillis), failoverMillis);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
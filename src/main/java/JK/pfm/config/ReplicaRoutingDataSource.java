@@ -0,0 +1,104 @@
+package JK.pfm.config;
+
+import JK.pfm.util.SecurityUtil;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections to the primary or the read replica.
+ *
+ * <p>A connection goes to the replica only when all of these hold:</p>
+ * <ul>
+ *   <li>the current transaction is {@code @Transactional(readOnly = true)},</li>
+ *   <li>it was started by application code, not by the implicit read-only transaction Spring
+ *       Data puts around a bare repository call,</li>
+ *   <li>the current user has not written within the {@link ReadYourWritesGuard} window,</li>
+ *   <li>the replica did not fail recently.</li>
+ * </ul>
+ * Everything else, including every read-write transaction, uses the primary.
+ *
+ * <p>The routing decision reads the transaction flags, which Spring sets only after the
+ * transaction has begun. This data source must therefore be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that the real
+ * connection is fetched on the first statement.</p>
+ *
+ * <p>If the replica cannot hand out a connection, the call falls back to the primary and the
+ * replica is skipped for {@code failoverMillis}.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /** Prefix of transaction names Spring Data uses for its default repository transactions. */
+    private static final String SPRING_DATA_TX_PREFIX = "org.springframework.data.";
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadYourWritesGuard guard;
+    private final long failoverMillis;
+    private volatile long replicaDownUntil;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReadYourWritesGuard guard, long failoverMillis) {
+        this.primary        = primary;
+        this.replica        = replica;
+        this.guard          = guard;
+        this.failoverMillis = failoverMillis;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * @return the route the current thread's next connection would take
+     */
+    public Route currentRoute() {
+        Long userId = SecurityUtil.findUserId().orElse(null);
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                guard.recordWrite(userId);
+            }
+            return Route.PRIMARY;
+        }
+
+        String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (txName == null || txName.startsWith(SPRING_DATA_TX_PREFIX)) {
+            return Route.PRIMARY;
+        }
+        if (guard.recentlyWrote(userId)) {
+            return Route.PRIMARY;
+        }
+        if (System.currentTimeMillis() < replicaDownUntil) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (currentRoute() != Route.REPLICA) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException ex) {
+            replicaDownUntil = System.currentTimeMillis() + failoverMillis;
+            log.warn("Read replica unavailable, using primary for {} ms: {}", failoverMillis, ex.getMessage());
+            return primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package JK.pfm.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each HTTP request executed.
+ *
+ * <p>Publishes the distribution summary {@code pfm.http.sql.statements}, tagged with
+ * {@code method} and {@code uri} (the matched route pattern, as in {@code http.server.requests}).
+ * The filter runs ahead of Spring Security, so the user lookup done during JWT authentication is
+ * counted too. Counting is done by {@link SqlStatementCounter}.</p>
+ *
+ * <p>No-op when no {@link MeterRegistry} is available (for example in MVC slice tests).</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RequestMetricsFilter(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+                                    throws ServletException, IOException {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        SqlStatementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = SqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("pfm.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1_000.0)
+                .register(registry)
+                .record(statements);
+        }
+    }
+}
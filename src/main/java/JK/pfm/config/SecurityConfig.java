@@ -2,6 +2,7 @@ package JK.pfm.config;
 
 import JK.pfm.security.JwtAuthenticationFilter;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -40,9 +41,12 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final int managementPort;
     
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter){
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
+                          @Value("${management.server.port:-1}") int managementPort){
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.managementPort          = managementPort;
     }
     
     /**
@@ -97,7 +101,10 @@ public class SecurityConfig {
      *   <li><b>CSRF disabled</b> – suitable for token-based (JWT) APIs without cookies.</li>
      *   <li><b>CORS enabled</b> – uses {@link #corsConfigurationSource()}.</li>
      *   <li><b>Authorization</b> – permits {@code /api/users/register}, {@code /api/users/login},
-     *       and {@code /api/health}; all other endpoints require authentication.</li>
+     *       {@code /api/health}, and the Actuator health and info endpoints. When a separate
+     *       {@code management.server.port} is configured, every request on that port (including the
+     *       Prometheus scrape) is permitted, since that port is meant to stay behind the firewall;
+     *       on the API port the Prometheus endpoint requires authentication like all other endpoints.</li>
      *   <li><b>JWT filter</b> – {@code JwtAuthenticationFilter} runs before the username/password filter
      *       to extract and validate bearer tokens.</li>
      * </ul>
@@ -114,6 +121,8 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/users/register", "/api/users/login", "/api/health").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,45 @@
+package JK.pfm.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} that counts SQL statements prepared on the current thread.
+ *
+ * <p>Counting is active only between {@link #start()} and {@link #stop()}.
+ * {@link RequestMetricsFilter} calls them around every HTTP request. Statements outside a
+ * window (startup, scheduled jobs) pass through uncounted. The statement text is never changed.</p>
+ *
+ * <p>Registered with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=JK.pfm.config.SqlStatementCounter}.</p>
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Opens a counting window on the current thread.
+     */
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Closes the counting window on the current thread.
+     *
+     * @return number of statements prepared since {@link #start()}, or 0 if no window was open
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
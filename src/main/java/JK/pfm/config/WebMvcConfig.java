@@ -0,0 +1,23 @@
+package JK.pfm.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the application's MVC interceptors.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final DataVersionInterceptor dataVersionInterceptor;
+
+    public WebMvcConfig(DataVersionInterceptor dataVersionInterceptor) {
+        this.dataVersionInterceptor = dataVersionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(dataVersionInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,5 +1,6 @@
 package JK.pfm.controller;
 
+import JK.pfm.config.ConditionalGet;
 import JK.pfm.dto.AccountCreationRequest;
 import JK.pfm.dto.ChangeAccountNameDto;
 import JK.pfm.dto.SavingsFundTransferDTO;
@@ -47,6 +48,7 @@ public class AccountController {
     * @return {@code ResponseEntity} containing a list of {@link Account} instances
     * @implNote Uses {@link SecurityUtil#getUserId()} to determine the current user.
     */
+    @ConditionalGet
     @GetMapping
     public ResponseEntity<List<Account>> getAccountsForUser() {
         Long userId = SecurityUtil.getUserId();
@@ -67,6 +69,7 @@ public class AccountController {
     * @return {@code ResponseEntity} containing the total balance as a {@link BigDecimal}
     * @implNote Delegates balance calculation to {@link AccountService#getTotalBalance()}.
     */
+    @ConditionalGet
     @GetMapping("/total-balance")
     public ResponseEntity<BigDecimal> getTotalBalance() {
         BigDecimal sum = accountService.getTotalBalance();
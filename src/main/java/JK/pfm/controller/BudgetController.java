@@ -1,9 +1,11 @@
 package JK.pfm.controller;
 
+import JK.pfm.config.ConditionalGet;
 import JK.pfm.model.Budget;
 import JK.pfm.service.BudgetService;
 import java.math.BigDecimal;
 import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.BudgetVsActualDTO;
 import JK.pfm.dto.UpdateBudgetAmountDto;
 import JK.pfm.dto.filters.DateRangeFilter;
 import jakarta.validation.Valid;
@@ -36,6 +38,7 @@ public class BudgetController {
      * @return {@code ResponseEntity} containing the list of budgets
      * @implNote Delegates to {@link BudgetService#getAllBudgets(DateRangeFilter)}.
      */
+    @ConditionalGet
     @GetMapping
     public ResponseEntity<List<Budget>> getAllBudgets(@Valid @ModelAttribute DateRangeFilter filter) {
     return ResponseEntity.ok(budgetService.getAllBudgets(filter));
@@ -104,12 +107,30 @@ public class BudgetController {
      * @return {@code ResponseEntity} containing the total spent amount as a {@link BigDecimal}
      * @implNote Delegates to {@link BudgetService#getTotalSpentOnBudget(Long)}.
      */
+    @ConditionalGet
     @GetMapping("/spent/{id}")
     public ResponseEntity<BigDecimal> getTotalSpentOnBudget(@PathVariable Long id){
         BigDecimal totalSpent = budgetService.getTotalSpentOnBudget(id);
         return ResponseEntity.ok(totalSpent);
     }
     
+    /**
+     * Retrieves the authenticated user's budgets together with the amount spent on each.
+     *
+     * <p>Responds with {@code 200 OK} and a list of {@link BudgetVsActualDTO} rows (budget ID,
+     * category, budgeted, actual and difference), filtered like {@link #getAllBudgets}. Replaces
+     * one {@code /spent/{id}} call per budget with a single request.</p>
+     *
+     * @param filter an optional {@link DateRangeFilter} specifying the time range
+     * @return {@code ResponseEntity} containing budgeted and actual amounts per budget
+     * @implNote Delegates to {@link BudgetService#getBudgetsVsActual(DateRangeFilter)}.
+     */
+    @ConditionalGet
+    @GetMapping("/vs-actual")
+    public ResponseEntity<List<BudgetVsActualDTO>> getBudgetsVsActual(@Valid @ModelAttribute DateRangeFilter filter) {
+        return ResponseEntity.ok(budgetService.getBudgetsVsActual(filter));
+    }
+    
     /**
      * Updates the monthly active status of a budget.
      *
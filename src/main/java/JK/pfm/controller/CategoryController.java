@@ -1,5 +1,6 @@
 package JK.pfm.controller;
 
+import JK.pfm.config.ConditionalGet;
 import JK.pfm.dto.CategoryListDto;
 import JK.pfm.dto.CategoryNameDto;
 import JK.pfm.model.Category;
@@ -36,6 +37,7 @@ public class CategoryController {
      * @return {@code ResponseEntity} containing the list of active categories
      * @implNote Delegates to {@link CategoryService#getAllCategoriesForUser()}.
      */
+    @ConditionalGet
     @GetMapping
     public ResponseEntity<List<Category>> getAllCategoriesForUser() {
         List<Category> categories = categoryService.getAllCategoriesForUser();
@@ -54,6 +56,7 @@ public class CategoryController {
      * @return {@code ResponseEntity} containing all categories
      * @implNote Delegates to {@link CategoryService#getAllCategories()}.
      */
+    @ConditionalGet
     @GetMapping("/all")
     public ResponseEntity<List<CategoryListDto>> getAllCategories() {
         List<CategoryListDto> categories = categoryService.getAllCategories();
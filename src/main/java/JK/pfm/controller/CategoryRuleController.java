@@ -0,0 +1,70 @@
+package JK.pfm.controller;
+
+import JK.pfm.dto.CategoryRuleCreationRequest;
+import JK.pfm.model.CategoryRule;
+import JK.pfm.service.CategoryRuleService;
+import jakarta.validation.Valid;
+import java.net.URI;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/api/category-rules")
+public class CategoryRuleController {
+
+    private final CategoryRuleService categoryRuleService;
+
+    public CategoryRuleController(CategoryRuleService service) {
+        this.categoryRuleService = service;
+    }
+
+    /**
+     * Retrieves the authenticated user's categorization rules in the order they are applied.
+     *
+     * <p>Responds with {@code 200 OK} and a (possibly empty) list of {@link CategoryRule}.</p>
+     *
+     * @return {@code ResponseEntity} containing the rules
+     * @implNote Delegates to {@link CategoryRuleService#getRules()}.
+     */
+    @GetMapping
+    public ResponseEntity<List<CategoryRule>> getRules() {
+        return ResponseEntity.ok(categoryRuleService.getRules());
+    }
+
+    /**
+     * Creates a categorization rule for the authenticated user.
+     *
+     * <p>Responds with {@code 201 Created} and the created {@link CategoryRule}. The
+     * {@code Location} header points to {@code /api/category-rules/{id}}.</p>
+     *
+     * @param request a {@link CategoryRuleCreationRequest} describing the rule
+     * @return {@code ResponseEntity} containing the saved {@link CategoryRule}
+     * @implNote Delegates to {@link CategoryRuleService#saveRule(CategoryRuleCreationRequest)}.
+     */
+    @PostMapping
+    public ResponseEntity<CategoryRule> createRule(@Valid @RequestBody CategoryRuleCreationRequest request) {
+        var saved = categoryRuleService.saveRule(request);
+        URI uri = ServletUriComponentsBuilder.fromCurrentRequest()
+        .path("/{id}")
+        .buildAndExpand(saved.getId())
+        .toUri();
+        return ResponseEntity.created(uri).body(saved);
+    }
+
+    /**
+     * Deletes a categorization rule.
+     *
+     * <p>Responds with {@code 204 No Content} if the deletion succeeds.</p>
+     *
+     * @param id the ID of the rule to delete
+     * @return an empty {@code ResponseEntity}
+     * @implNote Delegates to {@link CategoryRuleService#deleteRule(Long)}.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
+        categoryRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+}
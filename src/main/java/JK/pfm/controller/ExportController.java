@@ -0,0 +1,59 @@
+package JK.pfm.controller;
+
+import JK.pfm.service.ExportService;
+import JK.pfm.service.export.ExportDataset;
+import JK.pfm.service.export.ExportFormat;
+import JK.pfm.util.SecurityUtil;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Downloads all of the authenticated user's records of one kind.
+     *
+     * <p>Responds with {@code 200 OK} and the rows as an attachment, written while they are read
+     * from the database. {@code dataset} is one of {@code transactions} (including archived
+     * ones), {@code recurring-expenses}, {@code budgets} or {@code savings-goals}. An unknown
+     * data set yields {@code 404 Not Found}, an unknown format {@code 400 Bad Request}.</p>
+     *
+     * @param dataset which records to export
+     * @param format {@code csv} (default), {@code ndjson} or {@code columnar}
+     * @param gzip whether to gzip the file (default {@code false})
+     * @param response the response the export is written to
+     * @throws IOException if the client disconnects
+     * @implNote Delegates to {@link ExportService#export}.
+     */
+    @GetMapping("/{dataset}")
+    public void export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        ExportDataset what = ExportDataset.fromPath(dataset);
+        ExportFormat as = ExportFormat.parse(format);
+        Long userId = SecurityUtil.getUserId();
+
+        String filename = what.getPath() + "." + as.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : as.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString());
+        exportService.export(what, as, gzip, userId, response.getOutputStream());
+    }
+}
@@ -1,14 +1,41 @@
-package jk.pfm.controller;
+package JK.pfm.controller;
 
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-
+/**
+ * Public liveness/readiness check used by the frontend and load balancers.
+ *
+ * <p>Delegates to the Actuator {@link HealthEndpoint}, so the answer reflects real checks
+ * (database connectivity, disk space). Full details are available at {@code /actuator/health}.</p>
+ */
 @RestController
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+
+    public HealthController(HealthEndpoint healthEndpoint) {
+        this.healthEndpoint = healthEndpoint;
+    }
+
+    /**
+     * Returns the aggregated application health.
+     *
+     * @return 200 OK if all health indicators are UP; 503 SERVICE UNAVAILABLE otherwise
+     */
     @GetMapping("/api/health")
-    public String healthCheck() {
-        return "Application is healthy!";
+    public ResponseEntity<String> healthCheck() {
+        HealthComponent health = healthEndpoint.health();
+        if (Status.UP.equals(health.getStatus())) {
+            return ResponseEntity.ok("Application is healthy!");
+        }
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body("Application is unhealthy: " + health.getStatus().getCode());
     }
 }
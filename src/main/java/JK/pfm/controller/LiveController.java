@@ -0,0 +1,37 @@
+package JK.pfm.controller;
+
+import JK.pfm.service.LiveUpdateService;
+import JK.pfm.util.SecurityUtil;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveController {
+
+    private final LiveUpdateService liveUpdateService;
+
+    public LiveController(LiveUpdateService liveUpdateService) {
+        this.liveUpdateService = liveUpdateService;
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the authenticated user's transaction and balance changes.
+     *
+     * <p>The stream starts with a {@code balance} event, followed by {@code transaction-created}
+     * and {@code transaction-deleted} events (each followed by a fresh {@code balance} event) as
+     * changes commit. Clients reconnect when the server closes the stream after
+     * {@code pfm.live.timeout-ms}.</p>
+     *
+     * @return the event stream
+     * @implNote Delegates to {@link LiveUpdateService#subscribe(Long)}.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return liveUpdateService.subscribe(SecurityUtil.getUserId());
+    }
+}
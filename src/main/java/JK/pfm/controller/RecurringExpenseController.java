@@ -1,5 +1,6 @@
 package JK.pfm.controller;
 
+import JK.pfm.dto.CashFlowProjectionDTO;
 import JK.pfm.dto.UpdatePaymentNextDueDateDto;
 import JK.pfm.dto.RecurringExpenseCreation;
 import JK.pfm.dto.UpdatePaymentAmountDto;
@@ -78,6 +79,22 @@ public class RecurringExpenseController {
 
     }
     
+    /**
+     * Projects the authenticated user's account balances under their active recurring expenses.
+     *
+     * <p>Responds with {@code 200 OK} and a {@link CashFlowProjectionDTO} holding each active account's
+     * starting, ending and lowest balance, the first projected overdraft, and the days on which payments
+     * are due. Responds with {@code 400 Bad Request} if {@code months} is not between 1 and 24.</p>
+     *
+     * @param months horizon in months (default 3)
+     * @return {@code ResponseEntity} containing the projection
+     * @implNote Delegates to {@link RecurringExpenseService#getCashFlowProjection(int)}.
+     */
+    @GetMapping("/projection")
+    public ResponseEntity<CashFlowProjectionDTO> getCashFlowProjection(@RequestParam(defaultValue = "3") int months) {
+        return ResponseEntity.ok(recurringExpenseService.getCashFlowProjection(months));
+    }
+
     /**
      * Deletes a recurring expense by its identifier.
      *
@@ -1,18 +1,25 @@
 
 package JK.pfm.controller;
 
+import JK.pfm.config.ConditionalGet;
 import JK.pfm.dto.BalanceBreakdownDTO;
 import JK.pfm.dto.CashFlowDTO;
 import JK.pfm.dto.ChangesVsLastMonthDTO;
 import JK.pfm.dto.DailyTrend;
 import JK.pfm.dto.ExpenseByAccountDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
+import JK.pfm.dto.PeriodComparisonDTO;
 import JK.pfm.dto.filters.DateRangeFilter;
+import JK.pfm.dto.filters.PeriodComparisonFilter;
 import JK.pfm.service.ReportService;
+import JK.pfm.util.SecurityUtil;
+import JK.pfm.util.SingleFlight;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -27,6 +34,12 @@ public class ReportController {
 
     private final ReportService reportService;
 
+    /**
+     * Identical report requests that arrive while one is still computing (several dashboard
+     * tabs, frontend retries) share its result instead of issuing the same queries again.
+     */
+    private final SingleFlight inFlight = new SingleFlight();
+
     public ReportController(ReportService reportService) {
         this.reportService = reportService;
     }
@@ -43,9 +56,11 @@ public class ReportController {
      * @return {@code ResponseEntity} containing the income and expense summary
      * @implNote Delegates to {@link ReportService#getSpendingAndIncomeSummary(DateRangeFilter)}.
      */
+    @ConditionalGet
     @GetMapping("/summary")
     public ResponseEntity<Map<String, BigDecimal>> getSpendingAndIncomeSummary(@Valid @ModelAttribute DateRangeFilter filter) {
-        Map<String, BigDecimal> summary = reportService.getSpendingAndIncomeSummary(filter);
+        Map<String, BigDecimal> summary = coalesce("summary", range(filter),
+            () -> reportService.getSpendingAndIncomeSummary(filter));
         return ResponseEntity.ok(summary);
     }
     
@@ -60,9 +75,11 @@ public class ReportController {
      * @return {@code ResponseEntity} containing expenses grouped by category
      * @implNote Delegates to {@link ReportService#getSpendingByCategory(DateRangeFilter)}.
      */
+    @ConditionalGet
     @GetMapping("/spending-by-category")
     public ResponseEntity<List<ExpenseByCategoryDTO>> getSpendingByCategory(@Valid @ModelAttribute DateRangeFilter filter) {
-        return ResponseEntity.ok(reportService.getSpendingByCategory(filter));
+        return ResponseEntity.ok(coalesce("spending-by-category", range(filter),
+            () -> reportService.getSpendingByCategory(filter)));
     }
     
     /**
@@ -75,9 +92,11 @@ public class ReportController {
      * @return {@code ResponseEntity} containing expenses grouped by account
      * @implNote Delegates to {@link ReportService#getSpendingByAccount(DateRangeFilter)}.
      */
+    @ConditionalGet
     @GetMapping("/spending-by-account")
     public ResponseEntity<List<ExpenseByAccountDTO>> getSpendingByAccount(@Valid @ModelAttribute DateRangeFilter filter) {
-        return ResponseEntity.ok(reportService.getSpendingByAccount(filter));
+        return ResponseEntity.ok(coalesce("spending-by-account", range(filter),
+            () -> reportService.getSpendingByAccount(filter)));
     }
     
     /**
@@ -89,6 +108,7 @@ public class ReportController {
      * @return {@code ResponseEntity} containing the user's total balance
      * @implNote Delegates to {@link ReportService#getTotalUserBalance()}.
      */
+    @ConditionalGet
     @GetMapping("balance")
     public ResponseEntity<BigDecimal> getTotalUserBalance() {
         BigDecimal sum = reportService.getTotalUserBalance();
@@ -105,9 +125,11 @@ public class ReportController {
      * @return {@code ResponseEntity} containing the list of daily trends
      * @implNote Delegates to {@link ReportService#getDailyTrends(DateRangeFilter)}.
      */
+    @ConditionalGet
     @GetMapping("/daily-trends")
     public ResponseEntity<List<DailyTrend>> getDailyTrends(@Valid @ModelAttribute DateRangeFilter filter) {
-        return ResponseEntity.ok(reportService.getDailyTrends(filter));
+        return ResponseEntity.ok(coalesce("daily-trends", range(filter),
+            () -> reportService.getDailyTrends(filter)));
     }
     
     /**
@@ -119,9 +141,10 @@ public class ReportController {
      * @return {@code ResponseEntity} containing monthly cash flow data
      * @implNote Delegates to {@link ReportService#getMonthlyCashFlow()}.
      */
+    @ConditionalGet
     @GetMapping("/monthly-cashflow")
     public ResponseEntity<List<CashFlowDTO>> getMonthlyCashFlow() {
-            List<CashFlowDTO> cashFlowList = reportService.getMonthlyCashFlow();
+            List<CashFlowDTO> cashFlowList = coalesce("monthly-cashflow", null, reportService::getMonthlyCashFlow);
         return ResponseEntity.ok(cashFlowList);
     }
     
@@ -134,9 +157,10 @@ public class ReportController {
      * @return list of {@link BalanceBreakdownDTO} representing the balance breakdown
      * @implNote Delegates to {@link ReportService#getBalanceBreakdown()}.
      */
+    @ConditionalGet
     @GetMapping("/balance-breakdown")
     public List<BalanceBreakdownDTO> getBalanceBreakdown(){
-        List<BalanceBreakdownDTO> breakdown = reportService.getBalanceBreakdown();
+        List<BalanceBreakdownDTO> breakdown = coalesce("balance-breakdown", null, reportService::getBalanceBreakdown);
         return breakdown;
     }
     
@@ -150,9 +174,10 @@ public class ReportController {
      * @return {@code ResponseEntity} containing the historical and predicted spending map
      * @implNote Delegates to {@link ReportService#getExpenseAndPrediction()}.
      */
+    @ConditionalGet
     @GetMapping("/expense-and-prediction")
     public ResponseEntity<Map<String, BigDecimal>> getExpenseAndPrediction(){
-        Map<String, BigDecimal> breakdown = reportService.getExpenseAndPrediction();
+        Map<String, BigDecimal> breakdown = coalesce("expense-and-prediction", null, reportService::getExpenseAndPrediction);
         return ResponseEntity.ok(breakdown);
     }
     
@@ -167,10 +192,12 @@ public class ReportController {
      * @return {@code ResponseEntity} containing spending amounts for the selected category
      * @implNote Delegates to {@link ReportService#getExpenseForCategory(Long)}.
      */
+    @ConditionalGet
     @GetMapping("/expense-for-category")
     public ResponseEntity<Map<String, BigDecimal>> getExpenseByCategory(
         @RequestParam(required = false) Long categoryId){
-        Map<String, BigDecimal> breakdown = reportService.getExpenseForCategory(categoryId);
+        Map<String, BigDecimal> breakdown = coalesce("expense-for-category", categoryId,
+            () -> reportService.getExpenseForCategory(categoryId));
         return ResponseEntity.ok(breakdown);
     }
     
@@ -183,10 +210,58 @@ public class ReportController {
      * @return {@code ResponseEntity} containing balance and spending change data
      * @implNote Delegates to {@link ReportService#getChanges()}.
      */
+    @ConditionalGet
     @GetMapping("/balance-change")
     public ResponseEntity<List<ChangesVsLastMonthDTO>> getAmountChanges(){
-        List<ChangesVsLastMonthDTO> changes = reportService.getChanges();
+        List<ChangesVsLastMonthDTO> changes = coalesce("balance-change", null, reportService::getChanges);
         return ResponseEntity.ok(changes);
     }
+
+    /**
+     * Compares income, expenses and balances between two periods.
+     *
+     * <p>{@code period} is {@code MONTH} (default), {@code YEAR} or {@code CUSTOM}. Custom
+     * periods take {@code startDate} and {@code endDate}, and optionally
+     * {@code previousStartDate} and {@code previousEndDate}.</p>
+     *
+     * <p>Responds with {@code 200 OK} and a {@link PeriodComparisonDTO}, or {@code 400 Bad Request}
+     * for an incomplete or inverted custom range.</p>
+     *
+     * @param filter the period selection
+     * @return {@code ResponseEntity} containing both periods' values per metric
+     * @implNote Delegates to {@link ReportService#comparePeriods(PeriodComparisonFilter)}.
+     */
+    @ConditionalGet
+    @GetMapping("/compare")
+    public ResponseEntity<PeriodComparisonDTO> comparePeriods(@Valid @ModelAttribute PeriodComparisonFilter filter) {
+        PeriodComparisonDTO comparison = coalesce("compare",
+            Arrays.asList(filter.getPeriod(), filter.getStartDate(), filter.getEndDate(),
+                          filter.getPreviousStartDate(), filter.getPreviousEndDate()),
+            () -> reportService.comparePeriods(filter));
+        return ResponseEntity.ok(comparison);
+    }
+
+    /**
+     * Runs a report through {@link #inFlight}, keyed by the authenticated user, the report
+     * name and its parameters. Without an authenticated user the report runs directly.
+     *
+     * @param report report name
+     * @param params request parameters that affect the result, or {@code null}
+     * @param work the report computation
+     * @return the report, possibly computed by a concurrent identical request
+     */
+    private <T> T coalesce(String report, Object params, Supplier<T> work) {
+        Long userId = SecurityUtil.findUserId().orElse(null);
+        if (userId == null) {
+            return work.get();
+        }
+        return inFlight.execute(new ReportKey(userId, report, params), work);
+    }
+
+    private static List<Object> range(DateRangeFilter filter) {
+        return Arrays.asList(filter.getStartDate(), filter.getEndDate());
+    }
+
+    private record ReportKey(Long userId, String report, Object params) {}
 }
 
@@ -154,4 +154,19 @@ public class SavingsGoalController {
     public ResponseEntity<Map<String, BigDecimal>> getNetMonthlyBalance() {
         return ResponseEntity.ok(savingsGoalService.getNetMonthlyBalance());
     }
+
+	/**
+	 * Retrieves one savings goal's net deposits by month.
+	 *
+	 * <p>Responds with {@code 200 OK} and a map keyed by month label, like
+	 * {@link #getNetMonthlyBalance()}, limited to transfers to and from this goal.</p>
+	 *
+	 * @param id the savings goal ID
+	 * @return {@code ResponseEntity} containing the goal's monthly net balance map
+	 * @implNote Delegates to {@link SavingsGoalService#getGoalNetMonthlyBalance(Long)}.
+	 */
+    @GetMapping("/{id}/net-balance")
+    public ResponseEntity<Map<String, BigDecimal>> getGoalNetMonthlyBalance(@PathVariable Long id) {
+        return ResponseEntity.ok(savingsGoalService.getGoalNetMonthlyBalance(id));
+    }
 }
@@ -0,0 +1,38 @@
+package JK.pfm.controller;
+
+import JK.pfm.dto.SyncResponse;
+import JK.pfm.service.SyncService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * Returns the authenticated user's data changed since the given cursor.
+     *
+     * <p>Responds with {@code 200 OK} and a {@link SyncResponse}. Without {@code since} (or with
+     * {@code since=0}) the response is a full snapshot; otherwise it holds only the records
+     * changed after the cursor plus tombstones for deleted ones. Clients keep calling with the
+     * returned cursor while {@code hasMore} is {@code true}.</p>
+     *
+     * @param since cursor from the previous response (optional)
+     * @return {@code ResponseEntity} containing the changes and the next cursor
+     * @implNote Delegates to {@link SyncService#getChanges(Long)}.
+     */
+    @GetMapping
+    public ResponseEntity<SyncResponse> getChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(syncService.getChanges(since));
+    }
+}
@@ -1,6 +1,9 @@
 package JK.pfm.controller;
 
+import JK.pfm.config.ConditionalGet;
 import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.TransactionSearchPage;
+import JK.pfm.dto.filters.TransactionSearchFilter;
 import JK.pfm.model.Transaction;
 import JK.pfm.service.TransactionService;
 import JK.pfm.util.SecurityUtil;
@@ -97,6 +100,7 @@ public class TransactionController {
      * @implNote Delegates to {@link TransactionService#getTransactionsByFilters(LocalDate, LocalDate, Long, Long, Long, String)}
      * using the authenticated user's ID from {@link SecurityUtil#getUserId()}.
      */
+    @ConditionalGet
     @GetMapping
     public ResponseEntity<List<Transaction>> getTransactions(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -115,6 +119,26 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    /**
+     * Searches the authenticated user's transactions by description.
+     *
+     * <p>Every word of {@code q} must start a word of the description, ignoring case. The date
+     * range, category, account and type filters of {@code GET /api/transactions} apply as well.
+     * Results are newest first and paged by keyset: pass the page's {@code nextDate} and
+     * {@code nextId} as {@code afterDate} and {@code afterId} to read the next one.</p>
+     *
+     * <p>Responds with {@code 200 OK} and a {@link TransactionSearchPage}, or
+     * {@code 400 Bad Request} if the search text is missing or a parameter is invalid.</p>
+     *
+     * @param filter search text, optional filters, page cursor and page size (default 50, max 100)
+     * @return {@code ResponseEntity} containing one page of matches
+     * @implNote Delegates to {@link TransactionService#searchTransactions(TransactionSearchFilter)}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<TransactionSearchPage> searchTransactions(@Valid @ModelAttribute TransactionSearchFilter filter) {
+        return ResponseEntity.ok(transactionService.searchTransactions(filter));
+    }
+    
     /**
      * Retrieves the most recent transactions for the authenticated user.
      *
@@ -125,6 +149,7 @@ public class TransactionController {
      * @return {@code ResponseEntity} containing the recent transactions
      * @implNote Delegates to {@link TransactionService#getRecentTransactions()}.
      */
+    @ConditionalGet
     @GetMapping("/recent")
     public ResponseEntity<List<Transaction>> getRecentTransactions() {
         List<Transaction> transactions = transactionService.getRecentTransactions();
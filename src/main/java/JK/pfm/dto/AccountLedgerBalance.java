@@ -0,0 +1,42 @@
+package JK.pfm.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * An account's stored balance next to the balance derived from its transactions
+ * (deposits minus expenses). Used by balance reconciliation.
+ */
+public class AccountLedgerBalance {
+    private Long accountId;
+    private Long userId;
+    private BigDecimal storedBalance;
+    private BigDecimal ledgerBalance;
+
+    public AccountLedgerBalance() {
+
+    }
+
+    public AccountLedgerBalance(Long accountId, Long userId, BigDecimal storedBalance, BigDecimal ledgerBalance) {
+        this.accountId = accountId;
+        this.userId = userId;
+        this.storedBalance = storedBalance;
+        this.ledgerBalance = ledgerBalance;
+    }
+
+    // Getters
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getStoredBalance() {
+        return storedBalance;
+    }
+
+    public BigDecimal getLedgerBalance() {
+        return ledgerBalance;
+    }
+}
@@ -0,0 +1,54 @@
+package JK.pfm.dto;
+
+import JK.pfm.model.Budget;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A budget whose spending crossed an alert threshold.
+ *
+ * <p>Recorded in the outbox as {@code budget-threshold} and pushed from there to the owner's live
+ * stream ({@code budget-alert}) after commit.</p>
+ */
+public class BudgetAlert {
+
+    @JsonIgnore
+    private Long userId;
+    private Long budgetId;
+    private String categoryName;
+    private BigDecimal amount;
+    private BigDecimal spent;
+    private int threshold;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public BudgetAlert() {}
+
+    /**
+     * @param budget the budget, with its updated {@code spent}
+     * @param threshold the crossed threshold in percent of the budget amount
+     * @return the alert
+     */
+    public static BudgetAlert of(Budget budget, int threshold) {
+        BudgetAlert alert = new BudgetAlert();
+        alert.userId       = budget.getUser() != null ? budget.getUser().getId() : null;
+        alert.budgetId     = budget.getId();
+        alert.categoryName = budget.getCategory() != null ? budget.getCategory().getName() : null;
+        alert.amount       = budget.getAmount();
+        alert.spent        = budget.getSpent();
+        alert.threshold    = threshold;
+        alert.startDate    = budget.getStartDate();
+        alert.endDate      = budget.getEndDate();
+        return alert;
+    }
+
+    public Long getUserId() { return userId; }
+    public Long getBudgetId() { return budgetId; }
+    public String getCategoryName() { return categoryName; }
+    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getSpent() { return spent; }
+    public int getThreshold() { return threshold; }
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+}
@@ -4,12 +4,14 @@ package JK.pfm.dto;
 import java.math.BigDecimal;
 
 public class BudgetVsActualDTO {
+    private Long budgetId;
     private String category;
     private BigDecimal budgeted;
     private BigDecimal actual;
     private BigDecimal difference;
 
-    public BudgetVsActualDTO(String category, BigDecimal budgeted, BigDecimal actual) {
+    public BudgetVsActualDTO(Long budgetId, String category, BigDecimal budgeted, BigDecimal actual) {
+        this.budgetId = budgetId;
         this.category = category;
         this.budgeted = budgeted;
         this.actual = actual;
@@ -18,6 +20,14 @@ public class BudgetVsActualDTO {
 
     // Getters and setters
 
+    public Long getBudgetId() {
+        return budgetId;
+    }
+
+    public void setBudgetId(Long budgetId) {
+        this.budgetId = budgetId;
+    }
+
     public String getCategory() {
         return category;
     }
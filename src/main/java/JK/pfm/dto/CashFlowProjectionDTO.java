@@ -0,0 +1,65 @@
+package JK.pfm.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Projected balances of a user's active accounts under their active recurring expenses.
+ *
+ * <p>The calendar is sparse: it only lists the days on which at least one payment is due, with
+ * the balances of the accounts charged that day after all of that day's payments.</p>
+ *
+ * @param from first projected day
+ * @param to last projected day, inclusive
+ * @param accounts one summary per active account
+ * @param days the days with payments, in date order
+ */
+public record CashFlowProjectionDTO(
+    LocalDate from,
+    LocalDate to,
+    List<AccountProjection> accounts,
+    List<ProjectedDay> days
+) {
+
+    /**
+     * @param accountId the account's ID
+     * @param name the account's name
+     * @param startingBalance current balance
+     * @param endingBalance projected balance on the last day
+     * @param lowestBalance lowest projected balance
+     * @param lowestBalanceDate first day the lowest balance is reached, or {@code null} when it
+     *                          is the starting balance
+     * @param overdraftDate first day the balance is projected below zero, or {@code null}
+     */
+    public record AccountProjection(
+        Long accountId,
+        String name,
+        BigDecimal startingBalance,
+        BigDecimal endingBalance,
+        BigDecimal lowestBalance,
+        LocalDate lowestBalanceDate,
+        LocalDate overdraftDate
+    ) {}
+
+    /**
+     * @param date the day
+     * @param payments payments due that day
+     * @param balances balances of the charged accounts at the end of the day
+     */
+    public record ProjectedDay(LocalDate date, List<ProjectedPayment> payments, List<AccountBalance> balances) {}
+
+    /**
+     * @param recurringExpenseId the recurring expense's ID
+     * @param name the recurring expense's name
+     * @param accountId the charged account's ID
+     * @param amount the amount charged
+     */
+    public record ProjectedPayment(Long recurringExpenseId, String name, Long accountId, BigDecimal amount) {}
+
+    /**
+     * @param accountId the account's ID
+     * @param balance the projected balance
+     */
+    public record AccountBalance(Long accountId, BigDecimal balance) {}
+}
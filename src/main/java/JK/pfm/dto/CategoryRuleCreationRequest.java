@@ -0,0 +1,107 @@
+package JK.pfm.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+public class CategoryRuleCreationRequest {
+
+    @NotBlank(message = "Match type missing")
+    @Pattern(
+      regexp = "KEYWORD|PREFIX|REGEX|AMOUNT",
+      message = "Unsupported match type"
+    )
+    private String matchType;
+
+    @Size(max = 255, message = "Pattern too long")
+    private String pattern;
+
+    @PositiveOrZero(message = "Amount cant be negative")
+    private BigDecimal minAmount;
+
+    @PositiveOrZero(message = "Amount cant be negative")
+    private BigDecimal maxAmount;
+
+    private Integer priority;
+
+    @NotNull(message = "Category missing")
+    private Long categoryId;
+
+
+    @AssertTrue(message = "Pattern or amount range missing")
+    public boolean isPatternGiven() {
+        if ("AMOUNT".equals(matchType)) {
+            return minAmount != null || maxAmount != null;
+        }
+        return pattern != null && !pattern.isEmpty();
+    }
+
+    @AssertTrue(message = "Max amount must be greater than or equal to min amount")
+    public boolean isAmountRangeValid() {
+        if (minAmount == null || maxAmount == null) {
+            return true;
+        }
+        return maxAmount.compareTo(minAmount) >= 0;
+    }
+
+    public CategoryRuleCreationRequest() { }
+
+    public CategoryRuleCreationRequest(String matchType, String pattern, Long categoryId) {
+        this.matchType = matchType;
+        this.pattern = pattern;
+        this.categoryId = categoryId;
+    }
+
+    // getters and setters
+    public String getMatchType() {
+        return matchType;
+    }
+
+    public void setMatchType(String matchType) {
+        this.matchType = matchType;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+}
@@ -0,0 +1,83 @@
+package JK.pfm.dto;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.Transaction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A committed transaction change pushed to the owner's live stream ({@code /api/live}).
+ *
+ * <p>Recorded in the outbox by the services that write transactions and pushed by the outbox
+ * dispatcher after the surrounding database transaction commits. {@code accountBalance} is the
+ * balance of the affected account after the change.</p>
+ */
+public class LiveEvent {
+
+    public static final String TRANSACTION_CREATED = "transaction-created";
+    public static final String TRANSACTION_DELETED = "transaction-deleted";
+
+    @JsonIgnore
+    private Long userId;
+    private String event;
+    private Long transactionId;
+    private Long accountId;
+    private String accountName;
+    private BigDecimal accountBalance;
+    private BigDecimal amount;
+    private String type;
+    private LocalDate date;
+    private String description;
+
+    public LiveEvent() {}
+
+    /**
+     * Builds an event from a transaction whose account already holds the updated balance.
+     *
+     * @param event {@link #TRANSACTION_CREATED} or {@link #TRANSACTION_DELETED}
+     * @param transaction the transaction that was created or deleted
+     * @return the event
+     */
+    public static LiveEvent of(String event, Transaction transaction) {
+        Account account = transaction.getAccount();
+        return of(event, transaction, account != null ? account.getAmount() : null);
+    }
+
+    /**
+     * Builds an event with an explicitly computed account balance.
+     *
+     * @param event {@link #TRANSACTION_CREATED} or {@link #TRANSACTION_DELETED}
+     * @param transaction the transaction that was created or deleted
+     * @param accountBalance the affected account's balance after the change
+     * @return the event
+     */
+    public static LiveEvent of(String event, Transaction transaction, BigDecimal accountBalance) {
+        LiveEvent live = new LiveEvent();
+        Account account = transaction.getAccount();
+        if (account != null) {
+            live.userId         = account.getUser() != null ? account.getUser().getId() : null;
+            live.accountId      = account.getId();
+            live.accountName    = account.getName();
+        }
+        live.accountBalance = accountBalance;
+        live.event          = event;
+        live.transactionId  = transaction.getId();
+        live.amount         = transaction.getAmount();
+        live.type           = transaction.getType();
+        live.date           = transaction.getDate();
+        live.description    = transaction.getDescription();
+        return live;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getEvent() { return event; }
+    public Long getTransactionId() { return transactionId; }
+    public Long getAccountId() { return accountId; }
+    public String getAccountName() { return accountName; }
+    public BigDecimal getAccountBalance() { return accountBalance; }
+    public BigDecimal getAmount() { return amount; }
+    public String getType() { return type; }
+    public LocalDate getDate() { return date; }
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,35 @@
+package JK.pfm.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Key figures of two periods side by side.
+ *
+ * <p>Metrics are {@code Income} and {@code Expense} (sums within each period), and
+ * {@code Savings}, {@code totalBalance} and {@code accountBalance} (balances at the end of each
+ * period).</p>
+ *
+ * @param currentStart inclusive start of the current period
+ * @param currentEnd inclusive end of the current period
+ * @param previousStart inclusive start of the previous period
+ * @param previousEnd inclusive end of the previous period
+ * @param metrics one entry per metric
+ */
+public record PeriodComparisonDTO(
+    LocalDate currentStart,
+    LocalDate currentEnd,
+    LocalDate previousStart,
+    LocalDate previousEnd,
+    List<Metric> metrics
+) {
+
+    /**
+     * @param name metric name
+     * @param current value for the current period
+     * @param previous value for the previous period
+     * @param percentage change from previous to current, in whole percent
+     */
+    public record Metric(String name, BigDecimal current, BigDecimal previous, BigDecimal percentage) {}
+}
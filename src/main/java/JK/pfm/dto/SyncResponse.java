@@ -0,0 +1,73 @@
+package JK.pfm.dto;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.RecurringExpense;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.Transaction;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the sync feed.
+ *
+ * <p>Records are the same representations the regular endpoints return. Clients upsert every
+ * listed record by id, remove every record in {@code deleted}, store {@code cursor} and call
+ * again while {@code hasMore} is {@code true}. When {@code full} is {@code true} the page is a
+ * snapshot of all current data and replaces whatever the client holds.</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class SyncResponse {
+    private long cursor;
+    private boolean full;
+    private boolean hasMore;
+    private List<Account> accounts = new ArrayList<>();
+    private List<Transaction> transactions = new ArrayList<>();
+    private List<Budget> budgets = new ArrayList<>();
+    private List<RecurringExpense> recurringExpenses = new ArrayList<>();
+    private List<SavingsGoal> savingsGoals = new ArrayList<>();
+    private List<CategoryListDto> categories = new ArrayList<>();
+    private List<SyncTombstone> deleted = new ArrayList<>();
+
+    public SyncResponse() {}
+
+    public SyncResponse(long cursor, boolean full, boolean hasMore) {
+        this.cursor = cursor;
+        this.full = full;
+        this.hasMore = hasMore;
+    }
+
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    public long getCursor() { return cursor; }
+    public void setCursor(long cursor) { this.cursor = cursor; }
+
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    public boolean isFull() { return full; }
+    public void setFull(boolean full) { this.full = full; }
+
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public List<Account> getAccounts() { return accounts; }
+    public void setAccounts(List<Account> accounts) { this.accounts = accounts; }
+
+    public List<Transaction> getTransactions() { return transactions; }
+    public void setTransactions(List<Transaction> transactions) { this.transactions = transactions; }
+
+    public List<Budget> getBudgets() { return budgets; }
+    public void setBudgets(List<Budget> budgets) { this.budgets = budgets; }
+
+    public List<RecurringExpense> getRecurringExpenses() { return recurringExpenses; }
+    public void setRecurringExpenses(List<RecurringExpense> recurringExpenses) { this.recurringExpenses = recurringExpenses; }
+
+    public List<SavingsGoal> getSavingsGoals() { return savingsGoals; }
+    public void setSavingsGoals(List<SavingsGoal> savingsGoals) { this.savingsGoals = savingsGoals; }
+
+    public List<CategoryListDto> getCategories() { return categories; }
+    public void setCategories(List<CategoryListDto> categories) { this.categories = categories; }
+
+    public List<SyncTombstone> getDeleted() { return deleted; }
+    public void setDeleted(List<SyncTombstone> deleted) { this.deleted = deleted; }
+}
@@ -0,0 +1,32 @@
+package JK.pfm.dto;
+
+/**
+ * A record deleted since the client's cursor.
+ */
+public class SyncTombstone {
+    private String type;
+    private Long id;
+
+    public SyncTombstone() {}
+
+    public SyncTombstone(String type, Long id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
@@ -17,7 +17,7 @@ public class TransactionCreationRequest {
     @PositiveOrZero(message = "Amount cant be negative")
     private BigDecimal amount;
     
-    @NotNull(message = "Category missing")
+    // optional: without it the owner's categorization rules pick one
     private Long categoryId;
     
     @NotBlank(message = "Account missing")
@@ -32,6 +32,9 @@ public class TransactionCreationRequest {
     
     private String description;
     
+    // optional: save even when an identical transaction exists and the duplicate policy would reject it
+    private boolean allowDuplicate;
+    
     
     
     //constructors
@@ -93,5 +96,12 @@ public class TransactionCreationRequest {
     public void setDescription(String description) {
         this.description = description;
     }
-    
+
+    public boolean isAllowDuplicate() {
+        return allowDuplicate;
+    }
+
+    public void setAllowDuplicate(boolean allowDuplicate) {
+        this.allowDuplicate = allowDuplicate;
+    }
 }
@@ -0,0 +1,36 @@
+package JK.pfm.dto;
+
+import JK.pfm.model.Transaction;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of transaction search results, newest first.
+ *
+ * <p>{@code nextDate} and {@code nextId} identify the last transaction on the page and are
+ * passed back as {@code afterDate} and {@code afterId} to read the next one. Both are
+ * {@code null} on the last page.</p>
+ *
+ * @param transactions matching transactions ordered by {@code date DESC, id DESC}
+ * @param nextDate date of the last transaction when more results follow
+ * @param nextId ID of the last transaction when more results follow
+ */
+public record TransactionSearchPage(List<Transaction> transactions, LocalDate nextDate, Long nextId) {
+
+    /**
+     * Builds a page from up to {@code limit + 1} matches; the extra match only signals that
+     * another page follows and is left out.
+     *
+     * @param matches matches in result order
+     * @param limit page size
+     * @return the page
+     */
+    public static TransactionSearchPage of(List<Transaction> matches, int limit) {
+        if (matches.size() <= limit) {
+            return new TransactionSearchPage(matches, null, null);
+        }
+        List<Transaction> page = matches.subList(0, limit);
+        Transaction last = page.get(limit - 1);
+        return new TransactionSearchPage(List.copyOf(page), last.getDate(), last.getId());
+    }
+}
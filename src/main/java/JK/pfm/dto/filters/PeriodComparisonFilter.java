@@ -0,0 +1,103 @@
+package JK.pfm.dto.filters;
+
+import jakarta.validation.constraints.AssertTrue;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Selects the two periods compared by the period comparison report.
+ * <p>
+ * {@code MONTH} compares the current calendar month with the previous one, {@code YEAR} the
+ * current calendar year with the previous one. {@code CUSTOM} compares {@code startDate} to
+ * {@code endDate} with {@code previousStartDate} to {@code previousEndDate}; without a previous
+ * range, the equally long range right before the current one is used.
+ */
+public class PeriodComparisonFilter {
+
+    /** Kind of period pair. */
+    public enum Period { MONTH, YEAR, CUSTOM }
+
+    /** Kind of period pair. (Default {@code MONTH}) */
+    private Period period = Period.MONTH;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    /** Inclusive start of the current period. (Required for {@code CUSTOM}) */
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    /** Inclusive end of the current period. (Required for {@code CUSTOM}) */
+    private LocalDate endDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    /** Inclusive start of the previous period. (Optional, {@code CUSTOM} only) */
+    private LocalDate previousStartDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    /** Inclusive end of the previous period. (Optional, {@code CUSTOM} only) */
+    private LocalDate previousEndDate;
+
+	/**
+	 * Validates the custom ranges.
+	 *
+	 * <p>For {@code CUSTOM}, the current range needs both dates, and the previous range needs
+	 * both or neither. Each range must start on or before its end. Other periods ignore the
+	 * dates.</p>
+	 *
+	 * @return {@code true} if the selection is valid
+	 */
+    @AssertTrue(message = "custom periods need a start and end date, and each start must be on or before its end")
+    public boolean isValidRange() {
+        if (period != Period.CUSTOM) return true;
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) return false;
+        if (previousStartDate == null && previousEndDate == null) return true;
+        return previousStartDate != null && previousEndDate != null
+            && !previousStartDate.isAfter(previousEndDate);
+    }
+
+    public PeriodComparisonFilter() {}
+
+    public PeriodComparisonFilter(Period period) {
+        this.period = period;
+    }
+
+    //getters setters
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period != null ? period : Period.MONTH;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public LocalDate getPreviousStartDate() {
+        return previousStartDate;
+    }
+
+    public void setPreviousStartDate(LocalDate previousStartDate) {
+        this.previousStartDate = previousStartDate;
+    }
+
+    public LocalDate getPreviousEndDate() {
+        return previousEndDate;
+    }
+
+    public void setPreviousEndDate(LocalDate previousEndDate) {
+        this.previousEndDate = previousEndDate;
+    }
+}
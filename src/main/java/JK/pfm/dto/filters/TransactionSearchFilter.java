@@ -0,0 +1,91 @@
+package JK.pfm.dto.filters;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Filter used for searching transactions by description text.
+ * <p>
+ * Extends {@link TransactionFilter}, so the date range, category, account and type filters
+ * apply as well. Results come newest first ({@code date DESC, id DESC}); to read the next page,
+ * pass the {@code nextDate} and {@code nextId} of the previous one as {@code afterDate} and
+ * {@code afterId}.
+ */
+public class TransactionSearchFilter extends TransactionFilter {
+
+    /**
+     * Search text. Every word must start a word of the description, ignoring case;
+     * {@code "net sub"} matches "Netflix subscription".
+     */
+    @NotBlank(message = "Search text missing")
+    @Size(max = 100, message = "Search text too long")
+    private String q;
+
+    /** Date of the last transaction on the previous page (optional). */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate afterDate;
+
+    /** ID of the last transaction on the previous page (optional). */
+    private Long afterId;
+
+    /** Page size, 1 to 100 (default 50). */
+    @Min(value = 1, message = "Limit must be between 1 and 100")
+    @Max(value = 100, message = "Limit must be between 1 and 100")
+    private int limit = 50;
+
+    public TransactionSearchFilter() {
+        super();
+    }
+
+    public TransactionSearchFilter(String q) {
+        this.q = q;
+    }
+
+    /**
+     * Validates that the page cursor is either complete or absent.
+     *
+     * @return {@code true} if both or neither of {@code afterDate} and {@code afterId} are set
+     */
+    @AssertTrue(message = "afterDate and afterId must be given together")
+    public boolean isCursorComplete() {
+        return (afterDate == null) == (afterId == null);
+    }
+
+    //getters setters
+    public String getQ() {
+        return q;
+    }
+
+    public void setQ(String q) {
+        this.q = q;
+    }
+
+    public LocalDate getAfterDate() {
+        return afterDate;
+    }
+
+    public void setAfterDate(LocalDate afterDate) {
+        this.afterDate = afterDate;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -39,7 +39,7 @@ import org.springframework.web.server.ResponseStatusException;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
-  record ApiError(String message, String path, LocalDateTime timestamp) {}
+  public record ApiError(String message, String path, LocalDateTime timestamp) {}
 
     /**
    * Handles bean-validation errors thrown by {@code @Valid} annotated parameters or DTOs.
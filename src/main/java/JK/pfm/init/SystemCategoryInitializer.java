@@ -74,9 +74,9 @@ public class SystemCategoryInitializer implements CommandLineRunner {
         if (existing.isPresent()) {
             Category cat = existing.get();
             // If the flag is wrong, correct it
+            // categories are cached read-only, so the flag is corrected with a bulk update
             if (cat.getIsDefault() != isDefault) {
-                cat.setIsDefault(isDefault);
-                categoryRepo.save(cat);
+                categoryRepo.updateIsDefault(cat.getId(), isDefault);
             }
         } else {
             Category cat = new Category();
@@ -0,0 +1,123 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Transaction moved out of the live {@code transactions} table by the archival job.
+ *
+ * <p>Keeps the transaction's original ID and columns, so archived rows can be returned as
+ * {@link Transaction}s and all-history sums can add them back. Archived transactions are
+ * read-only. On MySQL the table is switched to {@code ROW_FORMAT=COMPRESSED} by
+ * {@link JK.pfm.service.TransactionPartitionMaintenance}.</p>
+ */
+@Entity
+@Table(name = "transactions_archive",
+    indexes = {
+        @Index(name = "idx_transactions_archive_account_date", columnList = "account_id, date"),
+        @Index(name = "idx_transactions_archive_date", columnList = "date")
+    })
+public class ArchivedTransaction {
+
+    // same ID the row had in the live table
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private BigDecimal amount;
+
+    @ManyToOne
+    @JoinColumn(name = "category_id")
+    private Category category;
+
+    @ManyToOne
+    @JoinColumn(name = "account_id")
+    private Account account;
+
+    private String type;
+
+    private String description;
+
+    // savings goal link of the live row; cleared when the goal is deleted
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "savings_goal_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private SavingsGoal savingsGoal;
+
+    // duplicate detection fingerprint of the live row
+    private Long fingerprint;
+
+    @Column(name = "possible_duplicate")
+    private Boolean possibleDuplicate;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public ArchivedTransaction() {
+    }
+
+    /**
+     * Returns a detached {@link Transaction} with this row's values, for read paths that merge
+     * live and archived data.
+     */
+    public Transaction toTransaction() {
+        Transaction transaction = new Transaction(date, amount, account, category, type, description);
+        transaction.setId(id);
+        transaction.setSavingsGoal(savingsGoal);
+        transaction.setFingerprint(fingerprint);
+        transaction.setPossibleDuplicate(possibleDuplicate);
+        return transaction;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public SavingsGoal getSavingsGoal() {
+        return savingsGoal;
+    }
+
+    public Long getFingerprint() {
+        return fingerprint;
+    }
+
+    public Boolean getPossibleDuplicate() {
+        return possibleDuplicate;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
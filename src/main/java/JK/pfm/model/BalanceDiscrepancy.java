@@ -0,0 +1,87 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account whose stored balance did not match its transaction ledger when reconciliation
+ * ran. {@code corrected} is set when the balance was reset to the ledger value.
+ */
+@Entity
+@Table(name = "balance_discrepancies",
+    indexes = @Index(name = "idx_balance_discrepancies_account", columnList = "account_id"))
+public class BalanceDiscrepancy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "stored_balance", nullable = false)
+    private BigDecimal storedBalance;
+
+    @Column(name = "ledger_balance", nullable = false)
+    private BigDecimal ledgerBalance;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(nullable = false)
+    private boolean corrected;
+
+    // Constructors
+    public BalanceDiscrepancy() {
+    }
+
+    public BalanceDiscrepancy(Long accountId, Long userId, BigDecimal storedBalance,
+                              BigDecimal ledgerBalance, LocalDateTime detectedAt, boolean corrected) {
+        this.accountId = accountId;
+        this.userId = userId;
+        this.storedBalance = storedBalance;
+        this.ledgerBalance = ledgerBalance;
+        this.detectedAt = detectedAt;
+        this.corrected = corrected;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getStoredBalance() {
+        return storedBalance;
+    }
+
+    public BigDecimal getLedgerBalance() {
+        return ledgerBalance;
+    }
+
+    /**
+     * @return stored minus ledger balance
+     */
+    public BigDecimal getDifference() {
+        return storedBalance.subtract(ledgerBalance);
+    }
+
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+
+    public boolean isCorrected() {
+        return corrected;
+    }
+}
@@ -0,0 +1,78 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable balance delta in the balance journal ({@code pfm.balance.journal.enabled=true}).
+ *
+ * <p>{@code Account.amount} is the checkpoint; an account's balance is the checkpoint plus the
+ * deltas that are not yet {@code applied}. Credits are appended without touching the account
+ * row and are folded into the checkpoint later by the compactor. Debits are applied to the
+ * checkpoint immediately under a row lock, so the funds check stays correct, and are recorded
+ * with {@code applied = true}. Rows are never deleted and form the account's audit trail.</p>
+ */
+@Entity
+@Table(name = "balance_journal",
+    indexes = @Index(name = "idx_balance_journal_account_applied", columnList = "account_id, applied"))
+public class BalanceEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(nullable = false)
+    private BigDecimal delta;
+
+    // source transaction; kept as a plain id so the audit trail survives transaction deletes
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private boolean applied;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public BalanceEntry() {
+    }
+
+    public BalanceEntry(Account account, BigDecimal delta, Long transactionId, boolean applied, LocalDateTime createdAt) {
+        this.account = account;
+        this.delta = delta;
+        this.transactionId = transactionId;
+        this.applied = applied;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public BigDecimal getDelta() {
+        return delta;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,87 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A user's account and savings balances at the end of a month, stored by
+ * {@link JK.pfm.service.BalanceSnapshotScheduler} so period comparisons do not have to
+ * recompute historical balances from the ledger.
+ */
+@Entity
+@Table(name = "balance_snapshots",
+    uniqueConstraints = @UniqueConstraint(name = "uk_balance_snapshots_user_month",
+        columnNames = {"user_id", "month_end"}))
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** Last day of the month the balances belong to. */
+    @Column(name = "month_end", nullable = false)
+    private LocalDate monthEnd;
+
+    /** Total of the user's active accounts at the end of {@code monthEnd}. */
+    @Column(name = "accounts_balance", nullable = false)
+    private BigDecimal accountsBalance;
+
+    /** Total of the user's savings goals at the end of {@code monthEnd}. */
+    @Column(name = "savings_balance", nullable = false)
+    private BigDecimal savingsBalance;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    // Constructors
+    public BalanceSnapshot() {
+    }
+
+    public BalanceSnapshot(Long userId, LocalDate monthEnd) {
+        this.userId = userId;
+        this.monthEnd = monthEnd;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getMonthEnd() {
+        return monthEnd;
+    }
+
+    public BigDecimal getAccountsBalance() {
+        return accountsBalance;
+    }
+
+    public BigDecimal getSavingsBalance() {
+        return savingsBalance;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    // Setters
+    public void setAccountsBalance(BigDecimal accountsBalance) {
+        this.accountsBalance = accountsBalance;
+    }
+
+    public void setSavingsBalance(BigDecimal savingsBalance) {
+        this.savingsBalance = savingsBalance;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+}
@@ -21,6 +21,15 @@ public class Budget {
     private LocalDate endDate;
     
     private Boolean monthly = false;
+
+    // running total of expenses in the budget's category and window, kept by BudgetTracker;
+    // null until the startup backfill has run for budgets created before tracking existed
+    private BigDecimal spent;
+
+    // highest alert threshold (percent) already reported; null when not yet evaluated
+    @JsonIgnore
+    @Column(name = "alert_level")
+    private Integer alertLevel;
     
     
     @ManyToOne
@@ -84,6 +93,22 @@ public class Budget {
         this.endDate = endDate;
     }
 
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    public void setSpent(BigDecimal spent) {
+        this.spent = spent;
+    }
+
+    public Integer getAlertLevel() {
+        return alertLevel;
+    }
+
+    public void setAlertLevel(Integer alertLevel) {
+        this.alertLevel = alertLevel;
+    }
+
     public Category getCategory() {
         return category;
     }
@@ -0,0 +1,141 @@
+package JK.pfm.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * A user's rule for picking the category of a transaction created without one.
+ *
+ * <p>{@code KEYWORD} matches when the description contains the pattern, {@code PREFIX} when it
+ * starts with it (both case-insensitive), {@code REGEX} when the regular expression is found in
+ * it, and {@code AMOUNT} on the amount alone. The optional amount range narrows any rule. Of
+ * several matching rules, the lowest priority wins, then the oldest rule.</p>
+ */
+@Entity
+@Table(name = "category_rules",
+    indexes = @Index(name = "idx_category_rules_user", columnList = "user_id"))
+public class CategoryRule {
+
+    public static final String KEYWORD = "KEYWORD";
+    public static final String PREFIX  = "PREFIX";
+    public static final String REGEX   = "REGEX";
+    public static final String AMOUNT  = "AMOUNT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "match_type", nullable = false)
+    private String matchType;
+
+    private String pattern;
+
+    /** Inclusive lower bound of the amount, or {@code null}. */
+    @Column(name = "min_amount")
+    private BigDecimal minAmount;
+
+    /** Inclusive upper bound of the amount, or {@code null}. */
+    @Column(name = "max_amount")
+    private BigDecimal maxAmount;
+
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    // bumped on every update, so cached matchers notice edits
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    @ManyToOne
+    @JoinColumn(name = "category_id", nullable = false)
+    private Category category;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    // Constructors
+    public CategoryRule() { }
+
+    public CategoryRule(String matchType, String pattern, Category category, User user) {
+        this.matchType = matchType;
+        this.pattern = pattern;
+        this.category = category;
+        this.user = user;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMatchType() {
+        return matchType;
+    }
+
+    public void setMatchType(String matchType) {
+        this.matchType = matchType;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
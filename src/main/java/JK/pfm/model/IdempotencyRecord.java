@@ -0,0 +1,146 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a mutating request sent with an {@code Idempotency-Key} header, one row per user
+ * and key.
+ *
+ * <p>The row is inserted before the request executes, without a response, and the unique key
+ * on {@code (user_id, idem_key)} lets exactly one node claim it. Once the request has finished
+ * the response is stored in the row, and retries with the same key receive that response
+ * instead of executing again. {@code requestHash} identifies the request (method, URI and body),
+ * so a key reused for a different request can be told apart.</p>
+ *
+ * <p>{@code executed} is set in the same database transaction as the request's own writes, so
+ * it tells whether the request took effect even when its response was never stored.</p>
+ */
+@Entity
+@Table(name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idem_key"}),
+    indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idem_key", nullable = false, length = 255)
+    private String idemKey;
+
+    // hex SHA-256 of method, URI and body
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // committed together with the request's writes
+    @Column(nullable = false)
+    private boolean executed;
+
+    // null while the request is executing
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 255)
+    private String contentType;
+
+    @Column(length = 1000)
+    private String location;
+
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(Long userId, String idemKey, String requestHash, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.idemKey = idemKey;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return {@code true} once the response has been stored
+     */
+    public boolean isCompleted() {
+        return responseStatus != null;
+    }
+
+    /**
+     * @return {@code true} once a write of the request has committed
+     */
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    /**
+     * Records that a write of the request has committed.
+     */
+    public void markExecuted() {
+        this.executed = true;
+    }
+
+    /**
+     * Stores the response of the finished request.
+     */
+    public void complete(int responseStatus, String contentType, String location, byte[] responseBody) {
+        this.responseStatus = responseStatus;
+        this.contentType = contentType;
+        this.location = location;
+        this.responseBody = responseBody;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getIdemKey() {
+        return idemKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
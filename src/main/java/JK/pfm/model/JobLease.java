@@ -0,0 +1,65 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease on a scheduled job, one row per job name.
+ *
+ * <p>A node may run the job while it holds an unexpired lease. Every successful acquisition
+ * increments {@code fencingToken}. A node whose lease expired and was taken over therefore holds
+ * a stale token, and its writes are rejected by the fence check.</p>
+ */
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 128)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "acquired_at")
+    private LocalDateTime acquiredAt;
+
+    // Constructors
+    public JobLease() {
+    }
+
+    /**
+     * Creates an expired lease that the first caller can acquire.
+     */
+    public JobLease(String name) {
+        this.name = name;
+        this.leaseUntil = LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+}
@@ -0,0 +1,122 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * History entry for one run of a leased scheduled job.
+ *
+ * <p>A row is written with status {@code RUNNING} when the job starts. It is completed with
+ * duration, processed item count and any error when the job ends. A row that stays
+ * {@code RUNNING} marks a node that died mid-run.</p>
+ */
+@Entity
+@Table(name = "job_runs",
+    indexes = @Index(name = "idx_job_runs_job_started", columnList = "job_name, started_at"))
+public class JobRun {
+
+    public static final String RUNNING   = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED    = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false, length = 64)
+    private String jobName;
+
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    // null when the job does not report a count
+    @Column(name = "items_processed")
+    private Integer itemsProcessed;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(length = 1000)
+    private String error;
+
+    // Constructors
+    public JobRun() {
+    }
+
+    public JobRun(String jobName, String owner, long fencingToken, LocalDateTime startedAt) {
+        this.jobName = jobName;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+        this.startedAt = startedAt;
+        this.status = RUNNING;
+    }
+
+    /**
+     * Completes the run.
+     *
+     * @param finishedAt end time
+     * @param itemsProcessed items reported by the job, or {@code null}
+     * @param error the failure, or {@code null} on success
+     */
+    public void finish(LocalDateTime finishedAt, Integer itemsProcessed, String error) {
+        this.finishedAt = finishedAt;
+        this.durationMs = Duration.between(startedAt, finishedAt).toMillis();
+        this.itemsProcessed = itemsProcessed;
+        this.error = error;
+        this.status = error == null ? SUCCEEDED : FAILED;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public Integer getItemsProcessed() {
+        return itemsProcessed;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,147 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event recorded in the transactional outbox.
+ *
+ * <p>Rows are inserted in the same database transaction as the write they describe, so an event
+ * exists if and only if the write committed. The outbox dispatcher claims pending rows in
+ * batches, hands them to in-process listeners and marks them {@code processed}. Delivery is
+ * at-least-once: a listener may see the same event again after a crash or a failed attempt and
+ * must be idempotent (the {@code id} is a stable deduplication key).</p>
+ */
+@Entity
+@Table(name = "outbox_events",
+    indexes = {
+        @Index(name = "idx_outbox_events_pending", columnList = "processed_at, id"),
+        @Index(name = "idx_outbox_events_claim", columnList = "claim_token")
+    })
+public class OutboxEvent {
+
+    public static final String TRANSACTION_CREATED = "transaction-created";
+    public static final String TRANSACTION_DELETED = "transaction-deleted";
+    public static final String ACCOUNT_CLOSED      = "account-closed";
+    public static final String SAVINGS_TRANSFER    = "savings-transfer";
+    public static final String BUDGET_THRESHOLD    = "budget-threshold";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    // JSON document; its shape depends on the event type
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // earliest time of the next delivery attempt, pushed back after a failure
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // true when delivery was given up after the maximum number of attempts
+    @Column(nullable = false)
+    private boolean failed;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Constructors
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(Long userId, String eventType, Long aggregateId, String payload, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.availableAt = createdAt;
+    }
+
+    /**
+     * @param now the current time
+     * @return {@code true} if the event is neither claimed nor waiting for a retry
+     */
+    public boolean isAvailable(LocalDateTime now) {
+        return processedAt == null
+            && (claimedUntil == null || claimedUntil.isBefore(now))
+            && !availableAt.isAfter(now);
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -1,12 +1,15 @@
 package JK.pfm.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 
 @Entity
 @Table(name = "savings_goals")
+// transactions link goals lazily, so a goal in a response may be the session's proxy
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SavingsGoal {
 
     //Variables
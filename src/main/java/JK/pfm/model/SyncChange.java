@@ -0,0 +1,81 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Last change to a single user-owned record, as seen by the sync feed.
+ *
+ * <p>There is one row per (user, entity type, entity id); a later change overwrites
+ * {@code seq} and {@code deleted}, so the feed stays proportional to the number of changed
+ * records rather than the number of writes. Deletions are kept as tombstones
+ * ({@code deleted = true}).</p>
+ */
+@Entity
+@Table(name = "sync_changes",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "entity_type", "entity_id"}),
+    indexes = @Index(name = "idx_sync_changes_user_seq", columnList = "user_id, seq"))
+public class SyncChange {
+
+    public static final String ACCOUNT           = "account";
+    public static final String TRANSACTION       = "transaction";
+    public static final String BUDGET            = "budget";
+    public static final String RECURRING_EXPENSE = "recurringExpense";
+    public static final String SAVINGS_GOAL      = "savingsGoal";
+    public static final String CATEGORY          = "category";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    // Constructors
+    public SyncChange() {
+    }
+
+    public SyncChange(Long userId, String entityType, Long entityId, long seq, boolean deleted) {
+        this.userId = userId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.seq = seq;
+        this.deleted = deleted;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
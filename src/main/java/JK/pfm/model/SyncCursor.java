@@ -0,0 +1,44 @@
+package JK.pfm.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Latest change sequence number handed out to a user.
+ *
+ * <p>The row is incremented inside every transaction that changes the user's data, so it also
+ * acts as a per-user lock: sequence numbers are committed in the order they are allocated and a
+ * client reading {@code seq > cursor} never skips a change that commits later.</p>
+ */
+@Entity
+@Table(name = "sync_cursors")
+public class SyncCursor {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    // Constructors
+    public SyncCursor() {
+    }
+
+    public SyncCursor(Long userId, long seq) {
+        this.userId = userId;
+        this.seq = seq;
+    }
+
+    // Getters & Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+}
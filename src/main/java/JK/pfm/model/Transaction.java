@@ -1,14 +1,22 @@
 
 package JK.pfm.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+    indexes = {
+        @Index(name = "idx_transactions_savings_goal_date", columnList = "savings_goal_id, date"),
+        @Index(name = "idx_transactions_account_fingerprint", columnList = "account_id, fingerprint")
+    })
 public class Transaction {
 
     //Variables
@@ -34,6 +42,22 @@ public class Transaction {
     
     private String description;
 
+    // savings goal a fund transfer moved money to or from; cleared when the goal is deleted
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "savings_goal_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    @JsonIgnore
+    private SavingsGoal savingsGoal;
+
+    // hash of account, date, amount, type and normalized description, for duplicate detection
+    @JsonIgnore
+    private Long fingerprint;
+
+    // set when the duplicate policy flags the transaction; null otherwise
+    @Column(name = "possible_duplicate")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean possibleDuplicate;
+
     // Constructors
     public Transaction() {
     }
@@ -103,4 +127,28 @@ public class Transaction {
     public void setDescription(String description){
         this.description = description;
     }
+
+    public SavingsGoal getSavingsGoal(){
+        return savingsGoal;
+    }
+
+    public void setSavingsGoal(SavingsGoal savingsGoal){
+        this.savingsGoal = savingsGoal;
+    }
+
+    public Long getFingerprint(){
+        return fingerprint;
+    }
+
+    public void setFingerprint(Long fingerprint){
+        this.fingerprint = fingerprint;
+    }
+
+    public Boolean getPossibleDuplicate(){
+        return possibleDuplicate;
+    }
+
+    public void setPossibleDuplicate(Boolean possibleDuplicate){
+        this.possibleDuplicate = possibleDuplicate;
+    }
 }
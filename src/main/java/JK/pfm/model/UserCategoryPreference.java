@@ -1,11 +1,15 @@
 package JK.pfm.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "user_category_preference", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "category_id"})
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pfm.userCategoryPreference")
 public class UserCategoryPreference {
 
     @Id
@@ -3,11 +3,15 @@ package JK.pfm.repository;
 
 
 
+import JK.pfm.dto.AccountLedgerBalance;
+import JK.pfm.dto.BalanceBreakdownDTO;
 import JK.pfm.model.Account;
+import jakarta.persistence.LockModeType;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -16,14 +20,20 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 	/**
 	 * Returns the total balance across all active accounts belonging to the specified user.
 	 *
-	 * <p>Accounts marked as inactive are excluded from the calculation.
-	 * If no active accounts exist, returns {@code 0}.</p>
+	 * <p>Accounts marked as inactive are excluded from the calculation. Balance journal deltas
+	 * that are not yet compacted are included. If no active accounts exist, returns {@code 0}.</p>
 	 *
 	 * @param userId the ID of the user
 	 * @return total active balance as a {@link BigDecimal}
 	 */
     @Query("""
-      SELECT COALESCE(SUM(a.amount), 0)
+      SELECT COALESCE(SUM(a.amount), 0) + COALESCE((
+          SELECT SUM(e.delta)
+          FROM BalanceEntry e
+          WHERE e.account.user.id = :userId
+            AND e.account.active = true
+            AND e.applied = false
+        ), 0)
       FROM Account a
       WHERE a.user.id = :userId
         AND a.active = true
@@ -63,6 +73,171 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 	 * @return list of active {@link Account} objects belonging to the user
 	 */
     List<Account> findByUserIdAndActiveTrue(Long userId);
-}
 
+	/**
+	 * Loads an account and locks its row until the transaction ends, so concurrent balance
+	 * updates wait.
+	 *
+	 * @param id the account's ID
+	 * @return an {@link Optional} containing the locked account if found
+	 */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+	/**
+	 * Returns the highest account ID, or {@code null} when there are no accounts.
+	 *
+	 * @return the maximum account ID
+	 */
+    @Query("SELECT MAX(a.id) FROM Account a")
+    Long findMaxId();
+
+	/**
+	 * Compares stored balances with the transaction ledger for a range of account IDs.
+	 *
+	 * <p>The ledger balance is the sum of deposits minus expenses, including archived
+	 * transactions; the stored balance includes balance journal deltas that are not yet
+	 * compacted. Balances are compared and summed in a single grouped query, so no entities are
+	 * loaded. Only accounts whose stored balance
+	 * differs from the ledger are returned, including inactive ones.</p>
+	 *
+	 * @param fromId inclusive lower account ID
+	 * @param toId inclusive upper account ID
+	 * @return list of {@link AccountLedgerBalance} rows that do not match
+	 */
+    @Query("""
+      SELECT new JK.pfm.dto.AccountLedgerBalance(
+        a.id,
+        a.user.id,
+        a.amount + COALESCE((
+          SELECT SUM(e.delta) FROM BalanceEntry e WHERE e.account = a AND e.applied = false
+        ), 0),
+        COALESCE(SUM(
+          CASE
+            WHEN t.type = 'Deposit' THEN t.amount
+            WHEN t.type = 'Expense' THEN -t.amount
+            ELSE 0
+          END
+        ), 0) + COALESCE((
+          SELECT SUM(
+            CASE
+              WHEN x.type = 'Deposit' THEN x.amount
+              WHEN x.type = 'Expense' THEN -x.amount
+              ELSE 0
+            END)
+          FROM ArchivedTransaction x WHERE x.account = a
+        ), 0)
+      )
+      FROM Account a
+      LEFT JOIN Transaction t ON t.account = a
+      WHERE a.id BETWEEN :fromId AND :toId
+      GROUP BY a.id, a.user.id, a.amount
+      HAVING a.amount + COALESCE((
+          SELECT SUM(e.delta) FROM BalanceEntry e WHERE e.account = a AND e.applied = false
+        ), 0) <> COALESCE(SUM(
+          CASE
+            WHEN t.type = 'Deposit' THEN t.amount
+            WHEN t.type = 'Expense' THEN -t.amount
+            ELSE 0
+          END
+        ), 0) + COALESCE((
+          SELECT SUM(
+            CASE
+              WHEN x.type = 'Deposit' THEN x.amount
+              WHEN x.type = 'Expense' THEN -x.amount
+              ELSE 0
+            END)
+          FROM ArchivedTransaction x WHERE x.account = a
+        ), 0)
+    """)
+    List<AccountLedgerBalance> findLedgerMismatches(
+        @Param("fromId") Long fromId,
+        @Param("toId")   Long toId
+    );
+
+	/**
+	 * Reads one account's stored balance (including pending journal deltas) and ledger balance
+	 * in a single statement, so both come from the same snapshot.
+	 *
+	 * @param accountId the account's ID
+	 * @return the balances, or empty if the account does not exist
+	 */
+    @Query("""
+      SELECT new JK.pfm.dto.AccountLedgerBalance(
+        a.id,
+        a.user.id,
+        a.amount + COALESCE((
+          SELECT SUM(e.delta) FROM BalanceEntry e WHERE e.account = a AND e.applied = false
+        ), 0),
+        COALESCE(SUM(
+          CASE
+            WHEN t.type = 'Deposit' THEN t.amount
+            WHEN t.type = 'Expense' THEN -t.amount
+            ELSE 0
+          END
+        ), 0) + COALESCE((
+          SELECT SUM(
+            CASE
+              WHEN x.type = 'Deposit' THEN x.amount
+              WHEN x.type = 'Expense' THEN -x.amount
+              ELSE 0
+            END)
+          FROM ArchivedTransaction x WHERE x.account = a
+        ), 0)
+      )
+      FROM Account a
+      LEFT JOIN Transaction t ON t.account = a
+      WHERE a.id = :accountId
+      GROUP BY a.id, a.user.id, a.amount
+    """)
+    Optional<AccountLedgerBalance> findLedgerBalance(@Param("accountId") Long accountId);
+
+	/**
+	 * Returns the name and balance of each active account of a user. Balances include
+	 * balance journal deltas that are not yet compacted.
+	 *
+	 * @param userId the owner's user ID
+	 * @return list of {@link BalanceBreakdownDTO} rows, one per active account
+	 */
+    @Query("""
+      SELECT new JK.pfm.dto.BalanceBreakdownDTO(
+        a.name,
+        a.amount + COALESCE((
+          SELECT SUM(e.delta) FROM BalanceEntry e WHERE e.account = a AND e.applied = false
+        ), 0)
+      )
+      FROM Account a
+      WHERE a.user.id = :userId
+        AND a.active = true
+    """)
+    List<BalanceBreakdownDTO> findBalanceBreakdownByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Returns the ID, name and balance of each active account of a user, ordered by ID.
+	 * Balances include balance journal deltas that are not yet compacted.
+	 *
+	 * @param userId the owner's user ID
+	 * @return rows of {@code [id, name, balance]}
+	 */
+    @Query("""
+      SELECT a.id, a.name,
+        a.amount + COALESCE((
+          SELECT SUM(e.delta) FROM BalanceEntry e WHERE e.account = a AND e.applied = false
+        ), 0)
+      FROM Account a
+      WHERE a.user.id = :userId
+        AND a.active = true
+      ORDER BY a.id
+    """)
+    List<Object[]> findActiveBalancesByUserId(@Param("userId") Long userId);
 
+	/**
+	 * Reads the names of the given accounts.
+	 *
+	 * @param ids account IDs
+	 * @return rows of {@code [id, name]}
+	 */
+    @Query("SELECT a.id, a.name FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findNamesByIdIn(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,323 @@
+package JK.pfm.repository;
+
+import JK.pfm.dto.ExpenseByAccountDTO;
+import JK.pfm.dto.ExpenseByCategoryDTO;
+import JK.pfm.model.ArchivedTransaction;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+
+	/**
+	 * Copies live transactions into the archive, keeping their IDs. The caller deletes the
+	 * originals in the same transaction.
+	 *
+	 * @param ids IDs of the live transactions to copy
+	 * @param archivedAt archive timestamp
+	 * @return number of rows inserted
+	 */
+    @Modifying
+    @Query("""
+      INSERT INTO ArchivedTransaction (id, date, amount, category, account, type, description,
+                                       savingsGoal, fingerprint, possibleDuplicate, archivedAt)
+      SELECT t.id, t.date, t.amount, t.category, t.account, t.type, t.description,
+             t.savingsGoal, t.fingerprint, t.possibleDuplicate, :archivedAt
+      FROM Transaction t
+      WHERE t.id IN :ids
+    """)
+    int copyFromLive(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#clearSavingsGoal}.
+	 *
+	 * @param savingsGoalId the savings goal's ID
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("UPDATE ArchivedTransaction a SET a.savingsGoal = NULL WHERE a.savingsGoal.id = :savingsGoalId")
+    int clearSavingsGoal(@Param("savingsGoalId") Long savingsGoalId);
+
+	/**
+	 * Finds a user's archived transactions matching the optional filters; a {@code null}
+	 * filter matches everything.
+	 *
+	 * <p>Ordered like the live transaction list: {@code date DESC, id DESC}.</p>
+	 *
+	 * @param userId the owner's user ID
+	 * @param start inclusive start date, or {@code null}
+	 * @param end inclusive end date, or {@code null}
+	 * @param categoryId category filter, or {@code null}
+	 * @param accountId account filter, or {@code null}
+	 * @param type transaction type filter, or {@code null}
+	 * @return matching archived rows
+	 */
+    @Query("""
+      SELECT a
+      FROM ArchivedTransaction a
+      WHERE a.account.user.id = :userId
+        AND (:start      IS NULL OR a.date        >= :start)
+        AND (:end        IS NULL OR a.date        <= :end)
+        AND (:categoryId IS NULL OR a.category.id  = :categoryId)
+        AND (:accountId  IS NULL OR a.account.id   = :accountId)
+        AND (:type       IS NULL OR a.type         = :type)
+      ORDER BY a.date DESC, a.id DESC
+    """)
+    List<ArchivedTransaction> findByFilters(
+        @Param("userId")     Long userId,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end,
+        @Param("categoryId") Long categoryId,
+        @Param("accountId")  Long accountId,
+        @Param("type")       String type
+    );
+
+	/**
+	 * Archived counterpart of {@link BudgetRepository#sumExpensesInWindow}.
+	 *
+	 * @param userId the owner's user ID
+	 * @param categoryId the budget's category ID
+	 * @param startDate the start of the window (inclusive)
+	 * @param endDate the end of the window (inclusive)
+	 * @return total spent, or {@code 0}
+	 */
+    @Query("""
+      SELECT COALESCE(SUM(a.amount), 0)
+      FROM ArchivedTransaction a
+      WHERE a.account.user.id = :userId
+        AND a.category.id = :categoryId
+        AND a.type = 'Expense'
+        AND a.date BETWEEN :startDate AND :endDate
+    """)
+    BigDecimal sumExpensesInWindow(
+        @Param("userId") Long userId,
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#sumByTypeAndDate}, with the same
+	 * exclusions.
+	 *
+	 * @param type the transaction type
+	 * @param accountIds list of account IDs to include
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return sum, or {@code 0} if none
+	 */
+    @Query("""
+      SELECT COALESCE(SUM(a.amount), 0)
+      FROM ArchivedTransaction a
+      WHERE a.type            = :type
+        AND a.account.id      IN :accountIds
+        AND a.date            BETWEEN :start AND :end
+        AND LOWER(a.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND a.description NOT IN (
+            'Deposit to savings', 'Withdraw from savings'
+        )
+    """)
+    BigDecimal sumByTypeAndDate(
+        @Param("type")       String type,
+        @Param("accountIds") List<Long> accountIds,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#sumByTypeAndDateAndCategory}.
+	 *
+	 * @param type the transaction type
+	 * @param accountIds list of account IDs to include
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @param categoryId the target category ID
+	 * @return sum, or {@code 0} if none
+	 */
+    @Query("""
+      SELECT COALESCE(SUM(a.amount), 0)
+      FROM ArchivedTransaction a
+      WHERE a.type            = :type
+        AND a.account.id      IN :accountIds
+        AND a.date            BETWEEN :start AND :end
+        AND LOWER(a.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND a.category.id     = :categoryId
+        AND a.description NOT IN (
+            'Deposit to savings', 'Withdraw from savings'
+        )
+    """)
+    BigDecimal sumByTypeAndDateAndCategory(
+        @Param("type")       String type,
+        @Param("accountIds") List<Long> accountIds,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end,
+        @Param("categoryId") Long categoryId
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#existsByAccountIdInAndDateBetween}.
+	 *
+	 * @param accountIds list of account IDs to check
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return {@code true} if at least one archived transaction exists
+	 */
+    boolean existsByAccountIdInAndDateBetween(
+        List<Long> accountIds,
+        LocalDate start,
+        LocalDate end
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#findExpensesByCategory}.
+	 *
+	 * @param accountIds list of account IDs to include
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return list of {@link ExpenseByCategoryDTO} rows
+	 */
+    @Query("""
+      SELECT new JK.pfm.dto.ExpenseByCategoryDTO(
+        a.category.name,
+        COALESCE(SUM(a.amount), 0)
+      )
+      FROM ArchivedTransaction a
+      WHERE a.type = 'Expense'
+        AND a.account.id IN :accountIds
+        AND LOWER(a.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND a.date BETWEEN :start AND :end
+      GROUP BY a.category.name
+    """)
+    List<ExpenseByCategoryDTO> findExpensesByCategory(
+        @Param("accountIds") List<Long> accountIds,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#findExpensesByAccount}.
+	 *
+	 * @param accountIds list of account IDs to include
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return list of {@link ExpenseByAccountDTO} rows
+	 */
+    @Query("""
+      SELECT new JK.pfm.dto.ExpenseByAccountDTO(
+        a.account.name,
+        COALESCE(SUM(a.amount), 0)
+      )
+      FROM ArchivedTransaction a
+      WHERE a.type = 'Expense'
+        AND a.account.id IN :accountIds
+        AND LOWER(a.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND a.date BETWEEN :start AND :end
+      GROUP BY a.account.name
+    """)
+    List<ExpenseByAccountDTO> findExpensesByAccount(
+        @Param("accountIds") List<Long> accountIds,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#getDailyTrends}, with the same columns,
+	 * limited to the provided accounts.
+	 *
+	 * @param accountIds list of account IDs to include
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return list of rows as {@code Object[]} triples (date, type, sum)
+	 */
+    @Query("""
+      SELECT a.date, a.type, COALESCE(SUM(a.amount), 0)
+      FROM ArchivedTransaction a
+      WHERE a.account.id IN :accountIds
+        AND a.date BETWEEN :start AND :end
+      GROUP BY a.date, a.type
+      ORDER BY a.date
+    """)
+    List<Object[]> getDailyTrends(
+        @Param("accountIds") List<Long> accountIds,
+        @Param("start")      LocalDate start,
+        @Param("end")        LocalDate end
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#sumPeriodFlows}, with the same columns.
+	 *
+	 * @param userId the user's ID
+	 * @param currentStart inclusive start of the current period
+	 * @param currentEnd inclusive end of the current period
+	 * @param previousStart inclusive start of the previous period
+	 * @param previousEnd inclusive end of the previous period
+	 * @return a single row of sums, {@code 0} where nothing matched
+	 */
+    @Query("""
+      SELECT
+        COALESCE(SUM(CASE WHEN a.date BETWEEN :currentStart AND :currentEnd
+                           AND a.type = 'Deposit' THEN a.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN a.date BETWEEN :currentStart AND :currentEnd
+                           AND a.type = 'Expense' THEN a.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN a.date BETWEEN :previousStart AND :previousEnd
+                           AND a.type = 'Deposit' THEN a.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN a.date BETWEEN :previousStart AND :previousEnd
+                           AND a.type = 'Expense' THEN a.amount ELSE 0 END), 0)
+      FROM ArchivedTransaction a
+      WHERE a.account.user.id = :userId
+        AND a.account.active  = true
+        AND (a.date BETWEEN :currentStart AND :currentEnd
+             OR a.date BETWEEN :previousStart AND :previousEnd)
+        AND LOWER(a.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND a.description NOT IN (
+            'Deposit to savings', 'Withdraw from savings'
+        )
+    """)
+    List<Object[]> sumPeriodFlows(
+        @Param("userId")        Long userId,
+        @Param("currentStart")  LocalDate currentStart,
+        @Param("currentEnd")    LocalDate currentEnd,
+        @Param("previousStart") LocalDate previousStart,
+        @Param("previousEnd")   LocalDate previousEnd
+    );
+
+	/**
+	 * Archived counterpart of {@link TransactionRepository#streamForExport(Long)}, with the same
+	 * columns.
+	 *
+	 * @param userId the owner's user ID
+	 * @return stream of rows
+	 */
+    @Query("""
+      SELECT x.id, x.date, x.type, x.amount, a.name, c.name, x.description
+      FROM ArchivedTransaction x
+      JOIN x.account a
+      LEFT JOIN x.category c
+      WHERE a.user.id = :userId
+      ORDER BY x.id
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamForExport(@Param("userId") Long userId);
+}
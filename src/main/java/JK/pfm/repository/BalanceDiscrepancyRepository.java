@@ -0,0 +1,17 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.BalanceDiscrepancy;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+public interface BalanceDiscrepancyRepository extends JpaRepository<BalanceDiscrepancy, Long> {
+
+	/**
+	 * Returns the recorded discrepancies of an account, newest first.
+	 *
+	 * @param accountId the account's ID
+	 * @return list of {@link BalanceDiscrepancy} rows
+	 */
+    List<BalanceDiscrepancy> findByAccountIdOrderByDetectedAtDesc(Long accountId);
+}
@@ -0,0 +1,106 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.BalanceEntry;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface BalanceEntryRepository extends JpaRepository<BalanceEntry, Long> {
+
+	/**
+	 * A journal delta that has not been folded into the checkpoint yet.
+	 */
+    interface PendingEntry {
+        Long getId();
+        BigDecimal getDelta();
+    }
+
+	/**
+	 * Sums the deltas of an account that are not yet part of its checkpoint.
+	 *
+	 * @param accountId the account's ID
+	 * @return the pending sum, {@code 0} when nothing is pending
+	 */
+    @Query("""
+      SELECT COALESCE(SUM(e.delta), 0)
+      FROM BalanceEntry e
+      WHERE e.account.id = :accountId
+        AND e.applied = false
+    """)
+    BigDecimal sumPending(@Param("accountId") Long accountId);
+
+	/**
+	 * Sums the deltas not yet folded into the checkpoints of several accounts.
+	 *
+	 * @param accountIds the accounts
+	 * @return rows of {@code [accountId, sum]}, only for accounts with pending deltas
+	 */
+    @Query("""
+      SELECT e.account.id, SUM(e.delta)
+      FROM BalanceEntry e
+      WHERE e.account.id IN :accountIds
+        AND e.applied = false
+      GROUP BY e.account.id
+    """)
+    List<Object[]> sumPendingByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+	/**
+	 * Returns an account's pending deltas and locks them until the transaction ends.
+	 *
+	 * <p>A locking read sees the latest committed rows whatever the isolation level, so the
+	 * caller folds exactly the deltas that are not yet part of the checkpoint.</p>
+	 *
+	 * @param accountId the account's ID
+	 * @return the pending entries
+	 */
+    @Query(
+    value = """
+      SELECT id, delta
+        FROM balance_journal
+       WHERE account_id = :accountId
+         AND applied = false
+       FOR UPDATE
+    """,
+    nativeQuery = true
+  )
+    List<PendingEntry> lockPending(@Param("accountId") Long accountId);
+
+	/**
+	 * Marks entries as folded into the checkpoint.
+	 *
+	 * @param ids the entry IDs
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("UPDATE BalanceEntry e SET e.applied = true WHERE e.id IN :ids")
+    int markApplied(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Returns the IDs of accounts with pending deltas, oldest pending entry first.
+	 *
+	 * @param pageable limits the number of accounts
+	 * @return account IDs to compact
+	 */
+    @Query("""
+      SELECT e.account.id
+      FROM BalanceEntry e
+      WHERE e.applied = false
+      GROUP BY e.account.id
+      ORDER BY MIN(e.id)
+    """)
+    List<Long> findAccountIdsWithPending(Pageable pageable);
+
+	/**
+	 * Returns an account's journal, newest first.
+	 *
+	 * @param accountId the account's ID
+	 * @return list of {@link BalanceEntry} rows
+	 */
+    List<BalanceEntry> findByAccountIdOrderByIdDesc(Long accountId);
+}
@@ -0,0 +1,114 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.BalanceSnapshot;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+	/**
+	 * Returns all users' snapshots for one month end.
+	 *
+	 * @param monthEnd the last day of the month
+	 * @return list of {@link BalanceSnapshot} rows
+	 */
+    List<BalanceSnapshot> findByMonthEnd(LocalDate monthEnd);
+
+	/**
+	 * Reads a user's current balances together with their stored snapshots for the given month
+	 * ends, in one query.
+	 *
+	 * <p>Each row is {@code [accounts, savings, monthEnd, snapshotAccounts, snapshotSavings]}.
+	 * The first two columns are the current totals of the user's active accounts (including
+	 * pending journal entries) and savings goals, and repeat on every row. There is one row per
+	 * snapshot found, or a single row with {@code null} snapshot columns if there is none.</p>
+	 *
+	 * @param userId the user's ID
+	 * @param monthEnds month ends to look up; must not be empty
+	 * @return one or more rows; empty only if the user does not exist
+	 */
+    @Query("""
+      SELECT
+        (SELECT COALESCE(SUM(a.amount), 0) FROM Account a
+          WHERE a.user.id = :userId AND a.active = true)
+        + (SELECT COALESCE(SUM(e.delta), 0) FROM BalanceEntry e
+          WHERE e.account.user.id = :userId AND e.account.active = true AND e.applied = false),
+        (SELECT COALESCE(SUM(g.currentAmount), 0) FROM SavingsGoal g
+          WHERE g.user.id = :userId),
+        s.monthEnd, s.accountsBalance, s.savingsBalance
+      FROM User u
+      LEFT JOIN BalanceSnapshot s ON s.userId = u.id AND s.monthEnd IN :monthEnds
+      WHERE u.id = :userId
+    """)
+    List<Object[]> findBalances(
+        @Param("userId") Long userId,
+        @Param("monthEnds") Collection<LocalDate> monthEnds);
+
+	/**
+	 * Computes account and savings balances at the end of {@code cutoffDate}, per user.
+	 *
+	 * <p>Balances are the current totals (as in {@link #findBalances}) minus everything dated
+	 * after the cutoff: deposits minus expenses on active accounts, and savings transfers, from
+	 * both live and archived transactions. Only the rows after the cutoff are read, so recent
+	 * cutoffs are cheap; for a cutoff after the archive horizon the archived subqueries find no
+	 * rows.</p>
+	 *
+	 * <p>Each row is {@code [userId, accounts, savings]}.</p>
+	 *
+	 * @param userId a single user's ID, or {@code null} for all users
+	 * @param cutoffDate the last day included in the balances
+	 * @return one row per user
+	 */
+    @Query("""
+      SELECT u.id,
+        (SELECT COALESCE(SUM(a.amount), 0) FROM Account a
+          WHERE a.user = u AND a.active = true)
+        + (SELECT COALESCE(SUM(e.delta), 0) FROM BalanceEntry e
+          WHERE e.account.user = u AND e.account.active = true AND e.applied = false)
+        - (SELECT COALESCE(SUM(
+              CASE
+                WHEN t.type = 'Deposit' THEN t.amount
+                WHEN t.type = 'Expense' THEN -t.amount
+                ELSE 0
+              END), 0)
+            FROM Transaction t
+            WHERE t.account.user = u AND t.account.active = true AND t.date > :cutoffDate)
+        - (SELECT COALESCE(SUM(
+              CASE
+                WHEN x.type = 'Deposit' THEN x.amount
+                WHEN x.type = 'Expense' THEN -x.amount
+                ELSE 0
+              END), 0)
+            FROM ArchivedTransaction x
+            WHERE x.account.user = u AND x.account.active = true AND x.date > :cutoffDate),
+        (SELECT COALESCE(SUM(g.currentAmount), 0) FROM SavingsGoal g
+          WHERE g.user = u)
+        - (SELECT COALESCE(SUM(
+              CASE
+                WHEN t.description = 'Deposit to savings'    THEN t.amount
+                WHEN t.description = 'Withdraw from savings' THEN -t.amount
+                ELSE 0
+              END), 0)
+            FROM Transaction t
+            WHERE t.account.user = u AND t.category.name = 'Fund Transfer' AND t.date > :cutoffDate)
+        - (SELECT COALESCE(SUM(
+              CASE
+                WHEN x.description = 'Deposit to savings'    THEN x.amount
+                WHEN x.description = 'Withdraw from savings' THEN -x.amount
+                ELSE 0
+              END), 0)
+            FROM ArchivedTransaction x
+            WHERE x.account.user = u AND x.category.name = 'Fund Transfer' AND x.date > :cutoffDate)
+      FROM User u
+      WHERE (:userId IS NULL OR u.id = :userId)
+      ORDER BY u.id
+    """)
+    List<Object[]> computeBalancesAt(
+        @Param("userId") Long userId,
+        @Param("cutoffDate") LocalDate cutoffDate);
+}
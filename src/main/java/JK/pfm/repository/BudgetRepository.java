@@ -1,39 +1,53 @@
 package JK.pfm.repository;
 
+import JK.pfm.dto.BudgetVsActualDTO;
 import JK.pfm.model.Budget;
 import JK.pfm.model.Category;
 import JK.pfm.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface BudgetRepository extends JpaRepository<Budget, Long>, JpaSpecificationExecutor<Budget> {
 	/**
-	 * Calculates the total amount spent for a given budget category and period.
+	 * Lists a user's budgets with the amount spent on each, read from the budgets' {@code spent}
+	 * counters, so no transactions are summed.
 	 *
-	 * <p>Includes all transactions within the specified date range and limited
-	 * to the provided list of account IDs. If no matching transactions exist,
-	 * returns {@code 0}.</p>
+	 * <p>The period filter matches {@code BudgetService#getAllBudgets}: with both dates, budgets
+	 * overlapping the range; with only a start date, budgets starting on or after it; with only an
+	 * end date, budgets ending on or before it. A budget whose counter has not been backfilled yet
+	 * shows {@code 0}.</p>
 	 *
-	 * @param categoryId the ID of the budget's category
-	 * @param startDate the start date of the budget period (inclusive)
-	 * @param endDate the end date of the budget period (inclusive)
-	 * @param accountIds list of account IDs associated with the budget
-	 * @return total amount spent as a {@link BigDecimal}
+	 * @param userId the owner's user ID
+	 * @param start optional start of the period
+	 * @param end optional end of the period
+	 * @return one row per budget, ordered by start date and ID
 	 */
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
-       "WHERE t.category.id = :categoryId " +
-       "AND t.date BETWEEN :startDate AND :endDate " +
-       "AND t.account.id IN :accountIds")
-    BigDecimal getTotalSpentOnBudget(
-        @Param("categoryId") Long categoryId, 
-        @Param("startDate") LocalDate startDate, 
-        @Param("endDate") LocalDate endDate, 
-        @Param("accountIds") List<Long> accountIds);
+    @Query("""
+      SELECT new JK.pfm.dto.BudgetVsActualDTO(b.id, c.name, b.amount, COALESCE(b.spent, 0))
+      FROM Budget b
+      JOIN b.category c
+      WHERE b.user.id = :userId
+        AND (:start IS NULL OR :end IS NULL OR (b.startDate <= :end AND b.endDate >= :start))
+        AND (:start IS NULL OR :end IS NOT NULL OR b.startDate >= :start)
+        AND (:end IS NULL OR :start IS NOT NULL OR b.endDate <= :end)
+      ORDER BY b.startDate, b.id
+    """)
+    List<BudgetVsActualDTO> findBudgetsVsActual(
+        @Param("userId") Long userId,
+        @Param("start") LocalDate start,
+        @Param("end") LocalDate end);
 
     
 	/**
@@ -73,4 +87,100 @@ public interface BudgetRepository extends JpaRepository<Budget, Long>, JpaSpecif
     boolean existsByUserAndCategoryAndStartDateAndMonthlyTrue(User user, Category category, LocalDate startDate);
     
 
+	/**
+	 * Lists the windows of all of a user's budgets as
+	 * {@code [id, category ID, startDate, endDate]}.
+	 *
+	 * @param userId the owner's user ID
+	 * @return one row per budget
+	 */
+    @Query("SELECT b.id, b.category.id, b.startDate, b.endDate FROM Budget b WHERE b.user.id = :userId")
+    List<Object[]> findWindowsByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Returns {@code [count, max ID]} of a user's budgets. Budget windows never change after
+	 * creation and IDs only grow, so the pair changes whenever a budget is added or removed.
+	 *
+	 * @param userId the owner's user ID
+	 * @return a single row
+	 */
+    @Query("SELECT COUNT(b), MAX(b.id) FROM Budget b WHERE b.user.id = :userId")
+    List<Object[]> findFingerprintByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Loads budgets and locks their rows until the transaction ends, so concurrent counter
+	 * updates wait. Rows are locked in ID order.
+	 *
+	 * @param ids the budgets' IDs
+	 * @return the locked budgets that still exist
+	 */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Budget b WHERE b.id IN :ids ORDER BY b.id")
+    List<Budget> findAllByIdForUpdate(@Param("ids") List<Long> ids);
+
+	/**
+	 * Sums a user's live expenses in a category and date window, on any of the user's accounts.
+	 *
+	 * @param userId the owner's user ID
+	 * @param categoryId the budget's category ID
+	 * @param startDate the start of the window (inclusive)
+	 * @param endDate the end of the window (inclusive)
+	 * @return total spent, or {@code 0}
+	 */
+    @Query("""
+      SELECT COALESCE(SUM(t.amount), 0)
+      FROM Transaction t
+      WHERE t.account.user.id = :userId
+        AND t.category.id = :categoryId
+        AND t.type = 'Expense'
+        AND t.date BETWEEN :startDate AND :endDate
+    """)
+    BigDecimal sumExpensesInWindow(
+        @Param("userId") Long userId,
+        @Param("categoryId") Long categoryId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+
+	/**
+	 * Fills in {@code spent} for budgets that have none, from live and archived expenses.
+	 *
+	 * <p>Runs once for budgets created before spending was tracked; it bypasses the change
+	 * feed.</p>
+	 *
+	 * @return number of budgets updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE Budget b
+      SET b.spent =
+          (SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t
+           WHERE t.account.user = b.user AND t.category = b.category AND t.type = 'Expense'
+             AND t.date BETWEEN b.startDate AND b.endDate)
+        + (SELECT COALESCE(SUM(x.amount), 0) FROM ArchivedTransaction x
+           WHERE x.account.user = b.user AND x.category = b.category AND x.type = 'Expense'
+             AND x.date BETWEEN b.startDate AND b.endDate)
+      WHERE b.spent IS NULL
+    """)
+    int backfillSpent();
+
+	/**
+	 * Streams a user's budgets for export as
+	 * {@code [id, category name, amount, startDate, endDate, monthly]}, ordered by ID.
+	 * Must be consumed inside a transaction and closed.
+	 *
+	 * @param userId the owner's user ID
+	 * @return stream of rows
+	 */
+    @Query("""
+      SELECT b.id, c.name, b.amount, b.startDate, b.endDate, b.monthly
+      FROM Budget b
+      LEFT JOIN b.category c
+      WHERE b.user.id = :userId
+      ORDER BY b.id
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamForExport(@Param("userId") Long userId);
 }
@@ -4,10 +4,16 @@ package JK.pfm.repository;
 
 
 import JK.pfm.model.Category;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     	/**
@@ -17,8 +23,19 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 	 *
 	 * @return list of {@link Category} entities where {@code isDefault = true}
 	 */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findByIsDefaultTrue();
     
+	/**
+	 * Retrieves a category by its name.
+	 *
+	 * <p>The result is held in the query cache; categories are served from the
+	 * second-level cache.</p>
+	 *
+	 * @param name the category name
+	 * @return an {@link Optional} containing the category if found
+	 */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findByName(String name);
     
 	/**
@@ -31,6 +48,22 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 	 * @return an {@link Optional} containing the category ID if found
 	 */
     @Query("SELECT c.id FROM Category c WHERE c.name = :name")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Long> findIdByName(String name);
+
+	/**
+	 * Sets the {@code isDefault} flag of a category with a bulk update.
+	 *
+	 * <p>Categories are cached read-only, so they cannot be changed through the entity.
+	 * A bulk update goes straight to the database and evicts the category cache region.</p>
+	 *
+	 * @param id the category ID
+	 * @param isDefault the new flag value
+	 * @return number of updated rows
+	 */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Category c SET c.isDefault = :isDefault WHERE c.id = :id")
+    int updateIsDefault(@Param("id") Long id, @Param("isDefault") boolean isDefault);
     }
 
@@ -0,0 +1,49 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.CategoryRule;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CategoryRuleRepository extends JpaRepository<CategoryRule, Long> {
+
+	/**
+	 * Returns a user's categorization rules in the order they are applied.
+	 *
+	 * @param userId the owner's user ID
+	 * @return list of {@link CategoryRule}, by priority and then ID
+	 */
+    List<CategoryRule> findByUserIdOrderByPriorityAscIdAsc(Long userId);
+
+	/**
+	 * Returns the fields a matcher is compiled from, as {@code [id, matchType, pattern,
+	 * minAmount, maxAmount, category ID]} per rule, in the order the rules are applied.
+	 *
+	 * @param userId the owner's user ID
+	 * @return list of rows
+	 */
+    @Query("""
+      SELECT r.id, r.matchType, r.pattern, r.minAmount, r.maxAmount, r.category.id
+      FROM CategoryRule r
+      WHERE r.user.id = :userId
+      ORDER BY r.priority, r.id
+    """)
+    List<Object[]> findMatcherRowsByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Returns the count, highest ID and sum of versions of a user's rules as a single row.
+	 * Creating, deleting or updating a rule changes it, so a cached matcher can be checked
+	 * without loading the rules.
+	 *
+	 * @param userId the owner's user ID
+	 * @return one row of {@code [count, max id, version sum]}; the last two are {@code null}
+	 *         without rules
+	 */
+    @Query("""
+      SELECT COUNT(r), MAX(r.id), SUM(r.version)
+      FROM CategoryRule r
+      WHERE r.user.id = :userId
+    """)
+    List<Object[]> findStampByUserId(@Param("userId") Long userId);
+}
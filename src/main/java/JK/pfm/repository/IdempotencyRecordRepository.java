@@ -0,0 +1,82 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+	/**
+	 * Finds the record of a user's idempotency key.
+	 *
+	 * @param userId the user's ID
+	 * @param idemKey the {@code Idempotency-Key} header value
+	 * @return the record, or empty if the key has not been used or has expired and been purged
+	 */
+    Optional<IdempotencyRecord> findByUserIdAndIdemKey(Long userId, String idemKey);
+
+	/**
+	 * Marks a claim as executed. Runs inside each write transaction of the request, so the mark
+	 * commits or rolls back together with the request's writes.
+	 *
+	 * @param id the record's ID
+	 * @return {@code 1} if the claim is still held, {@code 0} if it was taken over
+	 */
+    @Modifying
+    @Query("""
+      UPDATE IdempotencyRecord r
+      SET r.executed = true
+      WHERE r.id = :id
+        AND r.responseStatus IS NULL
+    """)
+    int markExecuted(@Param("id") Long id);
+
+	/**
+	 * Deletes a record whose request has not finished and has not written anything, if it was
+	 * claimed before a cutoff. Used to take over a key whose node crashed or stalled before any
+	 * of the request's writes committed.
+	 *
+	 * @param id the record's ID
+	 * @param claimedBefore only records created before this time are deleted
+	 * @return {@code 1} if the record was deleted, {@code 0} otherwise
+	 */
+    @Modifying
+    @Query("""
+      DELETE FROM IdempotencyRecord r
+      WHERE r.id = :id
+        AND r.responseStatus IS NULL
+        AND r.executed = false
+        AND r.createdAt < :claimedBefore
+    """)
+    int deleteAbandoned(@Param("id") Long id, @Param("claimedBefore") LocalDateTime claimedBefore);
+
+	/**
+	 * Releases a claim whose request has not written anything, so a retry may execute it.
+	 *
+	 * @param id the record's ID
+	 * @return {@code 1} if the record was deleted, {@code 0} otherwise
+	 */
+    @Modifying
+    @Query("""
+      DELETE FROM IdempotencyRecord r
+      WHERE r.id = :id
+        AND r.responseStatus IS NULL
+        AND r.executed = false
+    """)
+    int deleteUnexecuted(@Param("id") Long id);
+
+	/**
+	 * Deletes records that have expired.
+	 *
+	 * @param now the current time
+	 * @return number of rows deleted
+	 */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,72 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.JobLease;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+	/**
+	 * Takes over a job's lease if it has expired, and issues a new fencing token.
+	 *
+	 * <p>The condition is evaluated under the row lock. When several nodes race for the same
+	 * lease, exactly one update matches.</p>
+	 *
+	 * @param name the job name
+	 * @param owner the acquiring node
+	 * @param until when the new lease expires
+	 * @param now the current time
+	 * @return {@code 1} if the lease was acquired, {@code 0} otherwise
+	 */
+    @Modifying
+    @Query("""
+      UPDATE JobLease l
+      SET l.owner = :owner, l.leaseUntil = :until, l.acquiredAt = :now,
+          l.fencingToken = l.fencingToken + 1
+      WHERE l.name = :name
+        AND l.leaseUntil < :now
+    """)
+    int acquire(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("until") LocalDateTime until,
+                @Param("now") LocalDateTime now);
+
+	/**
+	 * Moves the end of a lease, if the caller still holds it. Passing the current time releases
+	 * it.
+	 *
+	 * @param name the job name
+	 * @param fencingToken the token issued with the lease
+	 * @param until the new end of the lease
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE JobLease l
+      SET l.leaseUntil = :until
+      WHERE l.name = :name
+        AND l.fencingToken = :fencingToken
+    """)
+    int release(@Param("name") String name,
+                @Param("fencingToken") long fencingToken,
+                @Param("until") LocalDateTime until);
+
+	/**
+	 * Locks the lease row if the fencing token is still current. The lock is held until the
+	 * transaction ends, so the lease cannot be taken over before the caller's writes commit.
+	 *
+	 * @param name the job name
+	 * @param fencingToken the token issued with the lease
+	 * @return the lease, or empty if the token has been superseded
+	 */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLease l WHERE l.name = :name AND l.fencingToken = :fencingToken")
+    Optional<JobLease> lockIfCurrent(@Param("name") String name, @Param("fencingToken") long fencingToken);
+}
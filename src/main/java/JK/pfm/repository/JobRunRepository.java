@@ -0,0 +1,17 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.JobRun;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+	/**
+	 * Returns the most recent runs of a job.
+	 *
+	 * @param jobName the job name
+	 * @return up to 20 runs, newest first
+	 */
+    List<JobRun> findTop20ByJobNameOrderByIdDesc(String jobName);
+}
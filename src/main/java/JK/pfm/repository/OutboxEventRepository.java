@@ -0,0 +1,148 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+	/**
+	 * Returns the oldest unprocessed events, including claimed ones and ones waiting for a retry.
+	 *
+	 * @param pageable limits the batch size
+	 * @return pending events in ID order
+	 */
+    @Query("""
+      SELECT e
+      FROM OutboxEvent e
+      WHERE e.processedAt IS NULL
+      ORDER BY e.id
+    """)
+    List<OutboxEvent> findPending(Pageable pageable);
+
+	/**
+	 * Claims events for one dispatcher run.
+	 *
+	 * <p>The update re-checks the claim under the row lock, so when two dispatchers race for the
+	 * same event exactly one of them claims it. The other skips it instead of waiting for its
+	 * turn to process it.</p>
+	 *
+	 * @param ids candidate event IDs
+	 * @param token the run's claim token
+	 * @param until when the claim expires if the run dies
+	 * @param now the current time
+	 * @return number of events claimed
+	 */
+    @Modifying
+    @Query("""
+      UPDATE OutboxEvent e
+      SET e.claimToken = :token, e.claimedUntil = :until
+      WHERE e.id IN :ids
+        AND e.processedAt IS NULL
+        AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)
+        AND e.availableAt <= :now
+    """)
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("token") String token,
+              @Param("until") LocalDateTime until,
+              @Param("now") LocalDateTime now);
+
+	/**
+	 * Returns the IDs claimed with a token.
+	 *
+	 * @param token the claim token
+	 * @return claimed event IDs
+	 */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.claimToken = :token")
+    List<Long> findIdsByClaimToken(@Param("token") String token);
+
+	/**
+	 * Marks a claimed event as delivered.
+	 *
+	 * @param id the event ID
+	 * @param token the claim token; a stale claim updates nothing
+	 * @param now the current time
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE OutboxEvent e
+      SET e.processedAt = :now, e.claimToken = NULL, e.claimedUntil = NULL
+      WHERE e.id = :id AND e.claimToken = :token
+    """)
+    int markProcessed(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now);
+
+	/**
+	 * Records a failed delivery attempt and schedules the next one.
+	 *
+	 * @param id the event ID
+	 * @param token the claim token
+	 * @param availableAt earliest time of the next attempt
+	 * @param error short description of the failure
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE OutboxEvent e
+      SET e.attempts = e.attempts + 1, e.availableAt = :availableAt, e.lastError = :error,
+          e.claimToken = NULL, e.claimedUntil = NULL
+      WHERE e.id = :id AND e.claimToken = :token
+    """)
+    int markRetry(@Param("id") Long id,
+                  @Param("token") String token,
+                  @Param("availableAt") LocalDateTime availableAt,
+                  @Param("error") String error);
+
+	/**
+	 * Gives up on an event after its last failed attempt.
+	 *
+	 * @param id the event ID
+	 * @param token the claim token
+	 * @param now the current time
+	 * @param error short description of the failure
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE OutboxEvent e
+      SET e.attempts = e.attempts + 1, e.processedAt = :now, e.failed = true, e.lastError = :error,
+          e.claimToken = NULL, e.claimedUntil = NULL
+      WHERE e.id = :id AND e.claimToken = :token
+    """)
+    int markFailed(@Param("id") Long id,
+                   @Param("token") String token,
+                   @Param("now") LocalDateTime now,
+                   @Param("error") String error);
+
+	/**
+	 * Releases claims without counting an attempt.
+	 *
+	 * @param ids the event IDs
+	 * @param token the claim token
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("""
+      UPDATE OutboxEvent e
+      SET e.claimToken = NULL, e.claimedUntil = NULL
+      WHERE e.id IN :ids AND e.claimToken = :token
+    """)
+    int release(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+	/**
+	 * Deletes events delivered before a cutoff. Failed events are kept for inspection.
+	 *
+	 * @param cutoff events processed before this time are deleted
+	 * @return number of rows deleted
+	 */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :cutoff AND e.failed = false")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
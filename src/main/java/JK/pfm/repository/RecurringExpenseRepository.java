@@ -1,10 +1,16 @@
 package JK.pfm.repository;
 
 import JK.pfm.model.RecurringExpense;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long>, JpaSpecificationExecutor<RecurringExpense> {
     	/**
@@ -28,5 +34,46 @@ public interface RecurringExpenseRepository extends JpaRepository<RecurringExpen
 	 */
     List<RecurringExpense> findTop5ByAccountIdInAndNextDueDateAfterAndActiveTrueOrderByNextDueDateAsc(List<Long> accountIds, LocalDate date);
 
+	/**
+	 * Returns the schedules of a user's active recurring expenses on active accounts, as
+	 * {@code [id, name, amount, frequency, startDate, nextDueDate, account ID]}, ordered by ID.
+	 * Expenses without a next due date are left out.
+	 *
+	 * @param userId the owner's user ID
+	 * @return list of rows
+	 */
+    @Query("""
+      SELECT r.id, r.name, r.amount, r.frequency, r.startDate, r.nextDueDate, a.id
+      FROM RecurringExpense r
+      JOIN r.account a
+      WHERE a.user.id = :userId
+        AND a.active = true
+        AND r.active = true
+        AND r.nextDueDate IS NOT NULL
+      ORDER BY r.id
+    """)
+    List<Object[]> findActiveSchedulesByUserId(@Param("userId") Long userId);
 
+	/**
+	 * Streams a user's recurring expenses for export as {@code [id, name, amount, frequency,
+	 * startDate, nextDueDate, lastPayment, active, account name, category name]}, ordered by ID.
+	 * Must be consumed inside a transaction and closed.
+	 *
+	 * @param userId the owner's user ID
+	 * @return stream of rows
+	 */
+    @Query("""
+      SELECT r.id, r.name, r.amount, r.frequency, r.startDate, r.nextDueDate, r.lastPayment,
+             r.active, a.name, c.name
+      FROM RecurringExpense r
+      JOIN r.account a
+      LEFT JOIN r.category c
+      WHERE a.user.id = :userId
+      ORDER BY r.id
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamForExport(@Param("userId") Long userId);
 }
@@ -2,15 +2,19 @@ package JK.pfm.repository;
 
 import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.User;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface SavingsGoalRepository extends JpaRepository<SavingsGoal, Long>, JpaSpecificationExecutor<SavingsGoal> {
@@ -81,4 +85,25 @@ public interface SavingsGoalRepository extends JpaRepository<SavingsGoal, Long>,
     
     boolean existsByUserAndNameIgnoreCase(User user, String name);
 
-    }
+    
+
+	/**
+	 * Streams a user's savings goals for export as
+	 * {@code [id, name, targetAmount, currentAmount, lastMonthAmount, description]}, ordered by ID.
+	 * Must be consumed inside a transaction and closed.
+	 *
+	 * @param userId the owner's user ID
+	 * @return stream of rows
+	 */
+    @Query("""
+      SELECT g.id, g.name, g.targetAmount, g.currentAmount, g.lastMonthAmount, g.description
+      FROM SavingsGoal g
+      WHERE g.user.id = :userId
+      ORDER BY g.id
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamForExport(@Param("userId") Long userId);
+}
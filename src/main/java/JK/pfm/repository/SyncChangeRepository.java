@@ -0,0 +1,41 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.SyncChange;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface SyncChangeRepository extends JpaRepository<SyncChange, Long> {
+
+	/**
+	 * Retrieves a user's changes recorded after the given sequence number, oldest first.
+	 *
+	 * @param userId the user's ID
+	 * @param seq exclusive lower bound (the client's cursor)
+	 * @param page page size limit
+	 * @return changes ordered by {@code seq} ascending
+	 */
+    List<SyncChange> findByUserIdAndSeqGreaterThanOrderBySeqAsc(Long userId, long seq, Pageable page);
+
+	/**
+	 * Lists which records of the given types a user changed after a sequence number.
+	 *
+	 * @param userId the user's ID
+	 * @param seq exclusive lower bound
+	 * @param types entity types, see the {@link SyncChange} constants
+	 * @param page page size limit
+	 * @return rows of {@code [entityType, entityId]}
+	 */
+    @Query("""
+      SELECT c.entityType, c.entityId
+      FROM SyncChange c
+      WHERE c.userId = :userId
+        AND c.seq > :seq
+        AND c.entityType IN :types
+    """)
+    List<Object[]> findChangedSince(@Param("userId") Long userId, @Param("seq") long seq,
+                                    @Param("types") List<String> types, Pageable page);
+}
@@ -0,0 +1,45 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.SyncCursor;
+import jakarta.transaction.Transactional;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface SyncCursorRepository extends JpaRepository<SyncCursor, Long> {
+
+	/**
+	 * Reads a user's current sequence number without loading the entity.
+	 *
+	 * @param userId the user's ID
+	 * @return the sequence, or empty if the user has never changed anything
+	 */
+    @Query("SELECT c.seq FROM SyncCursor c WHERE c.userId = :userId")
+    Optional<Long> findSeqByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Advances a user's sequence without recording a change, for writes that bypass the change
+	 * feed (bulk updates by scheduled jobs). Caches and ETags keyed on the sequence are
+	 * invalidated; sync clients simply find nothing new.
+	 *
+	 * @param userId the user's ID
+	 * @return number of rows updated; {@code 0} if the user has never changed anything
+	 */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SyncCursor c SET c.seq = c.seq + 1 WHERE c.userId = :userId")
+    int advance(@Param("userId") Long userId);
+
+	/**
+	 * Advances every user's sequence without recording a change; see {@link #advance(Long)}.
+	 *
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SyncCursor c SET c.seq = c.seq + 1")
+    int advanceAll();
+}
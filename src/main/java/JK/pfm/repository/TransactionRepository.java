@@ -3,12 +3,18 @@ package JK.pfm.repository;
 import JK.pfm.dto.ExpenseByAccountDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
 import JK.pfm.model.Transaction;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface TransactionRepository
@@ -77,6 +83,51 @@ public interface TransactionRepository
         @Param("end")        LocalDate end
     );
 
+	/**
+	 * Sums income and expenses of two periods in one pass, for a user's active accounts.
+	 *
+	 * <p>Uses the same exclusions as {@link #sumByTypeAndDate}. Only rows in one of the two
+	 * periods are read, so distant periods (e.g. year over year) do not scan the months in
+	 * between. The single row is
+	 * {@code [currentIncome, currentExpense, previousIncome, previousExpense]}.</p>
+	 *
+	 * @param userId the user's ID
+	 * @param currentStart inclusive start of the current period
+	 * @param currentEnd inclusive end of the current period
+	 * @param previousStart inclusive start of the previous period
+	 * @param previousEnd inclusive end of the previous period
+	 * @return a single row of sums, {@code 0} where nothing matched
+	 */
+    @Query("""
+      SELECT
+        COALESCE(SUM(CASE WHEN t.date BETWEEN :currentStart AND :currentEnd
+                           AND t.type = 'Deposit' THEN t.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN t.date BETWEEN :currentStart AND :currentEnd
+                           AND t.type = 'Expense' THEN t.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN t.date BETWEEN :previousStart AND :previousEnd
+                           AND t.type = 'Deposit' THEN t.amount ELSE 0 END), 0),
+        COALESCE(SUM(CASE WHEN t.date BETWEEN :previousStart AND :previousEnd
+                           AND t.type = 'Expense' THEN t.amount ELSE 0 END), 0)
+      FROM Transaction t
+      WHERE t.account.user.id = :userId
+        AND t.account.active  = true
+        AND (t.date BETWEEN :currentStart AND :currentEnd
+             OR t.date BETWEEN :previousStart AND :previousEnd)
+        AND LOWER(t.category.name) NOT IN (
+            'savings', 'opening balance', 'fund transfer'
+        )
+        AND t.description NOT IN (
+            'Deposit to savings', 'Withdraw from savings'
+        )
+    """)
+    List<Object[]> sumPeriodFlows(
+        @Param("userId")        Long userId,
+        @Param("currentStart")  LocalDate currentStart,
+        @Param("currentEnd")    LocalDate currentEnd,
+        @Param("previousStart") LocalDate previousStart,
+        @Param("previousEnd")   LocalDate previousEnd
+    );
+
 	/**
 	 * Sums transaction amounts for a given type/category and period, limited to the provided accounts.
 	 *
@@ -174,11 +225,12 @@ public interface TransactionRepository
 
 
 	/**
-	 * Returns daily totals grouped by date and type for the specified period.
+	 * Returns daily totals grouped by date and type for the specified accounts and period.
 	 *
 	 * <p>Each element is an {@code Object[]} with the following layout:
 	 * {@code [LocalDate date, String type, BigDecimal sum]}. Results are ordered by date ascending.</p>
 	 *
+	 * @param accountIds list of account IDs to include
 	 * @param start inclusive start date
 	 * @param end inclusive end date
 	 * @return list of rows as {@code Object[]} triples (date, type, sum)
@@ -186,11 +238,13 @@ public interface TransactionRepository
     @Query("""
       SELECT t.date, t.type, COALESCE(SUM(t.amount), 0)
       FROM Transaction t
-      WHERE t.date BETWEEN :start AND :end
+      WHERE t.account.id IN :accountIds
+        AND t.date BETWEEN :start AND :end
       GROUP BY t.date, t.type
       ORDER BY t.date
     """)
     List<Object[]> getDailyTrends(
+        @Param("accountIds") List<Long> accountIds,
         @Param("start") LocalDate start,
         @Param("end")   LocalDate end
     );
@@ -219,41 +273,81 @@ public interface TransactionRepository
     );
 
 	/**
-	 * Computes the net savings movement for the specified period and accounts.
+	 * Groups the given accounts' transactions by month, returning for each month with
+	 * activity {@code [year, month, transaction count, net savings]}.
 	 *
-	 * <p>Only considers transactions in the {@code 'Fund Transfer'} category, and
-	 * interprets {@code 'Deposit to savings'} as +amount and {@code 'Withdraw from savings'} as -amount.</p>
+	 * <p>The count covers every transaction, as in {@link #existsByAccountIdInAndDateBetween}.
+	 * The net adds fund transfers described as {@code Deposit to savings} and subtracts those
+	 * described as {@code Withdraw from savings}.</p>
 	 *
 	 * @param accountIds list of account IDs to include
 	 * @param start inclusive start date
 	 * @param end inclusive end date
-	 * @return net savings movement as {@link BigDecimal} (can be negative)
+	 * @return one row per month with transactions, in no particular order
 	 */
     @Query("""
-      SELECT COALESCE(
-        SUM(
-          CASE
-            WHEN t.description = 'Deposit to savings'  THEN t.amount
-            WHEN t.description = 'Withdraw from savings' THEN -t.amount
-            ELSE 0
-          END
-        ), 0)
+      SELECT EXTRACT(YEAR FROM t.date), EXTRACT(MONTH FROM t.date), COUNT(t),
+             COALESCE(SUM(
+               CASE
+                 WHEN LOWER(c.name) = 'fund transfer' AND t.description = 'Deposit to savings'    THEN t.amount
+                 WHEN LOWER(c.name) = 'fund transfer' AND t.description = 'Withdraw from savings' THEN -t.amount
+                 ELSE 0
+               END), 0)
       FROM Transaction t
+      LEFT JOIN t.category c
       WHERE t.account.id IN :accountIds
-        AND LOWER(t.category.name) = 'fund transfer'
         AND t.date BETWEEN :start AND :end
+      GROUP BY EXTRACT(YEAR FROM t.date), EXTRACT(MONTH FROM t.date)
     """)
-    BigDecimal netSavingsMonthlyBalance(
+    List<Object[]> findMonthlySavingsActivity(
         @Param("accountIds") List<Long> accountIds,
         @Param("start")      LocalDate start,
         @Param("end")        LocalDate end
     );
 
+	/**
+	 * Groups one savings goal's transfers by month, returning for each month with transfers
+	 * {@code [year, month, transfer count, net savings]}. Money moved into the goal (an account
+	 * {@code Expense}) counts positive, withdrawals negative.
+	 *
+	 * @param savingsGoalId the savings goal's ID
+	 * @param start inclusive start date
+	 * @param end inclusive end date
+	 * @return one row per month with transfers, in no particular order
+	 */
+    @Query("""
+      SELECT EXTRACT(YEAR FROM t.date), EXTRACT(MONTH FROM t.date), COUNT(t),
+             SUM(CASE WHEN t.type = 'Expense' THEN t.amount ELSE -t.amount END)
+      FROM Transaction t
+      WHERE t.savingsGoal.id = :savingsGoalId
+        AND t.date BETWEEN :start AND :end
+      GROUP BY EXTRACT(YEAR FROM t.date), EXTRACT(MONTH FROM t.date)
+    """)
+    List<Object[]> findMonthlyGoalActivity(
+        @Param("savingsGoalId") Long savingsGoalId,
+        @Param("start")         LocalDate start,
+        @Param("end")           LocalDate end
+    );
+
+	/**
+	 * Unlinks all transactions from a savings goal that is about to be deleted.
+	 *
+	 * <p>The foreign key's {@code ON DELETE SET NULL} does the same, but partitioned MySQL
+	 * tables carry no foreign keys, so the service clears the links itself.</p>
+	 *
+	 * @param savingsGoalId the savings goal's ID
+	 * @return number of rows updated
+	 */
+    @Modifying
+    @Query("UPDATE Transaction t SET t.savingsGoal = NULL WHERE t.savingsGoal.id = :savingsGoalId")
+    int clearSavingsGoal(@Param("savingsGoalId") Long savingsGoalId);
+
 	/**
 	 * Returns cumulative savings balance up to a cut-off date for a user.
 	 *
 	 * <p>Only considers {@code 'Fund Transfer'} category rows and interprets savings
-	 * deposits/withdrawals via transaction description, producing a net historical total.</p>
+	 * deposits/withdrawals via transaction description, producing a net historical total.
+	 * Archived transactions are included.</p>
 	 *
 	 * @param userId the user's ID
 	 * @param cutoffDate inclusive cut-off date
@@ -267,6 +361,17 @@ public interface TransactionRepository
             WHEN t.description = 'Withdraw from savings' THEN -t.amount
             ELSE 0
           END
+        ), 0) + COALESCE((
+          SELECT SUM(
+            CASE
+              WHEN a.description = 'Deposit to savings'  THEN a.amount
+              WHEN a.description = 'Withdraw from savings' THEN -a.amount
+              ELSE 0
+            END)
+          FROM ArchivedTransaction a
+          WHERE a.account.user.id = :userId
+            AND a.category.name   = 'Fund Transfer'
+            AND a.date           <= :cutoffDate
         ), 0)
       FROM Transaction t
       WHERE t.account.user.id   = :userId
@@ -282,7 +387,8 @@ public interface TransactionRepository
 	 * Computes cumulative account balance up to a cut-off date, excluding system categories.
 	 *
 	 * <p>Interprets {@code Deposit} as +amount and {@code Expense} as -amount.
-	 * Excludes Savings, Opening Balance, and Fund Transfer categories.</p>
+	 * Excludes Savings, Opening Balance, and Fund Transfer categories. Archived transactions
+	 * are included.</p>
 	 *
 	 * @param userId the user's ID
 	 * @param cutoffDate inclusive cut-off date
@@ -296,6 +402,19 @@ public interface TransactionRepository
             WHEN t.type = 'Expense' THEN -t.amount
             ELSE 0
           END
+        ), 0) + COALESCE((
+          SELECT SUM(
+            CASE
+              WHEN a.type = 'Deposit' THEN a.amount
+              WHEN a.type = 'Expense' THEN -a.amount
+              ELSE 0
+            END)
+          FROM ArchivedTransaction a
+          WHERE a.account.user.id = :userId
+            AND LOWER(a.category.name) NOT IN (
+                'savings', 'opening balance', 'fund transfer'
+            )
+            AND a.date <= :cutoffDate
         ), 0)
       FROM Transaction t
       WHERE t.account.user.id         = :userId
@@ -308,4 +427,164 @@ public interface TransactionRepository
         @Param("userId")     Long userId,
         @Param("cutoffDate") LocalDate cutoffDate
     );
+
+	/**
+	 * Returns IDs of transactions dated before the cut-off, oldest ID first, for archival in
+	 * batches.
+	 *
+	 * @param cutoff exclusive upper bound for the transaction date
+	 * @param page batch size
+	 * @return up to one page of IDs
+	 */
+    @Query("SELECT t.id FROM Transaction t WHERE t.date < :cutoff ORDER BY t.id")
+    List<Long> findIdsDatedBefore(@Param("cutoff") LocalDate cutoff, Pageable page);
+
+	/**
+	 * Deletes transactions in bulk, bypassing entity callbacks. Used only by archival, which has
+	 * already copied the rows and must not touch balances or the change feed.
+	 *
+	 * @param ids IDs to delete
+	 * @return number of rows deleted
+	 */
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteAllByIdInBulk(@Param("ids") List<Long> ids);
+
+	/**
+	 * Streams a user's transactions for export as
+	 * {@code [id, date, type, amount, account name, category name, description]}, ordered by ID.
+	 *
+	 * <p>Rows are scalar projections read through a forward-only cursor, so nothing is kept in
+	 * the persistence context. Must be consumed inside a transaction and closed.</p>
+	 *
+	 * @param userId the owner's user ID
+	 * @return stream of rows
+	 */
+    @Query("""
+      SELECT t.id, t.date, t.type, t.amount, a.name, c.name, t.description
+      FROM Transaction t
+      JOIN t.account a
+      LEFT JOIN t.category c
+      WHERE a.user.id = :userId
+      ORDER BY t.id
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamForExport(@Param("userId") Long userId);
+
+	/**
+	 * Streams a user's transactions for {@link JK.pfm.service.analytics.TransactionColumns} as
+	 * {@code [id, date, amount, accountId, accountName, categoryId, categoryName, type, skipInTotals]}.
+	 * {@code skipInTotals} is {@code true} for rows that {@link #sumByTypeAndDate} leaves out
+	 * because of their description.
+	 *
+	 * @param userId the owner's user ID
+	 * @param from first date to include, or {@code null} for all
+	 * @return stream of rows; must be consumed inside a transaction and closed
+	 */
+    @Query("""
+      SELECT t.id, t.date, t.amount, a.id, a.name, c.id, c.name, t.type,
+             CASE WHEN t.description IS NULL
+                    OR t.description IN ('Deposit to savings', 'Withdraw from savings')
+                  THEN true ELSE false END
+      FROM Transaction t
+      JOIN t.account a
+      LEFT JOIN t.category c
+      WHERE a.user.id = :userId
+        AND (:from IS NULL OR t.date >= :from)
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamAnalyticsRows(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+	/**
+	 * Loads the given transactions in the layout of {@link #streamAnalyticsRows}. IDs of
+	 * deleted transactions are skipped.
+	 *
+	 * @param ids transaction IDs
+	 * @return one row per existing transaction
+	 */
+    @Query("""
+      SELECT t.id, t.date, t.amount, a.id, a.name, c.id, c.name, t.type,
+             CASE WHEN t.description IS NULL
+                    OR t.description IN ('Deposit to savings', 'Withdraw from savings')
+                  THEN true ELSE false END
+      FROM Transaction t
+      JOIN t.account a
+      LEFT JOIN t.category c
+      WHERE t.id IN :ids
+    """)
+    List<Object[]> findAnalyticsRows(@Param("ids") List<Long> ids);
+
+	/**
+	 * Streams a user's transactions for {@link JK.pfm.service.search.DescriptionIndex} as
+	 * {@code [id, date, accountId, categoryId, type, description]}.
+	 *
+	 * @param userId the owner's user ID
+	 * @param from first date to include, or {@code null} for all
+	 * @return stream of rows; must be consumed inside a transaction and closed
+	 */
+    @Query("""
+      SELECT t.id, t.date, a.id, c.id, t.type, t.description
+      FROM Transaction t
+      JOIN t.account a
+      LEFT JOIN t.category c
+      WHERE a.user.id = :userId
+        AND (:from IS NULL OR t.date >= :from)
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamSearchRows(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+	/**
+	 * Loads the given transactions in the layout of {@link #streamSearchRows}. IDs of deleted
+	 * transactions are skipped.
+	 *
+	 * @param ids transaction IDs
+	 * @return one row per existing transaction
+	 */
+    @Query("""
+      SELECT t.id, t.date, a.id, c.id, t.type, t.description
+      FROM Transaction t
+      JOIN t.account a
+      LEFT JOIN t.category c
+      WHERE t.id IN :ids
+    """)
+    List<Object[]> findSearchRows(@Param("ids") List<Long> ids);
+
+	/**
+	 * Streams the fingerprints of an account's transactions with an ID above {@code afterId}, as
+	 * {@code [id, fingerprint]}. Transactions saved without a fingerprint are skipped.
+	 *
+	 * @param accountId the account's ID
+	 * @param afterId exclusive lower bound for the ID, {@code 0} for all
+	 * @return stream of rows; must be consumed inside a transaction and closed
+	 */
+    @Query("""
+      SELECT t.id, t.fingerprint
+      FROM Transaction t
+      WHERE t.account.id = :accountId
+        AND t.id > :afterId
+        AND t.fingerprint IS NOT NULL
+    """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamFingerprints(@Param("accountId") Long accountId, @Param("afterId") long afterId);
+
+	/**
+	 * Checks whether the account already has a transaction with the given fingerprint.
+	 *
+	 * @param accountId the account's ID
+	 * @param fingerprint the fingerprint to look for
+	 * @return {@code true} if one exists
+	 */
+    boolean existsByAccountIdAndFingerprint(Long accountId, Long fingerprint);
 }
@@ -5,10 +5,14 @@ package JK.pfm.repository;
 import JK.pfm.dto.CategoryListDto;
 import JK.pfm.model.User;
 import JK.pfm.model.UserCategoryPreference;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 
@@ -48,6 +52,7 @@ public interface UserCategoryPreferenceRepository extends JpaRepository<UserCate
 	 * @param userId the user's ID
 	 * @return list of active {@link UserCategoryPreference} records
 	 */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<UserCategoryPreference> findByUserIdAndActiveTrue(Long userId);
     
 	/**
@@ -76,7 +81,25 @@ public interface UserCategoryPreferenceRepository extends JpaRepository<UserCate
       "JOIN p.category c " +
       "WHERE p.user.id = :userId"
     )
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<CategoryListDto> findCategoryListDtoByUserId(@Param("userId") Long userId);
+
+	/**
+	 * Same as {@link #findCategoryListDtoByUserId(Long)}, limited to the given categories.
+	 *
+	 * @param userId the ID of the user
+	 * @param categoryIds the category IDs to include
+	 * @return list of {@link CategoryListDto} projection results
+	 */
+    @Query(
+      "SELECT new JK.pfm.dto.CategoryListDto(c.id, c.name, p.active) " +
+      "FROM UserCategoryPreference p " +
+      "JOIN p.category c " +
+      "WHERE p.user.id = :userId AND c.id IN :categoryIds"
+    )
+    List<CategoryListDto> findCategoryListDtoByUserIdAndCategoryIdIn(
+        @Param("userId") Long userId,
+        @Param("categoryIds") Collection<Long> categoryIds);
     
 	/**
 	 * Retrieves all active user category preferences for the specified user,
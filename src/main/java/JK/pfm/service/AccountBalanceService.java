@@ -0,0 +1,244 @@
+package JK.pfm.service;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.BalanceEntry;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BalanceEntryRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Single place where account balances change.
+ *
+ * <p>By default the balance is the {@code Account.amount} column, updated in place and guarded
+ * by the account's {@code @Version}. With {@code pfm.balance.journal.enabled=true} the column
+ * becomes a checkpoint and every change also appends a {@link BalanceEntry}:</p>
+ * <ul>
+ *   <li><b>Credits</b> only append a pending entry. They never write the account row, so
+ *   high-frequency deposits no longer contend on it.</li>
+ *   <li><b>Debits</b> lock the account row, fold pending credits into the checkpoint, check
+ *   funds, and subtract from the checkpoint. Two debits on one account are serialized, so the
+ *   insufficient-funds check cannot be raced.</li>
+ *   <li>The <b>compactor</b> folds pending credits into checkpoints in the background.</li>
+ * </ul>
+ *
+ * <p>Reads of the balance ({@code AccountRepository.getTotalBalanceByUserId}, the balance
+ * breakdown report, reconciliation) always add the pending deltas. Those reads are therefore
+ * correct in both modes, including while the compactor drains entries left over after the mode
+ * is switched off. Accounts returned to the user go through {@link #withCurrentBalances}.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.balance.journal.enabled} – journal mode (default false)</li>
+ *   <li>{@code pfm.balance.journal.compact-interval-ms} – delay between compactor runs (default 5000)</li>
+ *   <li>{@code pfm.balance.journal.compact-batch-size} – accounts folded per run (default 500)</li>
+ * </ul>
+ */
+@Service
+public class AccountBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountBalanceService.class);
+
+    private final BalanceEntryRepository balanceEntryRepository;
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean journalEnabled;
+    private final int compactBatchSize;
+
+    // with the journal off, compaction keeps running until leftover entries are drained
+    private volatile boolean drainPending = true;
+
+    public AccountBalanceService(
+            BalanceEntryRepository balanceEntryRepository,
+            AccountRepository accountRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.balance.journal.enabled:false}") boolean journalEnabled,
+            @Value("${pfm.balance.journal.compact-batch-size:500}") int compactBatchSize
+    ) {
+        this.balanceEntryRepository = balanceEntryRepository;
+        this.accountRepository      = accountRepository;
+        this.entityManager          = entityManager;
+        this.transactionTemplate    = new TransactionTemplate(transactionManager);
+        this.journalEnabled         = journalEnabled;
+        this.compactBatchSize       = Math.max(1, compactBatchSize);
+    }
+
+    /**
+     * @return {@code true} when balance changes are journaled
+     */
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /**
+     * Returns the account's current balance without locking: the checkpoint plus pending deltas.
+     *
+     * @param account the account
+     * @return the balance
+     */
+    public BigDecimal balanceOf(Account account) {
+        BigDecimal amount = orZero(account.getAmount());
+        if (!journalEnabled) {
+            return amount;
+        }
+        return amount.add(balanceEntryRepository.sumPending(account.getId()));
+    }
+
+    /**
+     * Returns the accounts with {@code amount} showing their current balance, for responses.
+     *
+     * <p>In journal mode the pending deltas of all accounts are read with one query. Accounts
+     * with pending deltas are returned as detached copies, so the persisted checkpoint is never
+     * changed through them; all others are returned as they are.</p>
+     *
+     * @param accounts the accounts, in the order to return them
+     * @return the accounts with current balances
+     */
+    public List<Account> withCurrentBalances(List<Account> accounts) {
+        if (!journalEnabled || accounts.isEmpty()) {
+            return accounts;
+        }
+        Map<Long, BigDecimal> pending = new HashMap<>();
+        List<Long> ids = accounts.stream().map(Account::getId).toList();
+        for (Object[] row : balanceEntryRepository.sumPendingByAccountIds(ids)) {
+            pending.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        if (pending.isEmpty()) {
+            return accounts;
+        }
+        List<Account> resolved = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            BigDecimal delta = pending.get(account.getId());
+            resolved.add(delta == null ? account : copyWithAmount(account, orZero(account.getAmount()).add(delta)));
+        }
+        return resolved;
+    }
+
+    /**
+     * Single-account form of {@link #withCurrentBalances(List)}.
+     *
+     * @param account the account
+     * @return the account, or a detached copy, with its current balance
+     */
+    public Account withCurrentBalance(Account account) {
+        return withCurrentBalances(List.of(account)).get(0);
+    }
+
+    /**
+     * Returns the balance that may be spent in the current transaction.
+     *
+     * <p>In journal mode this locks the account row until the transaction ends and folds pending
+     * credits first. The result therefore stays valid for a following
+     * {@link #apply(Account, BigDecimal, Transaction) debit}. Must be called inside a
+     * transaction.</p>
+     *
+     * @param account a managed account
+     * @return the spendable balance
+     */
+    public BigDecimal lockBalance(Account account) {
+        if (!journalEnabled) {
+            return orZero(account.getAmount());
+        }
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        fold(account);
+        return orZero(account.getAmount());
+    }
+
+    /**
+     * Changes the account's balance by {@code delta}. Performs no funds check; callers that need
+     * one call {@link #lockBalance(Account)} first.
+     *
+     * @param account a managed account
+     * @param delta positive for credits, negative for debits
+     * @param source the transaction that caused the change, or {@code null}
+     */
+    public void apply(Account account, BigDecimal delta, Transaction source) {
+        if (!journalEnabled) {
+            account.setAmount(orZero(account.getAmount()).add(delta));
+            return;
+        }
+        boolean debit = delta.signum() < 0;
+        if (debit) {
+            if (entityManager.getLockMode(account) != LockModeType.PESSIMISTIC_WRITE) {
+                entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+            }
+            account.setAmount(orZero(account.getAmount()).add(delta));
+        }
+        balanceEntryRepository.save(new BalanceEntry(
+            account, delta, source != null ? source.getId() : null, debit, LocalDateTime.now()));
+    }
+
+    /**
+     * Folds pending journal deltas into account checkpoints, one short transaction per account.
+     */
+    @Scheduled(fixedDelayString = "${pfm.balance.journal.compact-interval-ms:5000}")
+    @Timed(value = "pfm.job", extraTags = {"job", "balance-compaction"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "balance-compaction"})
+    public void compact() {
+        if (!journalEnabled && !drainPending) {
+            return;
+        }
+        List<Long> accountIds = transactionTemplate.execute(status ->
+            balanceEntryRepository.findAccountIdsWithPending(PageRequest.of(0, compactBatchSize)));
+        for (Long accountId : accountIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    accountRepository.findByIdForUpdate(accountId).ifPresent(this::fold));
+            } catch (RuntimeException ex) {
+                log.warn("Could not compact balance journal of account {}", accountId, ex);
+            }
+        }
+        if (!journalEnabled && accountIds.isEmpty()) {
+            drainPending = false;
+        }
+    }
+
+    /**
+     * Adds the account's pending deltas to its checkpoint. The account row must be locked.
+     */
+    private void fold(Account account) {
+        List<BalanceEntryRepository.PendingEntry> pending = balanceEntryRepository.lockPending(account.getId());
+        if (pending.isEmpty()) {
+            return;
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        List<Long> ids = new ArrayList<>(pending.size());
+        for (BalanceEntryRepository.PendingEntry entry : pending) {
+            sum = sum.add(entry.getDelta());
+            ids.add(entry.getId());
+        }
+        account.setAmount(orZero(account.getAmount()).add(sum));
+        balanceEntryRepository.markApplied(ids);
+    }
+
+    private static Account copyWithAmount(Account account, BigDecimal amount) {
+        Account copy = new Account(account.getName(), amount, account.getUser());
+        copy.setId(account.getId());
+        copy.setVersion(account.getVersion());
+        copy.setIsActive(account.getIsActive());
+        return copy;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
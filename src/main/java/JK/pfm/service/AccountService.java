@@ -5,6 +5,7 @@ import JK.pfm.dto.ChangeAccountNameDto;
 import JK.pfm.dto.SavingsFundTransferDTO;
 import JK.pfm.dto.TransactionCreationRequest;
 import JK.pfm.model.Account;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.UserRepository;
@@ -13,7 +14,9 @@ import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,29 +28,36 @@ public class AccountService {
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final TransactionService transactionService;
+    private final AccountBalanceService balances;
+    private final OutboxService outbox;
 
     public AccountService(
             AccountRepository accountRepository,
             UserRepository userRepository,
             CategoryRepository categoryRepository,
-            TransactionService transactionService
+            TransactionService transactionService,
+            AccountBalanceService balances,
+            OutboxService outbox
     ) {
         this.accountRepository = accountRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
         this.transactionService = transactionService;
+        this.balances = balances;
+        this.outbox = outbox;
     }
     
 
     
     /**
-    * Returns all active accounts for the specified user.
+    * Returns all active accounts for the specified user, with current balances (including
+    * balance journal credits that are not yet compacted).
     *
     * @param userId the ID of the user whose accounts to fetch
     * @return a list of active {@link JK.pfm.model.Account} records
     */
     public List<Account> getAccountsForUser(Long userId) {
-        return accountRepository.findByUserIdAndActiveTrue(userId);
+        return balances.withCurrentBalances(accountRepository.findByUserIdAndActiveTrue(userId));
     }
 
     /**
@@ -100,7 +110,7 @@ public class AccountService {
             transactionService.saveTransaction(opening);
     }       
 
-        return saved;
+        return balances.withCurrentBalance(saved);
     }
 
     /**
@@ -123,7 +133,7 @@ public class AccountService {
             ));
         
         //check for funds
-        if(account.getAmount().compareTo(BigDecimal.ZERO) != 0){
+        if(balances.lockBalance(account).compareTo(BigDecimal.ZERO) != 0){
             throw new ResponseStatusException(
             HttpStatus.CONFLICT,
             "Account still has funds. Please withdraw funds before deletion."
@@ -134,6 +144,11 @@ public class AccountService {
         account.setIsActive(false);
         
         accountRepository.save(account);
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("accountId", account.getId());
+        payload.put("name", account.getName());
+        outbox.append(userId, OutboxEvent.ACCOUNT_CLOSED, account.getId(), payload);
     }
 
     
@@ -181,7 +196,8 @@ public class AccountService {
         });
         
         account.setName(request.getName());
-        return accountRepository.save(account);
+        accountRepository.save(account);
+        return balances.withCurrentBalance(account);
     }
     
     /**
@@ -239,7 +255,7 @@ public class AccountService {
             ));
             
             //fund check
-            if (withdrawAccount.getAmount().compareTo(amount) < 0){
+            if (balances.balanceOf(withdrawAccount).compareTo(amount) < 0){
                 throw new ResponseStatusException(
             HttpStatus.CONFLICT,
             "Not enough funds"
@@ -259,7 +275,7 @@ public class AccountService {
             ));
             
             //fund check
-            if (withdrawAccount.getAmount().compareTo(amount) < 0){
+            if (balances.balanceOf(withdrawAccount).compareTo(amount) < 0){
                 throw new ResponseStatusException(
             HttpStatus.CONFLICT,
             "Not enough funds"
@@ -282,8 +298,8 @@ public class AccountService {
             new TransactionCreationRequest(date, amount, categoryId, withdrawAccount.getName(), "Expense", "Withdraw to " + depositAccount.getName());
             transactionService.saveTransaction(withdrawTransaction);
             
-        return request.getType().equals("Deposit")
-            ? depositAccount : withdrawAccount;
+        return balances.withCurrentBalance(request.getType().equals("Deposit")
+            ? depositAccount : withdrawAccount);
         
     }
 }
@@ -0,0 +1,97 @@
+package JK.pfm.service;
+
+import JK.pfm.config.LeasedJob;
+import JK.pfm.model.BalanceSnapshot;
+import JK.pfm.repository.BalanceSnapshotRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stores every user's account and savings balances at the end of the previous month as a
+ * {@link BalanceSnapshot}, which the period comparison report reads instead of recomputing
+ * historical balances.
+ *
+ * <p>Balances are computed for all users in one query, from the current totals minus the
+ * activity dated after the month end, so the job gives the same result whenever it runs in the
+ * following month. Existing snapshots for that month are overwritten, so re-running it is
+ * harmless. Snapshots are not recorded in the change feed, so the job advances every user's
+ * sequence to invalidate cached reports and ETags.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.reports.snapshot.cron} – schedule (default 00:05 on the 1st of each month)</li>
+ * </ul>
+ */
+@Service
+public class BalanceSnapshotScheduler {
+
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final SyncCursorRepository syncCursorRepository;
+    private final JobLeaseService jobLeases;
+
+    public BalanceSnapshotScheduler(BalanceSnapshotRepository snapshotRepository,
+                                    SyncCursorRepository syncCursorRepository,
+                                    JobLeaseService jobLeases) {
+        this.snapshotRepository   = snapshotRepository;
+        this.syncCursorRepository = syncCursorRepository;
+        this.jobLeases            = jobLeases;
+    }
+
+    /**
+     * Snapshots the balances at the end of the previous month for every user.
+     * The scheduled run happens on one node only.
+     *
+     * @return number of snapshots written
+     */
+    @Scheduled(cron = "${pfm.reports.snapshot.cron:0 5 0 1 * *}")
+    @LeasedJob("balance-snapshot")
+    @Timed(value = "pfm.job", extraTags = {"job", "balance-snapshot"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "balance-snapshot"})
+    @Transactional
+    public int snapshotLastMonth() {
+        return snapshot(LocalDate.now().minusMonths(1).with(TemporalAdjusters.lastDayOfMonth()));
+    }
+
+    /**
+     * Stores every user's balances at the end of {@code monthEnd}.
+     *
+     * @param monthEnd the last day of a past month
+     * @return number of snapshots written
+     */
+    @Transactional
+    public int snapshot(LocalDate monthEnd) {
+        jobLeases.checkFence();
+        Map<Long, BalanceSnapshot> existing = snapshotRepository.findByMonthEnd(monthEnd).stream()
+            .collect(Collectors.toMap(BalanceSnapshot::getUserId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<BalanceSnapshot> snapshots = new ArrayList<>();
+        for (Object[] row : snapshotRepository.computeBalancesAt(null, monthEnd)) {
+            Long userId = (Long) row[0];
+            BalanceSnapshot snapshot = existing.getOrDefault(userId, new BalanceSnapshot(userId, monthEnd));
+            snapshot.setAccountsBalance((BigDecimal) row[1]);
+            snapshot.setSavingsBalance((BigDecimal) row[2]);
+            snapshot.setTakenAt(now);
+            snapshots.add(snapshot);
+        }
+        snapshotRepository.saveAll(snapshots);
+        if (!snapshots.isEmpty()) {
+            // snapshots are not in the change feed; invalidate the users' comparison reports
+            syncCursorRepository.advanceAll();
+        }
+        return snapshots.size();
+    }
+}
@@ -1,6 +1,8 @@
 package JK.pfm.service;
 
+import JK.pfm.config.LeasedJob;
 import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.BudgetVsActualDTO;
 import JK.pfm.dto.UpdateBudgetAmountDto;
 import JK.pfm.dto.filters.DateRangeFilter;
 import JK.pfm.model.Budget;
@@ -9,10 +11,12 @@ import JK.pfm.model.User;
 import JK.pfm.repository.BudgetRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.UserRepository;
+import JK.pfm.service.budget.BudgetTracker;
 import JK.pfm.specifications.BudgetSpecifications;
-import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
 import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
@@ -33,18 +37,21 @@ public class BudgetService {
 
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final AccountUtil accountUtil;
+    private final JobLeaseService jobLeases;
+    private final BudgetTracker budgetTracker;
 
     public BudgetService(
             BudgetRepository budgetRepository,
             UserRepository userRepository,
             CategoryRepository categoryRepository,
-            AccountUtil accountUtil
+            JobLeaseService jobLeases,
+            BudgetTracker budgetTracker
     ) {
         this.budgetRepository = budgetRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
-        this.accountUtil = accountUtil;
+        this.jobLeases = jobLeases;
+        this.budgetTracker = budgetTracker;
     }
 
     
@@ -77,6 +84,8 @@ public class BudgetService {
 
     /**
      * Creates and saves a new budget for the currently authenticated user.
+     * <p>
+     * The budget's {@code spent} counter starts from the expenses already in its window.
      *
      * @param request the budget creation payload containing amount, category ID, and date range
      * @return the created {@link JK.pfm.model.Budget}
@@ -96,6 +105,7 @@ public class BudgetService {
         
         //create budget
         Budget budget = new Budget(request.getAmount(), request.getStartDate(), request.getEndDate(), category, user);
+        budgetTracker.track(budget);
         
         return budgetRepository.save(budget);
     }
@@ -131,6 +141,8 @@ public class BudgetService {
     
     /**
      * Updates the amount of an existing budget.
+     * <p>
+     * Alert thresholds are re-evaluated against the new amount.
      *
      * @param id the ID of the budget to update
      * @param request the payload containing the new budget amount
@@ -149,12 +161,16 @@ public class BudgetService {
             ));
         
         budget.setAmount(request.getAmount());
+        budgetTracker.evaluate(budget);
         
         return budgetRepository.save(budget);
     }
     
     /**
-     * Calculates the total amount spent within the category and date range of a budget.
+     * Returns the amount spent on a budget, from its {@code spent} counter.
+     * <p>
+     * The counter covers every expense in the budget's category and window, on any of the
+     * owner's accounts, archived ones included (see {@link BudgetTracker}).
      *
      * @param id the ID of the budget to evaluate
      * @return the total amount spent as {@link java.math.BigDecimal}
@@ -170,21 +186,41 @@ public class BudgetService {
                 "Budget not found"
             ));
 
-        //get accounts for user
-        List<Long> accountIds = accountUtil.getUserAccountIds();
-        
-        return budgetRepository.getTotalSpentOnBudget(budget.getCategory().getId(), budget.getStartDate(), budget.getEndDate(), accountIds);
+        return budgetTracker.spent(budget);
     } 
     
+    /**
+     * Lists the current user's budgets, optionally filtered by period, with the amount spent on
+     * each.
+     * <p>
+     * Reads the budgets' {@code spent} counters in one query, so spending is counted the same way
+     * as in {@link #getTotalSpentOnBudget(Long)} and no transactions are summed.
+     *
+     * @param filter the date range filter containing start and/or end dates
+     * @return a list of {@link JK.pfm.dto.BudgetVsActualDTO}, ordered by start date
+     */
+    public List<BudgetVsActualDTO> getBudgetsVsActual(DateRangeFilter filter) {
+        return budgetRepository.findBudgetsVsActual(
+            SecurityUtil.getUserId(), filter.getStartDate(), filter.getEndDate());
+    }
+
     /**
      * Automatically recreates monthly budgets for the next month.
      * <p>
      * Scheduled to run daily at midnight. For each active monthly budget,
      * creates a new instance for the upcoming month if it does not already exist.
+     * Runs on one node only.
+     *
+     * @return number of budgets created
      */
     @Scheduled(cron = "0 0 0 * * *")
+    @LeasedJob("next-month-budgets")
+    @Timed(value = "pfm.job", extraTags = {"job", "next-month-budgets"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "next-month-budgets"})
     @Transactional
-    public void createNextMonthBudgets() {
+    public int createNextMonthBudgets() {
+        jobLeases.checkFence();
+        int created = 0;
         // Compute date boundaries
         LocalDate today = LocalDate.now();
         LocalDate endOfCurrentMonth = today.with(TemporalAdjusters.lastDayOfMonth());
@@ -213,9 +249,12 @@ public class BudgetService {
                 owner
             );
             next.setMonthly(true);
+            budgetTracker.track(next);
             budgetRepository.save(next);
+            created++;
             }
         }
+        return created;
     }
 
     
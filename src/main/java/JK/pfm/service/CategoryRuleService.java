@@ -0,0 +1,104 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.CategoryRuleCreationRequest;
+import JK.pfm.model.Category;
+import JK.pfm.model.CategoryRule;
+import JK.pfm.model.User;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.CategoryRuleRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.categorization.CategoryMatcher;
+import JK.pfm.util.SecurityUtil;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+@Service
+public class CategoryRuleService {
+
+    private final CategoryRuleRepository ruleRepository;
+    private final CategoryRepository categoryRepository;
+    private final UserRepository userRepository;
+
+    public CategoryRuleService(
+            CategoryRuleRepository ruleRepository,
+            CategoryRepository categoryRepository,
+            UserRepository userRepository
+    ) {
+        this.ruleRepository     = ruleRepository;
+        this.categoryRepository = categoryRepository;
+        this.userRepository     = userRepository;
+    }
+
+    /**
+     * Retrieves the current user's categorization rules in the order they are applied.
+     *
+     * @return list of {@link CategoryRule}, by priority and then ID
+     */
+    public List<CategoryRule> getRules() {
+        return ruleRepository.findByUserIdOrderByPriorityAscIdAsc(SecurityUtil.getUserId());
+    }
+
+    /**
+     * Creates a categorization rule for the current user. Transactions created without a
+     * category use it from the next request on.
+     *
+     * @param request the rule's match type, pattern, optional amount range, priority and category
+     * @return the persisted {@link CategoryRule}
+     * @throws org.springframework.web.server.ResponseStatusException
+     *         if the category does not exist (404 NOT FOUND), or the regular expression is invalid
+     *         or outside the limits of {@link CategoryMatcher#isSafeRegex} (400 BAD REQUEST)
+     */
+    public CategoryRule saveRule(CategoryRuleCreationRequest request) {
+        User user = SecurityUtil.getUser(userRepository);
+
+        Category category = categoryRepository.findById(request.getCategoryId())
+        .orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                "Category not found"
+            ));
+
+        String pattern = request.getPattern();
+        if (CategoryRule.AMOUNT.equals(request.getMatchType())) {
+            pattern = null;
+        } else if (CategoryRule.REGEX.equals(request.getMatchType())) {
+            try {
+                Pattern.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pattern");
+            }
+            if (!CategoryMatcher.isSafeRegex(pattern)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pattern too complex");
+            }
+        }
+
+        CategoryRule rule = new CategoryRule(request.getMatchType(), pattern, category, user);
+        rule.setMinAmount(request.getMinAmount());
+        rule.setMaxAmount(request.getMaxAmount());
+        if (request.getPriority() != null) {
+            rule.setPriority(request.getPriority());
+        }
+        return ruleRepository.save(rule);
+    }
+
+    /**
+     * Deletes a categorization rule of the current user.
+     *
+     * @param id the rule ID
+     * @throws org.springframework.web.server.ResponseStatusException
+     *         if the rule is not found (404 NOT FOUND)
+     */
+    @PreAuthorize("@securityUtil.isCurrentUserCategoryRule(#id)")
+    public void deleteRule(Long id) {
+        CategoryRule rule = ruleRepository.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                "Rule not found"
+            ));
+        ruleRepository.delete(rule);
+    }
+}
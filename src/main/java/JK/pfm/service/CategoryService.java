@@ -8,8 +8,8 @@ import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.UserCategoryPreferenceRepository;
 import JK.pfm.repository.UserRepository;
 import JK.pfm.util.SecurityUtil;
-import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.http.HttpStatus;
@@ -37,6 +37,7 @@ public class CategoryService {
      *
      * @return a list of active {@link JK.pfm.model.Category} entities
      */
+    @Transactional(readOnly = true)
     public List<Category> getAllCategoriesForUser() {
         List<UserCategoryPreference> preferences = userCategoryPreferenceRepository.findByUserIdAndActiveTrue(SecurityUtil.getUserId());
         return preferences.stream()
@@ -51,6 +52,7 @@ public class CategoryService {
      *
      * @return a list of {@link JK.pfm.dto.CategoryListDto} containing category details and visibility flags
      */
+    @Transactional(readOnly = true)
     public List<CategoryListDto> getAllCategories() {        
         return userCategoryPreferenceRepository.findCategoryListDtoByUserId(SecurityUtil.getUserId());
     }
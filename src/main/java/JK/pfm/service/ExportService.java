@@ -0,0 +1,137 @@
+package JK.pfm.service;
+
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.export.ExportDataset;
+import JK.pfm.service.export.ExportFormat;
+import JK.pfm.service.export.ExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams a user's full data set as CSV, NDJSON or the columnar binary format.
+ *
+ * <p>Rows are read through forward-only cursors (see the repositories' {@code streamForExport}
+ * queries) as scalar projections and written to the output as they arrive. Nothing is
+ * collected in memory or in the persistence context, so heap use stays flat no matter how many
+ * rows are exported. Transactions include the archive.</p>
+ *
+ * <p>The export runs in one read-only transaction, so it sees a consistent snapshot and is
+ * routed to the read replica when one is configured. On MySQL the connection URL needs
+ * {@code useCursorFetch=true} for the fetch size to take effect; otherwise the driver buffers
+ * the whole result.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.export.row-group-size} – rows per group in the columnar format (default 4096)</li>
+ * </ul>
+ */
+@Service
+public class ExportService {
+
+    private static final int GZIP_BUFFER = 1 << 16;
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final BudgetRepository budgetRepository;
+    private final SavingsGoalRepository savingsGoalRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+    private final int rowGroupSize;
+
+    public ExportService(
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            RecurringExpenseRepository recurringExpenseRepository,
+            BudgetRepository budgetRepository,
+            SavingsGoalRepository savingsGoalRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.export.row-group-size:4096}") int rowGroupSize
+    ) {
+        this.transactionRepository         = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.recurringExpenseRepository    = recurringExpenseRepository;
+        this.budgetRepository              = budgetRepository;
+        this.savingsGoalRepository         = savingsGoalRepository;
+        this.objectMapper                  = objectMapper;
+        this.readOnly                      = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        // a named read-only transaction is what ReplicaRoutingDataSource sends to the replica
+        this.readOnly.setName(ExportService.class.getName() + ".export");
+        this.rowGroupSize                  = rowGroupSize;
+    }
+
+    /**
+     * Writes one data set of a user to {@code out}. The stream is flushed but not closed.
+     *
+     * @param dataset what to export
+     * @param format serialization format
+     * @param gzip whether to gzip the output
+     * @param userId the owner's user ID
+     * @param out target stream
+     * @return number of rows written
+     * @throws IOException if writing fails, e.g. because the client disconnected
+     */
+    public long export(ExportDataset dataset, ExportFormat format, boolean gzip, Long userId, OutputStream out)
+            throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, GZIP_BUFFER) : null;
+        ExportWriter writer = format.open(compressed != null ? compressed : out, objectMapper.getFactory(), rowGroupSize);
+        Long written;
+        try {
+            written = readOnly.execute(status -> {
+                try {
+                    writer.begin(dataset.getColumns());
+                    long rows = 0;
+                    // sources are opened one after another, so only one cursor is open at a time
+                    for (Supplier<Stream<Object[]>> source : sources(dataset, userId)) {
+                        try (Stream<Object[]> stream = source.get()) {
+                            Iterator<Object[]> it = stream.iterator();
+                            while (it.hasNext()) {
+                                writer.write(it.next());
+                                rows++;
+                            }
+                        }
+                    }
+                    writer.finish();
+                    return rows;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+        return written;
+    }
+
+    private List<Supplier<Stream<Object[]>>> sources(ExportDataset dataset, Long userId) {
+        return switch (dataset) {
+            case TRANSACTIONS -> List.of(
+                () -> transactionRepository.streamForExport(userId),
+                () -> archivedTransactionRepository.streamForExport(userId));
+            case RECURRING_EXPENSES -> List.of(() -> recurringExpenseRepository.streamForExport(userId));
+            case BUDGETS -> List.of(() -> budgetRepository.streamForExport(userId));
+            case SAVINGS_GOALS -> List.of(() -> savingsGoalRepository.streamForExport(userId));
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package JK.pfm.service;
+
+import JK.pfm.model.JobLease;
+import JK.pfm.model.JobRun;
+import JK.pfm.repository.JobLeaseRepository;
+import JK.pfm.repository.JobRunRepository;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Database-backed leases that let exactly one node run a scheduled job at a time.
+ *
+ * <p>Jobs annotated with {@link JK.pfm.config.LeasedJob} go through {@link #run}, which:</p>
+ * <ol>
+ *   <li>acquires the job's lease ({@code job_leases}) with one conditional update. If another
+ *   node holds an unexpired lease, the job is skipped on this node;</li>
+ *   <li>records the run in {@code job_runs}, with duration, processed items and failure;</li>
+ *   <li>keeps the lease until shortly before the job's next scheduled run. The schedulers of the
+ *   other nodes fire at about the same time, possibly after this node has finished; they find the
+ *   lease still held and skip the run this node already did.</li>
+ * </ol>
+ *
+ * <p>A lease expires after {@code pfm.scheduler.lease-ttl-ms}, so a crashed node does not block
+ * the job forever. A node that was only slow may still be running when its lease expires and
+ * another node takes over. To cover that case, jobs call {@link #checkFence()} inside their write
+ * transaction. It locks the lease row if this node's fencing token is still current, and fails
+ * the transaction otherwise.</p>
+ *
+ * <p>Lease bookkeeping runs in its own transactions, independent of the job's transaction.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.scheduler.lease-ttl-ms} – lease lifetime (default 30 min)</li>
+ *   <li>{@code pfm.scheduler.node-id} – this node's name in leases and run history (default host name plus a random suffix)</li>
+ * </ul>
+ */
+@Service
+public class JobLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final JobRunRepository jobRunRepository;
+    private final TransactionTemplate requiresNew;
+    private final long leaseTtlMillis;
+    private final String nodeId;
+
+    // lease held by the job running on this thread
+    private final ThreadLocal<Lease> current = new ThreadLocal<>();
+
+    public JobLeaseService(
+            JobLeaseRepository jobLeaseRepository,
+            JobRunRepository jobRunRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.scheduler.lease-ttl-ms:1800000}") long leaseTtlMillis,
+            @Value("${pfm.scheduler.node-id:}") String nodeId
+    ) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.jobRunRepository   = jobRunRepository;
+        this.requiresNew        = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leaseTtlMillis     = leaseTtlMillis;
+        this.nodeId             = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    /**
+     * A lease held by this node.
+     *
+     * @param name the job name
+     * @param owner this node's ID
+     * @param fencingToken token issued with the lease
+     * @param until when the lease expires
+     */
+    public record Lease(String name, String owner, long fencingToken, LocalDateTime until) {}
+
+    /**
+     * Work guarded by a lease.
+     */
+    @FunctionalInterface
+    public interface LeasedWork {
+        Object run() throws Throwable;
+    }
+
+    /**
+     * @return this node's ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Tries to acquire a job's lease.
+     *
+     * @param name the job name
+     * @return the lease, or empty if another node holds it
+     */
+    public Optional<Lease> tryAcquire(String name) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusNanos(leaseTtlMillis * 1_000_000);
+        Integer updated = requiresNew.execute(status -> jobLeaseRepository.acquire(name, nodeId, until, now));
+        if (updated == 0 && createIfMissing(name)) {
+            updated = requiresNew.execute(status -> jobLeaseRepository.acquire(name, nodeId, until, now));
+        }
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        JobLease lease = requiresNew.execute(status -> jobLeaseRepository.findById(name).orElseThrow());
+        return Optional.of(new Lease(name, nodeId, lease.getFencingToken(), lease.getLeaseUntil()));
+    }
+
+    /**
+     * Releases a lease so the next run on any node can acquire it immediately.
+     *
+     * @param lease the lease to release; ignored if it has been superseded
+     */
+    public void release(Lease lease) {
+        release(lease, null);
+    }
+
+    /**
+     * Shortens a lease to end at {@code holdUntil}, or releases it now if that has passed.
+     *
+     * @param lease the lease; ignored if it has been superseded
+     * @param holdUntil when the lease should end, or {@code null} to release it now
+     */
+    public void release(Lease lease, LocalDateTime holdUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = holdUntil != null && holdUntil.isAfter(now) ? holdUntil : now;
+        requiresNew.executeWithoutResult(status ->
+            jobLeaseRepository.release(lease.name(), lease.fencingToken(), until));
+    }
+
+    /**
+     * Runs a job if this node can acquire its lease, records the run, and releases the lease
+     * when it ends.
+     *
+     * @param name the job name
+     * @param work the job
+     * @return the job's result, or empty if the lease is held elsewhere
+     * @throws Throwable whatever the job throws
+     */
+    public Optional<Object> run(String name, LeasedWork work) throws Throwable {
+        return run(name, null, work);
+    }
+
+    /**
+     * Runs a job if this node can acquire its lease, and records the run. After the job ends,
+     * successfully or not, the lease is kept until {@code holdUntil}, so that no node runs the
+     * job again before then.
+     *
+     * @param name the job name
+     * @param holdUntil when the lease may be taken again, usually just before the next scheduled
+     *        run; {@code null} releases it as soon as the job ends
+     * @param work the job
+     * @return the job's result, or empty if the lease is held elsewhere
+     * @throws Throwable whatever the job throws
+     */
+    public Optional<Object> run(String name, LocalDateTime holdUntil, LeasedWork work) throws Throwable {
+        Optional<Lease> acquired = tryAcquire(name);
+        if (acquired.isEmpty()) {
+            log.debug("Skipping job {}: lease held by another node", name);
+            return Optional.empty();
+        }
+        Lease lease = acquired.get();
+        JobRun run = requiresNew.execute(status ->
+            jobRunRepository.save(new JobRun(name, nodeId, lease.fencingToken(), LocalDateTime.now())));
+        current.set(lease);
+        try {
+            Object result = work.run();
+            finish(run, result instanceof Number n ? n.intValue() : null, null);
+            return Optional.ofNullable(result);
+        } catch (Throwable ex) {
+            finish(run, null, ex);
+            throw ex;
+        } finally {
+            current.remove();
+            release(lease, holdUntil);
+        }
+    }
+
+    /**
+     * Verifies, inside the caller's transaction, that the job running on this thread still holds
+     * the current fencing token. The lease row is locked until the transaction ends, so no other
+     * node can take over before the caller's writes commit.
+     *
+     * <p>Does nothing when called outside a leased job, e.g. when a job is invoked directly.</p>
+     *
+     * @throws IllegalStateException if the lease has been taken over by another node
+     */
+    public void checkFence() {
+        Lease lease = current.get();
+        if (lease == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("checkFence() must be called inside the job's transaction");
+        }
+        if (jobLeaseRepository.lockIfCurrent(lease.name(), lease.fencingToken()).isEmpty()) {
+            throw new IllegalStateException("Lease on job " + lease.name() + " was taken over; fencing token "
+                + lease.fencingToken() + " is stale");
+        }
+    }
+
+    private boolean createIfMissing(String name) {
+        try {
+            return Boolean.TRUE.equals(requiresNew.execute(status -> {
+                if (jobLeaseRepository.existsById(name)) {
+                    return false;
+                }
+                jobLeaseRepository.saveAndFlush(new JobLease(name));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException raced) {
+            // another node created the row first
+            return true;
+        }
+    }
+
+    private void finish(JobRun run, Integer items, Throwable error) {
+        String message = null;
+        if (error != null) {
+            message = String.valueOf(error);
+            if (message.length() > MAX_ERROR_LENGTH) {
+                message = message.substring(0, MAX_ERROR_LENGTH);
+            }
+        }
+        run.finish(LocalDateTime.now(), items, message);
+        try {
+            requiresNew.executeWithoutResult(status -> jobRunRepository.save(run));
+        } catch (RuntimeException ex) {
+            // history is best effort; it must not turn a successful run into a failure
+            log.warn("Could not record run of job {}", run.getJobName(), ex);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,279 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.BudgetAlert;
+import JK.pfm.dto.LiveEvent;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.repository.AccountRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * Pushes committed transaction and balance changes to connected clients over Server-Sent Events.
+ *
+ * <p>Services record a {@link LiveEvent} in the outbox as {@link OutboxEvent#TRANSACTION_CREATED}
+ * or {@link OutboxEvent#TRANSACTION_DELETED}; the outbox dispatcher hands it to
+ * {@link #onOutboxEvent(OutboxEvent)} once the write has committed. Each open connection then
+ * receives the event plus a {@code balance} event carrying the user's new total balance. Budget
+ * threshold crossings ({@link BudgetAlert}, {@link OutboxEvent#BUDGET_THRESHOLD}) are pushed the
+ * same way as {@code budget-alert} events.</p>
+ *
+ * <p>The outbox delivers at least once. A connection remembers the last outbox event it was
+ * given and ignores redeliveries, which is safe because one user's events arrive in ID
+ * order.</p>
+ *
+ * <p>Publishing never blocks on a client. Events go into a small per-connection buffer, and a
+ * virtual thread writes them to the socket. When a slow client lets the buffer fill up, the
+ * oldest events are dropped. Idle connections get a comment line every
+ * {@code pfm.live.heartbeat-ms} so proxies keep them open.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.live.buffer-size} – events buffered per connection (default 100)</li>
+ *   <li>{@code pfm.live.timeout-ms} – connection lifetime before the client must reconnect (default 30 min)</li>
+ *   <li>{@code pfm.live.heartbeat-ms} – heartbeat interval (default 15000)</li>
+ * </ul>
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    private final AccountRepository accountRepository;
+    private final long timeoutMillis;
+    private final int bufferSize;
+
+    private final ConcurrentMap<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService sender =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pfm-sse-", 0).factory());
+
+    public LiveUpdateService(
+            AccountRepository accountRepository,
+            @Value("${pfm.live.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${pfm.live.buffer-size:100}") int bufferSize
+    ) {
+        this.accountRepository = accountRepository;
+        this.timeoutMillis     = timeoutMillis;
+        this.bufferSize        = bufferSize;
+    }
+
+    /**
+     * Opens a live stream for a user.
+     *
+     * <p>The first event, {@code balance}, carries the current total balance so the client does
+     * not need a separate request to initialise.</p>
+     *
+     * @param userId the authenticated user's ID
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Connection connection = new Connection(userId, emitter);
+        connections.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(ex -> remove(connection));
+
+        connection.offer(balanceEvent(userId));
+        return emitter;
+    }
+
+    /**
+     * Delivers a committed transaction change or budget alert to the owner's open connections.
+     * Other event types are ignored.
+     *
+     * <p>The payload is the JSON the writing service recorded and is sent unchanged.</p>
+     *
+     * @param event the outbox event
+     */
+    @EventListener
+    public void onOutboxEvent(OutboxEvent event) {
+        String name = switch (event.getEventType()) {
+            case OutboxEvent.TRANSACTION_CREATED, OutboxEvent.TRANSACTION_DELETED -> event.getEventType();
+            case OutboxEvent.BUDGET_THRESHOLD -> "budget-alert";
+            default -> null;
+        };
+        Set<Connection> targets = name != null && event.getUserId() != null ? connections.get(event.getUserId()) : null;
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        boolean withBalance = !OutboxEvent.BUDGET_THRESHOLD.equals(event.getEventType());
+        SseEventBuilder balance = withBalance ? balanceEvent(event.getUserId()) : null;
+        for (Connection connection : targets) {
+            if (!connection.accept(event.getId())) {
+                continue;
+            }
+            connection.offer(SseEmitter.event().name(name).data(event.getPayload(), MediaType.APPLICATION_JSON));
+            if (balance != null) {
+                connection.offer(balance);
+            }
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment on every connection that has nothing queued.
+     */
+    @Scheduled(fixedRateString = "${pfm.live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        connections.values().forEach(set -> set.forEach(Connection::heartbeat));
+    }
+
+    /**
+     * @param userId the user's ID
+     * @return number of open live connections for the user
+     */
+    public int connectionCount(Long userId) {
+        Set<Connection> set = connections.get(userId);
+        return set != null ? set.size() : 0;
+    }
+
+    /**
+     * Ends all open streams when the application starts shutting down. This runs before the web
+     * server stops, so graceful shutdown does not wait for long-lived streams to time out.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeAll() {
+        connections.values().forEach(set -> set.forEach(connection -> connection.emitter.complete()));
+        connections.clear();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closeAll();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Writes one event to the client. Blocks while the socket is busy; only called from the
+     * connection's sender thread.
+     */
+    protected void send(SseEmitter emitter, SseEventBuilder event) throws IOException {
+        emitter.send(event);
+    }
+
+    private SseEventBuilder balanceEvent(Long userId) {
+        BigDecimal total = accountRepository.getTotalBalanceByUserId(userId);
+        return SseEmitter.event().name("balance").data(Map.of("totalBalance", total != null ? total : BigDecimal.ZERO));
+    }
+
+    private void remove(Connection connection) {
+        connection.close();
+        connections.computeIfPresent(connection.userId, (id, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * One client stream with its bounded, drop-oldest buffer.
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Deque<SseEventBuilder> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        private long dropped;
+        private long lastEventId;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId  = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEventBuilder event) {
+            synchronized (buffer) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    if (++dropped % bufferSize == 1) {
+                        log.debug("Live stream for user {} is behind; {} events dropped so far", userId, dropped);
+                    }
+                }
+                buffer.addLast(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        /**
+         * @return {@code false} if the outbox event was already delivered to this connection
+         */
+        boolean accept(Long eventId) {
+            if (eventId == null) {
+                return true;
+            }
+            synchronized (buffer) {
+                if (eventId <= lastEventId) {
+                    return false;
+                }
+                lastEventId = eventId;
+                return true;
+            }
+        }
+
+        void heartbeat() {
+            synchronized (buffer) {
+                if (!buffer.isEmpty() || draining) {
+                    return;
+                }
+            }
+            offer(SseEmitter.event().comment("heartbeat"));
+        }
+
+        void close() {
+            synchronized (buffer) {
+                closed = true;
+                buffer.clear();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEventBuilder next;
+                synchronized (buffer) {
+                    next = buffer.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    send(emitter, next);
+                } catch (IOException | IllegalStateException ex) {
+                    // client went away; the emitter callbacks remove the connection
+                    remove(this);
+                    emitter.completeWithError(ex);
+                    synchronized (buffer) {
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package JK.pfm.service;
+
+import JK.pfm.config.LeasedJob;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.repository.OutboxEventRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Delivers {@link OutboxEvent}s to in-process listeners after their transaction has committed.
+ *
+ * <p>Each run works in three steps:</p>
+ * <ol>
+ *   <li><b>Claim</b>: the oldest pending events are read, and for every user the leading run of
+ *   available events is claimed with a single conditional {@code UPDATE}. An event already
+ *   claimed by another dispatcher (or node) is skipped rather than waited on, like
+ *   {@code SKIP LOCKED}. A claim expires after {@code pfm.outbox.claim-ttl-ms}, so the events of
+ *   a crashed dispatcher are picked up again.</li>
+ *   <li><b>Deliver</b>: events are published through the application event bus and reach
+ *   {@code @EventListener} methods that take an {@link OutboxEvent}. Users are processed in
+ *   parallel on a worker pool. One user's events are processed one after another, in commit
+ *   order.</li>
+ *   <li><b>Acknowledge</b>: each delivered event is marked processed. If a listener throws, the
+ *   event is retried with exponential backoff, and the user's later events wait behind it. After
+ *   {@code pfm.outbox.max-attempts} the event is marked failed and kept for inspection.</li>
+ * </ol>
+ *
+ * <p>Delivery is at-least-once, so listeners must be idempotent. They run outside any
+ * transaction.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.outbox.dispatcher.enabled} – run the dispatcher on this node (default true)</li>
+ *   <li>{@code pfm.outbox.poll-interval-ms} – delay between runs (default 500)</li>
+ *   <li>{@code pfm.outbox.batch-size} – events read per run (default 100)</li>
+ *   <li>{@code pfm.outbox.workers} – users delivered in parallel (default 4)</li>
+ *   <li>{@code pfm.outbox.claim-ttl-ms} – claim lifetime (default 60000)</li>
+ *   <li>{@code pfm.outbox.max-attempts} – attempts before an event is marked failed (default 10)</li>
+ *   <li>{@code pfm.outbox.retry-backoff-ms} – delay before the first retry, doubled per attempt (default 1000)</li>
+ *   <li>{@code pfm.outbox.retention-days} – how long delivered events are kept (default 7)</li>
+ * </ul>
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long claimTtlMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int retentionDays;
+    private final ExecutorService workers;
+
+    public OutboxDispatcher(
+            OutboxEventRepository outboxEventRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.outbox.dispatcher.enabled:true}") boolean enabled,
+            @Value("${pfm.outbox.batch-size:100}") int batchSize,
+            @Value("${pfm.outbox.workers:4}") int workers,
+            @Value("${pfm.outbox.claim-ttl-ms:60000}") long claimTtlMillis,
+            @Value("${pfm.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${pfm.outbox.retry-backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${pfm.outbox.retention-days:7}") int retentionDays
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher        = eventPublisher;
+        this.transactionTemplate   = new TransactionTemplate(transactionManager);
+        this.enabled               = enabled;
+        this.batchSize             = Math.max(1, batchSize);
+        this.claimTtlMillis        = claimTtlMillis;
+        this.maxAttempts           = Math.max(1, maxAttempts);
+        this.retryBackoffMillis    = retryBackoffMillis;
+        this.retentionDays         = retentionDays;
+        this.workers               = Executors.newFixedThreadPool(Math.max(1, workers),
+            Thread.ofVirtual().name("pfm-outbox-", 0).factory());
+    }
+
+    /**
+     * Scheduled entry point; see {@link #dispatch()}.
+     */
+    @Scheduled(fixedDelayString = "${pfm.outbox.poll-interval-ms:500}")
+    @Timed(value = "pfm.job", extraTags = {"job", "outbox-dispatch"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "outbox-dispatch"})
+    public void runScheduled() {
+        dispatch();
+    }
+
+    /**
+     * Claims and delivers one batch of pending events.
+     *
+     * @return number of events delivered
+     */
+    public int dispatch() {
+        if (!enabled) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        Map<Long, List<OutboxEvent>> claimed = transactionTemplate.execute(status -> claim(token));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<Integer>> futures = new ArrayList<>(claimed.size());
+        for (List<OutboxEvent> events : claimed.values()) {
+            futures.add(workers.submit(() -> deliver(events, token)));
+        }
+        int delivered = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                delivered += future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                // unfinished claims expire and are retried by a later run
+                return delivered;
+            } catch (ExecutionException ex) {
+                log.error("Outbox delivery failed unexpectedly", ex.getCause());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Deletes delivered events older than {@code pfm.outbox.retention-days}.
+     *
+     * @return number of events deleted
+     */
+    @Scheduled(cron = "${pfm.outbox.purge-cron:0 15 4 * * *}")
+    @LeasedJob("outbox-purge")
+    public int purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(cutoff));
+        log.info("Purged {} delivered outbox events", deleted);
+        return deleted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Claims the leading available events of every user in the oldest batch.
+     *
+     * <p>A user's events are only claimed up to the first one that is unavailable (claimed
+     * elsewhere or waiting for a retry). If the claim update loses a race for one event, the
+     * user's later events are released again. Either way, an event is never delivered before an
+     * earlier event of the same user.</p>
+     *
+     * @return claimed events grouped by user, in ID order
+     */
+    private Map<Long, List<OutboxEvent>> claim(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<OutboxEvent>> candidates = new LinkedHashMap<>();
+        Set<Long> blockedUsers = new HashSet<>();
+        for (OutboxEvent event : outboxEventRepository.findPending(PageRequest.of(0, batchSize))) {
+            if (blockedUsers.contains(event.getUserId())) {
+                continue;
+            }
+            if (event.isAvailable(now)) {
+                candidates.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(event);
+            } else {
+                blockedUsers.add(event.getUserId());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = candidates.values().stream().flatMap(List::stream).map(OutboxEvent::getId).toList();
+        outboxEventRepository.claim(ids, token, now.plusNanos(claimTtlMillis * 1_000_000), now);
+        Set<Long> won = new HashSet<>(outboxEventRepository.findIdsByClaimToken(token));
+
+        Map<Long, List<OutboxEvent>> claimed = new LinkedHashMap<>();
+        List<Long> release = new ArrayList<>();
+        for (Map.Entry<Long, List<OutboxEvent>> entry : candidates.entrySet()) {
+            boolean gap = false;
+            for (OutboxEvent event : entry.getValue()) {
+                if (!won.contains(event.getId())) {
+                    gap = true;
+                } else if (gap) {
+                    release.add(event.getId());
+                } else {
+                    claimed.computeIfAbsent(entry.getKey(), id -> new ArrayList<>()).add(event);
+                }
+            }
+        }
+        if (!release.isEmpty()) {
+            outboxEventRepository.release(release, token);
+        }
+        return claimed;
+    }
+
+    /**
+     * Delivers one user's claimed events in order, stopping at the first one that fails.
+     *
+     * @return number of events delivered
+     */
+    private int deliver(List<OutboxEvent> events, String token) {
+        int delivered = 0;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            try {
+                eventPublisher.publishEvent(event);
+                transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.markProcessed(event.getId(), token, LocalDateTime.now()));
+                delivered++;
+            } catch (RuntimeException ex) {
+                if (!fail(event, token, ex)) {
+                    List<Long> rest = events.subList(i + 1, events.size()).stream().map(OutboxEvent::getId).toList();
+                    if (!rest.isEmpty()) {
+                        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.release(rest, token));
+                    }
+                    break;
+                }
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Records a failed attempt.
+     *
+     * @return {@code true} if the event was given up and the user's next events may proceed
+     */
+    private boolean fail(OutboxEvent event, String token, RuntimeException ex) {
+        int attempts = event.getAttempts() + 1;
+        String error = String.valueOf(ex);
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        String lastError = error;
+        LocalDateTime now = LocalDateTime.now();
+        if (attempts >= maxAttempts) {
+            log.error("Outbox event {} ({}) failed after {} attempts, giving up",
+                event.getId(), event.getEventType(), attempts, ex);
+            transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.markFailed(event.getId(), token, now, lastError));
+            return true;
+        }
+        long backoff = retryBackoffMillis << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS);
+        log.warn("Outbox event {} ({}) failed on attempt {}, retrying in {} ms",
+            event.getId(), event.getEventType(), attempts, backoff, ex);
+        transactionTemplate.executeWithoutResult(status ->
+            outboxEventRepository.markRetry(event.getId(), token, now.plusNanos(backoff * 1_000_000), lastError));
+        return false;
+    }
+}
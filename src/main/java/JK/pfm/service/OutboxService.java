@@ -0,0 +1,52 @@
+package JK.pfm.service;
+
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Write side of the transactional outbox.
+ *
+ * <p>Services call {@link #append} from inside their write transaction instead of running side
+ * effects (cache invalidation, notifications, aggregate maintenance) inline. This costs one
+ * insert. The outbox dispatcher delivers the event after commit, so side effects never extend
+ * the transaction or its row locks.</p>
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper          = objectMapper;
+    }
+
+    /**
+     * Records an event in the caller's transaction.
+     *
+     * @param userId owner of the changed data; events of one user are delivered in order
+     * @param eventType one of the {@link OutboxEvent} type constants
+     * @param aggregateId ID of the changed record, may be {@code null}
+     * @param payload object serialized to JSON as the event payload
+     * @return the recorded event
+     * @throws org.springframework.transaction.IllegalTransactionStateException
+     *         if called outside a transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent append(Long userId, String eventType, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize outbox payload for " + eventType, ex);
+        }
+        return outboxEventRepository.save(new OutboxEvent(userId, eventType, aggregateId, json, LocalDateTime.now()));
+    }
+}
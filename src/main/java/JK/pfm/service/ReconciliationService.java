@@ -0,0 +1,208 @@
+package JK.pfm.service;
+
+import JK.pfm.config.LeasedJob;
+import JK.pfm.dto.AccountLedgerBalance;
+import JK.pfm.model.Account;
+import JK.pfm.model.BalanceDiscrepancy;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BalanceDiscrepancyRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reconciles stored account balances ({@code Account.amount}) against the transaction ledger.
+ *
+ * <p>The stored balance is {@code Account.amount} plus any balance journal deltas that are not
+ * yet compacted (see {@link AccountBalanceService}). Every write path updates it alongside the
+ * ledger. This job checks the two against each other in two phases:</p>
+ * <ol>
+ *   <li><b>Scan</b>: the account ID space is split into chunks. The chunks are checked in
+ *   parallel, read-only transactions (which may run on the replica). Each one runs
+ *   {@link AccountRepository#findLedgerMismatches(Long, Long)}: a single grouped query that
+ *   sums the ledger in the database and returns only mismatching accounts.</li>
+ *   <li><b>Confirm</b>: each candidate is checked again on the primary, with its account row
+ *   locked. A confirmed mismatch is written to {@code balance_discrepancies}. With
+ *   {@code pfm.reconciliation.auto-correct=true}, the balance is also moved to the ledger
+ *   value.</li>
+ * </ol>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.reconciliation.cron} – schedule (default 03:30 daily; {@code -} disables)</li>
+ *   <li>{@code pfm.reconciliation.auto-correct} – reset drifted balances (default false)</li>
+ *   <li>{@code pfm.reconciliation.chunk-size} – account IDs per scan query (default 10000)</li>
+ *   <li>{@code pfm.reconciliation.parallelism} – concurrent scan queries (default 4)</li>
+ * </ul>
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final AccountRepository accountRepository;
+    private final BalanceDiscrepancyRepository discrepancyRepository;
+    private final AccountBalanceService balances;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate readWrite;
+    private final boolean autoCorrect;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public ReconciliationService(
+            AccountRepository accountRepository,
+            BalanceDiscrepancyRepository discrepancyRepository,
+            AccountBalanceService balances,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.reconciliation.auto-correct:false}") boolean autoCorrect,
+            @Value("${pfm.reconciliation.chunk-size:10000}") int chunkSize,
+            @Value("${pfm.reconciliation.parallelism:4}") int parallelism
+    ) {
+        this.accountRepository     = accountRepository;
+        this.discrepancyRepository = discrepancyRepository;
+        this.balances              = balances;
+        this.readOnly              = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        // a named read-only transaction is what ReplicaRoutingDataSource sends to the replica
+        this.readOnly.setName(ReconciliationService.class.getName() + ".scan");
+        this.readWrite             = new TransactionTemplate(transactionManager);
+        this.autoCorrect           = autoCorrect;
+        this.chunkSize             = Math.max(1, chunkSize);
+        this.parallelism           = Math.max(1, parallelism);
+    }
+
+    /**
+     * Outcome of one reconciliation run.
+     *
+     * @param chunks number of account ID chunks scanned
+     * @param candidates accounts the scan reported as mismatching
+     * @param discrepancies mismatches confirmed on the primary and recorded
+     * @param corrected balances reset to the ledger value
+     */
+    public record Result(int chunks, int candidates, int discrepancies, int corrected) {}
+
+    /**
+     * Scheduled entry point; see {@link #reconcile()}. Runs on one node only.
+     *
+     * @return number of accounts re-checked
+     */
+    @Scheduled(cron = "${pfm.reconciliation.cron:0 30 3 * * *}")
+    @LeasedJob("balance-reconciliation")
+    @Timed(value = "pfm.job", extraTags = {"job", "balance-reconciliation"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "balance-reconciliation"})
+    public int runScheduled() {
+        return reconcile().candidates();
+    }
+
+    /**
+     * Compares every account's stored balance with its ledger, records confirmed discrepancies
+     * and optionally corrects them.
+     *
+     * @return counts for the run
+     */
+    public Result reconcile() {
+        List<AccountLedgerBalance> candidates = new ArrayList<>();
+        int chunks = scan(candidates);
+
+        int recorded = 0;
+        int corrected = 0;
+        for (AccountLedgerBalance candidate : candidates) {
+            try {
+                BalanceDiscrepancy discrepancy = readWrite.execute(status -> confirm(candidate.getAccountId()));
+                if (discrepancy != null) {
+                    recorded++;
+                    if (discrepancy.isCorrected()) {
+                        corrected++;
+                    }
+                }
+            } catch (RuntimeException ex) {
+                // leave it for the next run rather than aborting the whole reconciliation
+                log.warn("Could not reconcile account {}", candidate.getAccountId(), ex);
+            }
+        }
+
+        Result result = new Result(chunks, candidates.size(), recorded, corrected);
+        if (recorded > 0) {
+            log.warn("Balance reconciliation found {} discrepancies ({} corrected)", recorded, corrected);
+        } else {
+            log.info("Balance reconciliation finished: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the grouped mismatch query over all account ID chunks, {@code parallelism} at a time.
+     *
+     * @return number of chunks scanned
+     */
+    private int scan(List<AccountLedgerBalance> candidates) {
+        Long maxId = readOnly.execute(status -> accountRepository.findMaxId());
+        if (maxId == null) {
+            return 0;
+        }
+        List<Future<List<AccountLedgerBalance>>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("pfm-reconcile-", 0).factory())) {
+            for (long from = 1; from <= maxId; from += chunkSize) {
+                long lower = from;
+                long upper = Math.min(maxId, from + chunkSize - 1);
+                futures.add(pool.submit(() -> readOnly.execute(status ->
+                    accountRepository.findLedgerMismatches(lower, upper))));
+            }
+            for (Future<List<AccountLedgerBalance>> future : futures) {
+                candidates.addAll(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Balance reconciliation interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Balance reconciliation scan failed", ex.getCause());
+        }
+        return futures.size();
+    }
+
+    /**
+     * Re-checks one account with its row locked, so no in-place balance update can interleave.
+     * Stored and ledger balance are read in one statement, so journaled credits, which do not
+     * take the lock, are either in both or in neither. A correction is applied as a delta
+     * through {@link AccountBalanceService}.
+     *
+     * @return the recorded discrepancy, or {@code null} if the account is balanced
+     */
+    private BalanceDiscrepancy confirm(Long accountId) {
+        Account account = accountRepository.findByIdForUpdate(accountId).orElse(null);
+        AccountLedgerBalance balance = account != null
+            ? accountRepository.findLedgerBalance(accountId).orElse(null)
+            : null;
+        if (balance == null) {
+            return null;
+        }
+        BigDecimal stored = balance.getStoredBalance();
+        BigDecimal ledger = balance.getLedgerBalance();
+        if (stored.compareTo(ledger) == 0) {
+            return null;
+        }
+
+        log.warn("Account {} balance {} does not match ledger {}", accountId, stored, ledger);
+        if (autoCorrect) {
+            balances.apply(account, ledger.subtract(stored), null);
+            accountRepository.save(account);
+        }
+        return discrepancyRepository.save(
+            new BalanceDiscrepancy(accountId, balance.getUserId(), stored, ledger, LocalDateTime.now(), autoCorrect));
+    }
+}
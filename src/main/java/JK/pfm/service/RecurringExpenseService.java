@@ -1,5 +1,7 @@
 package JK.pfm.service;
 
+import JK.pfm.dto.CashFlowProjectionDTO;
+import JK.pfm.dto.LiveEvent;
 import JK.pfm.dto.UpdatePaymentNextDueDateDto;
 import JK.pfm.dto.RecurringExpenseCreation;
 import JK.pfm.dto.UpdatePaymentAmountDto;
@@ -12,14 +14,19 @@ import JK.pfm.repository.TransactionRepository;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.model.Account;
 import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.repository.CategoryRepository;
+import JK.pfm.config.LeasedJob;
+import JK.pfm.service.budget.BudgetTracker;
+import JK.pfm.service.projection.CashFlowProjectionService;
+import JK.pfm.service.projection.RecurringSchedule;
 import JK.pfm.specifications.RecurringExpenseSpecifications;
 import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
 import java.util.Collections;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -39,19 +46,34 @@ public class RecurringExpenseService {
     private final AccountRepository accountRepository;
     private final CategoryRepository categoryRepository;
     private final AccountUtil accountUtil;
+    private final AccountBalanceService balances;
+    private final OutboxService outbox;
+    private final JobLeaseService jobLeases;
+    private final BudgetTracker budgetTracker;
+    private final CashFlowProjectionService projections;
 
     public RecurringExpenseService(
         RecurringExpenseRepository recurringExpenseRepository,
         TransactionRepository transactionRepository,
         AccountRepository accountRepository,
         CategoryRepository categoryRepository,
-        AccountUtil accountUtil
+        AccountUtil accountUtil,
+        AccountBalanceService balances,
+        OutboxService outbox,
+        JobLeaseService jobLeases,
+        BudgetTracker budgetTracker,
+        CashFlowProjectionService projections
     ) {
         this.recurringExpenseRepository = recurringExpenseRepository;
         this.transactionRepository = transactionRepository;
         this.accountRepository = accountRepository;
         this.categoryRepository = categoryRepository;
         this.accountUtil = accountUtil;
+        this.balances = balances;
+        this.outbox = outbox;
+        this.jobLeases = jobLeases;
+        this.budgetTracker = budgetTracker;
+        this.projections = projections;
     }
     
         /**
@@ -162,6 +184,19 @@ public class RecurringExpenseService {
         }
         return recurringExpenseRepository.findTop5ByAccountIdInAndNextDueDateAfterAndActiveTrueOrderByNextDueDateAsc(accountIds, todaysDate);
     }
+
+    /**
+     * Projects the current user's active account balances over the next {@code months} months,
+     * charging every payment of their active recurring expenses on its due date.
+     *
+     * @param months horizon in months (1 to 24)
+     * @return the {@link CashFlowProjectionDTO} with per-account summaries and the payment days
+     * @throws org.springframework.web.server.ResponseStatusException
+     *         if the horizon is out of range (400 BAD REQUEST)
+     */
+    public CashFlowProjectionDTO getCashFlowProjection(int months) {
+        return projections.project(SecurityUtil.getUserId(), months);
+    }
     
     /**
      * Updates the amount of a recurring expense.
@@ -261,7 +296,8 @@ public class RecurringExpenseService {
     /**
      * Resumes a recurring expense and recalculates the next due date based on last payment and frequency.
      * <p>
-     * Advances the due date in steps (weekly/monthly/annually) until it falls after today, then activates the expense.
+     * Advances the due date in steps (weekly/monthly/annually, see {@link RecurringSchedule}) until it falls after today,
+     * then activates the expense.
      *
      * @param id the recurring expense ID
      * @return the updated {@link JK.pfm.model.RecurringExpense} with a recalculated next due date
@@ -280,16 +316,10 @@ public class RecurringExpenseService {
         LocalDate base = expense.getLastPayment();
         
         if(base != null){
-        TemporalAmount step = switch (expense.getFrequency()) {
-        case "WEEKLY"    -> Period.ofWeeks(1);
-        case "MONTHLY"   -> Period.ofMonths(1);
-        case "ANNUALLY"  -> Period.ofYears(1);
-        default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported frequency");
-        };
-        
-        LocalDate next = base.plus(step);
+        String frequency = expense.getFrequency();
+        LocalDate next = RecurringSchedule.next(frequency, base, expense.getStartDate());
         while (!next.isAfter(LocalDate.now())) {
-        next = next.plus(step);
+        next = RecurringSchedule.next(frequency, next, expense.getStartDate());
         }
         expense.setNextDueDate(next);
         }
@@ -320,6 +350,7 @@ public class RecurringExpenseService {
     
     /**
      * Calculates the next due date from the current due date and frequency.
+     * Monthly and annual schedules return to the start date's day after a shorter month.
      *
      * @param expense the recurring expense
      * @return the computed next due date
@@ -327,18 +358,7 @@ public class RecurringExpenseService {
      *         if the frequency is unsupported (400 BAD REQUEST)
      */
     private LocalDate calculateNextDueDate(RecurringExpense expense){
-        LocalDate currentDueDate = expense.getNextDueDate();
-        String frequency = expense.getFrequency().toUpperCase();
-        switch (frequency) {
-            case "WEEKLY":
-                return currentDueDate.plusWeeks(1);
-            case "MONTHLY":
-                return currentDueDate.plusMonths(1);
-            case "ANNUALLY":
-                return currentDueDate.plusYears(1);
-            default:
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported frequency");
-        }
+        return RecurringSchedule.next(expense.getFrequency(), expense.getNextDueDate(), expense.getStartDate());
     }
     
     /**
@@ -346,11 +366,20 @@ public class RecurringExpenseService {
      * <p>
      * For each active expense due today or earlier, creates an expense transaction, updates the account balance,
      * sets {@code lastPayment} to today, and moves {@code nextDueDate} forward based on frequency.
-     * Scheduled by cron expression {@code 0 0 0 * * ?} .
+     * Each created transaction is recorded in the outbox as a {@link LiveEvent} for the owner's live stream and
+     * added to the spending counters of the budgets it falls into.
+     * Scheduled by cron expression {@code 0 0 0 * * ?} and run on one node only.
+     *
+     * @return number of payments made
      */
     @Scheduled(cron = "0 0 0 * * ?") // every day at midnight
+    @LeasedJob("recurring-expenses")
+    @Timed(value = "pfm.job", extraTags = {"job", "recurring-expenses"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "recurring-expenses"})
     @Transactional
-    public void processRecurringExpenses() {
+    public int processRecurringExpenses() {
+        jobLeases.checkFence();
+        int processed = 0;
         LocalDate today = LocalDate.now();
         // Fetch recurring expenses that are due today or before today
 
@@ -372,14 +401,19 @@ public class RecurringExpenseService {
             transactionRepository.save(transaction);
             
             // Update account balance (check for sufficient funds if needed)
-            account.setAmount(account.getAmount().subtract(amount));
+            balances.apply(account, amount.negate(), transaction);
             accountRepository.save(account);
+            budgetTracker.record(transaction, 1);
+            LiveEvent event = LiveEvent.of(LiveEvent.TRANSACTION_CREATED, transaction, balances.balanceOf(account));
+            outbox.append(event.getUserId(), OutboxEvent.TRANSACTION_CREATED, transaction.getId(), event);
             
             // Update the recurring expense's nextDueDate based on its frequency
             expense.setNextDueDate(calculateNextDueDate(expense));
             expense.setLastPayment(today);
             recurringExpenseRepository.save(expense);
+            processed++;
         }
+        return processed;
     }
     
     
@@ -6,11 +6,17 @@ import JK.pfm.dto.ChangesVsLastMonthDTO;
 import JK.pfm.dto.DailyTrend;
 import JK.pfm.dto.ExpenseByAccountDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
+import JK.pfm.dto.PeriodComparisonDTO;
 import JK.pfm.dto.filters.DateRangeFilter;
-import JK.pfm.model.Account;
+import JK.pfm.dto.filters.PeriodComparisonFilter;
 import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.ArchivedTransactionRepository;
 import JK.pfm.repository.SavingsGoalRepository;
 import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.analytics.TransactionAnalytics;
+import JK.pfm.service.analytics.TransactionColumns;
+import JK.pfm.service.report.ComparisonPeriods;
+import JK.pfm.service.report.PeriodComparisonService;
 import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
 import java.math.BigDecimal;
@@ -25,9 +31,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
+/**
+ * Read-only aggregates for the reports and dashboard.
+ *
+ * <p>Every method runs in a read-only transaction, so with a read replica configured the
+ * queries are served by the replica (see {@link JK.pfm.config.ReplicaRoutingDataSource}).</p>
+ *
+ * <p>With {@code pfm.analytics.enabled=true}, the transaction aggregations are answered from the
+ * user's in-memory columns ({@link TransactionAnalytics}) instead of SQL.</p>
+ *
+ * <p>A date range that starts before the archive horizon also reads the archived transactions
+ * ({@link TransactionArchiveService#reachesArchive(LocalDate)}). The in-memory columns do not
+ * hold archived rows, so such ranges are always answered with SQL.</p>
+ */
 @Service
+@Transactional(readOnly = true)
 public class ReportService {
     private final TransactionRepository transactionRepository;
     private final AccountService accountService;
@@ -36,6 +57,10 @@ public class ReportService {
     private final SavingsGoalService savingsGoalService;
     private final SavingsGoalRepository savingsGoalRepository;
     private final AccountUtil accountUtil;
+    private final TransactionAnalytics analytics;
+    private final PeriodComparisonService periodComparison;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionArchiveService archive;
 
     public ReportService(
         TransactionRepository transactionRepository,
@@ -44,7 +69,11 @@ public class ReportService {
         AccountRepository accountRepository,
         SavingsGoalService savingsGoalService,
         SavingsGoalRepository savingsGoalRepository,
-        AccountUtil accountUtil
+        AccountUtil accountUtil,
+        TransactionAnalytics analytics,
+        PeriodComparisonService periodComparison,
+        ArchivedTransactionRepository archivedTransactionRepository,
+        TransactionArchiveService archive
     ) {
         this.transactionRepository    = transactionRepository;
         this.accountService           = accountService;
@@ -53,6 +82,10 @@ public class ReportService {
         this.savingsGoalService       = savingsGoalService;
         this.savingsGoalRepository    = savingsGoalRepository;
         this.accountUtil              = accountUtil;
+        this.analytics                = analytics;
+        this.periodComparison         = periodComparison;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.archive                  = archive;
     }
 
 
@@ -76,8 +109,9 @@ public class ReportService {
                               .orElse(LocalDate.now());
         
         
-        BigDecimal totalSpending = transactionRepository.sumByTypeAndDate("Expense", accountIds, start, end);
-        BigDecimal totalIncome = transactionRepository.sumByTypeAndDate("Deposit", accountIds, start, end);
+        Optional<TransactionColumns> columns = analytics.find(SecurityUtil.getUserId());
+        BigDecimal totalSpending = sumByTypeAndDate(columns, "Expense", accountIds, start, end);
+        BigDecimal totalIncome = sumByTypeAndDate(columns, "Deposit", accountIds, start, end);
 
         Map<String, BigDecimal> summary = new HashMap<>();
         summary.put("totalSpending", totalSpending);
@@ -111,7 +145,25 @@ public class ReportService {
             return Collections.emptyList();
         }
         
-        return transactionRepository.findExpensesByCategory(accountIds, filter.getStartDate(), filter.getEndDate());
+        LocalDate start = filter.getStartDate();
+        LocalDate end = filter.getEndDate();
+        if (reachesArchive(start)) {
+            Map<String, BigDecimal> totals = new LinkedHashMap<>();
+            for (ExpenseByCategoryDTO row : transactionRepository.findExpensesByCategory(accountIds, start, end)) {
+                totals.merge(row.getCategoryName(), row.getTotalAmount(), BigDecimal::add);
+            }
+            for (ExpenseByCategoryDTO row : archivedTransactionRepository.findExpensesByCategory(accountIds, start, end)) {
+                totals.merge(row.getCategoryName(), row.getTotalAmount(), BigDecimal::add);
+            }
+            List<ExpenseByCategoryDTO> merged = new ArrayList<>(totals.size());
+            totals.forEach((name, total) -> merged.add(new ExpenseByCategoryDTO(name, total)));
+            return merged;
+        }
+        Optional<TransactionColumns> columns = analytics.find(SecurityUtil.getUserId());
+        if (columns.isPresent()) {
+            return columns.get().findExpensesByCategory(accountIds, start, end);
+        }
+        return transactionRepository.findExpensesByCategory(accountIds, start, end);
     }
     
     
@@ -129,7 +181,25 @@ public class ReportService {
             return Collections.emptyList();
         }
         
-        return transactionRepository.findExpensesByAccount(accountIds, filter.getStartDate(), filter.getEndDate());
+        LocalDate start = filter.getStartDate();
+        LocalDate end = filter.getEndDate();
+        if (reachesArchive(start)) {
+            Map<String, BigDecimal> totals = new LinkedHashMap<>();
+            for (ExpenseByAccountDTO row : transactionRepository.findExpensesByAccount(accountIds, start, end)) {
+                totals.merge(row.getAccountName(), row.getTotalAmount(), BigDecimal::add);
+            }
+            for (ExpenseByAccountDTO row : archivedTransactionRepository.findExpensesByAccount(accountIds, start, end)) {
+                totals.merge(row.getAccountName(), row.getTotalAmount(), BigDecimal::add);
+            }
+            List<ExpenseByAccountDTO> merged = new ArrayList<>(totals.size());
+            totals.forEach((name, total) -> merged.add(new ExpenseByAccountDTO(name, total)));
+            return merged;
+        }
+        Optional<TransactionColumns> columns = analytics.find(SecurityUtil.getUserId());
+        if (columns.isPresent()) {
+            return columns.get().findExpensesByAccount(accountIds, start, end);
+        }
+        return transactionRepository.findExpensesByAccount(accountIds, start, end);
     }
     
     
@@ -139,14 +209,28 @@ public class ReportService {
     /**
      * Returns daily aggregated income and expense totals for the specified date range.
      * <p>
-     * Sums transactions by date and type, and returns results sorted ascending by date.
+     * Sums the transactions of the user's accounts by date and type, and returns results sorted
+     * ascending by date.
      *
      * @param filter the date range (inclusive) to analyze
      * @return a list of {@link JK.pfm.dto.DailyTrend} with per-day income and expense totals
      */
     public List<DailyTrend> getDailyTrends(DateRangeFilter filter) {
         // Retrieve daily transaction data grouped by date and type.
-        List<Object[]> results = transactionRepository.getDailyTrends(filter.getStartDate(), filter.getEndDate());
+        List<Long> accountIds = accountUtil.getUserAccountIds();
+        LocalDate start = filter.getStartDate();
+        LocalDate end = filter.getEndDate();
+        List<Object[]> results;
+        if (reachesArchive(start)) {
+            // rows of the same day and type are added up below
+            results = new ArrayList<>(transactionRepository.getDailyTrends(accountIds, start, end));
+            results.addAll(archivedTransactionRepository.getDailyTrends(accountIds, start, end));
+        } else {
+            Optional<TransactionColumns> columns = analytics.find(SecurityUtil.getUserId());
+            results = columns.isPresent()
+                ? columns.get().getDailyTrends(accountIds, start, end)
+                : transactionRepository.getDailyTrends(accountIds, start, end);
+        }
         Map<LocalDate, DailyTrend> trendMap = new HashMap<>();
 
         //populating map
@@ -213,13 +297,7 @@ public class ReportService {
      */
     public List<BalanceBreakdownDTO> getBalanceBreakdown(){
         Long userId = SecurityUtil.getUserId();
-        List<Account> accounts = accountRepository.findByUserIdAndActiveTrue(userId);
-        List<BalanceBreakdownDTO> breakdown = new ArrayList<>();
-        
-        for(Account acc : accounts){
-            BalanceBreakdownDTO balanceBreakdownDTO = new BalanceBreakdownDTO(acc.getName(), acc.getAmount());
-            breakdown.add(balanceBreakdownDTO);
-        }
+        List<BalanceBreakdownDTO> breakdown = new ArrayList<>(accountRepository.findBalanceBreakdownByUserId(userId));
         
         BigDecimal savingsBalance = savingsGoalService.getTotalBalance();
         BalanceBreakdownDTO balanceBreakdownDTO = new BalanceBreakdownDTO("Savings", savingsBalance);
@@ -250,6 +328,7 @@ public class ReportService {
         
         BigDecimal sumExpenses = BigDecimal.ZERO;
         BigDecimal recentExpenses = BigDecimal.ZERO;
+        Optional<TransactionColumns> columns = analytics.find(SecurityUtil.getUserId());
         
         for (int i = 9; i >= 0; i--) {
 
@@ -258,7 +337,7 @@ public class ReportService {
         LocalDate endOfMonth = targetMonth.withDayOfMonth(targetMonth.lengthOfMonth());
         String monthLabel = startOfMonth.getMonth().toString().substring(0, 3);
         
-        BigDecimal totalSpending = transactionRepository.sumByTypeAndDate("Expense", accountIds, startOfMonth, endOfMonth);
+        BigDecimal totalSpending = sumByTypeAndDate(columns, "Expense", accountIds, startOfMonth, endOfMonth);
         breakdown.put(monthLabel, totalSpending != null ? totalSpending : BigDecimal.ZERO);
         //for calculating average total and recent expenses 
         sumExpenses = sumExpenses.add(totalSpending);
@@ -339,7 +418,12 @@ public class ReportService {
         LocalDate endOfMonth = targetMonth.withDayOfMonth(targetMonth.lengthOfMonth());
         String monthLabel = startOfMonth.getMonth().toString().substring(0, 3);
         
+        boolean archived = reachesArchive(startOfMonth);
         BigDecimal totalSpending = transactionRepository.sumByTypeAndDateAndCategory("Expense", accountIds, startOfMonth, endOfMonth, categoryId);
+        if (archived) {
+            totalSpending = totalSpending.add(archivedTransactionRepository
+                .sumByTypeAndDateAndCategory("Expense", accountIds, startOfMonth, endOfMonth, categoryId));
+        }
         breakdown.put(monthLabel, totalSpending != null ? totalSpending : BigDecimal.ZERO);
         //for calculating average total and recent expenses 
         sumExpenses = sumExpenses.add(totalSpending);
@@ -348,6 +432,8 @@ public class ReportService {
         }
         // Check if there were any transactions in this month (regardless of category)
         boolean hasTransactions = transactionRepository
+            .existsByAccountIdInAndDateBetween(accountIds, startOfMonth, endOfMonth)
+            || archived && archivedTransactionRepository
             .existsByAccountIdInAndDateBetween(accountIds, startOfMonth, endOfMonth);
         if (hasTransactions) {
             monthsWithData++;  // Count this month as valid data
@@ -393,77 +479,51 @@ public class ReportService {
      * Total balance (accounts + savings), and Account balance (accounts only).
      *
      * @return a list of {@link JK.pfm.dto.ChangesVsLastMonthDTO} with percentage changes per metric
+     * @implNote Delegates to {@link PeriodComparisonService}; costs two queries when last
+     *           month's balance snapshot exists.
      */
     public List<ChangesVsLastMonthDTO> getChanges() {
+        PeriodComparisonDTO comparison = periodComparison.compare(ComparisonPeriods.monthOverMonth(LocalDate.now()));
         List<ChangesVsLastMonthDTO> changes = new ArrayList<>();
-
-        // 1) Compute date ranges
-        LocalDate today           = LocalDate.now();
-        LocalDate lastMonth       = today.minusMonths(1);
-        LocalDate startLastMonth  = lastMonth.withDayOfMonth(1);
-        LocalDate endLastMonth    = lastMonth.withDayOfMonth(lastMonth.lengthOfMonth());
-        LocalDate startThisMonth  = today.withDayOfMonth(1);
-        LocalDate endThisMonth    = today.withDayOfMonth(today.lengthOfMonth());
-
-        // 2) Income & Expense
-        DateRangeFilter filterThisMonth = new DateRangeFilter(startThisMonth, endThisMonth);
-        DateRangeFilter filterLastMonth = new DateRangeFilter(startLastMonth, endLastMonth);
-        Map<String, BigDecimal> thisM = getSpendingAndIncomeSummary(filterThisMonth);
-        Map<String, BigDecimal> lastM = getSpendingAndIncomeSummary(filterLastMonth);
-
-        BigDecimal thisIncome  = thisM.getOrDefault("totalIncome",  BigDecimal.ZERO);
-        BigDecimal lastIncome  = lastM.getOrDefault("totalIncome",  BigDecimal.ZERO);
-        BigDecimal incomePct   = calculatePercentChange(thisIncome, lastIncome);
-
-        BigDecimal thisExpense = thisM.getOrDefault("totalSpending", BigDecimal.ZERO);
-        BigDecimal lastExpense = lastM.getOrDefault("totalSpending", BigDecimal.ZERO);
-        BigDecimal expensePct  = calculatePercentChange(thisExpense, lastExpense);
-
-        changes.add(new ChangesVsLastMonthDTO("Income",  incomePct));
-        changes.add(new ChangesVsLastMonthDTO("Expense", expensePct));
-
-        // 3) Savings
-        Long userId            = SecurityUtil.getUserId();
-        BigDecimal currentSav  = savingsGoalRepository.getTotalBalanceByUserId(userId);
-        BigDecimal lastSav     = savingsGoalRepository.getLastMonthBalanceByUserId(userId);
-        BigDecimal savingsPct  = calculatePercentChange(currentSav, lastSav);
-        changes.add(new ChangesVsLastMonthDTO("Savings", savingsPct));
-
-        // 4) Total Balance = accounts + savings
-        BigDecimal currentTotal   = getTotalUserBalance();
-        BigDecimal lastAccounts   = transactionRepository.getAccountBalanceUpTo(userId, endLastMonth);
-        BigDecimal lastTotal      = lastAccounts.add(lastSav);
-        BigDecimal totalPct       = calculatePercentChange(currentTotal, lastTotal);
-        changes.add(new ChangesVsLastMonthDTO("totalBalance", totalPct));
-
-        // 5) Account Balance only
-        BigDecimal accountPct     = calculatePercentChange(currentTotal, lastAccounts);
-        changes.add(new ChangesVsLastMonthDTO("accountBalance", accountPct));
-
+        for (PeriodComparisonDTO.Metric metric : comparison.metrics()) {
+            changes.add(new ChangesVsLastMonthDTO(metric.name(), metric.percentage()));
+        }
         return changes;
-}
+    }
 
+    /*********************************PERIOD COMPARISON****************************************/
     /**
-     * Calculates the percentage change between two numeric values.
-     * <p>
-     * Returns 0% if both values are zero, or 100% if the previous value is zero
-     * and the current value is positive. Rounds to the nearest whole percent.
+     * Compares income, expenses and balances between two periods (month over month, year over
+     * year or custom ranges).
      *
-     * @param current  the current period value
-     * @param previous the previous period value
-     * @return the percentage change as {@link java.math.BigDecimal}, rounded to 0 decimal places
+     * @param filter the validated period selection
+     * @return both periods' values and percentage change per metric
      */
-    private BigDecimal calculatePercentChange(BigDecimal current, BigDecimal previous) {
-     if (previous.compareTo(BigDecimal.ZERO) == 0) {
-            return current.compareTo(BigDecimal.ZERO) == 0
-                ? BigDecimal.ZERO
-                : BigDecimal.valueOf(100);
+    public PeriodComparisonDTO comparePeriods(PeriodComparisonFilter filter) {
+        return periodComparison.compare(ComparisonPeriods.of(filter, LocalDate.now()));
+    }
+
+    /**
+     * Sums one transaction type over a date range, from the in-memory columns when available.
+     * Ranges that reach the archive add the archived rows.
+     */
+    private BigDecimal sumByTypeAndDate(Optional<TransactionColumns> columns, String type,
+                                        List<Long> accountIds, LocalDate start, LocalDate end) {
+        if (reachesArchive(start)) {
+            return transactionRepository.sumByTypeAndDate(type, accountIds, start, end)
+                .add(archivedTransactionRepository.sumByTypeAndDate(type, accountIds, start, end));
         }
-        BigDecimal diff = current.subtract(previous);
-        return diff
-            .multiply(BigDecimal.valueOf(100))
-            .divide(previous.abs(), 0, RoundingMode.HALF_UP);
+        return columns.isPresent()
+            ? columns.get().sumByTypeAndDate(type, accountIds, start, end)
+            : transactionRepository.sumByTypeAndDate(type, accountIds, start, end);
     }
 
-}
+    /**
+     * @return {@code true} if a range starting at {@code start} may match archived rows; a
+     *         missing start matches nothing, as in the range queries
+     */
+    private boolean reachesArchive(LocalDate start) {
+        return start != null && archive.reachesArchive(start);
+    }
 
+}
@@ -6,9 +6,11 @@ import JK.pfm.dto.TransactionCreationRequest;
 import JK.pfm.dto.UpdateSavingsAmountDto;
 import JK.pfm.model.Account;
 import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.ArchivedTransactionRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.SavingsGoalRepository;
 import JK.pfm.repository.TransactionRepository;
@@ -31,30 +33,42 @@ import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class SavingsGoalService {
+
+    private static final int HISTORY_MONTHS = 10;
+
     private final SavingsGoalRepository savingsGoalRepository;
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
     private final CategoryRepository categoryRepository;
     private final TransactionService transactionService;
     private final AccountUtil accountUtil;
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
+    private final AccountBalanceService balances;
+    private final OutboxService outbox;
 
     public SavingsGoalService(
             SavingsGoalRepository savingsGoalRepository,
             TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
             CategoryRepository categoryRepository,
             TransactionService transactionService,
             AccountUtil accountUtil,
             UserRepository userRepository,
-            AccountRepository accountRepository
+            AccountRepository accountRepository,
+            AccountBalanceService balances,
+            OutboxService outbox
     ) {
         this.savingsGoalRepository = savingsGoalRepository;
         this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
         this.categoryRepository    = categoryRepository;
         this.transactionService    = transactionService;
         this.accountUtil           = accountUtil;
         this.userRepository        = userRepository;
         this.accountRepository     = accountRepository;
+        this.balances              = balances;
+        this.outbox                = outbox;
     }
 
     /**
@@ -128,7 +142,8 @@ public class SavingsGoalService {
     /**
 	 * Deletes a savings goal.
 	 * <p>
-	 * Deletion is only allowed when the goal's current amount is zero.
+	 * Deletion is only allowed when the goal's current amount is zero. Transfers linked to the
+	 * goal are kept and unlinked.
 	 *
 	 * @param id the savings goal ID
 	 * @throws org.springframework.web.server.ResponseStatusException
@@ -151,6 +166,8 @@ public class SavingsGoalService {
             );
         }
     
+    transactionRepository.clearSavingsGoal(id);
+    archivedTransactionRepository.clearSavingsGoal(id);
     savingsGoalRepository.deleteById(id);
     }
     
@@ -182,7 +199,7 @@ public class SavingsGoalService {
 	 * For {@code Withdraw}: moves funds from the savings goal to the account (creates an account
 	 * {@code Deposit} transaction). For {@code Deposit}: moves funds from the account to the
 	 * savings goal (creates an account {@code Expense} transaction). Uses the {@code "Fund Transfer"}
-	 * category for transactions.
+	 * category for transactions, each linked to the savings goal.
 	 *
 	 * @param id the savings goal ID
 	 * @param request the transfer details (account name, amount, type: {@code Withdraw} or {@code Deposit})
@@ -227,7 +244,7 @@ public class SavingsGoalService {
 
             TransactionCreationRequest transaction = new TransactionCreationRequest(LocalDate.now(), request.getAmount(), category.getId(), account.getName(), "Deposit", description);
             
-            transactionService.saveTransaction(transaction);
+            transactionService.saveTransaction(transaction, savingsGoal);
             savingsGoal.setCurrentAmount(savingsGoal.getCurrentAmount().subtract(request.getAmount()));
         } else {
                 throw new ResponseStatusException(
@@ -238,13 +255,13 @@ public class SavingsGoalService {
         }
         //depositing
         else if (request.getType().equalsIgnoreCase("Deposit")) {
-            if (account.getAmount().compareTo(request.getAmount()) >= 0) {
+            if (balances.balanceOf(account).compareTo(request.getAmount()) >= 0) {
             //account expense transaction
             String description = "Deposit to savings";
             
             TransactionCreationRequest transaction = new TransactionCreationRequest(LocalDate.now(), request.getAmount(), category.getId(), account.getName(), "Expense", description);
             
-            transactionService.saveTransaction(transaction);
+            transactionService.saveTransaction(transaction, savingsGoal);
             savingsGoal.setCurrentAmount(savingsGoal.getCurrentAmount().add(request.getAmount()));
             } else {
             throw new RuntimeException("Insufficient funds in account");
@@ -255,44 +272,51 @@ public class SavingsGoalService {
                 "Incorret transaction type"
             );
         }
-        return savingsGoalRepository.save(savingsGoal);
+        SavingsGoal saved = savingsGoalRepository.save(savingsGoal);
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("savingsGoalId", id);
+        payload.put("accountId", account.getId());
+        payload.put("type", request.getType());
+        payload.put("amount", request.getAmount());
+        payload.put("currentAmount", savingsGoal.getCurrentAmount());
+        outbox.append(SecurityUtil.getUserId(), OutboxEvent.SAVINGS_TRANSFER, id, payload);
+        return saved;
     }
     
     /**
 	 * Computes the net monthly savings balance over the last 10 months.
 	 * <p>
 	 * Includes only months that have at least one transaction. Keys are 3-letter month labels
-	 * (e.g., {@code "Jan"}).
+	 * (e.g., {@code "Jan"}). All months come from one grouped query.
 	 *
 	 * @return a map of month label → net savings balance for that month
 	 */
     public Map<String, BigDecimal> getNetMonthlyBalance(){
-        Map<String, BigDecimal> breakdown = new LinkedHashMap<>();
         List<Long> accountIds = accountUtil.getUserAccountIds();
         if(accountIds.isEmpty()){
-            return breakdown;
+            return new LinkedHashMap<>();
         }
         LocalDate today = LocalDate.now();
-             
-        for (int i = 9; i >= 0; i--) {
-        LocalDate targetMonth = today.minusMonths(i);
-        LocalDate startOfMonth = targetMonth.withDayOfMonth(1);
-        LocalDate endOfMonth = targetMonth.withDayOfMonth(targetMonth.lengthOfMonth());
-        String monthLabel = startOfMonth.getMonth().toString().substring(0, 3);
-        
-        //check if active month
-        boolean hasTransactions = transactionRepository
-            .existsByAccountIdInAndDateBetween(accountIds, startOfMonth, endOfMonth);
-        if(hasTransactions){
-            BigDecimal netBalance = transactionRepository.netSavingsMonthlyBalance(accountIds, startOfMonth, endOfMonth);
-            breakdown.put(monthLabel, netBalance);
-        }
-        
-        }
-        return breakdown;
+        List<Object[]> rows = transactionRepository.findMonthlySavingsActivity(
+            accountIds, SavingsHistoryAssembler.windowStart(today, HISTORY_MONTHS), today.withDayOfMonth(today.lengthOfMonth()));
+        return SavingsHistoryAssembler.byMonth(rows, today, HISTORY_MONTHS);
+    }
+
+    /**
+	 * Computes one savings goal's net monthly balance over the last 10 months.
+	 * <p>
+	 * Same shape as {@link #getNetMonthlyBalance()}: only months with transfers to or from the
+	 * goal are included. Counts transfers made since transactions were linked to their goal.
+	 *
+	 * @param id the savings goal ID
+	 * @return a map of month label → net amount moved into the goal that month
+	 */
+    @PreAuthorize("@securityUtil.isCurrentUserSavingsGoal(#id)")
+    public Map<String, BigDecimal> getGoalNetMonthlyBalance(Long id){
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = transactionRepository.findMonthlyGoalActivity(
+            id, SavingsHistoryAssembler.windowStart(today, HISTORY_MONTHS), today.withDayOfMonth(today.lengthOfMonth()));
+        return SavingsHistoryAssembler.byMonth(rows, today, HISTORY_MONTHS);
     }
-    
-    
-    
-    
 }
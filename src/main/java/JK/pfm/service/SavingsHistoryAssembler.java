@@ -0,0 +1,58 @@
+package JK.pfm.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns grouped monthly savings rows into the month-label map served by the savings history
+ * endpoints.
+ */
+final class SavingsHistoryAssembler {
+
+    private SavingsHistoryAssembler() {
+    }
+
+    /**
+     * @param today the current date; the last month of the window is its month
+     * @param months number of months in the window, including the current one
+     * @return the first day of the window
+     */
+    static LocalDate windowStart(LocalDate today, int months) {
+        return today.minusMonths(months - 1L).withDayOfMonth(1);
+    }
+
+    /**
+     * Builds the month-label map from {@code [year, month, count, net]} rows.
+     *
+     * <p>Months are listed oldest first. Only months with a positive count are included, and
+     * keys are 3-letter month labels (e.g. {@code "Jan"}).</p>
+     *
+     * @param rows grouped rows, in any order
+     * @param today the current date; the last month of the window is its month
+     * @param months number of months in the window, including the current one
+     * @return month label → net savings for that month
+     */
+    static Map<String, BigDecimal> byMonth(List<Object[]> rows, LocalDate today, int months) {
+        Map<YearMonth, Object[]> byYearMonth = new HashMap<>();
+        for (Object[] row : rows) {
+            byYearMonth.put(YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()), row);
+        }
+
+        Map<String, BigDecimal> breakdown = new LinkedHashMap<>();
+        YearMonth current = YearMonth.from(today);
+        for (int i = months - 1; i >= 0; i--) {
+            YearMonth month = current.minusMonths(i);
+            Object[] row = byYearMonth.get(month);
+            if (row != null && ((Number) row[2]).longValue() > 0) {
+                BigDecimal net = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+                breakdown.put(month.getMonth().toString().substring(0, 3), net);
+            }
+        }
+        return breakdown;
+    }
+}
@@ -1,8 +1,12 @@
 
 package JK.pfm.service;
 
+import JK.pfm.config.LeasedJob;
 import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.SyncCursorRepository;
 import JK.pfm.repository.TransactionRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,11 +21,17 @@ public class SavingsSnapshotScheduler {
 
     private final SavingsGoalRepository savingsGoalRepo;
     private final TransactionRepository txnRepo;
+    private final SyncCursorRepository syncCursorRepo;
+    private final JobLeaseService jobLeases;
 
     public SavingsSnapshotScheduler(SavingsGoalRepository savingsGoalRepo,
-                                    TransactionRepository txnRepo) {
+                                    TransactionRepository txnRepo,
+                                    SyncCursorRepository syncCursorRepo,
+                                    JobLeaseService jobLeases) {
         this.savingsGoalRepo = savingsGoalRepo;
         this.txnRepo         = txnRepo;
+        this.syncCursorRepo  = syncCursorRepo;
+        this.jobLeases       = jobLeases;
     }
     
     @EventListener(ApplicationReadyEvent.class)
@@ -33,11 +43,20 @@ public class SavingsSnapshotScheduler {
      * Runs at 00:00 on the 1st of each month.
      * For each user, computes the cumulative savings balance
      * as of the last day of the previous month (LocalDate),
-     * then writes it into SavingsGoal.lastMonthAmount.
+     * then writes it into SavingsGoal.lastMonthAmount and advances
+     * the user's data version.
+     * The scheduled run happens on one node only.
+     *
+     * @return number of users updated
      */
     @Scheduled(cron = "0 0 0 1 * ?")
+    @LeasedJob("savings-snapshot")
+    @Timed(value = "pfm.job", extraTags = {"job", "savings-snapshot"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "savings-snapshot"})
     @Transactional
-    public void snapshotLastMonthAmounts() {
+    public int snapshotLastMonthAmounts() {
+        jobLeases.checkFence();
+        int updated = 0;
         LocalDate cutoffDate = LocalDate.now()
             .minusMonths(1)
             .with(TemporalAdjusters.lastDayOfMonth());
@@ -46,7 +65,11 @@ public class SavingsSnapshotScheduler {
         for (Long userId : savingsGoalRepo.findDistinctUserIds()) {
             BigDecimal cumulative = txnRepo.getSavingsBalanceUpTo(userId, cutoffDate);
             savingsGoalRepo.updateLastMonthAmountByUserId(userId, cumulative);
+            // the bulk update bypasses the change feed
+            syncCursorRepo.advance(userId);
+            updated++;
         }
+        return updated;
     }
 }
 
@@ -0,0 +1,200 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.CategoryListDto;
+import JK.pfm.dto.SyncResponse;
+import JK.pfm.dto.SyncTombstone;
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.RecurringExpense;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.SyncChange;
+import JK.pfm.model.SyncCursor;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.SyncChangeRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserCategoryPreferenceRepository;
+import JK.pfm.specifications.BudgetSpecifications;
+import JK.pfm.specifications.RecurringExpenseSpecifications;
+import JK.pfm.specifications.SavingsGoalSpecification;
+import JK.pfm.specifications.TransactionSpecifications;
+import JK.pfm.util.SecurityUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Incremental sync feed for clients.
+ *
+ * <p>Changes are recorded by {@link JK.pfm.config.ChangeFeedListener} with a per-user,
+ * monotonically increasing sequence number. A client that passes its last cursor receives only
+ * the records changed since then: current state for inserts and updates, tombstones for
+ * deletes. Without a cursor the client receives a full snapshot.</p>
+ *
+ * <p>Closed (inactive) accounts are not part of the snapshot, and the feed reports them with a
+ * tombstone, so clients that sync fully and clients that sync incrementally hold the same
+ * accounts. Transactions of closed accounts stay in both.</p>
+ *
+ * <p>Archived transactions ({@link TransactionArchiveService}) stay in both as well: the snapshot
+ * adds them, and a changed transaction that has been archived since is read from the archive
+ * instead of being reported as deleted.</p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class SyncService {
+
+    /** Maximum number of changed records returned per page. */
+    public static final int PAGE_SIZE = 500;
+
+    private final SyncChangeRepository syncChangeRepository;
+    private final SyncCursorRepository syncCursorRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BudgetRepository budgetRepository;
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final SavingsGoalRepository savingsGoalRepository;
+    private final UserCategoryPreferenceRepository userCategoryPreferenceRepository;
+    private final TransactionArchiveService archive;
+
+    public SyncService(
+            SyncChangeRepository syncChangeRepository,
+            SyncCursorRepository syncCursorRepository,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            BudgetRepository budgetRepository,
+            RecurringExpenseRepository recurringExpenseRepository,
+            SavingsGoalRepository savingsGoalRepository,
+            UserCategoryPreferenceRepository userCategoryPreferenceRepository,
+            TransactionArchiveService archive
+    ) {
+        this.syncChangeRepository             = syncChangeRepository;
+        this.syncCursorRepository             = syncCursorRepository;
+        this.accountRepository                = accountRepository;
+        this.transactionRepository            = transactionRepository;
+        this.budgetRepository                 = budgetRepository;
+        this.recurringExpenseRepository       = recurringExpenseRepository;
+        this.savingsGoalRepository            = savingsGoalRepository;
+        this.userCategoryPreferenceRepository = userCategoryPreferenceRepository;
+        this.archive                          = archive;
+    }
+
+    /**
+     * Returns the authenticated user's changes after {@code since}.
+     *
+     * <p>With {@code since} {@code null} or {@code 0} a full snapshot of the user's accounts,
+     * transactions, budgets, recurring expenses, savings goals and categories is returned.
+     * Otherwise up to {@link #PAGE_SIZE} changed records are returned, oldest change first;
+     * records that were changed several times appear once, in their current state.</p>
+     *
+     * @param since the cursor from the previous response, or {@code null}
+     * @return the changes and the cursor to pass next time
+     * @throws ResponseStatusException BAD_REQUEST if {@code since} is negative
+     */
+    public SyncResponse getChanges(Long since) {
+        if (since != null && since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        Long userId = SecurityUtil.getUserId();
+        if (since == null || since == 0) {
+            return snapshot(userId);
+        }
+
+        List<SyncChange> changes = syncChangeRepository
+            .findByUserIdAndSeqGreaterThanOrderBySeqAsc(userId, since, PageRequest.of(0, PAGE_SIZE + 1));
+        boolean hasMore = changes.size() > PAGE_SIZE;
+        if (hasMore) {
+            changes = changes.subList(0, PAGE_SIZE);
+        }
+        long cursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        SyncResponse response = new SyncResponse(cursor, false, hasMore);
+
+        Map<String, Set<Long>> upserts = new HashMap<>();
+        for (SyncChange change : changes) {
+            if (change.isDeleted()) {
+                response.getDeleted().add(new SyncTombstone(change.getEntityType(), change.getEntityId()));
+            } else {
+                upserts.computeIfAbsent(change.getEntityType(), type -> new LinkedHashSet<>()).add(change.getEntityId());
+            }
+        }
+
+        // closed accounts are left out of the snapshot, so the feed reports them as deleted
+        response.setAccounts(load(SyncChange.ACCOUNT, upserts, response,
+            ids -> accountRepository.findAllById(ids).stream().filter(Account::getIsActive).toList(),
+            Account::getId));
+        response.setTransactions(load(SyncChange.TRANSACTION, upserts, response,
+            this::findTransactions, Transaction::getId));
+        response.setBudgets(load(SyncChange.BUDGET, upserts, response,
+            budgetRepository::findAllById, Budget::getId));
+        response.setRecurringExpenses(load(SyncChange.RECURRING_EXPENSE, upserts, response,
+            recurringExpenseRepository::findAllById, RecurringExpense::getId));
+        response.setSavingsGoals(load(SyncChange.SAVINGS_GOAL, upserts, response,
+            savingsGoalRepository::findAllById, SavingsGoal::getId));
+        response.setCategories(load(SyncChange.CATEGORY, upserts, response,
+            ids -> userCategoryPreferenceRepository.findCategoryListDtoByUserIdAndCategoryIdIn(userId, ids),
+            CategoryListDto::getId));
+        return response;
+    }
+
+    /**
+     * Builds a full snapshot. The cursor is read first, so changes committed while the
+     * snapshot is loading are returned again by the next incremental call rather than lost.
+     */
+    private SyncResponse snapshot(Long userId) {
+        long cursor = syncCursorRepository.findById(userId).map(SyncCursor::getSeq).orElse(0L);
+        SyncResponse response = new SyncResponse(cursor, true, false);
+        response.setAccounts(accountRepository.findByUserIdAndActiveTrue(userId));
+        List<Transaction> transactions = new ArrayList<>(
+            transactionRepository.findAll(TransactionSpecifications.belongsToUser(userId)));
+        transactions.addAll(archive.findArchived(userId, null, null, null, null, null));
+        response.setTransactions(transactions);
+        response.setBudgets(budgetRepository.findAll(BudgetSpecifications.belongsToUser(userId)));
+        response.setRecurringExpenses(recurringExpenseRepository.findAll(RecurringExpenseSpecifications.belongsToUser(userId)));
+        response.setSavingsGoals(savingsGoalRepository.findAll(SavingsGoalSpecification.belongsToUser(userId)));
+        response.setCategories(userCategoryPreferenceRepository.findCategoryListDtoByUserId(userId));
+        return response;
+    }
+
+    /**
+     * Loads transactions by ID, falling back to the archive for those archived since they changed.
+     */
+    private List<Transaction> findTransactions(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(transactionRepository.findAllById(ids));
+        if (found.size() < ids.size()) {
+            Set<Long> missing = new LinkedHashSet<>(ids);
+            found.forEach(transaction -> missing.remove(transaction.getId()));
+            found.addAll(archive.findArchivedById(missing));
+        }
+        return found;
+    }
+
+    /**
+     * Loads the changed records of one type. Records that no longer exist are reported as
+     * tombstones instead.
+     */
+    private static <T> List<T> load(String type, Map<String, Set<Long>> upserts, SyncResponse response,
+                                    Function<Collection<Long>, List<T>> finder, Function<T, Long> idOf) {
+        Set<Long> ids = upserts.get(type);
+        if (ids == null) {
+            return List.of();
+        }
+        List<T> found = finder.apply(ids);
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        found.forEach(record -> missing.remove(idOf.apply(record)));
+        missing.forEach(id -> response.getDeleted().add(new SyncTombstone(type, id)));
+        return found;
+    }
+}
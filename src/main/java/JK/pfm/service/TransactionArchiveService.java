@@ -0,0 +1,165 @@
+package JK.pfm.service;
+
+import JK.pfm.config.LeasedJob;
+import JK.pfm.model.ArchivedTransaction;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.TransactionRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cold tier for transaction history.
+ *
+ * <p>Transactions dated before the archive horizon are moved from {@code transactions} to
+ * {@code transactions_archive} by a nightly job, so the live table (and its indexes and
+ * partitions) only hold recent months. The horizon is the first day of the month
+ * {@code pfm.transactions.archive.horizon-months} months back.</p>
+ *
+ * <p>Every archived row is older than the current horizon. Read paths therefore only consult the
+ * archive when a query reaches back before it ({@link #reachesArchive(LocalDate)}); all-history
+ * sums add the archived part. Archived transactions are read-only. They stay part of the sync
+ * feed: full snapshots include them, and incremental sync returns them from the archive.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.transactions.archive.enabled} – run the archival job (default false)</li>
+ *   <li>{@code pfm.transactions.archive.horizon-months} – months kept in the live table (default 24);
+ *   only ever lower it, since reads skip the archive for dates after the current horizon</li>
+ *   <li>{@code pfm.transactions.archive.batch-size} – rows moved per transaction (default 1000)</li>
+ *   <li>{@code pfm.transactions.archive.cron} – schedule (default 02:45 daily)</li>
+ * </ul>
+ */
+@Service
+public class TransactionArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final JobLeaseService jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int horizonMonths;
+    private final int batchSize;
+
+    public TransactionArchiveService(
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            JobLeaseService jobLeases,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.transactions.archive.enabled:false}") boolean enabled,
+            @Value("${pfm.transactions.archive.horizon-months:24}") int horizonMonths,
+            @Value("${pfm.transactions.archive.batch-size:1000}") int batchSize
+    ) {
+        this.transactionRepository         = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.jobLeases                     = jobLeases;
+        this.transactionTemplate           = new TransactionTemplate(transactionManager);
+        this.enabled                       = enabled;
+        this.horizonMonths                 = Math.max(1, horizonMonths);
+        this.batchSize                     = Math.max(1, batchSize);
+    }
+
+    /**
+     * @return first date kept in the live table; everything archived is dated before it
+     */
+    public LocalDate horizon() {
+        return LocalDate.now().withDayOfMonth(1).minusMonths(horizonMonths);
+    }
+
+    /**
+     * @return first date every live transaction is guaranteed to keep, or {@code null} when
+     *         archiving is off; older rows may be moved out at any time
+     */
+    public LocalDate liveFrom() {
+        return enabled ? horizon() : null;
+    }
+
+    /**
+     * Tells whether a query starting at {@code startDate} may match archived rows.
+     *
+     * @param startDate inclusive start of the queried range, or {@code null} for all history
+     * @return {@code true} if the archive must be queried as well
+     */
+    public boolean reachesArchive(LocalDate startDate) {
+        return startDate == null || startDate.isBefore(horizon());
+    }
+
+    /**
+     * Finds a user's archived transactions; see
+     * {@link ArchivedTransactionRepository#findByFilters}.
+     *
+     * @return matching rows as detached {@link Transaction}s, newest first
+     */
+    public List<Transaction> findArchived(Long userId, LocalDate startDate, LocalDate endDate,
+                                          Long categoryId, Long accountId, String type) {
+        return archivedTransactionRepository
+            .findByFilters(userId, startDate, endDate, categoryId, accountId, type)
+            .stream()
+            .map(ArchivedTransaction::toTransaction)
+            .toList();
+    }
+
+    /**
+     * Finds archived transactions by ID.
+     *
+     * @param ids IDs to look up; IDs that are not archived are skipped
+     * @return the rows found as detached {@link Transaction}s
+     */
+    public List<Transaction> findArchivedById(Collection<Long> ids) {
+        return archivedTransactionRepository.findAllById(ids)
+            .stream()
+            .map(ArchivedTransaction::toTransaction)
+            .toList();
+    }
+
+    /**
+     * Moves every transaction dated before the horizon into the archive, in batches of
+     * {@code pfm.transactions.archive.batch-size}. Each batch is copied and deleted in one
+     * transaction. Balances and the change feed are untouched, since the transactions still
+     * exist; sync reads them from the archive.
+     *
+     * @return number of transactions archived
+     */
+    @Scheduled(cron = "${pfm.transactions.archive.cron:0 45 2 * * *}")
+    @LeasedJob("transaction-archive")
+    @Timed(value = "pfm.job", extraTags = {"job", "transaction-archive"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "transaction-archive"})
+    public int archive() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDate horizon = horizon();
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                jobLeases.checkFence();
+                List<Long> ids = transactionRepository.findIdsDatedBefore(horizon, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archivedTransactionRepository.copyFromLive(ids, LocalDateTime.now());
+                return transactionRepository.deleteAllByIdInBulk(ids);
+            });
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            log.info("Archived {} transactions dated before {}", archived, horizon);
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,204 @@
+package JK.pfm.service;
+
+import JK.pfm.config.LeasedJob;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the monthly range partitions of {@code transactions} ahead of the calendar (MySQL only).
+ *
+ * <p>The table is converted once with {@code db/mysql/partition-transactions.sql}: the primary key
+ * becomes {@code (id, date)} and the table is partitioned by {@code RANGE COLUMNS(date)} into
+ * monthly partitions named {@code pYYYYMM}, followed by a {@code p_future} catch-all. This job
+ * splits {@code p_future} so that a partition exists for every month up to
+ * {@code pfm.transactions.partitions.months-ahead} months from now. Queries with a date range
+ * then only read the partitions they need.</p>
+ *
+ * <p>The job also switches {@code transactions_archive} to {@code ROW_FORMAT=COMPRESSED}.</p>
+ *
+ * <p>A partitioned schema must not run with {@code spring.jpa.hibernate.ddl-auto=update}, which
+ * would try to add the dropped foreign keys back; use the {@code partitioned} profile. Startup
+ * fails when the table is partitioned and {@code update} is configured.</p>
+ *
+ * <p>On other databases, or while the table is not partitioned, it does nothing.</p>
+ */
+@Service
+public class TransactionPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionMaintenance.class);
+
+    static final String CATCH_ALL = "p_future";
+
+    private static final Pattern MONTHLY = Pattern.compile("p(\\d{6})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final String ddlAuto;
+    private volatile Boolean mySql;
+
+    public TransactionPartitionMaintenance(
+            DataSource dataSource,
+            @Value("${pfm.transactions.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.monthsAhead  = Math.max(1, monthsAhead);
+        this.ddlAuto      = ddlAuto;
+    }
+
+    /**
+     * Fails startup when the table is partitioned and Hibernate is set to update the schema.
+     *
+     * @throws IllegalStateException if {@code spring.jpa.hibernate.ddl-auto=update} on a
+     *         partitioned table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkSchemaMode() {
+        if (isMySql()) {
+            checkSchemaMode(ddlAuto, !partitions().isEmpty());
+        }
+    }
+
+    /**
+     * Creates the missing future partitions and compresses the archive table.
+     *
+     * @return number of partitions created
+     */
+    @Scheduled(cron = "${pfm.transactions.partitions.cron:0 0 2 * * *}")
+    @LeasedJob("transaction-partitions")
+    @Timed(value = "pfm.job", extraTags = {"job", "transaction-partitions"}, histogram = true)
+    @Counted(value = "pfm.job.runs", extraTags = {"job", "transaction-partitions"})
+    public int maintain() {
+        if (!isMySql()) {
+            return 0;
+        }
+        compressArchive();
+
+        List<String> partitions = partitions();
+        if (partitions.isEmpty()) {
+            log.debug("Table transactions is not partitioned; skipping partition maintenance");
+            return 0;
+        }
+        if (!partitions.contains(CATCH_ALL)) {
+            log.warn("Table transactions has no {} partition; cannot add monthly partitions", CATCH_ALL);
+            return 0;
+        }
+
+        List<YearMonth> missing = missingPartitions(partitions, YearMonth.now(), monthsAhead);
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.execute(reorganizeStatement(missing));
+        log.info("Created {} transaction partitions up to {}", missing.size(), partitionName(missing.get(missing.size() - 1)));
+        return missing.size();
+    }
+
+    /**
+     * Months that need a partition: every month after the latest existing monthly partition,
+     * up to {@code monthsAhead} months after {@code current}. Months before the latest existing
+     * partition are never returned, since only the catch-all can be split.
+     *
+     * @param existing existing partition names
+     * @param current the current month
+     * @param monthsAhead how many months beyond {@code current} to cover
+     * @return missing months, ascending
+     */
+    static List<YearMonth> missingPartitions(Collection<String> existing, YearMonth current, int monthsAhead) {
+        YearMonth latest = null;
+        for (String name : existing) {
+            Matcher m = MONTHLY.matcher(name);
+            if (m.matches()) {
+                YearMonth month = YearMonth.parse(m.group(1), NAME_FORMAT);
+                if (latest == null || month.isAfter(latest)) {
+                    latest = month;
+                }
+            }
+        }
+        YearMonth last = current.plusMonths(monthsAhead);
+        YearMonth next = latest == null ? current : latest.plusMonths(1);
+        List<YearMonth> missing = new ArrayList<>();
+        for (; !next.isAfter(last); next = next.plusMonths(1)) {
+            missing.add(next);
+        }
+        return missing;
+    }
+
+    /**
+     * Builds the statement that splits the catch-all into the given monthly partitions. Rows
+     * already in the catch-all are moved into the matching new partition.
+     */
+    static String reorganizeStatement(List<YearMonth> months) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE transactions REORGANIZE PARTITION ")
+            .append(CATCH_ALL).append(" INTO (");
+        for (YearMonth month : months) {
+            sql.append("PARTITION ").append(partitionName(month))
+               .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        return sql.append("PARTITION ").append(CATCH_ALL).append(" VALUES LESS THAN (MAXVALUE))").toString();
+    }
+
+    /**
+     * @throws IllegalStateException if {@code ddlAuto} is {@code update} and the table is partitioned
+     */
+    static void checkSchemaMode(String ddlAuto, boolean partitioned) {
+        if (partitioned && "update".equalsIgnoreCase(ddlAuto.trim())) {
+            throw new IllegalStateException("Table transactions is partitioned, but spring.jpa.hibernate.ddl-auto=update "
+                + "would add foreign keys back; run with the 'partitioned' profile (ddl-auto=validate)");
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return "p" + month.format(NAME_FORMAT);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+            SELECT PARTITION_NAME
+              FROM information_schema.PARTITIONS
+             WHERE TABLE_SCHEMA = DATABASE()
+               AND TABLE_NAME = 'transactions'
+               AND PARTITION_NAME IS NOT NULL
+            """, String.class);
+    }
+
+    private void compressArchive() {
+        List<String> format = jdbcTemplate.queryForList("""
+            SELECT ROW_FORMAT
+              FROM information_schema.TABLES
+             WHERE TABLE_SCHEMA = DATABASE()
+               AND TABLE_NAME = 'transactions_archive'
+            """, String.class);
+        if (!format.isEmpty() && !"Compressed".equalsIgnoreCase(format.get(0))) {
+            jdbcTemplate.execute("ALTER TABLE transactions_archive ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8");
+            log.info("Switched transactions_archive to ROW_FORMAT=COMPRESSED");
+        }
+    }
+
+    private boolean isMySql() {
+        Boolean cached = mySql;
+        if (cached == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            cached = product != null && (product.contains("MySQL") || product.contains("MariaDB"));
+            mySql = cached;
+        }
+        return cached;
+    }
+}
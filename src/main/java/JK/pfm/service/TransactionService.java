@@ -1,20 +1,38 @@
 package JK.pfm.service;
 
+import JK.pfm.dto.LiveEvent;
 import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.TransactionSearchPage;
+import JK.pfm.dto.filters.TransactionSearchFilter;
 import JK.pfm.model.Account;
 import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.Transaction;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.budget.BudgetTracker;
+import JK.pfm.service.categorization.TransactionCategorizer;
+import JK.pfm.service.dedup.DuplicateDetector;
+import JK.pfm.service.search.DescriptionIndex;
+import JK.pfm.service.search.TransactionSearchIndex;
 import JK.pfm.specifications.TransactionSpecifications;
 import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.annotation.Timed;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Sort;
@@ -29,17 +47,41 @@ public class TransactionService {
     private final AccountUtil accountUtil;
     private final AccountRepository accountRepository;
     private final CategoryRepository categoryRepository;
+    private final AccountBalanceService balances;
+    private final OutboxService outbox;
+    private final TransactionArchiveService archive;
+    private final BudgetTracker budgetTracker;
+    private final TransactionCategorizer categorizer;
+    private final TransactionSearchIndex searchIndex;
+    private final DuplicateDetector duplicates;
+
+    /** Rows read per round trip when a search falls back to the database. */
+    static final int SEARCH_SCAN_BATCH = 500;
 
     public TransactionService(
             TransactionRepository transactionRepository,
             AccountUtil accountUtil,
             AccountRepository accountRepository,
-            CategoryRepository categoryRepository
+            CategoryRepository categoryRepository,
+            AccountBalanceService balances,
+            OutboxService outbox,
+            TransactionArchiveService archive,
+            BudgetTracker budgetTracker,
+            TransactionCategorizer categorizer,
+            TransactionSearchIndex searchIndex,
+            DuplicateDetector duplicates
     ) {
         this.transactionRepository = transactionRepository;
         this.accountUtil           = accountUtil;
         this.accountRepository     = accountRepository;
         this.categoryRepository    = categoryRepository;
+        this.balances              = balances;
+        this.outbox                = outbox;
+        this.archive               = archive;
+        this.budgetTracker         = budgetTracker;
+        this.categorizer           = categorizer;
+        this.searchIndex           = searchIndex;
+        this.duplicates            = duplicates;
     }
     
     
@@ -50,20 +92,55 @@ public class TransactionService {
     * <p>Rules:
     * <ul>
     *   <li>Account must exist, be active, and belong to the authenticated user.</li>
-    *   <li>Category must exist.</li>
+    *   <li>Category must exist. Without a category id, the user's categorization rules pick one
+    *       from the description and amount.</li>
     *   <li>Type "Expense" subtracts from account balance and requires sufficient funds.</li>
     *   <li>Type "Deposit" adds to account balance.</li>
+    *   <li>A transaction repeating an existing one on the account (same date, amount, type and
+    *       description) is rejected or flagged according to {@link DuplicateDetector}'s policy,
+    *       unless {@code allowDuplicate} is set.</li>
     * </ul>
     *
     * <p>This method is transactional; the transaction and balance update succeed or fail together.
+    * Balance changes go through {@link AccountBalanceService}, which locks the account for the
+    * funds check when the balance journal is enabled.
+    * A {@link LiveEvent} is recorded in the outbox and reaches the user's live stream once the
+    * commit succeeds. An expense is added
+    * to the spending counters of the budgets it falls into.
     *
     * @param request payload containing date, amount, account name, category id, type, and description
     * @return the persisted {@link Transaction}
     * @throws org.springframework.web.server.ResponseStatusException
-    *         NOT_FOUND if account or category is missing; CONFLICT if insufficient funds
+    *         NOT_FOUND if account or category is missing; BAD_REQUEST if no category is given and
+    *         no rule matches; CONFLICT if insufficient funds or a rejected duplicate
     */
+    @Timed(value = "pfm.transaction.save", histogram = true)
+    @Counted("pfm.transaction.save.calls")
     @Transactional
     public Transaction saveTransaction(TransactionCreationRequest request) {
+        return create(request, null);
+    }
+
+    /**
+    * Save a new savings fund transfer, linked to the savings goal it moves money to or from so
+    * per-goal history can be queried directly. Otherwise identical to
+    * {@link #saveTransaction(TransactionCreationRequest)}, except that repeated transfers are not
+    * treated as duplicates.
+    *
+    * @param request payload containing date, amount, account name, category id, type, and description
+    * @param savingsGoal the savings goal on the other side of the transfer
+    * @return the persisted {@link Transaction}
+    * @throws org.springframework.web.server.ResponseStatusException
+    *         NOT_FOUND if account or category is missing; CONFLICT if insufficient funds
+    */
+    @Timed(value = "pfm.transaction.save", histogram = true)
+    @Counted("pfm.transaction.save.calls")
+    @Transactional
+    public Transaction saveTransaction(TransactionCreationRequest request, SavingsGoal savingsGoal) {
+        return create(request, savingsGoal);
+    }
+
+    private Transaction create(TransactionCreationRequest request, SavingsGoal savingsGoal) {
         // Retrieve the authenticated user details
         Long userId = SecurityUtil.getUserId();
         
@@ -74,8 +151,16 @@ public class TransactionService {
                 "Account missing"
             ));
             
-        // Lookup category
-        Category category = categoryRepository.findById(request.getCategoryId())
+        // Lookup category, or pick one by the user's rules
+        Long categoryId = request.getCategoryId();
+        if (categoryId == null) {
+            categoryId = categorizer.categorize(userId, request.getDescription(), request.getAmount())
+            .orElseThrow(() -> new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Category missing"
+                ));
+        }
+        Category category = categoryRepository.findById(categoryId)
         .orElseThrow(() -> new ResponseStatusException(
                 HttpStatus.NOT_FOUND,
                 "Category missing"
@@ -89,23 +174,33 @@ public class TransactionService {
                 category, 
                 request.getType(), 
                 request.getDescription());
+        transaction.setSavingsGoal(savingsGoal);
+
+        // Duplicate policy; savings transfers and explicit repeats are only fingerprinted
+        duplicates.screen(account, transaction, savingsGoal == null && !request.isAllowDuplicate());
     
-    
-        // Update the account balance based on the transaction type
-        if (transaction.getType().equals("Expense")) {
-            // Check for sufficient funds
-            if (account.getAmount().compareTo(transaction.getAmount()) < 0) {
-                throw new ResponseStatusException(
+        // Check for sufficient funds
+        if (transaction.getType().equals("Expense")
+                && balances.lockBalance(account).compareTo(transaction.getAmount()) < 0) {
+            throw new ResponseStatusException(
             HttpStatus.CONFLICT,
             "Not enough funds"
             );
-            }
-            account.setAmount(account.getAmount().subtract(transaction.getAmount()));
-        } else if (transaction.getType().equals("Deposit")) {
-            account.setAmount(account.getAmount().add(transaction.getAmount()));
         }
     
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        duplicates.recorded(account, saved);
+
+        // Update the account balance based on the transaction type
+        if (transaction.getType().equals("Expense")) {
+            balances.apply(account, transaction.getAmount().negate(), transaction);
+        } else if (transaction.getType().equals("Deposit")) {
+            balances.apply(account, transaction.getAmount(), transaction);
+        }
+        budgetTracker.record(saved, 1);
+        LiveEvent event = LiveEvent.of(LiveEvent.TRANSACTION_CREATED, transaction, balances.balanceOf(account));
+        outbox.append(event.getUserId(), OutboxEvent.TRANSACTION_CREATED, transaction.getId(), event);
+        return saved;
     }
     
     /**
@@ -115,6 +210,7 @@ public class TransactionService {
     *
     * @return list of all {@link Transaction} entities
     */
+    @Transactional(readOnly = true)
     public List<Transaction> getAllTransactions() {
         return transactionRepository.findAll();
     }
@@ -139,6 +235,7 @@ public class TransactionService {
     * <ul>
     *   <li>Transactions in categories "Savings", "Fund Transfer", or "Opening Account" cannot be deleted.</li>
     *   <li>Reverts balance: "Expense" adds the amount back; "Deposit" subtracts it (requires sufficient funds).</li>
+    *   <li>A deleted expense is taken off the spending counters of its budgets.</li>
     * </ul>
     *  
     * <p>Operation is transactional; the balance adjustment and deletion occur atomically.
@@ -172,18 +269,21 @@ public class TransactionService {
         Account account = transaction.getAccount();
         // Revert the account balance change before deletion
         if (transaction.getType().equals("Expense")) {
-            account.setAmount(account.getAmount().add(transaction.getAmount()));
+            balances.apply(account, transaction.getAmount(), transaction);
         } else {
-            if (account.getAmount().compareTo(transaction.getAmount()) < 0) {
+            if (balances.lockBalance(account).compareTo(transaction.getAmount()) < 0) {
                 throw new ResponseStatusException(
                 HttpStatus.CONFLICT,
                 "Insufficient funds"
             );
             }
-            account.setAmount(account.getAmount().subtract(transaction.getAmount()));
+            balances.apply(account, transaction.getAmount().negate(), transaction);
         }
         accountRepository.save(account);
         transactionRepository.deleteById(id);
+        budgetTracker.record(transaction, -1);
+        LiveEvent event = LiveEvent.of(LiveEvent.TRANSACTION_DELETED, transaction, balances.balanceOf(account));
+        outbox.append(event.getUserId(), OutboxEvent.TRANSACTION_DELETED, id, event);
     }
     
     /**
@@ -191,6 +291,8 @@ public class TransactionService {
     *
     * <p>Supported filters (all optional): date range (inclusive), category, account, type.
     * Results are always scoped to {@code userId} and sorted by {@code date DESC}, then {@code id DESC}.
+    * Archived transactions are included when the range starts before the archive horizon (or has
+    * no start); otherwise only the live table is queried.
     *
     * @param startDate start of date range (inclusive), or {@code null}
     * @param endDate end of date range (inclusive), or {@code null}
@@ -200,8 +302,112 @@ public class TransactionService {
     * @param type transaction type filter (e.g., "Expense", "Deposit"), or {@code null}
     * @return list of matching {@link Transaction} entities
     */
+    @Transactional(readOnly = true)
     public List<Transaction> getTransactionsByFilters
         (LocalDate startDate, LocalDate endDate, Long categoryId, Long accountId,  Long userId, String type) {
+        Specification<Transaction> spec = filterSpec(startDate, endDate, categoryId, accountId, userId, type);
+        
+        //sorting in desc order
+        Sort sort = Sort.by(
+        Sort.Order.desc("date"), 
+        Sort.Order.desc("id") 
+        );
+    
+        List<Transaction> live = transactionRepository.findAll(spec, sort);
+        if (!archive.reachesArchive(startDate)) {
+            return live;
+        }
+
+        // the range reaches back before the archive horizon; merge in archived rows
+        List<Transaction> archived = archive.findArchived(userId, startDate, endDate, categoryId, accountId, type);
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<Transaction> merged = new ArrayList<>(live.size() + archived.size());
+        merged.addAll(live);
+        merged.addAll(archived);
+        merged.sort(Comparator.comparing(Transaction::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Transaction::getId, Comparator.reverseOrder()));
+        return merged;
+}
+
+    /**
+    * Search the authenticated user's transactions by description.
+    *
+    * <p>Every word of the search text must start a word of the description, ignoring case, so
+    * {@code "net sub"} finds "Netflix subscription". The filters of
+    * {@link #getTransactionsByFilters} apply as well. Results are sorted by {@code date DESC},
+    * then {@code id DESC}, and paged by keyset: the page's {@code nextDate}/{@code nextId} are
+    * passed back as {@code afterDate}/{@code afterId}. Archived transactions are not searched.
+    *
+    * <p>Words are looked up in the user's in-memory {@link TransactionSearchIndex}, and only the
+    * page of matches is loaded. When the index is unavailable, candidate rows are read newest
+    * first with a {@code LIKE} filter and checked against the same rule.
+    *
+    * @param filter search text, filters, page cursor and page size
+    * @return one page of matches
+    */
+    @Transactional(readOnly = true)
+    public TransactionSearchPage searchTransactions(TransactionSearchFilter filter) {
+        Long userId = SecurityUtil.getUserId();
+        List<String> words = DescriptionIndex.words(filter.getQ());
+        if (words.isEmpty()) {
+            return new TransactionSearchPage(List.of(), null, null);
+        }
+        int wanted = filter.getLimit() + 1;
+        Optional<DescriptionIndex> index = searchIndex.find(userId);
+        List<Transaction> matches = index.isPresent()
+            ? loadInOrder(index.get().search(words, filter, wanted))
+            : scanDescriptions(userId, words, filter, wanted);
+        return TransactionSearchPage.of(matches, filter.getLimit());
+    }
+
+    private List<Transaction> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Transaction> byId = transactionRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        // a row deleted since the index was read is simply left out
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private List<Transaction> scanDescriptions(Long userId, List<String> words, TransactionSearchFilter filter, int wanted) {
+        Specification<Transaction> spec = filterSpec(filter.getStartDate(), filter.getEndDate(),
+            filter.getCategoryId(), filter.getAccountId(), userId, filter.getType());
+        for (String word : words) {
+            spec = spec.and(TransactionSpecifications.descriptionContains(word));
+        }
+        Sort sort = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+        LocalDate afterDate = filter.getAfterDate();
+        Long afterId = filter.getAfterId();
+        List<Transaction> matches = new ArrayList<>();
+        while (true) {
+            Specification<Transaction> page = afterId == null
+                ? spec
+                : spec.and(TransactionSpecifications.before(afterDate, afterId));
+            List<Transaction> batch = transactionRepository.findBy(page,
+                q -> q.sortBy(sort).limit(SEARCH_SCAN_BATCH).all());
+            for (Transaction t : batch) {
+                // LIKE also hits mid-word; keep only word starts
+                if (DescriptionIndex.matches(t.getDescription(), words)) {
+                    matches.add(t);
+                    if (matches.size() == wanted) {
+                        return matches;
+                    }
+                }
+            }
+            Transaction last = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+            if (batch.size() < SEARCH_SCAN_BATCH || last.getDate() == null) {
+                return matches;
+            }
+            afterDate = last.getDate();
+            afterId = last.getId();
+        }
+    }
+
+    private Specification<Transaction> filterSpec
+        (LocalDate startDate, LocalDate endDate, Long categoryId, Long accountId, Long userId, String type) {
         Specification<Transaction> spec = Specification.where(null);
 
 
@@ -227,16 +433,8 @@ public class TransactionService {
         }
     
         // Always restrict transactions to the authenticated user
-        spec = spec.and(TransactionSpecifications.belongsToUser(userId));
-        
-        //sorting in desc order
-        Sort sort = Sort.by(
-        Sort.Order.desc("date"), 
-        Sort.Order.desc("id") 
-        );
-    
-        return transactionRepository.findAll(spec, sort);
-}
+        return spec.and(TransactionSpecifications.belongsToUser(userId));
+    }
     
     /**
     * Fetch the 5 most recent transactions across all active accounts for the authenticated user.
@@ -245,6 +443,7 @@ public class TransactionService {
     *
     * @return up to 5 most recent {@link Transaction} entities ordered by id descending
     */
+    @Transactional(readOnly = true)
     public List<Transaction> getRecentTransactions() {
         List<Long> accountIds = accountUtil.getUserAccountIds();
         if (accountIds.isEmpty()) {
@@ -0,0 +1,140 @@
+package JK.pfm.service.analytics;
+
+import JK.pfm.model.SyncChange;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.SyncChangeRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.cache.UserFeedCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps recently used users' transactions in memory as {@link TransactionColumns}, so report
+ * aggregations run as loops over primitive arrays instead of SQL.
+ *
+ * <p>Loading, change feed refresh and eviction are those of {@link UserFeedCache}; both
+ * transaction and account changes are applied. Changes are read again at most once per
+ * database transaction.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.analytics.enabled} – serve reports from memory (default {@code false})</li>
+ *   <li>{@code pfm.analytics.max-memory-mb} – budget for all users' columns (default 64)</li>
+ * </ul>
+ */
+@Service
+public class TransactionAnalytics extends UserFeedCache<TransactionColumns> {
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+
+    public TransactionAnalytics(
+            TransactionRepository transactionRepository,
+            AccountRepository accountRepository,
+            SyncCursorRepository syncCursorRepository,
+            SyncChangeRepository syncChangeRepository,
+            TransactionArchiveService archive,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${pfm.analytics.enabled:false}") boolean enabled,
+            @Value("${pfm.analytics.max-memory-mb:64}") long maxMemoryMb
+    ) {
+        super(syncCursorRepository, syncChangeRepository, archive,
+            List.of(SyncChange.TRANSACTION, SyncChange.ACCOUNT), enabled, maxMemoryMb);
+        this.transactionRepository = transactionRepository;
+        this.accountRepository     = accountRepository;
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("pfm.analytics.memory", this, TransactionAnalytics::usedBytes)
+                .description("Heap held by in-memory report columns")
+                .baseUnit("bytes")
+                .register(registry);
+            Gauge.builder("pfm.analytics.users", this, TransactionAnalytics::cachedUsers)
+                .description("Users whose report columns are in memory")
+                .register(registry);
+        });
+    }
+
+    /**
+     * Returns the user's up-to-date columns, loading or refreshing them as needed.
+     *
+     * @param userId the user's ID
+     * @return the columns, or empty when the engine is off or the user does not fit the budget
+     */
+    @Transactional(readOnly = true)
+    public Optional<TransactionColumns> find(Long userId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Map<Long, Optional<TransactionColumns>> checked = checkedInTransaction();
+        Optional<TransactionColumns> columns = checked.get(userId);
+        if (columns == null) {
+            columns = Optional.ofNullable(lookup(userId));
+            checked.put(userId, columns);
+        }
+        return columns;
+    }
+
+    @Override
+    protected TransactionColumns create(LocalDate from, long seq) {
+        return new TransactionColumns(from, seq, 1024);
+    }
+
+    @Override
+    protected Stream<Object[]> streamRows(Long userId, LocalDate from) {
+        return transactionRepository.streamAnalyticsRows(userId, from);
+    }
+
+    @Override
+    protected boolean apply(TransactionColumns columns, List<Object[]> changes, long seq) {
+        List<Long> transactionIds = new ArrayList<>();
+        List<Long> accountIds = new ArrayList<>();
+        for (Object[] change : changes) {
+            (SyncChange.TRANSACTION.equals(change[0]) ? transactionIds : accountIds).add((Long) change[1]);
+        }
+        List<Object[]> rows = transactionIds.isEmpty()
+            ? List.of()
+            : transactionRepository.findAnalyticsRows(transactionIds);
+        List<Object[]> names = accountIds.isEmpty()
+            ? List.of()
+            : accountRepository.findNamesByIdIn(accountIds);
+        columns.apply(transactionIds, rows, names, seq);
+        return true;
+    }
+
+    /**
+     * @return users already checked in the current transaction; a fresh map outside one
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Optional<TransactionColumns>> checkedInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashMap<>();
+        }
+        Object bound = TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return (Map<Long, Optional<TransactionColumns>>) bound;
+        }
+        Map<Long, Optional<TransactionColumns>> checked = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, checked);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionAnalytics.this);
+            }
+        });
+        return checked;
+    }
+}
@@ -0,0 +1,384 @@
+package JK.pfm.service.analytics;
+
+import JK.pfm.dto.ExpenseByAccountDTO;
+import JK.pfm.dto.ExpenseByCategoryDTO;
+import JK.pfm.service.cache.UserFeedCache;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One user's live transactions held as primitive column arrays.
+ *
+ * <p>Each row is an id, an epoch day, an amount in cents and small ordinals into per-user
+ * dictionaries of accounts, categories and types (about 30 bytes per row). The query methods
+ * mirror the {@code TransactionRepository} report queries of the same name, including their
+ * exclusions, and answer them with a single pass over the arrays.</p>
+ *
+ * <p>{@link TransactionAnalytics} applies the changes reported by the change feed in place. All
+ * methods synchronize on the instance, so a query never sees a half-applied change.</p>
+ */
+public final class TransactionColumns implements UserFeedCache.Snapshot {
+
+    /** Bytes held per row across all column arrays. */
+    static final int BYTES_PER_ROW = 8 + 4 + 8 + 4 + 4 + 1 + 1;
+
+    /** Categories left out of the spending and income reports (lower case). */
+    private static final Set<String> NON_REPORTED_CATEGORIES = Set.of("savings", "opening balance", "fund transfer");
+
+    private static final int NO_CATEGORY = -1;
+
+    private final LocalDate from;
+    private long seq;
+
+    private int size;
+    private long[] ids;
+    private int[] days;
+    private long[] cents;
+    private int[] accounts;
+    private int[] categories;
+    private byte[] types;
+    /** 1 when the row is left out of {@link #sumByTypeAndDate}: savings transfer or no description. */
+    private byte[] skipInTotals;
+
+    private final Map<Long, Integer> accountOrdinals = new HashMap<>();
+    private final List<Long> accountIds = new ArrayList<>();
+    private final List<String> accountNames = new ArrayList<>();
+    private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private boolean[] categoryReported = new boolean[8];
+    private final Map<String, Integer> typeOrdinals = new HashMap<>();
+    private final List<String> typeNames = new ArrayList<>();
+
+    /**
+     * @param from first date held, or {@code null} for all dates; older rows are ignored
+     * @param seq the user's change feed sequence the rows were read at
+     * @param capacity expected number of rows
+     */
+    TransactionColumns(LocalDate from, long seq, int capacity) {
+        this.from = from;
+        this.seq  = seq;
+        int initial = Math.max(16, capacity);
+        ids          = new long[initial];
+        days         = new int[initial];
+        cents        = new long[initial];
+        accounts     = new int[initial];
+        categories   = new int[initial];
+        types        = new byte[initial];
+        skipInTotals = new byte[initial];
+    }
+
+    @Override
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    @Override
+    public synchronized long getSeq() {
+        return seq;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return approximate heap held by the column arrays
+     */
+    @Override
+    public synchronized long bytes() {
+        return (long) ids.length * BYTES_PER_ROW;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Loading and deltas
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Adds one row in the layout of {@code TransactionRepository#streamAnalyticsRows}:
+     * {@code [id, date, amount, accountId, accountName, categoryId, categoryName, type, skipInTotals]}.
+     * Rows dated before {@link #getFrom()} are ignored.
+     */
+    @Override
+    public synchronized void add(Object[] row) {
+        LocalDate date = (LocalDate) row[1];
+        if (from != null && date.isBefore(from)) {
+            return;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size]          = (Long) row[0];
+        days[size]         = (int) date.toEpochDay();
+        cents[size]        = toCents((BigDecimal) row[2]);
+        accounts[size]     = account((Long) row[3], (String) row[4]);
+        categories[size]   = category((Long) row[5], (String) row[6]);
+        types[size]        = type((String) row[7]);
+        skipInTotals[size] = Boolean.TRUE.equals(row[8]) ? (byte) 1 : 0;
+        size++;
+    }
+
+    /**
+     * Applies changes read from the change feed and moves the instance to {@code seq}. Changes
+     * read at an older sequence than the current one are ignored.
+     *
+     * @param changedIds ids of every changed or deleted transaction; their old rows are dropped
+     * @param rows current state of the changed transactions that still exist, as for {@link #add}
+     * @param names {@code [accountId, name]} of the user's accounts, or empty if none changed
+     * @param seq sequence the changes were read at
+     */
+    synchronized void apply(Collection<Long> changedIds, List<Object[]> rows, List<Object[]> names, long seq) {
+        if (seq <= this.seq) {
+            // a concurrent refresh already applied a newer state
+            return;
+        }
+        removeAll(changedIds);
+        for (Object[] row : rows) {
+            add(row);
+        }
+        for (Object[] name : names) {
+            Integer ordinal = accountOrdinals.get((Long) name[0]);
+            if (ordinal != null) {
+                accountNames.set(ordinal, (String) name[1]);
+            }
+        }
+        this.seq = seq;
+    }
+
+    /**
+     * Removes the rows with the given ids; unknown ids are ignored. The last row takes the
+     * place of each removed one, since row order does not matter to any query.
+     */
+    private void removeAll(Collection<Long> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        Set<Long> targets = Set.copyOf(removed);
+        int i = 0;
+        while (i < size) {
+            if (targets.contains(ids[i])) {
+                int last = --size;
+                ids[i]          = ids[last];
+                days[i]         = days[last];
+                cents[i]        = cents[last];
+                accounts[i]     = accounts[last];
+                categories[i]   = categories[last];
+                types[i]        = types[last];
+                skipInTotals[i] = skipInTotals[last];
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids          = Arrays.copyOf(ids, capacity);
+        days         = Arrays.copyOf(days, capacity);
+        cents        = Arrays.copyOf(cents, capacity);
+        accounts     = Arrays.copyOf(accounts, capacity);
+        categories   = Arrays.copyOf(categories, capacity);
+        types        = Arrays.copyOf(types, capacity);
+        skipInTotals = Arrays.copyOf(skipInTotals, capacity);
+    }
+
+    private int account(Long id, String name) {
+        Integer ordinal = accountOrdinals.get(id);
+        if (ordinal == null) {
+            ordinal = accountIds.size();
+            accountOrdinals.put(id, ordinal);
+            accountIds.add(id);
+            accountNames.add(name);
+        }
+        return ordinal;
+    }
+
+    private int category(Long id, String name) {
+        if (id == null) {
+            return NO_CATEGORY;
+        }
+        Integer ordinal = categoryOrdinals.get(id);
+        if (ordinal == null) {
+            ordinal = categoryNames.size();
+            categoryOrdinals.put(id, ordinal);
+            categoryNames.add(name);
+            if (ordinal == categoryReported.length) {
+                categoryReported = Arrays.copyOf(categoryReported, ordinal * 2);
+            }
+            categoryReported[ordinal] = name != null
+                && !NON_REPORTED_CATEGORIES.contains(name.toLowerCase(Locale.ROOT));
+        }
+        return ordinal;
+    }
+
+    private byte type(String name) {
+        Integer ordinal = typeOrdinals.get(name);
+        if (ordinal == null) {
+            if (typeNames.size() > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many transaction types");
+            }
+            ordinal = typeNames.size();
+            typeOrdinals.put(name, ordinal);
+            typeNames.add(name);
+        }
+        return ordinal.byteValue();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Queries
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Same result as {@code TransactionRepository#sumByTypeAndDate}.
+     */
+    public synchronized BigDecimal sumByTypeAndDate(String type, Collection<Long> accountIds,
+                                                    LocalDate start, LocalDate end) {
+        Integer wanted = typeOrdinals.get(type);
+        if (wanted == null || start == null || end == null) {
+            return BigDecimal.ZERO;
+        }
+        byte t = wanted.byteValue();
+        boolean[] included = accountMask(accountIds);
+        int lo = (int) start.toEpochDay();
+        int hi = (int) end.toEpochDay();
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            int c = categories[i];
+            if (types[i] == t && days[i] >= lo && days[i] <= hi && included[accounts[i]]
+                    && c != NO_CATEGORY && categoryReported[c] && skipInTotals[i] == 0) {
+                sum += cents[i];
+            }
+        }
+        return fromCents(sum);
+    }
+
+    /**
+     * Same result as {@code TransactionRepository#findExpensesByCategory}.
+     */
+    public synchronized List<ExpenseByCategoryDTO> findExpensesByCategory(Collection<Long> accountIds,
+                                                                         LocalDate start, LocalDate end) {
+        Integer expense = typeOrdinals.get("Expense");
+        if (expense == null || start == null || end == null) {
+            return List.of();
+        }
+        long[] totals = new long[categoryNames.size()];
+        boolean[] seen = new boolean[categoryNames.size()];
+        scanExpenses(expense.byteValue(), accountMask(accountIds), start, end, categories, totals, seen);
+
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (int c = 0; c < totals.length; c++) {
+            if (seen[c]) {
+                byName.merge(categoryNames.get(c), totals[c], Long::sum);
+            }
+        }
+        List<ExpenseByCategoryDTO> result = new ArrayList<>(byName.size());
+        byName.forEach((name, sum) -> result.add(new ExpenseByCategoryDTO(name, fromCents(sum))));
+        return result;
+    }
+
+    /**
+     * Same result as {@code TransactionRepository#findExpensesByAccount}.
+     */
+    public synchronized List<ExpenseByAccountDTO> findExpensesByAccount(Collection<Long> accountIds,
+                                                                       LocalDate start, LocalDate end) {
+        Integer expense = typeOrdinals.get("Expense");
+        if (expense == null || start == null || end == null) {
+            return List.of();
+        }
+        long[] totals = new long[this.accountIds.size()];
+        boolean[] seen = new boolean[this.accountIds.size()];
+        scanExpenses(expense.byteValue(), accountMask(accountIds), start, end, accounts, totals, seen);
+
+        // the query groups by account name, so equally named accounts share a row
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (int a = 0; a < totals.length; a++) {
+            if (seen[a]) {
+                byName.merge(accountNames.get(a), totals[a], Long::sum);
+            }
+        }
+        List<ExpenseByAccountDTO> result = new ArrayList<>(byName.size());
+        byName.forEach((name, sum) -> result.add(new ExpenseByAccountDTO(name, fromCents(sum))));
+        return result;
+    }
+
+    /**
+     * Sums reported expenses in the range into {@code totals}, indexed by {@code groupBy}.
+     */
+    private void scanExpenses(byte expense, boolean[] included, LocalDate start, LocalDate end,
+                              int[] groupBy, long[] totals, boolean[] seen) {
+        int lo = (int) start.toEpochDay();
+        int hi = (int) end.toEpochDay();
+        for (int i = 0; i < size; i++) {
+            int c = categories[i];
+            if (types[i] == expense && days[i] >= lo && days[i] <= hi && included[accounts[i]]
+                    && c != NO_CATEGORY && categoryReported[c]) {
+                int g = groupBy[i];
+                totals[g] += cents[i];
+                seen[g] = true;
+            }
+        }
+    }
+
+    /**
+     * Daily totals per type over the given accounts, in the layout of
+     * {@code TransactionRepository#getDailyTrends}: {@code [LocalDate date, String type, BigDecimal sum]},
+     * ordered by date.
+     *
+     * <p>Only days that have rows are held, so the work and memory follow the rows in range, not
+     * the length of the range.</p>
+     */
+    public synchronized List<Object[]> getDailyTrends(Collection<Long> accountIds, LocalDate start, LocalDate end) {
+        if (start == null || end == null || start.isAfter(end)) {
+            return List.of();
+        }
+        long lo = start.toEpochDay();
+        long hi = end.toEpochDay();
+        int typeCount = typeNames.size();
+        boolean[] included = accountMask(accountIds);
+        // keyed by day and type, so iteration follows the date order
+        TreeMap<Long, Long> totals = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            int d = days[i];
+            if (d >= lo && d <= hi && included[accounts[i]]) {
+                totals.merge((long) d * typeCount + types[i], cents[i], Long::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((slot, sum) -> rows.add(new Object[] {
+            LocalDate.ofEpochDay(Math.floorDiv(slot, typeCount)), typeNames.get((int) Math.floorMod(slot, typeCount)), fromCents(sum)
+        }));
+        return rows;
+    }
+
+    /**
+     * @return per account ordinal, whether the account is one of {@code accountIds}
+     */
+    private boolean[] accountMask(Collection<Long> accountIds) {
+        boolean[] included = new boolean[this.accountIds.size()];
+        for (Long id : accountIds) {
+            Integer ordinal = accountOrdinals.get(id);
+            if (ordinal != null) {
+                included[ordinal] = true;
+            }
+        }
+        return included;
+    }
+}
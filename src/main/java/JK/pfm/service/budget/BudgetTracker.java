@@ -0,0 +1,255 @@
+package JK.pfm.service.budget;
+
+import JK.pfm.dto.BudgetAlert;
+import JK.pfm.model.Budget;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.service.OutboxService;
+import JK.pfm.service.TransactionArchiveService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps each budget's {@code spent} counter up to date as expenses are written, and raises a
+ * {@link BudgetAlert} when spending crosses an alert threshold.
+ *
+ * <p>The services that write transactions call {@link #record} in the same database
+ * transaction. The budgets an expense counts towards are found in an in-memory
+ * {@link BudgetWindows} index of the user's budgets per category. The index is checked against
+ * the count and highest ID of the user's budgets (one aggregate query), so budgets created or
+ * deleted on another node are picked up. Matching budgets are locked and their counter is
+ * adjusted, so reading a budget's spending needs no sum over its transactions.</p>
+ *
+ * <p>A budget counts every expense in its category and window on any of the owner's accounts,
+ * archived ones included. When spending reaches a threshold for the first time, the alert is
+ * recorded in the outbox as {@link OutboxEvent#BUDGET_THRESHOLD}; the live stream picks it up
+ * from there once the write has committed. Dropping back below a threshold (a deleted expense or a
+ * raised amount) re-arms it.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.budgets.alert-thresholds} – thresholds in percent of the amount (default 80,100)</li>
+ *   <li>{@code pfm.budgets.index.max-users} – users whose budget index is kept (default 10000)</li>
+ * </ul>
+ */
+@Service
+public class BudgetTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetTracker.class);
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final BudgetRepository budgetRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionArchiveService archive;
+    private final OutboxService outbox;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int[] thresholds;
+
+    /** user id -> budget index, in access order; guarded by itself */
+    private final Map<Long, BudgetWindows> windows;
+
+    public BudgetTracker(
+            BudgetRepository budgetRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            TransactionArchiveService archive,
+            OutboxService outbox,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${pfm.budgets.alert-thresholds:80,100}") int[] thresholds,
+            @Value("${pfm.budgets.index.max-users:10000}") int maxUsers
+    ) {
+        this.budgetRepository              = budgetRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.archive                       = archive;
+        this.outbox                        = outbox;
+        this.meterRegistry                 = meterRegistry;
+        this.thresholds                    = Arrays.stream(thresholds).filter(t -> t > 0).sorted().distinct().toArray();
+        int capacity = Math.max(1, maxUsers);
+        this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BudgetWindows> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Adds ({@code sign > 0}) or removes ({@code sign < 0}) an expense from the counters of the
+     * budgets it falls into. Other transaction types are ignored.
+     *
+     * <p>Call after the transaction was saved, or deleted, in the current database
+     * transaction.</p>
+     *
+     * @param transaction the created or deleted transaction
+     * @param sign {@code 1} for a new expense, {@code -1} for a deleted one
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Transaction transaction, int sign) {
+        if (!"Expense".equals(transaction.getType())
+                || transaction.getCategory() == null
+                || transaction.getDate() == null
+                || transaction.getAccount() == null
+                || transaction.getAccount().getUser() == null) {
+            return;
+        }
+        Long userId = transaction.getAccount().getUser().getId();
+        long[] ids = windows(userId).find(transaction.getCategory().getId(), transaction.getDate());
+        if (ids.length == 0) {
+            return;
+        }
+        BigDecimal delta = sign < 0 ? transaction.getAmount().negate() : transaction.getAmount();
+        for (Budget budget : budgetRepository.findAllByIdForUpdate(Arrays.stream(ids).boxed().toList())) {
+            if (budget.getSpent() == null) {
+                // not backfilled yet; the sum already reflects this write
+                budget.setSpent(sumExpenses(budget));
+            } else {
+                budget.setSpent(budget.getSpent().add(delta));
+            }
+            evaluate(budget);
+        }
+    }
+
+    /**
+     * Initialises the counter of a budget that is about to be created from the expenses already
+     * in its window. Thresholds that are already crossed do not raise an alert.
+     *
+     * @param budget the new budget, with user, category and window set
+     */
+    public void track(Budget budget) {
+        budget.setSpent(sumExpenses(budget));
+        budget.setAlertLevel(level(budget));
+    }
+
+    /**
+     * Returns the amount spent on a budget: its counter, or, for a budget not backfilled yet, the
+     * sum of the expenses in its window.
+     *
+     * @param budget the budget
+     * @return the amount spent
+     */
+    public BigDecimal spent(Budget budget) {
+        return budget.getSpent() != null ? budget.getSpent() : sumExpenses(budget);
+    }
+
+    /**
+     * Re-evaluates the alert thresholds of a budget, after its counter or amount changed, and
+     * raises an alert for a newly crossed one. A budget that was never evaluated is only marked.
+     *
+     * @param budget the budget
+     */
+    public void evaluate(Budget budget) {
+        if (budget.getSpent() == null) {
+            return;
+        }
+        int level = level(budget);
+        Integer alerted = budget.getAlertLevel();
+        if (alerted != null && level > alerted) {
+            alert(budget, level);
+        }
+        budget.setAlertLevel(level);
+    }
+
+    /**
+     * Fills in the counters of budgets created before spending was tracked. Runs at startup and
+     * only touches budgets without a counter, so running it on several nodes is harmless.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int updated = budgetRepository.backfillSpent();
+        if (updated > 0) {
+            log.info("Initialised spending counters of {} budgets", updated);
+        }
+    }
+
+    /**
+     * Drops every cached budget index.
+     */
+    public void clear() {
+        synchronized (windows) {
+            windows.clear();
+        }
+    }
+
+    /**
+     * @return the user's budget index, rebuilt when their budgets were added or removed
+     */
+    private BudgetWindows windows(Long userId) {
+        Object[] fingerprint = budgetRepository.findFingerprintByUserId(userId).get(0);
+        long count = ((Number) fingerprint[0]).longValue();
+        Long maxId = (Long) fingerprint[1];
+        synchronized (windows) {
+            BudgetWindows cached = windows.get(userId);
+            if (cached != null && cached.matches(count, maxId)) {
+                return cached;
+            }
+        }
+        BudgetWindows fresh = BudgetWindows.of(count == 0 ? List.of() : budgetRepository.findWindowsByUserId(userId));
+        synchronized (windows) {
+            windows.put(userId, fresh);
+        }
+        return fresh;
+    }
+
+    private BigDecimal sumExpenses(Budget budget) {
+        Long userId = budget.getUser().getId();
+        Long categoryId = budget.getCategory().getId();
+        LocalDate start = budget.getStartDate();
+        LocalDate end = budget.getEndDate();
+        BigDecimal spent = budgetRepository.sumExpensesInWindow(userId, categoryId, start, end);
+        if (archive.reachesArchive(start)) {
+            spent = spent.add(archivedTransactionRepository.sumExpensesInWindow(userId, categoryId, start, end));
+        }
+        return spent;
+    }
+
+    /**
+     * @return the highest threshold the budget's spending has reached, or 0
+     */
+    private int level(Budget budget) {
+        BigDecimal spent = budget.getSpent();
+        BigDecimal amount = budget.getAmount();
+        if (spent == null || spent.signum() <= 0 || thresholds.length == 0) {
+            return 0;
+        }
+        if (amount == null || amount.signum() <= 0) {
+            return thresholds[thresholds.length - 1];
+        }
+        BigDecimal percent = spent.multiply(HUNDRED);
+        int level = 0;
+        for (int threshold : thresholds) {
+            if (percent.compareTo(amount.multiply(BigDecimal.valueOf(threshold))) < 0) {
+                break;
+            }
+            level = threshold;
+        }
+        return level;
+    }
+
+    private void alert(Budget budget, int threshold) {
+        BudgetAlert alert = BudgetAlert.of(budget, threshold);
+        outbox.append(alert.getUserId(), OutboxEvent.BUDGET_THRESHOLD, budget.getId(), alert);
+        meterRegistry.ifAvailable(registry -> Counter.builder("pfm.budget.alerts")
+            .description("Budget alert thresholds crossed")
+            .tag("threshold", String.valueOf(threshold))
+            .register(registry)
+            .increment());
+    }
+}
@@ -0,0 +1,133 @@
+package JK.pfm.service.budget;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Interval index over one user's budget windows, per category.
+ *
+ * <p>Each category's windows are sorted by start date, with a running maximum of the end dates.
+ * A lookup binary-searches the last window starting on or before the date and walks back only
+ * while an earlier window can still reach it. With the usual non-overlapping monthly budgets
+ * that is one or two steps.</p>
+ *
+ * <p>Immutable; rebuilt when the user's budgets change.</p>
+ */
+final class BudgetWindows {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final Map<Long, Windows> byCategory;
+    private final long count;
+    private final Long maxId;
+
+    private BudgetWindows(Map<Long, Windows> byCategory, long count, Long maxId) {
+        this.byCategory = byCategory;
+        this.count      = count;
+        this.maxId      = maxId;
+    }
+
+    /**
+     * @param rows {@code [id, category ID, startDate, endDate]} per budget
+     * @return the index
+     */
+    static BudgetWindows of(List<Object[]> rows) {
+        Map<Long, List<Object[]>> grouped = new HashMap<>();
+        Long maxId = null;
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            if (row[1] != null && row[2] != null && row[3] != null) {
+                grouped.computeIfAbsent((Long) row[1], c -> new ArrayList<>()).add(row);
+            }
+            if (maxId == null || id > maxId) {
+                maxId = id;
+            }
+        }
+        Map<Long, Windows> byCategory = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((category, list) -> byCategory.put(category, Windows.of(list)));
+        return new BudgetWindows(byCategory, rows.size(), maxId);
+    }
+
+    /**
+     * @param categoryId the transaction's category
+     * @param date the transaction's date
+     * @return IDs of the budgets whose window in that category contains the date
+     */
+    long[] find(Long categoryId, LocalDate date) {
+        Windows windows = byCategory.get(categoryId);
+        return windows != null ? windows.containing(date.toEpochDay()) : NO_IDS;
+    }
+
+    /**
+     * @return {@code true} if the index was built from budgets with this count and max ID
+     */
+    boolean matches(long count, Long maxId) {
+        return this.count == count && Objects.equals(this.maxId, maxId);
+    }
+
+    /**
+     * One category's windows as parallel arrays sorted by start day.
+     */
+    private static final class Windows {
+        final long[] ids;
+        final long[] starts;
+        final long[] ends;
+        // maxEnds[i] = latest end among windows 0..i
+        final long[] maxEnds;
+
+        Windows(int size) {
+            ids     = new long[size];
+            starts  = new long[size];
+            ends    = new long[size];
+            maxEnds = new long[size];
+        }
+
+        static Windows of(List<Object[]> rows) {
+            rows.sort(Comparator.comparing((Object[] r) -> (LocalDate) r[2]));
+            Windows windows = new Windows(rows.size());
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                windows.ids[i]    = (Long) row[0];
+                windows.starts[i] = ((LocalDate) row[2]).toEpochDay();
+                windows.ends[i]   = ((LocalDate) row[3]).toEpochDay();
+                maxEnd = Math.max(maxEnd, windows.ends[i]);
+                windows.maxEnds[i] = maxEnd;
+            }
+            return windows;
+        }
+
+        long[] containing(long day) {
+            // last window starting on or before the day
+            int lo = 0;
+            int hi = starts.length - 1;
+            int last = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] <= day) {
+                    last = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            long[] found = NO_IDS;
+            int n = 0;
+            for (int i = last; i >= 0 && maxEnds[i] >= day; i--) {
+                if (ends[i] >= day) {
+                    if (n == found.length) {
+                        found = Arrays.copyOf(found, Math.max(2, n * 2));
+                    }
+                    found[n++] = ids[i];
+                }
+            }
+            return n == found.length ? found : Arrays.copyOf(found, n);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package JK.pfm.service.cache;
+
+import JK.pfm.repository.SyncChangeRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.service.TransactionArchiveService;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Per-user in-memory copies of the user's transactions, kept current from the change feed and
+ * evicted least recently used under a memory budget.
+ *
+ * <p>A user's copy is loaded on first use with one streaming query and remembers the user's
+ * change feed sequence ({@code sync_cursors}). Every lookup reads the current sequence (one
+ * primary-key query). When it has moved, only the records changed since then are read from
+ * {@code sync_changes} and handed to {@link #apply}, so the copy stays exact even when the
+ * writes happened on another node. More than {@link #MAX_DELTA} changes, or a copy that asks
+ * for it, cause a full reload.</p>
+ *
+ * <p>Copies are evicted least recently used once all users together exceed the memory budget.
+ * A user whose copy alone would exceed it gets none and is served from the database. With
+ * archiving on, rows older than the archive horizon are not held, as they may leave the live
+ * table at any time without a change feed entry; the copy is reloaded when the horizon
+ * moves.</p>
+ *
+ * @param <V> the per-user copy
+ */
+public abstract class UserFeedCache<V extends UserFeedCache.Snapshot> {
+
+    /** Above this many changed records a full reload is cheaper than applying them one by one. */
+    public static final int MAX_DELTA = 1000;
+
+    /**
+     * A user's copy as seen by the cache.
+     */
+    public interface Snapshot {
+
+        /**
+         * @return first date held, or {@code null} when all dates are held
+         */
+        LocalDate getFrom();
+
+        /**
+         * @return change feed sequence the copy reflects
+         */
+        long getSeq();
+
+        /**
+         * @return approximate heap held
+         */
+        long bytes();
+
+        /**
+         * Adds one row of the loading query. Rows dated before {@link #getFrom()} are ignored.
+         */
+        void add(Object[] row);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SyncCursorRepository syncCursorRepository;
+    private final SyncChangeRepository syncChangeRepository;
+    private final TransactionArchiveService archive;
+    private final List<String> feedTypes;
+    private final boolean enabled;
+    private final long maxBytes;
+
+    /** user id -> copy, in access order; guarded by {@code this} */
+    private final LinkedHashMap<Long, Entry<V>> users = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    /**
+     * @param feedTypes change feed record types that affect a copy
+     * @param enabled whether copies are kept at all
+     * @param maxMemoryMb budget for all users' copies
+     */
+    protected UserFeedCache(
+            SyncCursorRepository syncCursorRepository,
+            SyncChangeRepository syncChangeRepository,
+            TransactionArchiveService archive,
+            List<String> feedTypes,
+            boolean enabled,
+            long maxMemoryMb
+    ) {
+        this.syncCursorRepository = syncCursorRepository;
+        this.syncChangeRepository = syncChangeRepository;
+        this.archive              = archive;
+        this.feedTypes            = List.copyOf(feedTypes);
+        this.enabled              = enabled;
+        this.maxBytes             = Math.max(1, maxMemoryMb) * 1024 * 1024;
+    }
+
+    /**
+     * @return {@code true} when copies are kept
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Drops every user's copy.
+     */
+    public synchronized void clear() {
+        users.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * @return heap held by all users' copies
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return number of users with a copy
+     */
+    public synchronized int cachedUsers() {
+        return users.size();
+    }
+
+    /**
+     * Returns the user's up-to-date copy, loading or refreshing it as needed. Call inside a
+     * transaction, so the sequence and the rows are read from the same database.
+     *
+     * @param userId the user's ID
+     * @return the copy, or {@code null} when the cache is off or the user does not fit the budget
+     */
+    protected V lookup(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        long seq = syncCursorRepository.findSeqByUserId(userId).orElse(0L);
+        LocalDate from = archive.liveFrom();
+        V cached = get(userId);
+        if (cached != null && Objects.equals(cached.getFrom(), from)) {
+            // a lagging replica may report an older sequence; the copy is newer then
+            if (seq <= cached.getSeq() || refresh(userId, cached, seq)) {
+                return cached;
+            }
+        }
+        return load(userId, from, seq);
+    }
+
+    /**
+     * @return an empty copy holding rows from {@code from} and reflecting {@code seq}
+     */
+    protected abstract V create(LocalDate from, long seq);
+
+    /**
+     * @return the user's rows dated from {@code from} ({@code null}: all), in the layout
+     *         {@link Snapshot#add} expects
+     */
+    protected abstract Stream<Object[]> streamRows(Long userId, LocalDate from);
+
+    /**
+     * Applies changed records to a copy and moves it to {@code seq}.
+     *
+     * @param changes {@code [type, id]} of each changed record, at most {@link #MAX_DELTA}
+     * @return {@code false} if the copy must be reloaded instead
+     */
+    protected abstract boolean apply(V copy, List<Object[]> changes, long seq);
+
+    private boolean refresh(Long userId, V copy, long seq) {
+        List<Object[]> changes = syncChangeRepository.findChangedSince(
+            userId, copy.getSeq(), feedTypes, PageRequest.of(0, MAX_DELTA + 1));
+        if (changes.size() > MAX_DELTA || !apply(copy, changes, seq)) {
+            return false;
+        }
+        resized(userId, copy);
+        return true;
+    }
+
+    private V load(Long userId, LocalDate from, long seq) {
+        V copy = create(from, seq);
+        try (Stream<Object[]> rows = streamRows(userId, from)) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                copy.add(it.next());
+                if (copy.bytes() > maxBytes) {
+                    log.debug("Transactions of user {} exceed the memory budget", userId);
+                    remove(userId);
+                    return null;
+                }
+            }
+        }
+        put(userId, copy);
+        return copy;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // LRU bookkeeping
+    // ---------------------------------------------------------------------------------------
+
+    private synchronized V get(Long userId) {
+        Entry<V> entry = users.get(userId);
+        return entry != null ? entry.copy : null;
+    }
+
+    private synchronized void put(Long userId, V copy) {
+        Entry<V> previous = users.put(userId, new Entry<>(copy, copy.bytes()));
+        if (previous != null) {
+            usedBytes -= previous.bytes;
+        }
+        usedBytes += copy.bytes();
+        evict();
+    }
+
+    private synchronized void resized(Long userId, V copy) {
+        Entry<V> entry = users.get(userId);
+        if (entry != null && entry.copy == copy) {
+            long bytes = copy.bytes();
+            usedBytes += bytes - entry.bytes;
+            entry.bytes = bytes;
+            evict();
+        }
+    }
+
+    private synchronized void remove(Long userId) {
+        Entry<V> entry = users.remove(userId);
+        if (entry != null) {
+            usedBytes -= entry.bytes;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry<V>> eldest = users.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V copy;
+        long bytes;
+
+        Entry(V copy, long bytes) {
+            this.copy  = copy;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package JK.pfm.service.categorization;
+
+import JK.pfm.model.CategoryRule;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * One user's categorization rules compiled into a single matcher.
+ *
+ * <p>Keyword and prefix patterns are compiled into an Aho-Corasick automaton, stored as a
+ * complete transition table over the characters that occur in the patterns. A description is
+ * scanned once, one table lookup per character, and every pattern ending at a position is
+ * reported through the state's output list. Regular expression and amount-only rules are
+ * checked afterwards, in rule order, only while they could still beat the best match found.
+ * Matching is case-insensitive and allocates nothing apart from regular expression matchers.</p>
+ *
+ * <p>User-supplied expressions are limited when a rule is saved ({@link #isSafeRegex}) and run
+ * against a deadline while matching: the description is read through a {@link CharSequence}
+ * that checks the clock, and an expression that runs out of time counts as not matching.</p>
+ *
+ * <p>Rules are ranked by their position in the list they were compiled from (priority, then
+ * ID), and the lowest-ranked matching rule wins. Immutable; rebuilt when the user's rules
+ * change.</p>
+ */
+public final class CategoryMatcher {
+
+    /** Above this code point the alphabet is looked up by binary search instead of an array. */
+    private static final int MAX_DIRECT_CHAR = 4096;
+
+    private static final int[] NO_OUTPUTS = new int[0];
+
+    /** Longest regular expression a rule may use. */
+    static final int MAX_REGEX_LENGTH = 100;
+
+    /** Time all regular expressions of one {@link #match} call may take, unless configured. */
+    static final long DEFAULT_REGEX_TIMEOUT_MILLIS = 50;
+
+    /** Characters read between two checks of the regular expression deadline. */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final long[] categoryIds;
+    private final BigDecimal[] minAmounts;
+    private final BigDecimal[] maxAmounts;
+    /** pattern length for prefix rules, {@code -1} for keywords */
+    private final int[] prefixLengths;
+
+    private final int width;
+    private final int[] direct;
+    private final char[] alphabet;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    /** regular expression and amount-only rules, in rank order */
+    private final int[] fallbackRanks;
+    private final Pattern[] fallbackPatterns;
+    private final long regexTimeoutNanos;
+
+    private final long count;
+    private final Long maxId;
+    private final Long versionSum;
+
+    private CategoryMatcher(Builder b, long count, Long maxId, Long versionSum, long regexTimeoutNanos) {
+        this.categoryIds      = b.categoryIds;
+        this.minAmounts       = b.minAmounts;
+        this.maxAmounts       = b.maxAmounts;
+        this.prefixLengths    = b.prefixLengths;
+        this.width            = b.width;
+        this.direct           = b.direct;
+        this.alphabet         = b.alphabet;
+        this.transitions      = b.transitions;
+        this.outputs          = b.outputs;
+        this.fallbackRanks    = b.fallbackRanks;
+        this.fallbackPatterns = b.fallbackPatterns;
+        this.regexTimeoutNanos = regexTimeoutNanos;
+        this.count            = count;
+        this.maxId            = maxId;
+        this.versionSum       = versionSum;
+    }
+
+    /**
+     * @param rows {@code [id, matchType, pattern, minAmount, maxAmount, category ID]} per rule,
+     *             in the order the rules are applied
+     * @param versionSum sum of the rules' versions, kept to detect edits
+     * @return the compiled matcher; rules with an unknown type or an invalid pattern are skipped
+     */
+    static CategoryMatcher compile(List<Object[]> rows, Long versionSum) {
+        return compile(rows, versionSum, DEFAULT_REGEX_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param rows {@code [id, matchType, pattern, minAmount, maxAmount, category ID]} per rule,
+     *             in the order the rules are applied
+     * @param versionSum sum of the rules' versions, kept to detect edits
+     * @param regexTimeoutMillis time all regular expressions of one {@link #match} call may take
+     * @return the compiled matcher; rules with an unknown type or an invalid pattern are skipped
+     */
+    static CategoryMatcher compile(List<Object[]> rows, Long versionSum, long regexTimeoutMillis) {
+        Long maxId = null;
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            if (maxId == null || id > maxId) {
+                maxId = id;
+            }
+        }
+        return new CategoryMatcher(new Builder(rows), rows.size(), maxId, versionSum,
+            TimeUnit.MILLISECONDS.toNanos(regexTimeoutMillis));
+    }
+
+    /**
+     * @param description the transaction's description, may be {@code null}
+     * @param amount the transaction's amount, may be {@code null}
+     * @return the category ID of the winning rule, or {@code null} if none matches
+     */
+    public Long match(String description, BigDecimal amount) {
+        int best = Integer.MAX_VALUE;
+        if (description != null && transitions.length > 0) {
+            int state = 0;
+            int length = description.length();
+            for (int i = 0; i < length && best > 0; i++) {
+                state = transitions[state * width + column(Character.toLowerCase(description.charAt(i)))];
+                for (int rank : outputs[state]) {
+                    if (rank >= best) {
+                        break;
+                    }
+                    int prefix = prefixLengths[rank];
+                    if ((prefix < 0 || prefix == i + 1) && inRange(rank, amount)) {
+                        best = rank;
+                        break;
+                    }
+                }
+            }
+        }
+        DeadlineCharSequence text = null;
+        for (int f = 0; f < fallbackRanks.length && fallbackRanks[f] < best; f++) {
+            int rank = fallbackRanks[f];
+            Pattern pattern = fallbackPatterns[f];
+            if (!inRange(rank, amount)) {
+                continue;
+            }
+            if (pattern != null) {
+                if (description == null) {
+                    continue;
+                }
+                if (text == null) {
+                    // one deadline for all expressions of this call
+                    text = new DeadlineCharSequence(description, System.nanoTime() + regexTimeoutNanos);
+                }
+                if (!find(pattern, text)) {
+                    continue;
+                }
+            }
+            best = rank;
+            break;
+        }
+        return best == Integer.MAX_VALUE ? null : categoryIds[best];
+    }
+
+    /**
+     * @return {@code true} if the expression is found before the deadline
+     */
+    private static boolean find(Pattern pattern, DeadlineCharSequence text) {
+        try {
+            return pattern.matcher(text).find();
+        } catch (DeadlineExceeded e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return {@code true} if the matcher was compiled from rules with this stamp
+     */
+    boolean isCurrent(long count, Long maxId, Long versionSum) {
+        return this.count == count
+            && Objects.equals(this.maxId, maxId)
+            && Objects.equals(this.versionSum, versionSum);
+    }
+
+    private int column(char c) {
+        if (direct != null) {
+            return c < direct.length ? direct[c] : 0;
+        }
+        int i = Arrays.binarySearch(alphabet, c);
+        return i < 0 ? 0 : i + 1;
+    }
+
+    private boolean inRange(int rank, BigDecimal amount) {
+        BigDecimal min = minAmounts[rank];
+        BigDecimal max = maxAmounts[rank];
+        if (min == null && max == null) {
+            return true;
+        }
+        if (amount == null) {
+            return false;
+        }
+        return (min == null || amount.compareTo(min) >= 0)
+            && (max == null || amount.compareTo(max) <= 0);
+    }
+
+    /**
+     * Compiles the rules. Column 0 of the transition table stands for every character that is
+     * not in any pattern.
+     */
+    private static final class Builder {
+        long[] categoryIds;
+        BigDecimal[] minAmounts;
+        BigDecimal[] maxAmounts;
+        int[] prefixLengths;
+        int width;
+        int[] direct;
+        char[] alphabet;
+        int[] transitions;
+        int[][] outputs;
+        int[] fallbackRanks;
+        Pattern[] fallbackPatterns;
+
+        Builder(List<Object[]> rows) {
+            List<Object[]> rules = new ArrayList<>(rows.size());
+            List<String> lowered = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String type = (String) row[1];
+                String pattern = (String) row[2];
+                if (row[5] == null || type == null) {
+                    continue;
+                }
+                switch (type) {
+                    case CategoryRule.KEYWORD, CategoryRule.PREFIX -> {
+                        if (pattern == null || pattern.isEmpty()) {
+                            continue;
+                        }
+                    }
+                    case CategoryRule.REGEX -> {
+                        if (compileRegex(pattern) == null) {
+                            continue;
+                        }
+                    }
+                    case CategoryRule.AMOUNT -> { }
+                    default -> {
+                        continue;
+                    }
+                }
+                rules.add(row);
+                lowered.add(pattern == null ? null : lower(pattern));
+            }
+
+            int n = rules.size();
+            categoryIds   = new long[n];
+            minAmounts    = new BigDecimal[n];
+            maxAmounts    = new BigDecimal[n];
+            prefixLengths = new int[n];
+            List<Integer> fallbacks = new ArrayList<>();
+            List<Integer> automaton = new ArrayList<>();
+            for (int rank = 0; rank < n; rank++) {
+                Object[] row = rules.get(rank);
+                categoryIds[rank] = (Long) row[5];
+                minAmounts[rank]  = (BigDecimal) row[3];
+                maxAmounts[rank]  = (BigDecimal) row[4];
+                String type = (String) row[1];
+                prefixLengths[rank] = CategoryRule.PREFIX.equals(type) ? lowered.get(rank).length() : -1;
+                if (CategoryRule.KEYWORD.equals(type) || CategoryRule.PREFIX.equals(type)) {
+                    automaton.add(rank);
+                } else {
+                    fallbacks.add(rank);
+                }
+            }
+
+            fallbackRanks    = new int[fallbacks.size()];
+            fallbackPatterns = new Pattern[fallbacks.size()];
+            for (int f = 0; f < fallbacks.size(); f++) {
+                int rank = fallbacks.get(f);
+                fallbackRanks[f] = rank;
+                fallbackPatterns[f] = CategoryRule.REGEX.equals(rules.get(rank)[1])
+                    ? compileRegex((String) rules.get(rank)[2])
+                    : null;
+            }
+
+            buildAutomaton(automaton, lowered);
+        }
+
+        private void buildAutomaton(List<Integer> ranks, List<String> lowered) {
+            if (ranks.isEmpty()) {
+                width = 1;
+                transitions = new int[0];
+                outputs = new int[][] {NO_OUTPUTS};
+                return;
+            }
+
+            // alphabet of the pattern characters
+            StringBuilder chars = new StringBuilder();
+            for (int rank : ranks) {
+                chars.append(lowered.get(rank));
+            }
+            alphabet = chars.chars().distinct().sorted()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString().toCharArray();
+            width = alphabet.length + 1;
+            char maxChar = alphabet[alphabet.length - 1];
+            if (maxChar < MAX_DIRECT_CHAR) {
+                direct = new int[maxChar + 1];
+                for (int i = 0; i < alphabet.length; i++) {
+                    direct[alphabet[i]] = i + 1;
+                }
+            }
+
+            // trie; -1 marks a missing edge
+            List<int[]> edges = new ArrayList<>();
+            List<List<Integer>> ends = new ArrayList<>();
+            edges.add(newRow());
+            ends.add(new ArrayList<>());
+            for (int rank : ranks) {
+                int state = 0;
+                for (char c : lowered.get(rank).toCharArray()) {
+                    int col = column(c);
+                    if (edges.get(state)[col] < 0) {
+                        edges.get(state)[col] = edges.size();
+                        edges.add(newRow());
+                        ends.add(new ArrayList<>());
+                    }
+                    state = edges.get(state)[col];
+                }
+                ends.get(state).add(rank);
+            }
+
+            // breadth-first: failure links, complete transitions and merged outputs
+            int states = edges.size();
+            transitions = new int[states * width];
+            outputs = new int[states][];
+            int[] fail = new int[states];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int col = 0; col < width; col++) {
+                int next = edges.get(0)[col];
+                if (next > 0) {
+                    transitions[col] = next;
+                    queue.add(next);
+                }
+            }
+            outputs[0] = NO_OUTPUTS;
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] = merge(ends.get(state), outputs[fail[state]]);
+                for (int col = 0; col < width; col++) {
+                    int next = edges.get(state)[col];
+                    int fallback = transitions[fail[state] * width + col];
+                    if (next > 0) {
+                        fail[next] = fallback;
+                        transitions[state * width + col] = next;
+                        queue.add(next);
+                    } else {
+                        transitions[state * width + col] = fallback;
+                    }
+                }
+            }
+        }
+
+        private int[] newRow() {
+            int[] row = new int[width];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private int column(char c) {
+            if (direct != null) {
+                return c < direct.length ? direct[c] : 0;
+            }
+            int i = Arrays.binarySearch(alphabet, c);
+            return i < 0 ? 0 : i + 1;
+        }
+
+        private static int[] merge(List<Integer> own, int[] inherited) {
+            if (own.isEmpty()) {
+                return inherited;
+            }
+            int[] merged = new int[own.size() + inherited.length];
+            int i = 0;
+            for (int rank : own) {
+                merged[i++] = rank;
+            }
+            System.arraycopy(inherited, 0, merged, i, inherited.length);
+            Arrays.sort(merged);
+            return merged;
+        }
+    }
+
+    private static String lower(String pattern) {
+        char[] chars = pattern.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Checks the limits on user-supplied expressions that keep backtracking bounded: at most
+     * {@link #MAX_REGEX_LENGTH} characters, no back-references or lookaround, and no repeated
+     * group that itself contains a repetition or an alternation, such as {@code (a+)+} or
+     * {@code (a|ab)*}.
+     *
+     * @param regex the expression, not {@code null}
+     * @return {@code true} if the expression is within the limits
+     */
+    public static boolean isSafeRegex(String regex) {
+        int n = regex.length();
+        if (n > MAX_REGEX_LENGTH) {
+            return false;
+        }
+        // per open group: whether it contains a repetition or an alternation
+        boolean[] complex = new boolean[n + 1];
+        int depth = 0;
+        for (int i = 0; i < n; i++) {
+            char c = regex.charAt(i);
+            boolean closedComplex = false;
+            switch (c) {
+                case '\\' -> {
+                    if (i + 1 >= n) {
+                        break;
+                    }
+                    char escaped = regex.charAt(++i);
+                    if ((escaped >= '1' && escaped <= '9') || escaped == 'k') {
+                        return false;
+                    }
+                    if (escaped == 'Q') {
+                        int end = regex.indexOf("\\E", i + 1);
+                        i = end < 0 ? n : end + 1;
+                    }
+                }
+                case '[' -> i = classEnd(regex, i);
+                case '(' -> {
+                    if (regex.startsWith("(?=", i) || regex.startsWith("(?!", i)
+                            || regex.startsWith("(?<=", i) || regex.startsWith("(?<!", i)) {
+                        return false;
+                    }
+                    complex[++depth] = false;
+                }
+                case ')' -> {
+                    if (depth > 0) {
+                        closedComplex = complex[depth--];
+                        complex[depth] |= closedComplex;
+                    }
+                }
+                case '|' -> complex[depth] = true;
+                case '*', '+', '{' -> complex[depth] = true;
+                default -> { }
+            }
+            if (closedComplex && i + 1 < n && "*+{".indexOf(regex.charAt(i + 1)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of the {@code ]} closing the character class opened at {@code start}
+     */
+    private static int classEnd(String regex, int start) {
+        int n = regex.length();
+        int i = start + 1;
+        if (i < n && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < n && regex.charAt(i) == ']') {
+            i++;
+        }
+        int nested = 0;
+        for (; i < n; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                nested++;
+            } else if (c == ']') {
+                if (nested == 0) {
+                    return i;
+                }
+                nested--;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return the compiled expression, or {@code null} if it is missing, invalid or outside the
+     *         limits of {@link #isSafeRegex}
+     */
+    static Pattern compileRegex(String regex) {
+        if (regex == null || regex.isEmpty() || !isSafeRegex(regex)) {
+            return null;
+        }
+        try {
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The description as seen by regular expressions; fails once the deadline has passed.
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+        private final String text;
+        private final long deadline;
+        private int reads;
+
+        DeadlineCharSequence(String text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new DeadlineExceeded();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(text.substring(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /** Thrown out of a regular expression match that ran out of time. */
+    private static final class DeadlineExceeded extends RuntimeException {
+        DeadlineExceeded() {
+            super("regular expression deadline exceeded", null, false, false);
+        }
+    }
+}
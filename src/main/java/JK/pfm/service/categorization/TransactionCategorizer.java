@@ -0,0 +1,95 @@
+package JK.pfm.service.categorization;
+
+import JK.pfm.repository.CategoryRuleRepository;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Picks a category for transactions created without one, from the owner's
+ * {@link JK.pfm.model.CategoryRule}s.
+ *
+ * <p>Each user's rules are compiled into a {@link CategoryMatcher} and kept in memory. Before
+ * each use the matcher is compared with the count, highest ID and version sum of the user's
+ * rules (one aggregate query), so rules created, edited or deleted on another node are seen; it
+ * is only recompiled when they differ. Code that categorizes many rows at once should take the
+ * matcher once with {@link #matcherFor(Long)} and call it per row.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.categorization.max-users} – users whose matcher is kept (default 10000)</li>
+ *   <li>{@code pfm.categorization.regex-timeout-ms} – time the regular expressions of one match
+ *   may take (default 50)</li>
+ * </ul>
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionCategorizer {
+
+    private final CategoryRuleRepository ruleRepository;
+
+    /** user id -> matcher, in access order; guarded by itself */
+    private final Map<Long, CategoryMatcher> matchers;
+
+    private final long regexTimeoutMillis;
+
+    public TransactionCategorizer(
+            CategoryRuleRepository ruleRepository,
+            @Value("${pfm.categorization.max-users:10000}") int maxUsers,
+            @Value("${pfm.categorization.regex-timeout-ms:50}") long regexTimeoutMillis
+    ) {
+        this.ruleRepository = ruleRepository;
+        this.regexTimeoutMillis = regexTimeoutMillis;
+        int capacity = Math.max(1, maxUsers);
+        this.matchers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CategoryMatcher> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the category of the user's first matching rule.
+     *
+     * @param userId the owner's user ID
+     * @param description the transaction's description
+     * @param amount the transaction's amount
+     * @return the category ID, or empty if no rule matches
+     */
+    public Optional<Long> categorize(Long userId, String description, BigDecimal amount) {
+        return Optional.ofNullable(matcherFor(userId).match(description, amount));
+    }
+
+    /**
+     * Returns the user's up-to-date matcher, compiling it if the rules changed.
+     *
+     * @param userId the owner's user ID
+     * @return the matcher
+     */
+    public CategoryMatcher matcherFor(Long userId) {
+        Object[] stamp = ruleRepository.findStampByUserId(userId).get(0);
+        long count = ((Number) stamp[0]).longValue();
+        Long maxId = (Long) stamp[1];
+        Long versionSum = stamp[2] == null ? null : ((Number) stamp[2]).longValue();
+
+        CategoryMatcher matcher;
+        synchronized (matchers) {
+            matcher = matchers.get(userId);
+        }
+        if (matcher != null && matcher.isCurrent(count, maxId, versionSum)) {
+            return matcher;
+        }
+        List<Object[]> rows = ruleRepository.findMatcherRowsByUserId(userId);
+        matcher = CategoryMatcher.compile(rows, versionSum, regexTimeoutMillis);
+        synchronized (matchers) {
+            matchers.put(userId, matcher);
+        }
+        return matcher;
+    }
+}
@@ -0,0 +1,219 @@
+package JK.pfm.service.dedup;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.AccountBalanceService;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Detects transactions that repeat an existing one on the same account: same date, amount,
+ * type and (normalized) description, as captured by {@link TransactionFingerprint}.
+ *
+ * <p>Every new transaction stores its fingerprint in an indexed column. Before a save, the
+ * account's {@link FingerprintFilter} answers "certainly new" for almost every transaction
+ * without touching the database; only when it reports a possible match is the index queried
+ * to confirm. A filter is built with one index scan on the account's first check and kept
+ * complete as transactions are saved.</p>
+ *
+ * <p>Transactions written on another node are noticed through the account's {@code @Version},
+ * which every balance change bumps and which the write path has loaded anyway: when it differs
+ * from the version the filter is complete for, the fingerprints above the filter's highest ID
+ * are read first. With the balance journal on, credits leave the account row alone, so the
+ * version cannot tell; every check then goes to the index.</p>
+ *
+ * <p>Transactions saved before fingerprints existed have none and are never matched. Filters
+ * are evicted least recently used once all accounts together exceed the memory budget.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.dedup.policy} – {@code reject} (409), {@code flag} (save with
+ *   {@code possibleDuplicate = true}) or {@code allow} (default {@code flag})</li>
+ *   <li>{@code pfm.dedup.max-memory-mb} – budget for all accounts' filters (default 16)</li>
+ * </ul>
+ */
+@Service
+public class DuplicateDetector {
+
+    /** What happens to a transaction that repeats an existing one. */
+    public enum Policy { REJECT, FLAG, ALLOW }
+
+    private final TransactionRepository transactionRepository;
+    private final boolean journalEnabled;
+    private final Policy policy;
+    private final long maxBytes;
+
+    /** account id -> filter, in access order; guarded by {@code this} */
+    private final LinkedHashMap<Long, FingerprintFilter> filters = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public DuplicateDetector(
+            TransactionRepository transactionRepository,
+            AccountBalanceService balances,
+            @Value("${pfm.dedup.policy:flag}") String policy,
+            @Value("${pfm.dedup.max-memory-mb:16}") long maxMemoryMb
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.journalEnabled        = balances.isJournalEnabled();
+        this.policy                = Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        this.maxBytes              = Math.max(1, maxMemoryMb) * 1024 * 1024;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Fingerprints a new transaction and applies the duplicate policy to it. Must run inside
+     * the transaction that saves it, after its account has been loaded.
+     *
+     * @param account the transaction's account
+     * @param transaction the unsaved transaction; its fingerprint is set
+     * @param check {@code false} to only fingerprint, e.g. for transfers that legitimately repeat
+     * @throws ResponseStatusException CONFLICT if the transaction repeats an existing one and the
+     *         policy is {@code reject}
+     */
+    public void screen(Account account, Transaction transaction, boolean check) {
+        long fingerprint = TransactionFingerprint.of(account.getId(), transaction.getDate(),
+            transaction.getAmount(), transaction.getType(), transaction.getDescription());
+        transaction.setFingerprint(fingerprint);
+        if (!check || policy == Policy.ALLOW) {
+            return;
+        }
+        if (mightExist(account, fingerprint)
+                && transactionRepository.existsByAccountIdAndFingerprint(account.getId(), fingerprint)) {
+            if (policy == Policy.REJECT) {
+                throw new ResponseStatusException(
+                    HttpStatus.CONFLICT,
+                    "Possible duplicate transaction"
+                );
+            }
+            transaction.setPossibleDuplicate(true);
+        }
+    }
+
+    /**
+     * Adds a saved transaction to its account's filter. Once the transaction commits, the
+     * filter is complete for the account's new version.
+     *
+     * @param account the transaction's account
+     * @param saved the saved transaction
+     */
+    public void recorded(Account account, Transaction saved) {
+        FingerprintFilter filter = get(account.getId());
+        if (filter == null || saved.getFingerprint() == null) {
+            return;
+        }
+        // a rolled-back save leaves a stray bit set, which only costs a confirming query
+        filter.add(saved.getFingerprint(), saved.getId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    filter.covers(account.getVersion());
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every account's filter.
+     */
+    public synchronized void clear() {
+        filters.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * @return {@code false} only if the account certainly has no transaction with the fingerprint
+     */
+    private boolean mightExist(Account account, long fingerprint) {
+        if (journalEnabled || account.getId() == null) {
+            return true;
+        }
+        FingerprintFilter filter = get(account.getId());
+        if (filter == null || filter.isFull()) {
+            filter = build(account);
+        } else if (!Objects.equals(filter.version(), account.getVersion())) {
+            // the account changed since the filter was complete, possibly on another node
+            catchUp(account.getId(), filter);
+            filter.covers(account.getVersion());
+        }
+        return filter == null || filter.mightContain(fingerprint);
+    }
+
+    private FingerprintFilter build(Account account) {
+        long[] ids = new long[1024];
+        long[] fingerprints = new long[1024];
+        int n = 0;
+        try (Stream<Object[]> rows = transactionRepository.streamFingerprints(account.getId(), 0L)) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                    fingerprints = Arrays.copyOf(fingerprints, n * 2);
+                }
+                ids[n] = (Long) row[0];
+                fingerprints[n] = (Long) row[1];
+                n++;
+            }
+        }
+        FingerprintFilter filter = new FingerprintFilter(n);
+        if (filter.bytes() > maxBytes) {
+            remove(account.getId());
+            return null;
+        }
+        for (int i = 0; i < n; i++) {
+            filter.add(fingerprints[i], ids[i]);
+        }
+        filter.covers(account.getVersion());
+        put(account.getId(), filter);
+        return filter;
+    }
+
+    private void catchUp(Long accountId, FingerprintFilter filter) {
+        try (Stream<Object[]> rows = transactionRepository.streamFingerprints(accountId, filter.maxId())) {
+            rows.forEach(row -> filter.add((Long) row[1], (Long) row[0]));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // LRU bookkeeping
+    // ---------------------------------------------------------------------------------------
+
+    private synchronized FingerprintFilter get(Long accountId) {
+        return filters.get(accountId);
+    }
+
+    private synchronized void put(Long accountId, FingerprintFilter filter) {
+        FingerprintFilter previous = filters.put(accountId, filter);
+        if (previous != null) {
+            usedBytes -= previous.bytes();
+        }
+        usedBytes += filter.bytes();
+        Iterator<FingerprintFilter> eldest = filters.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void remove(Long accountId) {
+        FingerprintFilter filter = filters.remove(accountId);
+        if (filter != null) {
+            usedBytes -= filter.bytes();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package JK.pfm.service.dedup;
+
+/**
+ * Bloom filter over one account's transaction fingerprints.
+ *
+ * <p>Sized at ten bits per expected fingerprint with seven probes, which gives about one false
+ * positive in a hundred lookups; a negative answer is always right. The probes are derived from
+ * the fingerprint itself by double hashing, since {@link TransactionFingerprint} already mixes
+ * its bits.</p>
+ *
+ * <p>Besides the bits, the filter remembers the highest transaction ID it has read and the
+ * account {@code @Version} up to which it is complete. All methods synchronize on the
+ * instance.</p>
+ */
+final class FingerprintFilter {
+
+    static final int BITS_PER_ENTRY = 10;
+    private static final int PROBES = 7;
+
+    private final long[] words;
+    private final long mask;
+    private final int capacity;
+    private int count;
+    private long maxId;
+    private Long version;
+
+    /**
+     * @param expected fingerprints to hold; room is left for as many again
+     */
+    FingerprintFilter(int expected) {
+        capacity = Math.max(1024, expected * 2);
+        long bits = Long.highestOneBit((long) capacity * BITS_PER_ENTRY - 1) << 1;
+        words = new long[(int) (bits >>> 6)];
+        mask = bits - 1;
+    }
+
+    synchronized void add(long fingerprint, long id) {
+        long h2 = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (fingerprint + i * h2) & mask;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        count++;
+        maxId = Math.max(maxId, id);
+    }
+
+    synchronized boolean mightContain(long fingerprint) {
+        long h2 = Long.rotateLeft(fingerprint, 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = (fingerprint + i * h2) & mask;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} once more fingerprints were added than the filter was sized for,
+     *         and false positives become frequent
+     */
+    synchronized boolean isFull() {
+        return count > capacity;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    synchronized long maxId() {
+        return maxId;
+    }
+
+    synchronized Long version() {
+        return version;
+    }
+
+    /**
+     * Records that every transaction written up to this account version has been added.
+     */
+    synchronized void covers(Long version) {
+        this.version = version;
+    }
+
+    long bytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,71 @@
+package JK.pfm.service.dedup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * 64-bit fingerprint of the fields that make two transactions the same payment: account, date,
+ * amount, type and description.
+ *
+ * <p>The description is normalized first (trimmed, lower-cased, whitespace runs collapsed), and
+ * the amount compared by value, so {@code "10"} and {@code "10.00"} agree. The hash is FNV-1a
+ * followed by a final avalanche step, so the bits are spread well enough to index a Bloom
+ * filter directly.</p>
+ */
+public final class TransactionFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TransactionFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of a transaction.
+     *
+     * @param accountId the account's ID
+     * @param date the transaction date, may be {@code null}
+     * @param amount the amount, may be {@code null}
+     * @param type the type, may be {@code null}
+     * @param description the description, may be {@code null}
+     * @return the fingerprint
+     */
+    public static long of(Long accountId, LocalDate date, BigDecimal amount, String type, String description) {
+        String key = accountId
+            + "|" + (date != null ? date.toEpochDay() : "")
+            + "|" + (amount != null ? amount.stripTrailingZeros().toPlainString() : "")
+            + "|" + (type != null ? type : "")
+            + "|" + normalize(description);
+        long hash = FNV_OFFSET;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Normalizes a description for comparison.
+     *
+     * @param description the description, may be {@code null}
+     * @return the trimmed, lower-case text with single spaces; empty for {@code null}
+     */
+    static String normalize(String description) {
+        if (description == null) {
+            return "";
+        }
+        return description.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /** Final step of MurmurHash3: every input bit affects every output bit. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
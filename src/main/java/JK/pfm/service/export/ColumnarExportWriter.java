@@ -0,0 +1,200 @@
+package JK.pfm.service.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact column-oriented binary format ({@code application/vnd.pfm.columnar}).
+ *
+ * <p>Rows are buffered into row groups of a fixed size. Each group is written column by column,
+ * which puts similar values next to each other and compresses well with gzip. Memory use is
+ * bounded by one row group.</p>
+ *
+ * <p>Layout. {@code varint} is an unsigned LEB128 integer and {@code zigzag} a signed integer
+ * zigzag-encoded into a varint:</p>
+ * <pre>
+ * file    := "PFMC" version:u8(1) columnCount:varint column* group* 0:varint
+ * column  := nameLength:varint name:utf8 type:u8 ({@link ExportColumn.Type} ordinal)
+ * group   := rowCount:varint values*            (one per column, in column order)
+ * values  := present:bitmap[rowCount] data      (bit i set when row i is not null)
+ * data    := LONG    zigzag delta to the previous non-null value of the group (first: to 0)
+ *          | DATE    as LONG, on the epoch day
+ *          | DECIMAL per value: zigzag(scale) &lt;&lt; 1 | big, then zigzag(unscaled) if big = 0,
+ *                    else length:varint two's-complement bytes
+ *          | STRING  dictionarySize:varint (length:varint utf8)*, then index:varint per value
+ *          | BOOLEAN bitmap of the values
+ * bitmap  := ceil(n / 8) bytes, least significant bit first
+ * </pre>
+ */
+public class ColumnarExportWriter implements ExportWriter {
+
+    static final byte[] MAGIC = {'P', 'F', 'M', 'C'};
+    static final int VERSION = 1;
+
+    private final OutputStream out;
+    private final int rowGroupSize;
+    private List<ExportColumn> columns;
+    private Object[][] group;
+    private int rows;
+
+    public ColumnarExportWriter(OutputStream out, int rowGroupSize) {
+        this.out          = new BufferedOutputStream(out, 1 << 16);
+        this.rowGroupSize = Math.max(1, rowGroupSize);
+    }
+
+    @Override
+    public void begin(List<ExportColumn> columns) throws IOException {
+        this.columns = columns;
+        this.group   = new Object[rowGroupSize][];
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(columns.size());
+        for (ExportColumn column : columns) {
+            writeString(column.name());
+            out.write(column.type().ordinal());
+        }
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        group[rows++] = row;
+        if (rows == rowGroupSize) {
+            flushGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        flushGroup();
+        writeVarLong(0);
+        out.flush();
+    }
+
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        writeVarLong(rows);
+        for (int c = 0; c < columns.size(); c++) {
+            writeColumn(c, columns.get(c).type());
+        }
+        Arrays.fill(group, 0, rows, null);
+        rows = 0;
+    }
+
+    private void writeColumn(int c, ExportColumn.Type type) throws IOException {
+        byte[] present = new byte[(rows + 7) / 8];
+        int nonNull = 0;
+        for (int r = 0; r < rows; r++) {
+            if (group[r][c] != null) {
+                present[r >> 3] |= (byte) (1 << (r & 7));
+                nonNull++;
+            }
+        }
+        out.write(present);
+
+        switch (type) {
+            case LONG, DATE -> {
+                long previous = 0;
+                for (int r = 0; r < rows; r++) {
+                    Object value = group[r][c];
+                    if (value != null) {
+                        long current = type == ExportColumn.Type.DATE ? ((LocalDate) value).toEpochDay() : (Long) value;
+                        writeZigZag(current - previous);
+                        previous = current;
+                    }
+                }
+            }
+            case DECIMAL -> {
+                for (int r = 0; r < rows; r++) {
+                    if (group[r][c] instanceof BigDecimal value) {
+                        writeDecimal(value);
+                    }
+                }
+            }
+            case STRING -> writeDictionary(c, nonNull);
+            case BOOLEAN -> {
+                byte[] bits = new byte[(nonNull + 7) / 8];
+                int i = 0;
+                for (int r = 0; r < rows; r++) {
+                    if (group[r][c] instanceof Boolean value) {
+                        if (value) {
+                            bits[i >> 3] |= (byte) (1 << (i & 7));
+                        }
+                        i++;
+                    }
+                }
+                out.write(bits);
+            }
+        }
+    }
+
+    private void writeDictionary(int c, int nonNull) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] indexes = new int[nonNull];
+        String[] entries = new String[nonNull];
+        int i = 0;
+        for (int r = 0; r < rows; r++) {
+            if (group[r][c] instanceof String value) {
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put(value, index);
+                    entries[index] = value;
+                }
+                indexes[i++] = index;
+            }
+        }
+        writeVarLong(dictionary.size());
+        for (int d = 0; d < dictionary.size(); d++) {
+            writeString(entries[d]);
+        }
+        for (int index : indexes) {
+            writeVarLong(index);
+        }
+    }
+
+    private void writeDecimal(BigDecimal value) throws IOException {
+        BigInteger unscaled = value.unscaledValue();
+        boolean big = unscaled.bitLength() > 63;
+        writeVarLong((zigZag(value.scale()) << 1) | (big ? 1 : 0));
+        if (big) {
+            byte[] bytes = unscaled.toByteArray();
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        } else {
+            writeZigZag(unscaled.longValue());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeZigZag(long value) throws IOException {
+        writeVarLong(zigZag(value));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
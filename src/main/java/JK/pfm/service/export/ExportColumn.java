@@ -0,0 +1,30 @@
+package JK.pfm.service.export;
+
+/**
+ * Column of an export: its name and value type.
+ *
+ * @param name column name, used as CSV header and JSON field name
+ * @param type Java type of the values
+ */
+public record ExportColumn(String name, Type type) {
+
+    /**
+     * Value types. Each maps to one Java type; {@code null} is allowed for all of them.
+     */
+    public enum Type {
+        /** {@link Long} */
+        LONG,
+        /** {@link java.math.BigDecimal} */
+        DECIMAL,
+        /** {@link String} */
+        STRING,
+        /** {@link java.time.LocalDate} */
+        DATE,
+        /** {@link Boolean} */
+        BOOLEAN
+    }
+
+    public static ExportColumn of(String name, Type type) {
+        return new ExportColumn(name, type);
+    }
+}
@@ -0,0 +1,87 @@
+package JK.pfm.service.export;
+
+import static JK.pfm.service.export.ExportColumn.Type.BOOLEAN;
+import static JK.pfm.service.export.ExportColumn.Type.DATE;
+import static JK.pfm.service.export.ExportColumn.Type.DECIMAL;
+import static JK.pfm.service.export.ExportColumn.Type.LONG;
+import static JK.pfm.service.export.ExportColumn.Type.STRING;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exportable data sets and their columns. The column order matches the projections of the
+ * repositories' {@code streamForExport} queries.
+ */
+public enum ExportDataset {
+
+    TRANSACTIONS("transactions", List.of(
+        ExportColumn.of("id", LONG),
+        ExportColumn.of("date", DATE),
+        ExportColumn.of("type", STRING),
+        ExportColumn.of("amount", DECIMAL),
+        ExportColumn.of("account", STRING),
+        ExportColumn.of("category", STRING),
+        ExportColumn.of("description", STRING))),
+
+    RECURRING_EXPENSES("recurring-expenses", List.of(
+        ExportColumn.of("id", LONG),
+        ExportColumn.of("name", STRING),
+        ExportColumn.of("amount", DECIMAL),
+        ExportColumn.of("frequency", STRING),
+        ExportColumn.of("startDate", DATE),
+        ExportColumn.of("nextDueDate", DATE),
+        ExportColumn.of("lastPayment", DATE),
+        ExportColumn.of("active", BOOLEAN),
+        ExportColumn.of("account", STRING),
+        ExportColumn.of("category", STRING))),
+
+    BUDGETS("budgets", List.of(
+        ExportColumn.of("id", LONG),
+        ExportColumn.of("category", STRING),
+        ExportColumn.of("amount", DECIMAL),
+        ExportColumn.of("startDate", DATE),
+        ExportColumn.of("endDate", DATE),
+        ExportColumn.of("monthly", BOOLEAN))),
+
+    SAVINGS_GOALS("savings-goals", List.of(
+        ExportColumn.of("id", LONG),
+        ExportColumn.of("name", STRING),
+        ExportColumn.of("targetAmount", DECIMAL),
+        ExportColumn.of("currentAmount", DECIMAL),
+        ExportColumn.of("lastMonthAmount", DECIMAL),
+        ExportColumn.of("description", STRING)));
+
+    private final String path;
+    private final List<ExportColumn> columns;
+
+    ExportDataset(String path, List<ExportColumn> columns) {
+        this.path    = path;
+        this.columns = columns;
+    }
+
+    /**
+     * @return name used in the export URL and file name
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public List<ExportColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Looks up a data set by its URL name.
+     *
+     * @throws ResponseStatusException {@code 404 Not Found} for an unknown name
+     */
+    public static ExportDataset fromPath(String path) {
+        for (ExportDataset dataset : values()) {
+            if (dataset.path.equals(path)) {
+                return dataset;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export: " + path);
+    }
+}
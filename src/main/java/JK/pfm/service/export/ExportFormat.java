@@ -0,0 +1,62 @@
+package JK.pfm.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Export serialization formats.
+ */
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv"),
+    NDJSON("application/x-ndjson", "ndjson"),
+    COLUMNAR("application/vnd.pfm.columnar", "pfmc");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension   = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Creates a writer for this format.
+     *
+     * @param out target stream; not closed by the writer
+     * @param jsonFactory factory for {@link #NDJSON}
+     * @param rowGroupSize rows per group for {@link #COLUMNAR}
+     */
+    public ExportWriter open(OutputStream out, JsonFactory jsonFactory, int rowGroupSize) throws IOException {
+        return switch (this) {
+            case CSV      -> new CsvExportWriter(out);
+            case NDJSON   -> new NdjsonExportWriter(jsonFactory, out);
+            case COLUMNAR -> new ColumnarExportWriter(out, rowGroupSize);
+        };
+    }
+
+    /**
+     * Parses a format name, case-insensitively.
+     *
+     * @throws ResponseStatusException {@code 400 Bad Request} for an unknown name
+     */
+    public static ExportFormat parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + name);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package JK.pfm.service.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Serializes export rows to an output stream one at a time.
+ *
+ * <p>Implementations buffer at most a bounded number of rows, so memory use does not depend on
+ * the size of the export. They never close the underlying stream.</p>
+ */
+public interface ExportWriter {
+
+    /**
+     * Writes the header. Called once, before any row.
+     *
+     * @param columns the columns, in row order
+     */
+    void begin(List<ExportColumn> columns) throws IOException;
+
+    /**
+     * Writes one row.
+     *
+     * @param row values in column order; each is {@code null} or of the column's type
+     */
+    void write(Object[] row) throws IOException;
+
+    /**
+     * Writes any buffered rows and the trailer, and flushes.
+     */
+    void finish() throws IOException;
+}
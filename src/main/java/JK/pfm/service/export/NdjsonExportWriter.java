@@ -0,0 +1,56 @@
+package JK.pfm.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON: one object per row, keyed by column name. Decimals are JSON numbers,
+ * dates ISO-8601 strings and {@code null} values are written as {@code null}.
+ */
+public class NdjsonExportWriter implements ExportWriter {
+
+    private final JsonGenerator json;
+    private List<ExportColumn> columns;
+
+    public NdjsonExportWriter(JsonFactory factory, OutputStream out) throws IOException {
+        this.json = factory.createGenerator(out);
+        this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.json.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void begin(List<ExportColumn> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < row.length; i++) {
+            json.writeFieldName(columns.get(i).name());
+            Object value = row[i];
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Long number) {
+                json.writeNumber(number);
+            } else if (value instanceof BigDecimal decimal) {
+                json.writeNumber(decimal);
+            } else if (value instanceof Boolean flag) {
+                json.writeBoolean(flag);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        json.flush();
+    }
+}
@@ -0,0 +1,419 @@
+package JK.pfm.service.idempotency;
+
+import JK.pfm.config.LeasedJob;
+import JK.pfm.model.IdempotencyRecord;
+import JK.pfm.repository.IdempotencyRecordRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ConfigurableTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Executes a mutating request at most once per user and {@code Idempotency-Key}, and answers
+ * retries with the stored response.
+ *
+ * <p>The first request with a key claims it by inserting an {@code idempotency_keys} row; the
+ * unique key lets exactly one node win. The request then executes and its response is stored in
+ * the row. A retry finds the row and receives the stored response. While the first request is
+ * still executing, a duplicate waits for it rather than executing too: on the same node through
+ * an in-flight future, on another node by polling the row. A duplicate that waits longer than
+ * {@code pfm.idempotency.wait-ms} receives 409.</p>
+ *
+ * <p>Finished responses are also kept in a bounded in-memory cache, so retries on the node that
+ * served the request do not query the table. Responses that are not {@linkplain
+ * IdempotentResponse#isFinal() final}, and requests that fail with an exception, release the key
+ * and are not stored, unless the request has already written something.</p>
+ *
+ * <p>Every write transaction of the request also marks the claim as executed, so the mark
+ * commits or rolls back with the request's writes. A claim older than
+ * {@code pfm.idempotency.lock-timeout-ms} that is not marked belongs to a node that crashed or
+ * stalled before writing, and is taken over; should the stalled request still try to commit,
+ * its mark finds the claim gone and the transaction fails. A marked claim is never executed
+ * again: if its response was not stored (the node crashed, or the store failed), retries
+ * receive 409 once the lock timeout has passed.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.idempotency.enabled} – honor the header (default {@code true})</li>
+ *   <li>{@code pfm.idempotency.ttl-hours} – how long a response is replayed (default 24)</li>
+ *   <li>{@code pfm.idempotency.cache.max-entries} – responses kept in memory (default 10000)</li>
+ *   <li>{@code pfm.idempotency.wait-ms} – how long a duplicate waits for the first request (default 10 s)</li>
+ *   <li>{@code pfm.idempotency.lock-timeout-ms} – age after which an unfinished claim is taken over (default 60 s)</li>
+ *   <li>{@code pfm.idempotency.purge-cron} – schedule of the expired key purge (default hourly)</li>
+ * </ul>
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    /** Interval at which a duplicate polls a key claimed on another node. */
+    private static final long POLL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate requiresNew;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final long waitNanos;
+    private final Duration lockTimeout;
+
+    private final ConcurrentMap<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    // claim of the request executing on this thread
+    private final ThreadLocal<Claim> current = new ThreadLocal<>();
+
+    /** finished responses, in access order; guarded by {@code this} */
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    public IdempotencyService(
+            IdempotencyRecordRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${pfm.idempotency.enabled:true}") boolean enabled,
+            @Value("${pfm.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${pfm.idempotency.cache.max-entries:10000}") int maxEntries,
+            @Value("${pfm.idempotency.wait-ms:10000}") long waitMillis,
+            @Value("${pfm.idempotency.lock-timeout-ms:60000}") long lockTimeoutMillis
+    ) {
+        this.repository  = repository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled     = enabled;
+        this.ttl         = Duration.ofHours(ttlHours);
+        this.maxEntries  = Math.max(0, maxEntries);
+        this.waitNanos   = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMillis);
+        if (transactionManager instanceof ConfigurableTransactionManager configurable) {
+            configurable.addListener(new ClaimFence());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Executes a request once for a user's key, or returns the response of the request that
+     * used the key before.
+     *
+     * @param userId the user's ID
+     * @param key the {@code Idempotency-Key} header value
+     * @param requestHash identifies the request, so a key reused for another request is rejected
+     * @param request executes the request on the calling thread and captures its response
+     * @return the response, either just produced by {@code request} or replayed
+     * @throws ResponseStatusException UNPROCESSABLE_ENTITY if the key was used for a different
+     *         request; CONFLICT if the first request with the key is still executing, or executed
+     *         without its response being stored
+     */
+    public IdempotentResponse execute(Long userId, String key, String requestHash, Supplier<IdempotentResponse> request) {
+        Key id = new Key(userId, key);
+        long deadline = System.nanoTime() + waitNanos;
+        while (true) {
+            Entry cached = cached(id);
+            if (cached != null) {
+                return replay(cached, requestHash);
+            }
+            CompletableFuture<Entry> own = new CompletableFuture<>();
+            CompletableFuture<Entry> running = inFlight.putIfAbsent(id, own);
+            if (running == null) {
+                return lead(id, requestHash, request, deadline, own);
+            }
+            Entry finished = await(running, deadline);
+            if (finished != null) {
+                return replay(finished, requestHash);
+            }
+            // the first request released the key; try to claim it
+        }
+    }
+
+    /**
+     * Deletes keys whose responses have expired.
+     *
+     * @return number of keys deleted
+     */
+    @Scheduled(cron = "${pfm.idempotency.purge-cron:0 30 * * * *}")
+    @LeasedJob("idempotency-purge")
+    public int purge() {
+        Integer deleted = requiresNew.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        log.info("Purged {} expired idempotency keys", deleted);
+        return deleted;
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Runs the request as the in-flight holder of the key on this node. Duplicates waiting on
+     * {@code own} receive the stored entry, or {@code null} if the key was released.
+     */
+    private IdempotentResponse lead(Key id, String requestHash, Supplier<IdempotentResponse> request,
+                                    long deadline, CompletableFuture<Entry> own) {
+        Entry entry = null;
+        Claim claim = null;
+        try {
+            Claimed claimed = claim(id, requestHash, deadline);
+            if (claimed.stored() != null) {
+                entry = claimed.stored();
+                cache(id, entry);
+                return replay(entry, requestHash);
+            }
+            claim = new Claim(claimed.recordId(), new AtomicBoolean());
+            IdempotentResponse response = run(claim, request);
+            if (!response.isFinal() && !claim.executed().get()) {
+                release(claim);
+                return response;
+            }
+            // a request that has written something keeps its response, final or not
+            entry = new Entry(requestHash, response, LocalDateTime.now().plus(ttl));
+            store(claim, entry);
+            cache(id, entry);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            if (claim != null && entry == null && !claim.executed().get()) {
+                release(claim);
+            }
+            throw ex;
+        } finally {
+            inFlight.remove(id, own);
+            own.complete(entry);
+        }
+    }
+
+    private IdempotentResponse run(Claim claim, Supplier<IdempotentResponse> request) {
+        current.set(claim);
+        try {
+            return request.get();
+        } finally {
+            current.remove();
+        }
+    }
+
+    /**
+     * Claims the key in the table, or waits until the request that claimed it has finished.
+     *
+     * @return the claimed record if this request claimed the key, otherwise the stored response
+     */
+    private Claimed claim(Key id, String requestHash, long deadline) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                IdempotencyRecord saved = requiresNew.execute(status -> repository.saveAndFlush(
+                    new IdempotencyRecord(id.userId(), id.key(), requestHash, now, now.plus(ttl))));
+                return new Claimed(saved != null ? saved.getId() : null, null);
+            } catch (DataIntegrityViolationException taken) {
+                // the key has been used before
+            }
+            IdempotencyRecord record = requiresNew.execute(status ->
+                repository.findByUserIdAndIdemKey(id.userId(), id.key()).orElse(null));
+            if (record == null) {
+                continue;
+            }
+            if (record.getExpiresAt().isBefore(now)) {
+                // expired but not purged yet
+                requiresNew.executeWithoutResult(status -> repository.deleteById(record.getId()));
+                continue;
+            }
+            if (record.isCompleted()) {
+                return new Claimed(null, Entry.of(record));
+            }
+            if (!requestHash.equals(record.getRequestHash())) {
+                throw reused();
+            }
+            LocalDateTime claimedBefore = now.minus(lockTimeout);
+            if (record.getCreatedAt().isBefore(claimedBefore)) {
+                if (record.isExecuted()) {
+                    throw responseLost();
+                }
+                log.warn("Taking over idempotency key of user {} claimed at {}", id.userId(), record.getCreatedAt());
+                requiresNew.execute(status -> repository.deleteAbandoned(record.getId(), claimedBefore));
+                continue;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw inProgress();
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw inProgress();
+            }
+        }
+    }
+
+    private void store(Claim claim, Entry entry) {
+        IdempotentResponse response = entry.response();
+        try {
+            requiresNew.executeWithoutResult(status -> repository.findById(claim.recordId())
+                .ifPresent(record -> {
+                    record.complete(response.status(), response.contentType(), response.location(), response.body());
+                    repository.save(record);
+                }));
+        } catch (DataAccessException ex) {
+            // a claim marked executed is never taken over, so retries on other nodes get 409
+            // instead of executing again; one that is not marked has written nothing
+            log.error("Could not store the response for idempotency key {}", claim.recordId(), ex);
+        }
+    }
+
+    private void release(Claim claim) {
+        try {
+            requiresNew.execute(status -> repository.deleteUnexecuted(claim.recordId()));
+        } catch (DataAccessException ex) {
+            log.error("Could not release idempotency key {}", claim.recordId(), ex);
+        }
+    }
+
+    /**
+     * Waits for the in-flight request of the same key on this node.
+     *
+     * @return its entry, or {@code null} if it released the key
+     */
+    private static Entry await(CompletableFuture<Entry> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw inProgress();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException ex) {
+            // never completed exceptionally
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static IdempotentResponse replay(Entry entry, String requestHash) {
+        if (!entry.requestHash().equals(requestHash)) {
+            throw reused();
+        }
+        return entry.response();
+    }
+
+    private static ResponseStatusException reused() {
+        return new ResponseStatusException(
+            HttpStatus.UNPROCESSABLE_ENTITY,
+            "Idempotency-Key was already used for a different request"
+        );
+    }
+
+    private static ResponseStatusException responseLost() {
+        return new ResponseStatusException(
+            HttpStatus.CONFLICT,
+            "A request with this Idempotency-Key was executed, but its response is not available"
+        );
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(
+            HttpStatus.CONFLICT,
+            "A request with this Idempotency-Key is still in progress"
+        );
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // LRU bookkeeping
+    // ---------------------------------------------------------------------------------------
+
+    private synchronized Entry cached(Key id) {
+        Entry entry = cache.get(id);
+        if (entry != null && entry.expiresAt().isBefore(LocalDateTime.now())) {
+            cache.remove(id);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void cache(Key id, Entry entry) {
+        cache.put(id, entry);
+        Iterator<Entry> eldest = cache.values().iterator();
+        while (cache.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    synchronized int cacheSize() {
+        return cache.size();
+    }
+
+    private record Key(Long userId, String key) {
+    }
+
+    /** Outcome of {@link #claim}: the record this request claimed, or the stored response. */
+    private record Claimed(Long recordId, Entry stored) {
+    }
+
+    /** A key claimed by the request executing on this thread. */
+    private record Claim(Long recordId, AtomicBoolean executed) {
+    }
+
+    /**
+     * Marks the claim of the request executing on this thread inside each of its write
+     * transactions. If another node has taken the claim over, the transaction fails instead of
+     * committing, so the request cannot take effect twice.
+     */
+    private final class ClaimFence implements TransactionExecutionListener {
+
+        @Override
+        public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+            Claim claim = current.get();
+            if (claim == null || beginFailure != null || transaction.isReadOnly()
+                    || !TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (repository.markExecuted(claim.recordId()) == 0) {
+                        throw new IllegalStateException("Idempotency key " + claim.recordId()
+                            + " was taken over by another request");
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    claim.executed().set(true);
+                }
+            });
+        }
+    }
+
+    private record Entry(String requestHash, IdempotentResponse response, LocalDateTime expiresAt) {
+
+        static Entry of(IdempotencyRecord record) {
+            return new Entry(record.getRequestHash(),
+                new IdempotentResponse(record.getResponseStatus(), record.getContentType(),
+                    record.getLocation(), record.getResponseBody() != null ? record.getResponseBody() : new byte[0]),
+                record.getExpiresAt());
+        }
+    }
+}
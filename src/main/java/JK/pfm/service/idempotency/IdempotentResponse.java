@@ -0,0 +1,23 @@
+package JK.pfm.service.idempotency;
+
+/**
+ * Response of a request sent with an {@code Idempotency-Key}, as replayed to its retries.
+ *
+ * @param status the HTTP status
+ * @param contentType the {@code Content-Type} header, may be {@code null}
+ * @param location the {@code Location} header, may be {@code null}
+ * @param body the response body
+ */
+public record IdempotentResponse(int status, String contentType, String location, byte[] body) {
+
+    /**
+     * Whether a retry should receive this response instead of executing again. Server errors,
+     * conflicts (such as optimistic locking failures) and throttling are transient, so the key
+     * is released and a retry executes the request again.
+     *
+     * @return {@code true} if the response is stored
+     */
+    public boolean isFinal() {
+        return status < 500 && status != 409 && status != 429;
+    }
+}
@@ -0,0 +1,105 @@
+package JK.pfm.service.projection;
+
+import JK.pfm.dto.CashFlowProjectionDTO;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Projects a user's account balances forward under their active recurring expenses.
+ *
+ * <p>A projection reads the active accounts' balances and the active schedules (two queries)
+ * and expands the schedules in memory with {@link CashFlowProjector}; no occurrence is
+ * stored.</p>
+ *
+ * <p>Results are cached per user and horizon, least recently used first out. A cached
+ * projection remembers the user's change feed sequence ({@code sync_cursors}), which moves on
+ * every write to the user's recurring expenses, accounts and transactions, and the day it was
+ * made. Every request reads the sequence (one primary-key query), so an edit on any node makes
+ * the next request recompute.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.projection.cache.max-entries} – cached projections (default 10000)</li>
+ * </ul>
+ */
+@Service
+@Transactional(readOnly = true)
+public class CashFlowProjectionService {
+
+    /** Longest horizon in months. */
+    public static final int MAX_MONTHS = 24;
+
+    private final AccountRepository accountRepository;
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final SyncCursorRepository syncCursorRepository;
+
+    /** (user, months) -> projection, in access order; guarded by itself */
+    private final Map<Key, Cached> cache;
+
+    public CashFlowProjectionService(
+            AccountRepository accountRepository,
+            RecurringExpenseRepository recurringExpenseRepository,
+            SyncCursorRepository syncCursorRepository,
+            @Value("${pfm.projection.cache.max-entries:10000}") int maxEntries
+    ) {
+        this.accountRepository          = accountRepository;
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.syncCursorRepository       = syncCursorRepository;
+        int capacity = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Projects the user's balances from tomorrow, the first day the recurring expense job can
+     * charge, until the same day {@code months} months from today.
+     *
+     * @param userId the user's ID
+     * @param months horizon in months, 1 to {@value #MAX_MONTHS}
+     * @return the projection
+     * @throws org.springframework.web.server.ResponseStatusException
+     *         if the horizon is out of range (400 BAD REQUEST)
+     */
+    public CashFlowProjectionDTO project(Long userId, int months) {
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Months must be between 1 and " + MAX_MONTHS);
+        }
+        LocalDate today = LocalDate.now();
+        long seq = syncCursorRepository.findSeqByUserId(userId).orElse(0L);
+        Key key = new Key(userId, months);
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null && cached.seq() == seq && cached.day().equals(today)) {
+                return cached.projection();
+            }
+        }
+
+        CashFlowProjectionDTO projection = CashFlowProjector.project(
+            accountRepository.findActiveBalancesByUserId(userId),
+            recurringExpenseRepository.findActiveSchedulesByUserId(userId),
+            today.plusDays(1),
+            today.plusMonths(months));
+        synchronized (cache) {
+            cache.put(key, new Cached(seq, today, projection));
+        }
+        return projection;
+    }
+
+    private record Key(Long userId, int months) {}
+
+    private record Cached(long seq, LocalDate day, CashFlowProjectionDTO projection) {}
+}
@@ -0,0 +1,160 @@
+package JK.pfm.service.projection;
+
+import JK.pfm.dto.CashFlowProjectionDTO;
+import JK.pfm.dto.CashFlowProjectionDTO.AccountBalance;
+import JK.pfm.dto.CashFlowProjectionDTO.AccountProjection;
+import JK.pfm.dto.CashFlowProjectionDTO.ProjectedDay;
+import JK.pfm.dto.CashFlowProjectionDTO.ProjectedPayment;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Expands recurring expense schedules over a date range and folds their payments into running
+ * account balances.
+ *
+ * <p>Each schedule is a cursor on its next payment in a priority queue ordered by date (then
+ * expense ID), so payments come out in date order without materialising every occurrence first.
+ * Popping a cursor charges its account and pushes it back at its following due date.</p>
+ *
+ * <p>Payments are charged the way the daily recurring expense job does it: a due date before the
+ * first projected day is charged on that day, and each schedule is charged at most once a day
+ * until it has caught up.</p>
+ */
+final class CashFlowProjector {
+
+    private static final Comparator<Cursor> ORDER =
+        Comparator.comparing(Cursor::chargeOn).thenComparing(Cursor::id);
+
+    private CashFlowProjector() {
+    }
+
+    /**
+     * @param accounts {@code [id, name, balance]} per active account
+     * @param schedules {@code [id, name, amount, frequency, startDate, nextDueDate, account ID]}
+     *                  per active recurring expense
+     * @param from first projected day
+     * @param to last projected day, inclusive
+     * @return the projection
+     */
+    static CashFlowProjectionDTO project(List<Object[]> accounts, List<Object[]> schedules,
+                                         LocalDate from, LocalDate to) {
+        Map<Long, Balance> balances = new LinkedHashMap<>();
+        for (Object[] row : accounts) {
+            balances.put((Long) row[0], new Balance((Long) row[0], (String) row[1], decimal(row[2])));
+        }
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, schedules.size()), ORDER);
+        for (Object[] row : schedules) {
+            String frequency = (String) row[3];
+            LocalDate due = (LocalDate) row[5];
+            if (due == null || row[2] == null || !balances.containsKey((Long) row[6])
+                    || !RecurringSchedule.supports(frequency)) {
+                continue;
+            }
+            Cursor cursor = new Cursor((Long) row[0], (String) row[1], (BigDecimal) row[2], frequency,
+                (LocalDate) row[4], (Long) row[6], due, later(due, from));
+            if (!cursor.chargeOn().isAfter(to)) {
+                queue.add(cursor);
+            }
+        }
+
+        List<ProjectedDay> days = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            LocalDate date = queue.peek().chargeOn();
+            List<ProjectedPayment> payments = new ArrayList<>();
+            Map<Long, Balance> charged = new LinkedHashMap<>();
+            while (!queue.isEmpty() && queue.peek().chargeOn().equals(date)) {
+                Cursor cursor = queue.poll();
+                Balance balance = balances.get(cursor.accountId());
+                balance.charge(cursor.amount(), date);
+                charged.put(balance.accountId, balance);
+                payments.add(new ProjectedPayment(cursor.id(), cursor.name(), cursor.accountId(), cursor.amount()));
+
+                Cursor next = cursor.advance();
+                if (!next.chargeOn().isAfter(to)) {
+                    queue.add(next);
+                }
+            }
+            List<AccountBalance> dayBalances = new ArrayList<>(charged.size());
+            for (Balance balance : charged.values()) {
+                dayBalances.add(new AccountBalance(balance.accountId, balance.current));
+            }
+            days.add(new ProjectedDay(date, payments, dayBalances));
+        }
+
+        List<AccountProjection> summaries = new ArrayList<>(balances.size());
+        for (Balance balance : balances.values()) {
+            summaries.add(balance.summary());
+        }
+        return new CashFlowProjectionDTO(from, to, summaries, days);
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+    }
+
+    /**
+     * One schedule positioned on its next payment.
+     *
+     * @param due the scheduled due date
+     * @param chargeOn the day the payment is charged; later than {@code due} while catching up
+     */
+    private record Cursor(Long id, String name, BigDecimal amount, String frequency,
+                          LocalDate startDate, Long accountId, LocalDate due, LocalDate chargeOn) {
+
+        Cursor advance() {
+            LocalDate nextDue = RecurringSchedule.next(frequency, due, startDate);
+            return new Cursor(id, name, amount, frequency, startDate, accountId,
+                nextDue, later(nextDue, chargeOn.plusDays(1)));
+        }
+    }
+
+    /**
+     * Running balance of one account.
+     */
+    private static final class Balance {
+        private final Long accountId;
+        private final String name;
+        private final BigDecimal starting;
+        private BigDecimal current;
+        private BigDecimal lowest;
+        private LocalDate lowestDate;
+        private LocalDate overdraftDate;
+
+        Balance(Long accountId, String name, BigDecimal starting) {
+            this.accountId = accountId;
+            this.name      = name;
+            this.starting  = starting;
+            this.current   = starting;
+            this.lowest    = starting;
+        }
+
+        void charge(BigDecimal amount, LocalDate date) {
+            current = current.subtract(amount);
+            if (current.compareTo(lowest) < 0) {
+                lowest     = current;
+                lowestDate = date;
+            }
+            if (overdraftDate == null && current.signum() < 0) {
+                overdraftDate = date;
+            }
+        }
+
+        AccountProjection summary() {
+            return new AccountProjection(accountId, name, starting, current, lowest, lowestDate, overdraftDate);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package JK.pfm.service.projection;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Steps a recurring expense's due date forward by its frequency ({@code WEEKLY}, {@code MONTHLY}
+ * or {@code ANNUALLY}, case-insensitive).
+ *
+ * <p>Monthly and annual schedules are month-end aware: a payment that falls on a later day than
+ * the month has is moved to its last day, and returns to its own day in the months after. A
+ * schedule started on the 31st is due on Feb 28, then on Mar 31, instead of drifting to the 28th
+ * for good.</p>
+ */
+public final class RecurringSchedule {
+
+    public static final String WEEKLY   = "WEEKLY";
+    public static final String MONTHLY  = "MONTHLY";
+    public static final String ANNUALLY = "ANNUALLY";
+
+    private RecurringSchedule() {
+    }
+
+    /**
+     * @param frequency a stored frequency
+     * @return {@code true} if {@link #next} can step it
+     */
+    public static boolean supports(String frequency) {
+        if (frequency == null) {
+            return false;
+        }
+        return switch (frequency.toUpperCase()) {
+            case WEEKLY, MONTHLY, ANNUALLY -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the due date after {@code current}.
+     *
+     * @param frequency the schedule's frequency
+     * @param current the current due date
+     * @param startDate the schedule's first due date, whose day of month is restored after a
+     *                  shorter month; may be {@code null}
+     * @return the next due date
+     * @throws org.springframework.web.server.ResponseStatusException
+     *         if the frequency is unsupported (400 BAD REQUEST)
+     */
+    public static LocalDate next(String frequency, LocalDate current, LocalDate startDate) {
+        if (!supports(frequency)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported frequency");
+        }
+        return switch (frequency.toUpperCase()) {
+            case WEEKLY  -> current.plusWeeks(1);
+            case MONTHLY -> onDay(YearMonth.from(current).plusMonths(1), anchorDay(current, startDate));
+            default      -> onDay(YearMonth.from(current).plusYears(1), anchorDay(current, startDate));
+        };
+    }
+
+    /**
+     * The day of month to keep: the current one, unless it was cut short by the end of the month.
+     */
+    private static int anchorDay(LocalDate current, LocalDate startDate) {
+        int day = current.getDayOfMonth();
+        if (startDate != null
+                && day == current.lengthOfMonth()
+                && startDate.getDayOfMonth() > day) {
+            return startDate.getDayOfMonth();
+        }
+        return day;
+    }
+
+    private static LocalDate onDay(YearMonth month, int day) {
+        return month.atDay(Math.min(day, month.lengthOfMonth()));
+    }
+}
@@ -0,0 +1,81 @@
+package JK.pfm.service.report;
+
+import JK.pfm.dto.filters.PeriodComparisonFilter;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The current and previous period of a comparison, all dates inclusive.
+ *
+ * @param currentStart start of the current period
+ * @param currentEnd end of the current period
+ * @param previousStart start of the previous period
+ * @param previousEnd end of the previous period
+ */
+public record ComparisonPeriods(
+    LocalDate currentStart,
+    LocalDate currentEnd,
+    LocalDate previousStart,
+    LocalDate previousEnd
+) {
+
+    /**
+     * @param today the current date
+     * @return this calendar month and the previous one
+     */
+    public static ComparisonPeriods monthOverMonth(LocalDate today) {
+        LocalDate start = today.withDayOfMonth(1);
+        LocalDate previousStart = start.minusMonths(1);
+        return new ComparisonPeriods(start, start.plusMonths(1).minusDays(1),
+            previousStart, start.minusDays(1));
+    }
+
+    /**
+     * @param today the current date
+     * @return this calendar year and the previous one
+     */
+    public static ComparisonPeriods yearOverYear(LocalDate today) {
+        LocalDate start = today.withDayOfYear(1);
+        return new ComparisonPeriods(start, start.plusYears(1).minusDays(1),
+            start.minusYears(1), start.minusDays(1));
+    }
+
+    /**
+     * @param start start of the current period
+     * @param end end of the current period
+     * @param previousStart start of the previous period, or {@code null}
+     * @param previousEnd end of the previous period, or {@code null}
+     * @return the given periods; without a previous period, the equally long one right before
+     *         the current one
+     */
+    public static ComparisonPeriods custom(LocalDate start, LocalDate end,
+                                           LocalDate previousStart, LocalDate previousEnd) {
+        if (previousStart == null || previousEnd == null) {
+            long days = ChronoUnit.DAYS.between(start, end) + 1;
+            previousEnd   = start.minusDays(1);
+            previousStart = start.minusDays(days);
+        }
+        return new ComparisonPeriods(start, end, previousStart, previousEnd);
+    }
+
+    /**
+     * @param filter a validated filter
+     * @param today the current date
+     * @return the periods selected by the filter
+     */
+    public static ComparisonPeriods of(PeriodComparisonFilter filter, LocalDate today) {
+        return switch (filter.getPeriod()) {
+            case YEAR   -> yearOverYear(today);
+            case CUSTOM -> custom(filter.getStartDate(), filter.getEndDate(),
+                                  filter.getPreviousStartDate(), filter.getPreviousEndDate());
+            default     -> monthOverMonth(today);
+        };
+    }
+
+    /**
+     * @return the earlier of the two start dates
+     */
+    public LocalDate earliestStart() {
+        return currentStart.isBefore(previousStart) ? currentStart : previousStart;
+    }
+}
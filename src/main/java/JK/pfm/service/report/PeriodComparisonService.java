@@ -0,0 +1,199 @@
+package JK.pfm.service.report;
+
+import JK.pfm.dto.PeriodComparisonDTO;
+import JK.pfm.dto.PeriodComparisonDTO.Metric;
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.BalanceSnapshotRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.analytics.TransactionAnalytics;
+import JK.pfm.service.analytics.TransactionColumns;
+import JK.pfm.util.AccountUtil;
+import JK.pfm.util.SecurityUtil;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compares a user's income, expenses and balances between two periods.
+ *
+ * <p>Income and expenses of both periods come from one conditional-aggregation query that only
+ * reads rows inside the two periods (plus the archived counterpart when a period reaches back
+ * before the archive horizon). With in-memory analytics on, they are summed from the user's
+ * columns instead.</p>
+ *
+ * <p>Balances at the end of each period come from one query that returns the current totals
+ * together with the stored month-end {@link JK.pfm.model.BalanceSnapshot}s for both end dates.
+ * A period ending today or later uses the current totals. A past end date without a snapshot
+ * (a custom range, or a month before snapshots were taken) is computed from the current totals
+ * minus the activity after it, at the cost of one more query.</p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class PeriodComparisonService {
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final TransactionArchiveService archive;
+    private final TransactionAnalytics analytics;
+    private final AccountUtil accountUtil;
+
+    public PeriodComparisonService(
+        TransactionRepository transactionRepository,
+        ArchivedTransactionRepository archivedTransactionRepository,
+        BalanceSnapshotRepository balanceSnapshotRepository,
+        TransactionArchiveService archive,
+        TransactionAnalytics analytics,
+        AccountUtil accountUtil
+    ) {
+        this.transactionRepository         = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.balanceSnapshotRepository     = balanceSnapshotRepository;
+        this.archive                       = archive;
+        this.analytics                     = analytics;
+        this.accountUtil                   = accountUtil;
+    }
+
+    /**
+     * Compares the two periods for the current user.
+     *
+     * @param periods the current and previous period
+     * @return the metrics of both periods with their percentage change
+     */
+    public PeriodComparisonDTO compare(ComparisonPeriods periods) {
+        Long userId = SecurityUtil.getUserId();
+        BigDecimal[] flows = flows(userId, periods);
+        Balances[] balances = balances(userId, periods, LocalDate.now());
+        Balances current = balances[0];
+        Balances previous = balances[1];
+
+        List<Metric> metrics = List.of(
+            metric("Income", flows[0], flows[2]),
+            metric("Expense", flows[1], flows[3]),
+            metric("Savings", current.savings(), previous.savings()),
+            metric("totalBalance", current.total(), previous.total()),
+            metric("accountBalance", current.accounts(), previous.accounts()));
+        return new PeriodComparisonDTO(periods.currentStart(), periods.currentEnd(),
+            periods.previousStart(), periods.previousEnd(), metrics);
+    }
+
+    /**
+     * @return {@code [currentIncome, currentExpense, previousIncome, previousExpense]}
+     */
+    private BigDecimal[] flows(Long userId, ComparisonPeriods p) {
+        boolean reachesArchive = archive.reachesArchive(p.earliestStart());
+        // the columns do not hold archived rows
+        Optional<TransactionColumns> columns = reachesArchive ? Optional.empty() : analytics.find(userId);
+        if (columns.isPresent()) {
+            List<Long> accountIds = accountUtil.getUserAccountIds();
+            TransactionColumns c = columns.get();
+            return new BigDecimal[] {
+                c.sumByTypeAndDate("Deposit", accountIds, p.currentStart(), p.currentEnd()),
+                c.sumByTypeAndDate("Expense", accountIds, p.currentStart(), p.currentEnd()),
+                c.sumByTypeAndDate("Deposit", accountIds, p.previousStart(), p.previousEnd()),
+                c.sumByTypeAndDate("Expense", accountIds, p.previousStart(), p.previousEnd())
+            };
+        }
+
+        BigDecimal[] sums = decimals(transactionRepository.sumPeriodFlows(
+            userId, p.currentStart(), p.currentEnd(), p.previousStart(), p.previousEnd()).get(0));
+        if (reachesArchive) {
+            BigDecimal[] archived = decimals(archivedTransactionRepository.sumPeriodFlows(
+                userId, p.currentStart(), p.currentEnd(), p.previousStart(), p.previousEnd()).get(0));
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] = sums[i].add(archived[i]);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * @return balances at the end of the current and of the previous period
+     */
+    private Balances[] balances(Long userId, ComparisonPeriods p, LocalDate today) {
+        List<Object[]> rows = balanceSnapshotRepository.findBalances(
+            userId, List.of(p.currentEnd(), p.previousEnd()));
+        Balances now = rows.isEmpty()
+            ? new Balances(BigDecimal.ZERO, BigDecimal.ZERO)
+            : new Balances(decimal(rows.get(0)[0]), decimal(rows.get(0)[1]));
+        Map<LocalDate, Balances> stored = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[2] != null) {
+                stored.put((LocalDate) row[2], new Balances(decimal(row[3]), decimal(row[4])));
+            }
+        }
+        return new Balances[] {
+            balanceAt(userId, p.currentEnd(), today, now, stored),
+            balanceAt(userId, p.previousEnd(), today, now, stored)
+        };
+    }
+
+    private Balances balanceAt(Long userId, LocalDate end, LocalDate today,
+                               Balances now, Map<LocalDate, Balances> stored) {
+        if (!end.isBefore(today)) {
+            return now;
+        }
+        Balances snapshot = stored.get(end);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        List<Object[]> rows = balanceSnapshotRepository.computeBalancesAt(userId, end);
+        return rows.isEmpty()
+            ? new Balances(BigDecimal.ZERO, BigDecimal.ZERO)
+            : new Balances(decimal(rows.get(0)[1]), decimal(rows.get(0)[2]));
+    }
+
+    private static Metric metric(String name, BigDecimal current, BigDecimal previous) {
+        return new Metric(name, current, previous, percentChange(current, previous));
+    }
+
+    /**
+     * Calculates the percentage change between two numeric values.
+     * <p>
+     * Returns 0% if both values are zero, or 100% if the previous value is zero
+     * and the current value is not. Rounds to the nearest whole percent.
+     *
+     * @param current  the current period value
+     * @param previous the previous period value
+     * @return the percentage change as {@link java.math.BigDecimal}, rounded to 0 decimal places
+     */
+    private static BigDecimal percentChange(BigDecimal current, BigDecimal previous) {
+        if (previous.compareTo(BigDecimal.ZERO) == 0) {
+            return current.compareTo(BigDecimal.ZERO) == 0
+                ? BigDecimal.ZERO
+                : BigDecimal.valueOf(100);
+        }
+        BigDecimal diff = current.subtract(previous);
+        return diff
+            .multiply(BigDecimal.valueOf(100))
+            .divide(previous.abs(), 0, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal[] decimals(Object[] row) {
+        BigDecimal[] values = new BigDecimal[row.length];
+        for (int i = 0; i < row.length; i++) {
+            values[i] = decimal(row[i]);
+        }
+        return values;
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+    }
+
+    private record Balances(BigDecimal accounts, BigDecimal savings) {
+        BigDecimal total() {
+            return accounts.add(savings);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package JK.pfm.service.search;
+
+import JK.pfm.dto.filters.TransactionSearchFilter;
+import JK.pfm.service.cache.UserFeedCache;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One user's live transactions as an inverted index over the words of their descriptions.
+ *
+ * <p>A word is a run of letters and digits, lower-cased. Every distinct word keeps a posting
+ * list of row slots, and words are held sorted, so all words starting with a query word are one
+ * range lookup. Next to the postings each row keeps its id, date, account, category and type;
+ * the other search filters and the result order are applied here, and only the page of
+ * matches has to be loaded from the database.</p>
+ *
+ * <p>{@link TransactionSearchIndex} applies the changes reported by the change feed in place.
+ * Changed and deleted rows are only marked dead and skipped until the index is rebuilt (see
+ * {@link #needsRebuild()}). All methods synchronize on the instance.</p>
+ */
+public final class DescriptionIndex implements UserFeedCache.Snapshot {
+
+    /** Bytes held per row across the row arrays. */
+    static final int BYTES_PER_ROW = 8 + 4 + 8 + 8 + 1;
+
+    /** Approximate heap per distinct word: tree node, string and posting list. */
+    static final int BYTES_PER_WORD = 96;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_CATEGORY = Long.MIN_VALUE;
+    private static final byte OTHER = 0;
+    private static final byte EXPENSE = 1;
+    private static final byte DEPOSIT = 2;
+
+    private final LocalDate from;
+    private long seq;
+
+    private int size;
+    private long[] ids;
+    private int[] days;
+    private long[] accounts;
+    private long[] categories;
+    private byte[] types;
+    private final BitSet deadSlots = new BitSet();
+    private int dead;
+
+    /** word -> slots of the rows containing it, in slot order */
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private long postings;
+
+    /**
+     * @param from first date held, or {@code null} for all dates; older rows are ignored
+     * @param seq the user's change feed sequence the rows were read at
+     * @param capacity expected number of rows
+     */
+    DescriptionIndex(LocalDate from, long seq, int capacity) {
+        this.from = from;
+        this.seq  = seq;
+        int initial = Math.max(16, capacity);
+        ids        = new long[initial];
+        days       = new int[initial];
+        accounts   = new long[initial];
+        categories = new long[initial];
+        types      = new byte[initial];
+    }
+
+    /**
+     * Splits text into distinct lower-case words, in order of first appearance.
+     *
+     * @param text the text, may be {@code null}
+     * @return the words; empty if there are none
+     */
+    public static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        int i = 0;
+        while (i <= lower.length()) {
+            int cp = i < lower.length() ? lower.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(cp)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                String word = lower.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+            i += Character.charCount(cp);
+        }
+        return words;
+    }
+
+    /**
+     * Tells whether every query word starts a word of {@code description}, the rule the index
+     * applies.
+     *
+     * @param description the description, may be {@code null}
+     * @param query query words as returned by {@link #words}
+     * @return {@code true} on a match
+     */
+    public static boolean matches(String description, List<String> query) {
+        List<String> words = words(description);
+        for (String wanted : query) {
+            if (words.stream().noneMatch(word -> word.startsWith(wanted))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    @Override
+    public synchronized long getSeq() {
+        return seq;
+    }
+
+    /**
+     * @return number of live rows
+     */
+    public synchronized int size() {
+        return size - dead;
+    }
+
+    /**
+     * @return approximate heap held by the rows and the dictionary
+     */
+    @Override
+    public synchronized long bytes() {
+        return (long) ids.length * BYTES_PER_ROW + postings * 4 + (long) dictionary.size() * BYTES_PER_WORD;
+    }
+
+    /**
+     * @return {@code true} once more than half the rows are dead and a reload pays off
+     */
+    synchronized boolean needsRebuild() {
+        return dead > size / 2;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Loading and deltas
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Adds one row in the layout of {@code TransactionRepository#streamSearchRows}:
+     * {@code [id, date, accountId, categoryId, type, description]}. Rows dated before
+     * {@link #getFrom()} are ignored.
+     */
+    @Override
+    public synchronized void add(Object[] row) {
+        LocalDate date = (LocalDate) row[1];
+        if (from != null && date != null && date.isBefore(from)) {
+            return;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot]        = (Long) row[0];
+        days[slot]       = date != null ? (int) date.toEpochDay() : NO_DATE;
+        accounts[slot]   = (Long) row[2];
+        categories[slot] = row[3] != null ? (Long) row[3] : NO_CATEGORY;
+        types[slot]      = type((String) row[4]);
+        for (String word : words((String) row[5])) {
+            dictionary.computeIfAbsent(word, w -> new Postings()).add(slot);
+            postings++;
+        }
+    }
+
+    /**
+     * Applies changes read from the change feed and moves the instance to {@code seq}. Changes
+     * read at an older sequence than the current one are ignored.
+     *
+     * @param changedIds ids of every changed or deleted transaction; their old rows die
+     * @param rows current state of the changed transactions that still exist, as for {@link #add}
+     * @param seq sequence the changes were read at
+     */
+    synchronized void apply(Collection<Long> changedIds, List<Object[]> rows, long seq) {
+        if (seq <= this.seq) {
+            // a concurrent refresh already applied a newer state
+            return;
+        }
+        if (!changedIds.isEmpty()) {
+            Set<Long> targets = Set.copyOf(changedIds);
+            for (int i = 0; i < size; i++) {
+                if (!deadSlots.get(i) && targets.contains(ids[i])) {
+                    deadSlots.set(i);
+                    dead++;
+                }
+            }
+        }
+        for (Object[] row : rows) {
+            add(row);
+        }
+        this.seq = seq;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids        = Arrays.copyOf(ids, capacity);
+        days       = Arrays.copyOf(days, capacity);
+        accounts   = Arrays.copyOf(accounts, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        types      = Arrays.copyOf(types, capacity);
+    }
+
+    private static byte type(String type) {
+        if ("Expense".equals(type)) {
+            return EXPENSE;
+        }
+        return "Deposit".equals(type) ? DEPOSIT : OTHER;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Queries
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Finds the rows where every query word starts a description word and which pass the
+     * filter's date range, category, account, type and page cursor.
+     *
+     * @param query query words as returned by {@link #words}; empty matches nothing
+     * @param filter the other filters
+     * @param max most IDs to return
+     * @return IDs of the first {@code max} matches ordered by {@code date DESC, id DESC}
+     */
+    public synchronized List<Long> search(List<String> query, TransactionSearchFilter filter, int max) {
+        BitSet matched = null;
+        for (String word : query) {
+            BitSet hits = new BitSet(size);
+            for (Postings p : dictionary.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                p.addTo(hits);
+            }
+            if (matched == null) {
+                matched = hits;
+            } else {
+                matched.and(hits);
+            }
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+        }
+        if (matched == null || max <= 0) {
+            return List.of();
+        }
+        matched.andNot(deadSlots);
+
+        boolean dated = filter.getStartDate() != null || filter.getEndDate() != null || filter.getAfterId() != null;
+        int lo = filter.getStartDate() != null ? (int) filter.getStartDate().toEpochDay() : Integer.MIN_VALUE;
+        int hi = filter.getEndDate() != null ? (int) filter.getEndDate().toEpochDay() : Integer.MAX_VALUE;
+        int afterDay = filter.getAfterDate() != null ? (int) filter.getAfterDate().toEpochDay() : 0;
+        long afterId = filter.getAfterId() != null ? filter.getAfterId() : 0;
+        byte type = filter.getType() != null ? type(filter.getType()) : -1;
+
+        // oldest match at the head, so it is the one dropped when a newer match comes in
+        PriorityQueue<Integer> top = new PriorityQueue<>(max + 1, this::compareOrder);
+        for (int s = matched.nextSetBit(0); s >= 0; s = matched.nextSetBit(s + 1)) {
+            int day = days[s];
+            if (dated && (day == NO_DATE || day < lo || day > hi)) {
+                continue;
+            }
+            if (filter.getAfterId() != null && (day > afterDay || (day == afterDay && ids[s] >= afterId))) {
+                continue;
+            }
+            if ((filter.getAccountId() != null && accounts[s] != filter.getAccountId())
+                    || (filter.getCategoryId() != null && categories[s] != filter.getCategoryId())
+                    || (type >= 0 && types[s] != type)) {
+                continue;
+            }
+            if (top.size() < max) {
+                top.add(s);
+            } else if (compareOrder(s, top.peek()) > 0) {
+                top.poll();
+                top.add(s);
+            }
+        }
+        List<Long> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(ids[top.poll()]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private int compareOrder(int a, int b) {
+        int byDay = Integer.compare(days[a], days[b]);
+        return byDay != 0 ? byDay : Long.compare(ids[a], ids[b]);
+    }
+
+    /** Growable list of slots. */
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(slots[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package JK.pfm.service.search;
+
+import JK.pfm.model.SyncChange;
+import JK.pfm.repository.SyncChangeRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.cache.UserFeedCache;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps recently searched users' transaction descriptions in memory as a
+ * {@link DescriptionIndex}, so a search does not scan the user's rows with {@code LIKE}.
+ *
+ * <p>Loading, change feed refresh and eviction are those of {@link UserFeedCache}. The index
+ * is also rebuilt once more than half of its rows are dead.</p>
+ *
+ * <p>Properties:</p>
+ * <ul>
+ *   <li>{@code pfm.search.index.enabled} – search from memory (default {@code true})</li>
+ *   <li>{@code pfm.search.index.max-memory-mb} – budget for all users' indexes (default 64)</li>
+ * </ul>
+ */
+@Service
+public class TransactionSearchIndex extends UserFeedCache<DescriptionIndex> {
+
+    private final TransactionRepository transactionRepository;
+
+    public TransactionSearchIndex(
+            TransactionRepository transactionRepository,
+            SyncCursorRepository syncCursorRepository,
+            SyncChangeRepository syncChangeRepository,
+            TransactionArchiveService archive,
+            @Value("${pfm.search.index.enabled:true}") boolean enabled,
+            @Value("${pfm.search.index.max-memory-mb:64}") long maxMemoryMb
+    ) {
+        super(syncCursorRepository, syncChangeRepository, archive,
+            List.of(SyncChange.TRANSACTION), enabled, maxMemoryMb);
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Returns the user's up-to-date index, building or refreshing it as needed.
+     *
+     * @param userId the user's ID
+     * @return the index, or empty when indexing is off or the user does not fit the budget
+     */
+    @Transactional(readOnly = true)
+    public Optional<DescriptionIndex> find(Long userId) {
+        return Optional.ofNullable(lookup(userId));
+    }
+
+    @Override
+    protected DescriptionIndex create(LocalDate from, long seq) {
+        return new DescriptionIndex(from, seq, 1024);
+    }
+
+    @Override
+    protected Stream<Object[]> streamRows(Long userId, LocalDate from) {
+        return transactionRepository.streamSearchRows(userId, from);
+    }
+
+    @Override
+    protected boolean apply(DescriptionIndex index, List<Object[]> changes, long seq) {
+        List<Long> transactionIds = new ArrayList<>(changes.size());
+        for (Object[] change : changes) {
+            transactionIds.add((Long) change[1]);
+        }
+        List<Object[]> rows = transactionIds.isEmpty()
+            ? List.of()
+            : transactionRepository.findSearchRows(transactionIds);
+        index.apply(transactionIds, rows, seq);
+        return !index.needsRebuild();
+    }
+}
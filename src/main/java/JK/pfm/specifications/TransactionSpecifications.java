@@ -98,4 +98,29 @@ public class TransactionSpecifications {
     public static Specification<Transaction> typeEquals(String type){
         return (root, query, cb) -> cb.equal(root.get("type"), type);
     }
+
+    /**
+     * Matches transactions whose description contains the given text, ignoring case.
+     * <p>{@code text} must not contain {@code LIKE} wildcards.</p>
+     *
+     * @param text lower-case text to look for
+     * @return specification filtering by {@code description}
+     */
+    public static Specification<Transaction> descriptionContains(String text) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), "%" + text + "%");
+    }
+
+    /**
+     * Matches transactions that come after the given one in {@code date DESC, id DESC} order,
+     * for keyset pagination.
+     *
+     * @param date date of the last transaction already returned
+     * @param id   ID of the last transaction already returned
+     * @return specification limiting results to the following rows
+     */
+    public static Specification<Transaction> before(LocalDate date, Long id) {
+        return (root, query, cb) -> cb.or(
+            cb.lessThan(root.get("date"), date),
+            cb.and(cb.equal(root.get("date"), date), cb.lessThan(root.get("id"), id)));
+    }
 }
@@ -3,11 +3,13 @@ package JK.pfm.util;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.CategoryRuleRepository;
 import JK.pfm.repository.RecurringExpenseRepository;
 import JK.pfm.repository.SavingsGoalRepository;
 import JK.pfm.repository.TransactionRepository;
 import JK.pfm.repository.UserRepository;
 import JK.pfm.security.CustomUserDetails;
+import java.util.Optional;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -44,19 +46,22 @@ public class SecurityUtil {
     private final BudgetRepository budgetRepo;
     private final AccountRepository accountRepo;
     private final RecurringExpenseRepository autoPayRepo;
+    private final CategoryRuleRepository ruleRepo;
 
     public SecurityUtil(
         TransactionRepository txnRepo,
         SavingsGoalRepository goalRepo,
         BudgetRepository budgetRepo,
         AccountRepository accountRepo,
-        RecurringExpenseRepository autoPayRepo
+        RecurringExpenseRepository autoPayRepo,
+        CategoryRuleRepository ruleRepo
     ) {
         this.txnRepo       = txnRepo;
         this.goalRepo      = goalRepo;
         this.budgetRepo    = budgetRepo;
         this.accountRepo   = accountRepo;
         this.autoPayRepo   = autoPayRepo;
+        this.ruleRepo      = ruleRepo;
     }
 
 
@@ -75,6 +80,22 @@ public class SecurityUtil {
         return userDetails.getId();
     }
 
+    /**
+     * Returns the ID of the authenticated user if there is one.
+     *
+     * <p>Unlike {@link #getUserId()} this never throws, so it can be used from infrastructure
+     * code that also runs outside of a request (schedulers, startup initializers).</p>
+     *
+     * @return the authenticated user's ID, or empty if no {@link CustomUserDetails} is present
+     */
+    public static Optional<Long> findUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return Optional.ofNullable(userDetails.getId());
+        }
+        return Optional.empty();
+    }
+
 
     /**
      * Retrieves the full {@link User} entity of the authenticated user
@@ -149,4 +170,16 @@ public class SecurityUtil {
         .map(a -> a.getAccount().getUser().getId().equals(getUserId()))
         .orElse(false);
     }
+
+    /**
+     * Checks if a categorization rule with the given ID belongs to the authenticated user.
+     *
+     * @param ruleId ID of the categorization rule
+     * @return {@code true} if the rule belongs to the current user, otherwise {@code false}
+     */
+    public boolean isCurrentUserCategoryRule(Long ruleId) {
+        return ruleRepo.findById(ruleId)
+        .map(r -> r.getUser().getId().equals(getUserId()))
+        .orElse(false);
+    }
 }
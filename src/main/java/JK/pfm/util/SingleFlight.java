@@ -0,0 +1,75 @@
+package JK.pfm.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical computations into one.
+ *
+ * <p>The first caller for a key runs the computation on its own thread and publishes the
+ * outcome through a {@link CompletableFuture}; callers arriving with the same key while it is
+ * still running wait for that future instead of repeating the work. Once the computation
+ * finishes the key is released, so nothing is cached: the next call after completion runs
+ * again.</p>
+ *
+ * <p>Exceptions are shared the same way. A {@link RuntimeException} or {@link Error} thrown by
+ * the computation is rethrown unchanged to every waiting caller.</p>
+ *
+ * <p>Keys must implement {@code equals}/{@code hashCode}; records work well.</p>
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code work}, or joins an identical computation already running for {@code key}.
+     *
+     * @param key identifies the computation
+     * @param work the computation; runs on the calling thread when no other call is in flight
+     * @param <T> result type
+     * @return the computed value, possibly produced by another caller
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> work) {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            return (T) await(running);
+        }
+        try {
+            T result = work.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return number of keys currently being computed
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+-- One-off conversion of `transactions` to monthly RANGE partitions (MySQL 8).
+--
+-- MySQL requires the partition key in every unique key, so the primary key becomes (id, date),
+-- and partitioned InnoDB tables cannot carry foreign keys. Run this during a maintenance
+-- window, then run the application with the `partitioned` profile (application-partitioned.properties,
+-- ddl-auto=validate) so Hibernate does not try to add the foreign keys back.
+-- TransactionPartitionMaintenance fails startup if it finds partitions with ddl-auto=update.
+--
+-- p_history takes everything before the first day of the month the script runs in.
+-- TransactionPartitionMaintenance then splits p_future into monthly partitions (pYYYYMM) from
+-- the current month on.
+--
+-- Schemas partitioned before transfers were linked to their savings goal need the column and its
+-- index added by hand (no foreign key; SavingsGoalService clears the links when a goal is
+-- deleted):
+--
+--   ALTER TABLE transactions ADD COLUMN savings_goal_id BIGINT NULL;
+--   CREATE INDEX idx_transactions_savings_goal_date ON transactions (savings_goal_id, date);
+--
+-- Under `validate` later columns are added by hand as well, e.g. the archive's copies of the goal link,
+-- fingerprint and duplicate flag:
+--
+--   ALTER TABLE transactions_archive ADD COLUMN savings_goal_id BIGINT NULL,
+--                                    ADD COLUMN fingerprint BIGINT NULL,
+--                                    ADD COLUMN possible_duplicate BIT NULL;
+
+SET @fk_category = (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+                     WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions'
+                       AND REFERENCED_TABLE_NAME = 'categories');
+SET @fk_account  = (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+                     WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions'
+                       AND REFERENCED_TABLE_NAME = 'accounts');
+SET @fk_goal     = (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+                     WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions'
+                       AND REFERENCED_TABLE_NAME = 'savings_goals');
+
+SET @sql = CONCAT('ALTER TABLE transactions ',
+                  CONCAT_WS(', ', CONCAT('DROP FOREIGN KEY ', @fk_category),
+                                  CONCAT('DROP FOREIGN KEY ', @fk_account),
+                                  CONCAT('DROP FOREIGN KEY ', @fk_goal)));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE INDEX idx_transactions_account_date ON transactions (account_id, date);
+CREATE INDEX idx_transactions_category ON transactions (category_id);
+
+ALTER TABLE transactions
+    MODIFY date DATE NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, date);
+
+SET @sql = CONCAT('ALTER TABLE transactions PARTITION BY RANGE COLUMNS(date) (',
+                  'PARTITION p_history VALUES LESS THAN (''', DATE_FORMAT(CURDATE(), '%Y-%m-01'), '''), ',
+                  'PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
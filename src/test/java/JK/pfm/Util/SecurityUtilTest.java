@@ -3,12 +3,14 @@ package JK.pfm.Util;
 
 import JK.pfm.model.Account;
 import JK.pfm.model.Budget;
+import JK.pfm.model.CategoryRule;
 import JK.pfm.model.RecurringExpense;
 import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.Transaction;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.CategoryRuleRepository;
 import JK.pfm.repository.RecurringExpenseRepository;
 import JK.pfm.repository.SavingsGoalRepository;
 import JK.pfm.repository.TransactionRepository;
@@ -41,13 +43,14 @@ class SecurityUtilTest {
     @Mock BudgetRepository budgetRepo;
     @Mock AccountRepository accountRepo;
     @Mock RecurringExpenseRepository autoPayRepo;
+    @Mock CategoryRuleRepository ruleRepo;
     @Mock UserRepository userRepo;
 
     SecurityUtil securityUtil;
 
     @BeforeEach
     void setup() {
-        securityUtil = new SecurityUtil(txnRepo, goalRepo, budgetRepo, accountRepo, autoPayRepo);
+        securityUtil = new SecurityUtil(txnRepo, goalRepo, budgetRepo, accountRepo, autoPayRepo, ruleRepo);
 
         // Set fake authenticated user
         CustomUserDetails userDetails = new CustomUserDetails(123L, "user", "pass");
@@ -231,4 +234,17 @@ void isCurrentUserAutoPay_returnsFalseWhenNotFound() {
     assertFalse(securityUtil.isCurrentUserAutoPay(1L));
 }
 
+@Test
+void isCurrentUserCategoryRule_checksOwner() {
+    User owner = new User(); owner.setId(123L);
+    User other = new User(); other.setId(999L);
+    when(ruleRepo.findById(1L)).thenReturn(Optional.of(new CategoryRule("KEYWORD", "rent", null, owner)));
+    when(ruleRepo.findById(2L)).thenReturn(Optional.of(new CategoryRule("KEYWORD", "rent", null, other)));
+    when(ruleRepo.findById(3L)).thenReturn(Optional.empty());
+
+    assertTrue(securityUtil.isCurrentUserCategoryRule(1L));
+    assertFalse(securityUtil.isCurrentUserCategoryRule(2L));
+    assertFalse(securityUtil.isCurrentUserCategoryRule(3L));
+}
+
 }
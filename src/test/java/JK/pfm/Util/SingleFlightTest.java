@@ -0,0 +1,109 @@
+package JK.pfm.Util;
+
+import JK.pfm.util.SingleFlight;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsWithSameKey_shareOneComputation() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pool.submit(() -> singleFlight.execute("report", () -> {
+                runs.incrementAndGet();
+                await(release);
+                return "done";
+            })));
+        }
+        waitUntilStarted(runs);
+        // give the remaining callers time to join the running computation
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void differentKeys_runIndependently() {
+        AtomicInteger runs = new AtomicInteger();
+
+        singleFlight.execute("a", runs::incrementAndGet);
+        singleFlight.execute("b", runs::incrementAndGet);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void completedComputation_isNotCached() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(singleFlight.execute("report", runs::incrementAndGet)).isEqualTo(1);
+        assertThat(singleFlight.execute("report", runs::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void failure_isRethrownToWaitingCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        Future<?> leader = pool.submit(() -> singleFlight.execute("report", () -> {
+            runs.incrementAndGet();
+            await(release);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
+        }));
+        waitUntilStarted(runs);
+        Future<?> follower = pool.submit(() -> singleFlight.execute("report", () -> "unexpected"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(ResponseStatusException.class);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    private static void waitUntilStarted(AtomicInteger runs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (runs.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
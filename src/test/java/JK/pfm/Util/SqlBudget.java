@@ -0,0 +1,107 @@
+package JK.pfm.Util;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Assertion helper for SQL statement and row budgets.
+ *
+ * <p>Usage in a test:</p>
+ * <pre>
+ * sqlBudget.assertWithin("GET /api/reports/summary", 4, 10,
+ *     () -&gt; mockMvc.perform(get("/api/reports/summary")).andExpect(status().isOk()));
+ * </pre>
+ *
+ * <p>The action runs twice. The first run warms the second-level and query caches, and only
+ * the second run is measured. The budget therefore describes steady-state cost and does not
+ * depend on the order tests run in. A failed assertion lists every statement that was
+ * executed.</p>
+ */
+public class SqlBudget {
+
+    /**
+     * Code under measurement; may throw checked exceptions (e.g. from MockMvc).
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Statements and rows used by one measured call.
+     */
+    public record Usage(long statements, long rows) { }
+
+    private final SqlCountingDataSource dataSource;
+
+    public SqlBudget(SqlCountingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Runs the action once to warm caches, then once more while counting.
+     *
+     * @param action the call to measure
+     * @return statements and rows of the measured run
+     * @throws Exception if the action fails
+     */
+    public Usage measure(Action action) throws Exception {
+        return measure(() -> { }, action);
+    }
+
+    /**
+     * Like {@link #measure(Action)}, but runs {@code prepare} before each run of the action
+     * without counting it, for actions that consume their input (e.g. a job that processes due
+     * items).
+     *
+     * @param prepare uncounted setup run before each run of the action
+     * @param action the call to measure
+     * @return statements and rows of the measured run
+     * @throws Exception if the setup or the action fails
+     */
+    public Usage measure(Action prepare, Action action) throws Exception {
+        prepare.run();
+        action.run();
+        prepare.run();
+        dataSource.reset();
+        action.run();
+        return new Usage(dataSource.getStatements(), dataSource.getRows());
+    }
+
+    /**
+     * Fails if the measured run of {@code action} exceeds either budget.
+     *
+     * @param endpoint label used in the failure message
+     * @param maxStatements maximum number of executed statements
+     * @param maxRows maximum number of fetched rows
+     * @param action the call to measure
+     * @return the measured usage
+     * @throws Exception if the action fails
+     */
+    public Usage assertWithin(String endpoint, long maxStatements, long maxRows, Action action) throws Exception {
+        return assertWithin(endpoint, maxStatements, maxRows, () -> { }, action);
+    }
+
+    /**
+     * Fails if the measured run of {@code action} exceeds either budget; {@code prepare} runs
+     * uncounted before each run, see {@link #measure(Action, Action)}.
+     *
+     * @param endpoint label used in the failure message
+     * @param maxStatements maximum number of executed statements
+     * @param maxRows maximum number of fetched rows
+     * @param prepare uncounted setup run before each run of the action
+     * @param action the call to measure
+     * @return the measured usage
+     * @throws Exception if the setup or the action fails
+     */
+    public Usage assertWithin(String endpoint, long maxStatements, long maxRows, Action prepare, Action action)
+            throws Exception {
+        Usage usage = measure(prepare, action);
+        if (usage.statements() > maxStatements || usage.rows() > maxRows) {
+            fail(String.format(
+                "%s exceeded its SQL budget: %d statements (max %d), %d rows (max %d)%nExecuted:%n  %s",
+                endpoint, usage.statements(), maxStatements, usage.rows(), maxRows,
+                String.join(System.lineSeparator() + "  ", dataSource.getLog())));
+        }
+        return usage;
+    }
+}
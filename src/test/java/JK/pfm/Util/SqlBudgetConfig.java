@@ -0,0 +1,33 @@
+package JK.pfm.Util;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Wraps the application {@code dataSource} in a {@link SqlCountingDataSource} and exposes a
+ * {@link SqlBudget} for assertions. Import it into a {@code @SpringBootTest}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlBudgetConfig {
+
+    @Bean
+    static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource dataSource
+                        && !(bean instanceof SqlCountingDataSource)) {
+                    return new SqlCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    SqlBudget sqlBudget(DataSource dataSource) {
+        return new SqlBudget((SqlCountingDataSource) dataSource);
+    }
+}
@@ -0,0 +1,144 @@
+package JK.pfm.Util;
+
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.Category;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base class for SQL budget tests.
+ *
+ * <p>Boots the full application against its own H2 database with the datasource wrapped by
+ * {@link SqlCountingDataSource}. Subclasses seed one user per dataset size with
+ * {@link #seedUser(String, int)} and check every endpoint with the same budget at each size.
+ * Because the budget is fixed, a query count that grows with data volume (N+1 loads, per-row
+ * lookups) fails the build.</p>
+ *
+ * <p>Requests go through the real security filter chain with a real JWT, so the per-request
+ * user lookup is part of the budget.</p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlBudgetConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_sql_budget;DB_CLOSE_DELAY=-1",
+    // the statement counter is global; keep the outbox poller from adding to it
+    "pfm.outbox.dispatcher.enabled=false"
+})
+public abstract class SqlBudgetTestSupport {
+
+    /** Dataset sizes every budget is checked against. */
+    protected static final int SMALL = 20;
+    protected static final int LARGE = 600;
+
+    /** Number of transactions placed on {@link #fixedDay()}, independent of dataset size. */
+    protected static final int FIXED_DAY_TRANSACTIONS = 3;
+
+    @Autowired protected MockMvc mockMvc;
+    @Autowired protected SqlBudget sqlBudget;
+    @Autowired protected ObjectMapper objectMapper;
+    @Autowired protected UserRepository userRepository;
+    @Autowired protected AccountRepository accountRepository;
+    @Autowired protected CategoryRepository categoryRepository;
+    @Autowired protected TransactionRepository transactionRepository;
+    @Autowired protected BudgetRepository budgetRepository;
+    @Autowired protected SavingsGoalRepository savingsGoalRepository;
+
+    /**
+     * Registers a user and seeds two accounts, two savings goals, three budgets for the current
+     * month, {@code transactions} transactions spread over the past year, and
+     * {@link #FIXED_DAY_TRANSACTIONS} transactions on {@link #fixedDay()}.
+     *
+     * @param username unique username
+     * @param transactions number of spread transactions
+     * @return a bearer token for the user
+     * @throws Exception if registration fails
+     */
+    protected String seedUser(String username, int transactions) throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto(username, "P@ssword123"))))
+            .andExpect(status().isCreated());
+        User user = userRepository.findByUsername(username).orElseThrow();
+
+        Account checking = accountRepository.save(new Account("Checking", new BigDecimal("100000"), user));
+        Account card     = accountRepository.save(new Account("Card", new BigDecimal("50000"), user));
+        savingsGoalRepository.save(new SavingsGoal("Car", new BigDecimal("5000"), "car", user));
+        savingsGoalRepository.save(new SavingsGoal("Trip", new BigDecimal("2000"), "trip", user));
+
+        Category food   = categoryRepository.findByName("Food").orElseThrow();
+        Category rent   = categoryRepository.findByName("Rent").orElseThrow();
+        Category salary = categoryRepository.findByName("Salary").orElseThrow();
+
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        LocalDate monthEnd   = monthStart.with(TemporalAdjusters.lastDayOfMonth());
+        budgetRepository.save(new Budget(new BigDecimal("300"), monthStart, monthEnd, food, user));
+        budgetRepository.save(new Budget(new BigDecimal("900"), monthStart, monthEnd, rent, user));
+        budgetRepository.save(new Budget(new BigDecimal("50"), monthStart, monthEnd, salary, user));
+
+        List<Transaction> seeded = new ArrayList<>(transactions + FIXED_DAY_TRANSACTIONS);
+        for (int i = 0; i < transactions; i++) {
+            LocalDate date = fixedDay().minusDays(1 + (i % 365));
+            Account account = i % 2 == 0 ? checking : card;
+            if (i % 5 == 0) {
+                seeded.add(new Transaction(date, new BigDecimal("1000"), account, salary, "Deposit", "pay " + i));
+            } else {
+                Category category = i % 3 == 0 ? rent : food;
+                seeded.add(new Transaction(date, new BigDecimal("12.50"), account, category, "Expense", "txn " + i));
+            }
+        }
+        for (int i = 0; i < FIXED_DAY_TRANSACTIONS; i++) {
+            seeded.add(new Transaction(fixedDay(), new BigDecimal("5"), checking, food, "Expense", "fixed " + i));
+        }
+        transactionRepository.saveAll(seeded);
+
+        return JWTUtil.generateToken(username);
+    }
+
+    /**
+     * @return the day that holds exactly {@link #FIXED_DAY_TRANSACTIONS} transactions per user
+     */
+    protected static LocalDate fixedDay() {
+        return LocalDate.now();
+    }
+
+    /**
+     * Adds the bearer token to a request.
+     *
+     * @param request the request builder
+     * @param token bearer token from {@link #seedUser(String, int)}
+     * @return the same builder
+     */
+    protected static MockHttpServletRequestBuilder auth(MockHttpServletRequestBuilder request, String token) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,142 @@
+package JK.pfm.Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Test-only {@link DataSource} proxy that counts executed statements and fetched rows.
+ *
+ * <p>Every {@code execute*} call on a {@link Statement}, {@link PreparedStatement} or
+ * {@link CallableStatement} counts as one statement, and every {@link ResultSet#next()} that
+ * returns {@code true} counts as one fetched row. Counters are global to the proxy; tests
+ * measure one synchronous call at a time via {@link SqlBudget}.</p>
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final Queue<String> log = new ConcurrentLinkedQueue<>();
+
+    public SqlCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    /**
+     * Clears all counters and the statement log.
+     */
+    public void reset() {
+        statements.set(0);
+        rows.set(0);
+        log.clear();
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    /**
+     * @return SQL of the statements executed since the last {@link #reset()}
+     */
+    public List<String> getLog() {
+        return new ArrayList<>(log);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+            new CountingHandler(target, null));
+    }
+
+    private final class CountingHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String sql;
+
+        CountingHandler(Object target, String sql) {
+            this.target = target;
+            this.sql    = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (target instanceof Statement && name.startsWith("execute")) {
+                statements.incrementAndGet();
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                log.add(executed);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+
+            if (target instanceof ResultSet && name.equals("next") && Boolean.TRUE.equals(result)) {
+                rows.incrementAndGet();
+            }
+            if (result instanceof CallableStatement cs) {
+                return wrap(CallableStatement.class, cs, firstString(args));
+            }
+            if (result instanceof PreparedStatement ps) {
+                return wrap(PreparedStatement.class, ps, firstString(args));
+            }
+            if (result instanceof Statement st) {
+                return wrap(Statement.class, st, null);
+            }
+            if (result instanceof ResultSet rs) {
+                return wrap(ResultSet.class, rs, sql);
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T wrap(Class<T> type, T value, String statementSql) {
+            return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                new CountingHandler(value, statementSql));
+        }
+
+        private String firstString(Object[] args) {
+            return args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package JK.pfm.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitingDataSource} plus a small load comparison:
+ * 200 concurrent "requests" that each hold a connection for 50 ms against a 4-connection pool.
+ */
+class ConcurrencyLimitingDataSourceTest {
+
+    private static final int POOL_SIZE = 4;
+    private static final int REQUESTS  = 200;
+    private static final long HOLD_MS  = 50;
+
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:limiter_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(250);
+        pool = new HikariDataSource(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void closingConnection_releasesPermitOnce() throws Exception {
+        ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(pool, 2, 100);
+
+        Connection c = limited.getConnection();
+        assertThat(limited.getAvailablePermits()).isEqualTo(1);
+
+        c.close();
+        c.close();
+        assertThat(limited.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void noPermitWithinTimeout_throwsTransientException() throws Exception {
+        ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(pool, 1, 50);
+
+        try (Connection held = limited.getConnection()) {
+            assertThatThrownBy(limited::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class);
+        }
+        assertThat(limited.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void unwrap_reachesUnderlyingPool() throws Exception {
+        ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(pool, 2, 100);
+        assertThat(limited.unwrap(HikariDataSource.class)).isSameAs(pool);
+    }
+
+    @Test
+    void platformThreadPool_withoutLimiter_timesOutOnHikari() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(REQUESTS)) {
+            LoadResult result = runLoad(pool, executor);
+
+            assertThat(result.failures)
+                .as("platform threads racing for %d connections should hit the pool timeout", POOL_SIZE)
+                .isGreaterThan(0);
+        }
+    }
+
+    @Test
+    void virtualThreads_withLimiter_queueFairlyAndAllComplete() throws Exception {
+        ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(pool, POOL_SIZE, 30_000);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LoadResult result = runLoad(limited, executor);
+
+            assertThat(result.failures).isZero();
+            assertThat(result.completed).isEqualTo(REQUESTS);
+        }
+        assertThat(limited.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    private LoadResult runLoad(DataSource dataSource, ExecutorService executor) throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failures  = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(executor.submit(() -> {
+                try (Connection c = dataSource.getConnection();
+                     Statement st = c.createStatement()) {
+                    st.execute("SELECT 1");
+                    Thread.sleep(HOLD_MS);
+                    completed.incrementAndGet();
+                } catch (SQLException ex) {
+                    failures.incrementAndGet();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        return new LoadResult(completed.get(), failures.get());
+    }
+
+    private record LoadResult(int completed, int failures) {}
+}
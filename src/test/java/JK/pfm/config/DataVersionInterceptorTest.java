@@ -0,0 +1,185 @@
+package JK.pfm.config;
+
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.security.CustomUserDetails;
+import java.time.LocalDate;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DataVersionInterceptorTest {
+
+    private SyncCursorRepository cursors;
+    private PlatformTransactionManager transactionManager;
+    private DataVersionInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        cursors = mock(SyncCursorRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        interceptor = interceptor(transactionManager);
+        login(1L);
+        when(cursors.findSeqByUserId(1L)).thenReturn(Optional.of(41L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void firstRequest_isTagged_andHandled() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(get("/api/reports/summary", null), response, handler("versioned"))).isTrue();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).matches("W/\"41-[0-9a-f]{16}\"");
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("private, no-cache");
+    }
+
+    @Test
+    void matchingIfNoneMatch_isAnswered304_withoutHandler() throws Exception {
+        String etag = tagOf(get("/api/reports/summary", null));
+        MockHttpServletRequest revalidation = get("/api/reports/summary", null);
+        revalidation.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(revalidation, response, handler("versioned"))).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader("ETag")).isEqualTo(etag);
+    }
+
+    @Test
+    void tag_changesWithVersion_uri_query_user_andDay() throws Exception {
+        String etag = tagOf(get("/api/reports/summary", "startDate=2026-01-01"));
+
+        assertThat(tagOf(get("/api/reports/summary", "startDate=2026-02-01"))).isNotEqualTo(etag);
+        assertThat(tagOf(get("/api/reports/balance", "startDate=2026-01-01"))).isNotEqualTo(etag);
+
+        when(cursors.findSeqByUserId(1L)).thenReturn(Optional.of(42L));
+        assertThat(tagOf(get("/api/reports/summary", "startDate=2026-01-01"))).isNotEqualTo(etag);
+
+        login(2L);
+        when(cursors.findSeqByUserId(2L)).thenReturn(Optional.of(41L));
+        assertThat(tagOf(get("/api/reports/summary", "startDate=2026-01-01"))).isNotEqualTo(etag);
+
+        MockHttpServletRequest request = get("/api/reports/summary", null);
+        LocalDate today = LocalDate.now();
+        assertThat(DataVersionInterceptor.etag(1L, 41L, today, request))
+            .isNotEqualTo(DataVersionInterceptor.etag(1L, 41L, today.plusDays(1), request));
+    }
+
+    @Test
+    void unannotatedHandler_orAnonymousRequest_isUntouched() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(get("/api/sync", null), response, handler("plain"))).isTrue();
+        assertThat(response.getHeader("ETag")).isNull();
+
+        SecurityContextHolder.clearContext();
+        assertThat(interceptor.preHandle(get("/api/reports/summary", null), response, handler("versioned"))).isTrue();
+        assertThat(response.getHeader("ETag")).isNull();
+        verify(cursors, never()).findSeqByUserId(any());
+    }
+
+    @Test
+    void version_isReadInNamedReadOnlyTransaction() throws Exception {
+        tagOf(get("/api/reports/summary", null));
+
+        verify(transactionManager).getTransaction(argThat(definition ->
+            definition.isReadOnly() && DataVersionInterceptor.TRANSACTION_NAME.equals(definition.getName())));
+    }
+
+    @Test
+    void laggingReplica_tagsWithTheReplicasVersion() throws Exception {
+        DataSource primary = h2("version_primary", 42);
+        DataSource replica = h2("version_replica", 41);
+        DataSource routed = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+            primary, replica, new ReadYourWritesGuard(0), 10_000));
+        JdbcTemplate jdbc = new JdbcTemplate(routed);
+        when(cursors.findSeqByUserId(1L)).thenAnswer(inv -> Optional.ofNullable(
+            jdbc.queryForObject("SELECT seq FROM sync_cursors WHERE user_id = 1", Long.class)));
+        interceptor = interceptor(new DataSourceTransactionManager(routed));
+        try {
+            // the handler's read-only reads see the replica at 41, so the tag must not claim 42
+            assertThat(tagOf(get("/api/reports/summary", null))).startsWith("W/\"41-");
+        } finally {
+            new JdbcTemplate(primary).execute("DROP TABLE sync_cursors");
+            new JdbcTemplate(replica).execute("DROP TABLE sync_cursors");
+        }
+    }
+
+    private DataVersionInterceptor interceptor(PlatformTransactionManager transactions) {
+        return new DataVersionInterceptor(provider(cursors), provider(transactions), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+
+    private static DataSource h2(String name, long seq) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute(
+            "CREATE TABLE sync_cursors(user_id BIGINT, seq BIGINT); INSERT INTO sync_cursors VALUES (1, " + seq + ")");
+        return dataSource;
+    }
+
+    private String tagOf(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handler("versioned"));
+        return response.getHeader("ETag");
+    }
+
+    private static MockHttpServletRequest get(String uri, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setQueryString(query);
+        return request;
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    private static void login(Long userId) {
+        CustomUserDetails user = new CustomUserDetails(userId, "user" + userId, "pw");
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    public static class Handlers {
+
+        @ConditionalGet
+        public String versioned() {
+            return "versioned";
+        }
+
+        public String plain() {
+            return "plain";
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package JK.pfm.config;
+
+import JK.pfm.security.CustomUserDetails;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two in-memory H2 databases, each holding a single row naming itself.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        new JdbcTemplate(primary).execute("CREATE TABLE node(name VARCHAR(20)); INSERT INTO node VALUES ('primary')");
+        new JdbcTemplate(replica).execute("CREATE TABLE node(name VARCHAR(20)); INSERT INTO node VALUES ('replica')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("DROP TABLE node");
+        new JdbcTemplate(replica).execute("DROP TABLE IF EXISTS node");
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransaction_usesReplica() {
+        DataSource routed = routed(replica, 0);
+
+        assertThat(node(routed, true, "JK.pfm.service.ReportService.getChanges")).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransaction_usesPrimary() {
+        DataSource routed = routed(replica, 0);
+
+        assertThat(node(routed, false, "JK.pfm.service.TransactionService.saveTransaction")).isEqualTo("primary");
+    }
+
+    @Test
+    void springDataDefaultTransaction_usesPrimary() {
+        DataSource routed = routed(replica, 0);
+
+        assertThat(node(routed, true, "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById"))
+            .isEqualTo("primary");
+    }
+
+    @Test
+    void unnamedReadOnlyTransaction_usesPrimary() {
+        DataSource routed = routed(replica, 0);
+
+        assertThat(node(routed, true, null)).isEqualTo("primary");
+    }
+
+    @Test
+    void readAfterOwnWrite_staysOnPrimaryWithinWindow() {
+        DataSource routed = routed(replica, 60_000);
+        authenticate(1L);
+
+        assertThat(node(routed, true, "JK.pfm.service.ReportService.getChanges")).isEqualTo("replica");
+        node(routed, false, "JK.pfm.service.TransactionService.saveTransaction");
+        assertThat(node(routed, true, "JK.pfm.service.ReportService.getChanges")).isEqualTo("primary");
+
+        // other users are unaffected
+        authenticate(2L);
+        assertThat(node(routed, true, "JK.pfm.service.ReportService.getChanges")).isEqualTo("replica");
+    }
+
+    @Test
+    void replicaDown_fallsBackToPrimary() {
+        DataSource broken = new DriverManagerDataSource("jdbc:h2:mem:unused;IFEXISTS=TRUE", "sa", "");
+        DataSource routed = routed(broken, 0);
+
+        assertThat(node(routed, true, "JK.pfm.service.ReportService.getChanges")).isEqualTo("primary");
+    }
+
+    private DataSource routed(DataSource replicaTarget, long readYourWritesMillis) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+            primary, replicaTarget, new ReadYourWritesGuard(readYourWritesMillis), 10_000));
+    }
+
+    private static String node(DataSource dataSource, boolean readOnly, String txName) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        tx.setName(txName);
+        return tx.execute(status ->
+            new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static void authenticate(Long userId) {
+        CustomUserDetails user = new CustomUserDetails(userId, "user" + userId, "pw");
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -1,6 +1,7 @@
 package JK.pfm.controller;  // <-- match your real package!
 
 import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.BudgetVsActualDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import JK.pfm.dto.UpdateBudgetAmountDto;
 import JK.pfm.dto.filters.DateRangeFilter;
@@ -141,6 +142,21 @@ void getTotalSpentOnBudget_returnsAmount() throws Exception {
         .andExpect(content().string("75.50"));
 }
 
+@Test
+void getBudgetsVsActual_returnsRowsForPeriod() throws Exception {
+    when(budgetService.getBudgetsVsActual(any(DateRangeFilter.class))).thenReturn(List.of(
+        new BudgetVsActualDTO(3L, "Food", new BigDecimal("300.00"), new BigDecimal("120.50"))));
+
+    mockMvc.perform(get("/api/budgets/vs-actual")
+            .param("startDate", "2025-01-01")
+            .param("endDate", "2025-01-31"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].budgetId").value(3))
+        .andExpect(jsonPath("$[0].category").value("Food"))
+        .andExpect(jsonPath("$[0].actual").value(120.50))
+        .andExpect(jsonPath("$[0].difference").value(179.50));
+}
+
 @Test
 void updateMonthlyStatus_returnsBudget() throws Exception {
     Budget toggled = new Budget(); toggled.setId(9L); toggled.setMonthly(true);
@@ -0,0 +1,100 @@
+package JK.pfm.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import JK.pfm.dto.CategoryRuleCreationRequest;
+import JK.pfm.model.Category;
+import JK.pfm.model.CategoryRule;
+import JK.pfm.security.CustomUserDetailsService;
+import JK.pfm.service.CategoryRuleService;
+import JK.pfm.util.JWTUtil;
+import JK.pfm.util.SecurityUtil;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CategoryRuleController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class CategoryRuleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private CategoryRuleService categoryRuleService;
+
+    @MockitoBean
+    private SecurityUtil securityUtil;
+
+    @MockitoBean
+    private JWTUtil jwtUtil;
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    void getRules_returnsList() throws Exception {
+        CategoryRule rule = new CategoryRule("KEYWORD", "rimi", new Category("Food"), null);
+        rule.setId(4L);
+        when(categoryRuleService.getRules()).thenReturn(List.of(rule));
+
+        mockMvc.perform(get("/api/category-rules"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].pattern").value("rimi"))
+            .andExpect(jsonPath("$[0].category.name").value("Food"));
+    }
+
+    @Test
+    void createRule_returnsCreated() throws Exception {
+        CategoryRule saved = new CategoryRule("PREFIX", "salary", null, null);
+        saved.setId(9L);
+        when(categoryRuleService.saveRule(any(CategoryRuleCreationRequest.class))).thenReturn(saved);
+
+        mockMvc.perform(post("/api/category-rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CategoryRuleCreationRequest("PREFIX", "salary", 3L))))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Location", endsWith("/api/category-rules/9")))
+            .andExpect(jsonPath("$.id").value(9));
+    }
+
+    @Test
+    void createRule_invalidRequest_returnsBadRequest() throws Exception {
+        CategoryRuleCreationRequest request = new CategoryRuleCreationRequest("AMOUNT", null, 3L);
+
+        mockMvc.perform(post("/api/category-rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isBadRequest());
+
+        request.setMatchType("FUZZY");
+        request.setPattern("x");
+        mockMvc.perform(post("/api/category-rules")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(categoryRuleService);
+    }
+
+    @Test
+    void deleteRule_returnsNoContent() throws Exception {
+        mockMvc.perform(delete("/api/category-rules/9"))
+            .andExpect(status().isNoContent());
+
+        verify(categoryRuleService).deleteRule(9L);
+    }
+}
@@ -1,6 +1,7 @@
 package JK.pfm.controller;  // <-- match your real package!
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import JK.pfm.dto.CashFlowProjectionDTO;
 import JK.pfm.dto.RecurringExpenseCreation;
 import JK.pfm.dto.UpdatePaymentAmountDto;
 import JK.pfm.dto.UpdatePaymentNextDueDateDto;
@@ -127,6 +128,27 @@ void getNextPayments_returnsList() throws Exception {
     verify(recurringExpenseService).getUpcommingRecurringExpense();
 }
 
+// GET /api/recurring-expenses/projection
+@Test
+void getCashFlowProjection_returnsProjection() throws Exception {
+    LocalDate day = LocalDate.of(2026, 11, 1);
+    CashFlowProjectionDTO projection = new CashFlowProjectionDTO(day, day.plusMonths(6),
+        List.of(new CashFlowProjectionDTO.AccountProjection(1L, "main", new BigDecimal("100"),
+            new BigDecimal("-20"), new BigDecimal("-20"), day, day)),
+        List.of(new CashFlowProjectionDTO.ProjectedDay(day,
+            List.of(new CashFlowProjectionDTO.ProjectedPayment(3L, "rent", 1L, new BigDecimal("120"))),
+            List.of(new CashFlowProjectionDTO.AccountBalance(1L, new BigDecimal("-20"))))));
+    when(recurringExpenseService.getCashFlowProjection(6)).thenReturn(projection);
+
+    mockMvc.perform(get("/api/recurring-expenses/projection").param("months", "6"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.accounts[0].overdraftDate").value("2026-11-01"))
+        .andExpect(jsonPath("$.days", hasSize(1)))
+        .andExpect(jsonPath("$.days[0].payments[0].recurringExpenseId").value(3));
+
+    verify(recurringExpenseService).getCashFlowProjection(6);
+}
+
 // DELETE /api/recurring-expenses/{id}
 @Test
 void deleteRecurringExpense_returnsNoContent() throws Exception {
@@ -6,12 +6,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import JK.pfm.dto.ChangesVsLastMonthDTO;
 import JK.pfm.dto.ExpenseByAccountDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
+import JK.pfm.dto.PeriodComparisonDTO;
 import JK.pfm.dto.filters.DateRangeFilter;
+import JK.pfm.dto.filters.PeriodComparisonFilter;
 import JK.pfm.security.CustomUserDetailsService;
 import JK.pfm.service.ReportService;
 import JK.pfm.util.JWTUtil;
 import JK.pfm.util.SecurityUtil;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -229,4 +232,36 @@ void getAmountChanges_returnsList() throws Exception {
     verify(reportService).getChanges();
 }
 
+// GET /api/reports/compare
+@Test
+void comparePeriods_customRange_returnsComparison() throws Exception {
+    PeriodComparisonDTO dto = new PeriodComparisonDTO(
+        LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31),
+        List.of(new PeriodComparisonDTO.Metric("Income", new BigDecimal("150"), new BigDecimal("100"), new BigDecimal("50"))));
+    when(reportService.comparePeriods(any(PeriodComparisonFilter.class))).thenReturn(dto);
+
+    mockMvc.perform(get("/api/reports/compare")
+            .param("period", "CUSTOM")
+            .param("startDate", "2026-03-01")
+            .param("endDate", "2026-03-31")
+            .param("previousStartDate", "2025-03-01")
+            .param("previousEndDate", "2025-03-31"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.previousStart").value("2025-03-01"))
+        .andExpect(jsonPath("$.metrics[0].name").value("Income"))
+        .andExpect(jsonPath("$.metrics[0].percentage").value(50));
+
+    verify(reportService).comparePeriods(argThat(f ->
+        f.getPeriod() == PeriodComparisonFilter.Period.CUSTOM
+            && LocalDate.of(2025, 3, 31).equals(f.getPreviousEndDate())));
+}
+
+@Test
+void comparePeriods_customWithoutDates_returns400() throws Exception {
+    mockMvc.perform(get("/api/reports/compare").param("period", "CUSTOM"))
+        .andExpect(status().isBadRequest());
+
+    verify(reportService, never()).comparePeriods(any());
+}
+
 }
@@ -2,6 +2,8 @@ package JK.pfm.controller;  // <-- match your real package!
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.TransactionSearchPage;
+import JK.pfm.dto.filters.TransactionSearchFilter;
 import JK.pfm.model.Transaction;
 import JK.pfm.security.CustomUserDetails;
 import JK.pfm.security.CustomUserDetailsService;
@@ -182,5 +184,39 @@ void getRecentTransactions_returnsList() throws Exception {
     verify(transactionService).getRecentTransactions();
 }
 
-   
+// GET /api/transactions/search
+@Test
+void searchTransactions_returnsPage() throws Exception {
+    Transaction t = new Transaction(); t.setId(21L); t.setDescription("Netflix");
+    when(transactionService.searchTransactions(any(TransactionSearchFilter.class)))
+        .thenReturn(new TransactionSearchPage(List.of(t), LocalDate.of(2026, 5, 1), 21L));
+
+    mockMvc.perform(get("/api/transactions/search")
+            .param("q", "net")
+            .param("type", "Expense")
+            .param("afterDate", "2026-06-01")
+            .param("afterId", "40")
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.transactions", hasSize(1)))
+        .andExpect(jsonPath("$.transactions[0].id").value(21))
+        .andExpect(jsonPath("$.nextDate").value("2026-05-01"))
+        .andExpect(jsonPath("$.nextId").value(21));
+
+    verify(transactionService).searchTransactions(argThat(f ->
+        f.getQ().equals("net") && f.getAfterId() == 40L && f.getLimit() == 1
+            && f.getAfterDate().equals(LocalDate.of(2026, 6, 1))));
+}
+
+@Test
+void searchTransactions_invalidRequest_returnsBadRequest() throws Exception {
+    mockMvc.perform(get("/api/transactions/search"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/transactions/search").param("q", "net").param("afterId", "40"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/transactions/search").param("q", "net").param("limit", "500"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(transactionService);
+}
 }
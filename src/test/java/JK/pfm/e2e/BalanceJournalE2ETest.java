@@ -0,0 +1,144 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BalanceEntryRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.AccountBalanceService;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Concurrent balance updates with the balance journal enabled: debits must never overdraw an
+ * account, credits must all land, and compaction must fold them into the checkpoint.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_balance_journal;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "pfm.balance.journal.enabled=true",
+    // compaction is triggered by the test
+    "pfm.balance.journal.compact-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BalanceJournalE2ETest {
+
+    private static final int THREADS = 10;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private BalanceEntryRepository balanceEntryRepository;
+    @Autowired private AccountBalanceService balances;
+
+    private String token;
+    private Long foodId;
+
+    @BeforeAll
+    void registerUser() throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto("journal-user", "P@ssword123"))))
+            .andExpect(status().isCreated());
+        token  = JWTUtil.generateToken("journal-user");
+        foodId = categoryRepository.findIdByName("Food").orElseThrow();
+    }
+
+    @Test
+    void concurrentExpenses_neverOverdraw() throws Exception {
+        Account account = newAccount("Spending", "100");
+
+        List<Integer> statuses = concurrently(() -> createTransaction(account, "30", "Expense"));
+
+        assertThat(statuses).filteredOn(s -> s == 201).hasSize(3);
+        assertThat(statuses).filteredOn(s -> s == 409).hasSize(THREADS - 3);
+        assertThat(balanceOf(account)).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void concurrentDeposits_allApplied_thenCompacted() throws Exception {
+        Account account = newAccount("Income", "100");
+
+        List<Integer> statuses = concurrently(() -> createTransaction(account, "5", "Deposit"));
+
+        assertThat(statuses).containsOnly(201);
+        // credits are journaled, the checkpoint is untouched until compaction
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("100");
+        assertThat(balanceOf(account)).isEqualByComparingTo("150");
+        // the account list shows the pending credits too
+        String listed = mockMvc.perform(get("/api/accounts").header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<Number>>read(listed, "$[?(@.id == " + account.getId() + ")].amount"))
+            .singleElement()
+            .satisfies(amount -> assertThat(new BigDecimal(amount.toString())).isEqualByComparingTo("150"));
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("100");
+
+        balances.compact();
+
+        assertThat(balanceEntryRepository.sumPending(account.getId())).isEqualByComparingTo("0");
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("150");
+        assertThat(balanceEntryRepository.findByAccountIdOrderByIdDesc(account.getId())).hasSize(THREADS);
+    }
+
+    private Account newAccount(String name, String amount) {
+        User user = userRepository.findByUsername("journal-user").orElseThrow();
+        return accountRepository.save(new Account(name, new BigDecimal(amount), user));
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return balances.balanceOf(accountRepository.findById(account.getId()).orElseThrow());
+    }
+
+    private int createTransaction(Account account, String amount, String type) throws Exception {
+        String body = objectMapper.writeValueAsString(new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal(amount), foodId, account.getName(), type, "journal"));
+        return mockMvc.perform(post("/api/transactions")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andReturn().getResponse().getStatus();
+    }
+
+    private List<Integer> concurrently(Callable<Integer> request) throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(request));
+            }
+        }
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> future : futures) {
+            statuses.add(future.get());
+        }
+        return statuses;
+    }
+}
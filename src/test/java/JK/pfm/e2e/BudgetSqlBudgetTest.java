@@ -0,0 +1,41 @@
+package JK.pfm.e2e;
+
+import JK.pfm.Util.SqlBudgetTestSupport;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and row budgets for the {@code /api/budgets} read endpoints, checked against a
+ * small and a large dataset.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BudgetSqlBudgetTest extends SqlBudgetTestSupport {
+
+    private final Map<Integer, String> tokens = new HashMap<>();
+
+    @BeforeAll
+    void seed() throws Exception {
+        tokens.put(SMALL, seedUser("budget-budget-small", SMALL));
+        tokens.put(LARGE, seedUser("budget-budget-large", LARGE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void budgetsVsActual(int size) throws Exception {
+        String token = tokens.get(size);
+
+        // one query reads every budget's spending counter, however many transactions they
+        // cover, plus the data version lookup for the ETag
+        sqlBudget.assertWithin("GET /api/budgets/vs-actual [" + size + " txns]", 3, 5,
+            () -> mockMvc.perform(auth(get("/api/budgets/vs-actual"), token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3)));
+    }
+}
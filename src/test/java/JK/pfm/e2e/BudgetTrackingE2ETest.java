@@ -0,0 +1,198 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.UpdateBudgetAmountDto;
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.OutboxEventRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.budget.BudgetTracker;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Budget spending counters: kept up to date by expense writes, started from existing expenses,
+ * backfilled for old budgets, and raising a threshold alert once per crossing.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_budget_tracking;DB_CLOSE_DELAY=-1",
+    "pfm.budgets.alert-thresholds=80,100",
+    "pfm.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BudgetTrackingE2ETest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private BudgetRepository budgetRepository;
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @Autowired private BudgetTracker budgetTracker;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate monthStart = today.withDayOfMonth(1);
+    private final LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
+
+    private String token;
+    private User user;
+    private Category food;
+    private Long budgetId;
+    private Long dinnerId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        user  = register("tracking-user");
+        token = JWTUtil.generateToken("tracking-user");
+        food  = categoryRepository.findById(categoryRepository.findIdByName("Food").orElseThrow()).orElseThrow();
+        Account main = accountRepository.save(new Account("Main", new BigDecimal("1000"), user));
+        // spent before the budget exists
+        transactionRepository.save(new Transaction(monthStart, new BigDecimal("20"), main, food, "Expense", "groceries"));
+        transactionRepository.save(new Transaction(monthStart, new BigDecimal("500"), main, food, "Deposit", "refund"));
+    }
+
+    @Test
+    @Order(1)
+    void newBudget_startsFromExistingExpenses() throws Exception {
+        String body = mockMvc.perform(post("/api/budgets")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new BudgetCreationRequest(new BigDecimal("100"), monthStart, monthEnd, food.getId())))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        JsonNode budget = objectMapper.readTree(body);
+        budgetId = budget.get("id").asLong();
+
+        assertThat(budget.get("spent").decimalValue()).isEqualByComparingTo("20");
+        assertThat(budget.has("alertLevel")).isFalse();
+    }
+
+    @Test
+    @Order(2)
+    void expenses_updateCounter_andAlertOncePerThreshold() throws Exception {
+        expense("35.00", "lunch");
+        assertThat(spent()).isEqualByComparingTo("55");
+        assertThat(alerts()).isEmpty();
+
+        dinnerId = expense("30.00", "dinner");
+        expense("5.00", "snack");
+        assertThat(spent()).isEqualByComparingTo("90");
+        assertThat(alerts()).extracting(this::threshold).containsExactly(80);
+
+        expense("10.00", "coffee");
+        assertThat(spent()).isEqualByComparingTo("100");
+        assertThat(alerts()).extracting(this::threshold).containsExactly(80, 100);
+    }
+
+    @Test
+    @Order(3)
+    void deletedExpense_reducesCounter_andRearmsThreshold() throws Exception {
+        mockMvc.perform(delete("/api/transactions/{id}", dinnerId).header("Authorization", "Bearer " + token))
+            .andExpect(status().is2xxSuccessful());
+        assertThat(spent()).isEqualByComparingTo("70");
+
+        expense("15.00", "takeaway");
+        assertThat(spent()).isEqualByComparingTo("85");
+        assertThat(alerts()).extracting(this::threshold).containsExactly(80, 100, 80);
+    }
+
+    @Test
+    @Order(4)
+    void loweredAmount_raisesAlert() throws Exception {
+        mockMvc.perform(patch("/api/budgets/{id}", budgetId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UpdateBudgetAmountDto(new BigDecimal("80"))))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().is2xxSuccessful());
+
+        assertThat(alerts()).extracting(this::threshold).containsExactly(80, 100, 80, 100);
+    }
+
+    @Test
+    @Order(5)
+    void budgetsWithoutCounter_areBackfilled() {
+        Budget old = new Budget(new BigDecimal("50"), monthStart, monthEnd, food, user);
+        old = budgetRepository.save(old);
+        assertThat(old.getSpent()).isNull();
+
+        budgetTracker.backfill();
+
+        assertThat(budgetRepository.findById(old.getId()).orElseThrow().getSpent()).isEqualByComparingTo("85");
+    }
+
+    private Long expense(String amount, String description) throws Exception {
+        String body = mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new TransactionCreationRequest(today, new BigDecimal(amount), food.getId(), "Main", "Expense", description)))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private BigDecimal spent() {
+        return budgetRepository.findById(budgetId).orElseThrow().getSpent();
+    }
+
+    private List<OutboxEvent> alerts() {
+        return outboxEventRepository.findPending(PageRequest.of(0, 1000)).stream()
+            .filter(e -> OutboxEvent.BUDGET_THRESHOLD.equals(e.getEventType()))
+            .peek(e -> assertThat(e.getAggregateId()).isEqualTo(budgetId))
+            .toList();
+    }
+
+    private int threshold(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload()).get("threshold").asInt();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private User register(String username) throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto(username, "P@ssword123"))))
+            .andExpect(status().isCreated());
+        return userRepository.findByUsername(username).orElseThrow();
+    }
+}
@@ -0,0 +1,178 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.Category;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Full-account export: every format streams the authenticated user's rows only, transactions
+ * include the archive, and bad data set or format names are rejected.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_export;DB_CLOSE_DELAY=-1",
+    "pfm.transactions.archive.enabled=true",
+    "pfm.transactions.archive.horizon-months=12",
+    "pfm.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportE2ETest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private BudgetRepository budgetRepository;
+    @Autowired private SavingsGoalRepository savingsGoalRepository;
+    @Autowired private TransactionArchiveService archive;
+
+    private String token;
+    private LocalDate old;
+
+    @BeforeAll
+    void seed() throws Exception {
+        User user  = register("export-user");
+        User other = register("export-other");
+        token = JWTUtil.generateToken("export-user");
+
+        Category food = categoryRepository.findById(categoryRepository.findIdByName("Food").orElseThrow()).orElseThrow();
+        Account main  = accountRepository.save(new Account("Main", new BigDecimal("70"), user));
+        Account spare = accountRepository.save(new Account("Spare", BigDecimal.ZERO, other));
+
+        old = archive.horizon().minusMonths(3);
+        transactionRepository.save(new Transaction(old, new BigDecimal("100"), main, food, "Deposit", "old, archived"));
+        transactionRepository.save(new Transaction(LocalDate.now(), new BigDecimal("30.50"), main, food, "Expense", "lunch"));
+        transactionRepository.save(new Transaction(LocalDate.now(), new BigDecimal("5"), spare, food, "Expense", "not mine"));
+        assertThat(archive.archive()).isEqualTo(1);
+
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        budgetRepository.save(new Budget(new BigDecimal("250"), month, month.plusMonths(1).minusDays(1), food, user));
+        savingsGoalRepository.save(new SavingsGoal("Trip", new BigDecimal("1200"), "summer", user));
+    }
+
+    @Test
+    void transactionsCsv_gzipped_includesArchivedRows() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/export/transactions")
+                .param("gzip", "true")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/gzip"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv.gz\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        String[] lines = gunzip(body).split("\r\n");
+        assertThat(lines[0]).isEqualTo("id,date,type,amount,account,category,description");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).endsWith(",Expense,30.50,Main,Food,lunch");
+        assertThat(lines[2]).endsWith("," + old + ",Deposit,100.00,Main,Food,\"old, archived\"");
+    }
+
+    @Test
+    void budgetsNdjson_writesOneObjectPerRow() throws Exception {
+        String body = mockMvc.perform(get("/api/export/budgets")
+                .param("format", "ndjson")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readTree(lines[0]).get("category").asText()).isEqualTo("Food");
+        assertThat(objectMapper.readTree(lines[0]).get("amount").decimalValue()).isEqualByComparingTo("250");
+    }
+
+    @Test
+    void savingsGoalsColumnar_startsWithFormatHeader() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/export/savings-goals")
+                .param("format", "columnar")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/vnd.pfm.columnar"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"savings-goals.pfmc\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(new String(body, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("PFMC");
+    }
+
+    @Test
+    void recurringExpenses_emptyDataSet_writesHeaderOnly() throws Exception {
+        String body = mockMvc.perform(get("/api/export/recurring-expenses")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).isEqualTo("id,name,amount,frequency,startDate,nextDueDate,lastPayment,active,account,category\r\n");
+    }
+
+    @Test
+    void unknownDataSet_returns404() throws Exception {
+        mockMvc.perform(get("/api/export/passwords").header("Authorization", "Bearer " + token))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unknownFormat_returns400() throws Exception {
+        mockMvc.perform(get("/api/export/transactions")
+                .param("format", "xlsx")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unauthenticated_isRejected() throws Exception {
+        mockMvc.perform(get("/api/export/transactions"))
+            .andExpect(status().is4xxClientError());
+    }
+
+    private User register(String username) throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto(username, "P@ssword123"))))
+            .andExpect(status().isCreated());
+        return userRepository.findByUsername(username).orElseThrow();
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package JK.pfm.e2e;
+
+import JK.pfm.Util.SqlBudgetTestSupport;
+import JK.pfm.dto.RecurringExpenseCreation;
+import JK.pfm.dto.SavingsFundTransferDTO;
+import JK.pfm.model.Account;
+import JK.pfm.model.Category;
+import JK.pfm.model.RecurringExpense;
+import JK.pfm.model.User;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.service.RecurringExpenseService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and row budgets for the write flows of {@code FullE2ETest}: fund transfers
+ * between accounts and into savings goals, recurring expense creation and the scheduled
+ * recurring payment run, checked against a small and a large dataset.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlowSqlBudgetTest extends SqlBudgetTestSupport {
+
+    /** Recurring expenses seeded per user, all due on every measured run. */
+    private static final int DUE_PER_USER = 2;
+
+    @Autowired private RecurringExpenseRepository recurringExpenseRepository;
+    @Autowired private RecurringExpenseService recurringExpenseService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, String> tokens = new HashMap<>();
+    private final Map<Integer, Long> checkingIds = new HashMap<>();
+    private final Map<Integer, Long> goalIds = new HashMap<>();
+    private final List<Long> dueExpenseIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() throws Exception {
+        Category rent = categoryRepository.findByName("Rent").orElseThrow();
+        for (int size : new int[] {SMALL, LARGE}) {
+            String username = "flow-budget-" + size;
+            tokens.put(size, seedUser(username, size));
+            User user = userRepository.findByUsername(username).orElseThrow();
+            Account checking = accountRepository.findByUserIdAndNameAndActiveTrue(user.getId(), "Checking").orElseThrow();
+            checkingIds.put(size, checking.getId());
+            goalIds.put(size, savingsGoalRepository.findAll().stream()
+                .filter(goal -> goal.getUser().getId().equals(user.getId()) && goal.getName().equals("Car"))
+                .findFirst().orElseThrow().getId());
+            for (int i = 0; i < DUE_PER_USER; i++) {
+                dueExpenseIds.add(recurringExpenseRepository.save(new RecurringExpense(
+                    "Rent " + i, new BigDecimal("10"), fixedDay(), "MONTHLY", checking, rent)).getId());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void transferBetweenAccounts(int size) throws Exception {
+        String body = objectMapper.writeValueAsString(new SavingsFundTransferDTO(BigDecimal.ONE, "Withdraw", "Card"));
+
+        // both accounts, two transactions with their duplicate checks and outbox rows, the budget
+        // index, both balance updates and their change feed entries
+        sqlBudget.assertWithin("PATCH /api/accounts/{id}/transfer-funds [" + size + " txns]", 21, 14,
+            () -> mockMvc.perform(auth(patch("/api/accounts/" + checkingIds.get(size) + "/transfer-funds"), tokens.get(size))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void transferIntoSavingsGoal(int size) throws Exception {
+        String body = objectMapper.writeValueAsString(new SavingsFundTransferDTO(BigDecimal.ONE, "Deposit", "Checking"));
+
+        sqlBudget.assertWithin("PATCH /api/savings-goals/{id}/transfer-funds [" + size + " txns]", 16, 10,
+            () -> mockMvc.perform(auth(patch("/api/savings-goals/" + goalIds.get(size) + "/transfer-funds"), tokens.get(size))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void createRecurringExpense(int size) throws Exception {
+        Long rent = categoryRepository.findIdByName("Rent").orElseThrow();
+        AtomicInteger run = new AtomicInteger();
+
+        sqlBudget.assertWithin("POST /api/recurring-expenses [" + size + " txns]", 8, 6,
+            () -> mockMvc.perform(auth(post("/api/recurring-expenses"), tokens.get(size))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new RecurringExpenseCreation(
+                        "Gym " + run.incrementAndGet(), fixedDay().plusDays(1), new BigDecimal("30"), rent, "Checking", "MONTHLY"))))
+                .andExpect(status().isCreated()));
+    }
+
+    @Test
+    void recurringPaymentRun() throws Exception {
+        int due = dueExpenseIds.size();
+
+        // lease bookkeeping, the due-expense query, account loads and per-user cursor updates are
+        // fixed; every due expense costs its transaction, outbox row, budget check, balance and
+        // schedule updates and their change feed entries
+        sqlBudget.assertWithin("recurring-expenses job [" + due + " due]", 13 + 10L * due, 8 + 5L * due,
+            this::makeSeededExpensesDue,
+            () -> recurringExpenseService.processRecurringExpenses());
+    }
+
+    private void makeSeededExpensesDue() {
+        List<RecurringExpense> expenses = recurringExpenseRepository.findAllById(dueExpenseIds);
+        expenses.forEach(expense -> expense.setNextDueDate(LocalDate.now()));
+        recurringExpenseRepository.saveAll(expenses);
+        // a finished run holds the job's lease until the next schedule; end it so the run is repeated
+        jdbcTemplate.update("UPDATE job_leases SET lease_until = ? WHERE name = 'recurring-expenses'",
+            LocalDate.now().minusDays(1).atStartOfDay());
+    }
+}
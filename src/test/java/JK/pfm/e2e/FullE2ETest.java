@@ -8,6 +8,7 @@ import JK.pfm.dto.CashFlowDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
 import JK.pfm.dto.RecurringExpenseCreation;
 import JK.pfm.dto.SavingGoalCreation;
+import JK.pfm.dto.SyncResponse;
 import JK.pfm.dto.TransactionCreationRequest;
 import JK.pfm.dto.UserLoginRequest;
 import JK.pfm.dto.UserRegistrationDto;
@@ -15,30 +16,47 @@ import JK.pfm.dto.UserSettingsDto;
 import JK.pfm.model.Account;
 import JK.pfm.model.Budget;
 import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.model.RecurringExpense;
 import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.Transaction;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.OutboxService;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
+@AutoConfigureObservability
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class FullE2ETest {
     
@@ -54,6 +72,12 @@ public class FullE2ETest {
     private CategoryRepository categoryRepository;
     @Autowired
     private AccountRepository repo;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OutboxService outbox;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     private String baseUrl;
     private String jwtToken;
@@ -422,4 +446,187 @@ public class FullE2ETest {
     }
 
 
+    @Test
+    @Order(17)
+    void testHealthReportsDatabase() {
+    ResponseEntity<String> api = restTemplate.getForEntity(baseUrl + "/api/health", String.class);
+    ResponseEntity<Map> actuator = restTemplate.getForEntity(baseUrl + "/actuator/health", Map.class);
+
+    assertEquals(HttpStatus.OK, api.getStatusCode());
+    assertEquals(HttpStatus.OK, actuator.getStatusCode());
+    assertEquals("UP", actuator.getBody().get("status"));
+    assertTrue(((Map<?, ?>) actuator.getBody().get("components")).containsKey("db"),
+      "Health should include the database indicator");
+    }
+
+    @Test
+    @Order(18)
+    void testPrometheusExposesHotPathMetrics() {
+    ResponseEntity<String> anonymous = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+    assertEquals(HttpStatus.FORBIDDEN, anonymous.getStatusCode(),
+      "Prometheus scrape on the API port requires a token");
+
+    ResponseEntity<String> resp = restTemplate.exchange(
+      baseUrl + "/actuator/prometheus", HttpMethod.GET, withAuth(null), String.class);
+
+    assertEquals(HttpStatus.OK, resp.getStatusCode());
+    String body = resp.getBody();
+    assertNotNull(body);
+    assertAll(
+      () -> assertTrue(body.contains("http_server_requests_seconds_bucket"), "endpoint latency histogram"),
+      () -> assertTrue(body.contains("pfm_transaction_save_seconds_bucket"), "saveTransaction timer"),
+      () -> assertTrue(body.contains("pfm_transaction_save_calls_total"), "saveTransaction counter"),
+      () -> assertTrue(body.contains("pfm_security_jwt_seconds_bucket"), "JWT filter timer"),
+      () -> assertTrue(body.contains("pfm_http_sql_statements_count{"), "SQL statements per request"),
+      () -> assertTrue(body.contains("hikaricp_connections_acquire_seconds"), "Hikari pool wait time")
+    );
+    }
+
+    @Test
+    @Order(19)
+    void testSyncReturnsOnlyChangesSinceCursor() {
+    // full snapshot without a cursor
+    SyncResponse snapshot = sync(null);
+    assertTrue(snapshot.isFull());
+    assertTrue(snapshot.getCursor() > 0, "earlier writes advance the cursor");
+    assertEquals(1, snapshot.getAccounts().size());
+    assertEquals(3, snapshot.getTransactions().size());
+    long cursor = snapshot.getCursor();
+
+    // nothing changed since the snapshot
+    SyncResponse unchanged = sync(cursor);
+    assertAll(
+      () -> assertEquals(cursor, unchanged.getCursor()),
+      () -> assertTrue(unchanged.getTransactions().isEmpty()),
+      () -> assertTrue(unchanged.getDeleted().isEmpty())
+    );
+
+    // a new transaction returns just that transaction and its account
+    Category expenseCategory = categoryRepository.findByName("Some expense").orElseThrow();
+    var txn = new TransactionCreationRequest(
+      LocalDate.now(), new BigDecimal("5"), expenseCategory.getId(), "E2E Checking", "Expense", "sync");
+    Transaction created = restTemplate.postForEntity(
+        baseUrl + "/api/transactions", withAuth(txn), Transaction.class).getBody();
+    assertNotNull(created);
+
+    SyncResponse added = sync(cursor);
+    assertAll(
+      () -> assertFalse(added.isFull()),
+      () -> assertTrue(added.getCursor() > cursor),
+      () -> assertEquals(List.of(created.getId()), added.getTransactions().stream().map(Transaction::getId).toList()),
+      () -> assertEquals(List.of(accountId), added.getAccounts().stream().map(Account::getId).toList())
+    );
+
+    // deleting it leaves a tombstone
+    restTemplate.exchange(baseUrl + "/api/transactions/" + created.getId(),
+        HttpMethod.DELETE, withAuth(null), Void.class);
+    SyncResponse deleted = sync(added.getCursor());
+    assertAll(
+      () -> assertTrue(deleted.getTransactions().isEmpty()),
+      () -> assertEquals(1, deleted.getDeleted().size()),
+      () -> assertEquals("transaction", deleted.getDeleted().get(0).getType()),
+      () -> assertEquals(created.getId(), deleted.getDeleted().get(0).getId())
+    );
+
+    // closing an account is a tombstone, matching a fresh snapshot that leaves it out
+    Account spare = restTemplate.postForEntity(baseUrl + "/api/accounts",
+        withAuth(new AccountCreationRequest("E2E Spare", BigDecimal.ZERO)), Account.class).getBody();
+    assertNotNull(spare);
+    restTemplate.exchange(baseUrl + "/api/accounts/" + spare.getId(), HttpMethod.DELETE, withAuth(null), Void.class);
+    SyncResponse closed = sync(deleted.getCursor());
+    assertAll(
+      () -> assertTrue(closed.getAccounts().isEmpty()),
+      () -> assertEquals(1, closed.getDeleted().size()),
+      () -> assertEquals("account", closed.getDeleted().get(0).getType()),
+      () -> assertEquals(spare.getId(), closed.getDeleted().get(0).getId()),
+      () -> assertFalse(sync(null).getAccounts().stream().anyMatch(a -> a.getId().equals(spare.getId())))
+    );
+    }
+
+    @Test
+    @Order(20)
+    void testLiveStreamPushesCommittedTransaction() throws Exception {
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/live"))
+        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+        .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+        .build();
+    HttpClient client = HttpClient.newHttpClient();
+    try {
+      CompletableFuture<HttpResponse<Void>> stream = client.sendAsync(request,
+          HttpResponse.BodyHandlers.fromLineSubscriber(new LineCollector(lines)));
+      assertEquals("event:balance", awaitLine(lines, "event:"), "stream opens with the current balance");
+
+      Category expenseCategory = categoryRepository.findByName("Some expense").orElseThrow();
+      var txn = new TransactionCreationRequest(
+        LocalDate.now(), new BigDecimal("1"), expenseCategory.getId(), "E2E Checking", "Expense", "live");
+      Transaction created = restTemplate.postForEntity(
+          baseUrl + "/api/transactions", withAuth(txn), Transaction.class).getBody();
+      assertNotNull(created);
+
+      assertEquals("event:transaction-created", awaitLine(lines, "event:"));
+      String data = awaitLine(lines, "data:");
+      assertTrue(data.contains("\"transactionId\":" + created.getId()), data);
+      assertEquals("event:balance", awaitLine(lines, "event:"));
+      stream.cancel(true);
+    } finally {
+      // close() would wait for a stream left open by a failed assertion
+      client.shutdownNow();
+    }
+    }
+
+    @Test
+    @Order(21)
+    void testCommittedOutboxRowIsPushedToLiveStream() throws Exception {
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/live"))
+        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+        .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+        .build();
+    HttpClient client = HttpClient.newHttpClient();
+    try {
+      CompletableFuture<HttpResponse<Void>> stream = client.sendAsync(request,
+          HttpResponse.BodyHandlers.fromLineSubscriber(new LineCollector(lines)));
+      assertEquals("event:balance", awaitLine(lines, "event:"));
+
+      // nothing but the committed outbox row: the dispatcher has to deliver it to the stream
+      Long userId = userRepository.findByUsername(USERNAME).orElseThrow().getId();
+      new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+          outbox.append(userId, OutboxEvent.BUDGET_THRESHOLD, 42L, Map.of("budgetId", 42, "threshold", 80)));
+
+      assertEquals("event:budget-alert", awaitLine(lines, "event:"));
+      String data = awaitLine(lines, "data:");
+      assertTrue(data.contains("\"budgetId\":42") && data.contains("\"threshold\":80"), data);
+      stream.cancel(true);
+    } finally {
+      // close() would wait for a stream left open by a failed assertion
+      client.shutdownNow();
+    }
+    }
+
+    private static String awaitLine(BlockingQueue<String> lines, String prefix) throws InterruptedException {
+    while (true) {
+      String line = lines.poll(10, TimeUnit.SECONDS);
+      assertNotNull(line, "no '" + prefix + "' line within 10 s");
+      if (line.startsWith(prefix)) {
+        return line;
+      }
+    }
+    }
+
+    /** Collects the lines of a streamed response body. */
+    private record LineCollector(BlockingQueue<String> lines) implements Flow.Subscriber<String> {
+    @Override public void onSubscribe(Flow.Subscription subscription) { subscription.request(Long.MAX_VALUE); }
+    @Override public void onNext(String line) { lines.add(line); }
+    @Override public void onError(Throwable throwable) {}
+    @Override public void onComplete() {}
+    }
+
+    private SyncResponse sync(Long since) {
+    String url = baseUrl + "/api/sync" + (since == null ? "" : "?since=" + since);
+    ResponseEntity<SyncResponse> resp = restTemplate.exchange(url, HttpMethod.GET, withAuth(null), SyncResponse.class);
+    assertEquals(HttpStatus.OK, resp.getStatusCode());
+    return resp.getBody();
+    }
+
 }
\ No newline at end of file
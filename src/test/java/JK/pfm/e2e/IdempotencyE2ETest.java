@@ -0,0 +1,180 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.SavingsFundTransferDTO;
+import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.IdempotencyRecordRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Retries of mutating requests with an {@code Idempotency-Key}: the write must happen once and
+ * every retry must receive the first response.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_idempotency;DB_CLOSE_DELAY=-1",
+    "pfm.idempotency.max-body-bytes=4096"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyE2ETest {
+
+    private static final int THREADS = 8;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private String token;
+    private Long foodId;
+
+    @BeforeAll
+    void registerUser() throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto("idempotent-user", "P@ssword123"))))
+            .andExpect(status().isCreated());
+        token  = JWTUtil.generateToken("idempotent-user");
+        foodId = categoryRepository.findIdByName("Food").orElseThrow();
+    }
+
+    @Test
+    void retriedTransfer_movesFundsOnce() throws Exception {
+        Account from = newAccount("Transfer source", "100");
+        Account to = newAccount("Transfer target", "0");
+        String body = objectMapper.writeValueAsString(new SavingsFundTransferDTO(new BigDecimal("30"), "Deposit", from.getName()));
+
+        MockHttpServletResponse first = transfer(to, body, "transfer-1");
+        MockHttpServletResponse retry = transfer(to, body, "transfer-1");
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getHeader("Idempotency-Replayed")).isNull();
+        assertThat(retry.getStatus()).isEqualTo(200);
+        assertThat(retry.getHeader("Idempotency-Replayed")).isEqualTo("true");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getAmount()).isEqualByComparingTo("70");
+        assertThat(accountRepository.findById(to.getId()).orElseThrow().getAmount()).isEqualByComparingTo("30");
+
+        // a new key is a new transfer
+        transfer(to, body, "transfer-2");
+        assertThat(accountRepository.findById(from.getId()).orElseThrow().getAmount()).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void concurrentRetries_createOneTransaction() throws Exception {
+        Account account = newAccount("Retry storm", "500");
+        String body = objectMapper.writeValueAsString(new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("12.50"), foodId, account.getName(), "Expense", "retried coffee"));
+
+        List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> createTransaction(body, "coffee-1")));
+            }
+        }
+        List<String> bodies = new ArrayList<>();
+        for (Future<MockHttpServletResponse> future : futures) {
+            MockHttpServletResponse response = future.get();
+            assertThat(response.getStatus()).isEqualTo(201);
+            assertThat(response.getHeader("Location")).isNotNull();
+            bodies.add(response.getContentAsString());
+        }
+
+        assertThat(bodies).containsOnly(bodies.get(0));
+        assertThat(transactionRepository.findAll())
+            .filteredOn(t -> "retried coffee".equals(t.getDescription()))
+            .hasSize(1);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("487.50");
+    }
+
+    @Test
+    void reusedKey_withDifferentBody_isRejected() throws Exception {
+        Account account = newAccount("Reused key", "50");
+        String body = objectMapper.writeValueAsString(new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("5"), foodId, account.getName(), "Expense", "first use"));
+        String other = objectMapper.writeValueAsString(new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("6"), foodId, account.getName(), "Expense", "first use"));
+
+        assertThat(createTransaction(body, "reused-1").getStatus()).isEqualTo(201);
+        MockHttpServletResponse rejected = createTransaction(other, "reused-1");
+
+        assertThat(rejected.getStatus()).isEqualTo(422);
+        assertThat(rejected.getContentAsString()).contains("Idempotency-Key was already used for a different request");
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("45");
+        assertThat(idempotencyRecordRepository.findAll())
+            .filteredOn(r -> r.getIdemKey().equals("reused-1"))
+            .singleElement()
+            .satisfies(r -> {
+                assertThat(r.getResponseStatus()).isEqualTo(201);
+                assertThat(r.isExecuted()).isTrue();
+            });
+    }
+
+    @Test
+    void oversizedBody_isRejectedWith413() throws Exception {
+        Account account = newAccount("Oversized", "50");
+        String body = objectMapper.writeValueAsString(new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("5"), foodId, account.getName(), "Expense", "x".repeat(5000)));
+
+        MockHttpServletResponse rejected = createTransaction(body, "oversized-1");
+
+        assertThat(rejected.getStatus()).isEqualTo(413);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getAmount()).isEqualByComparingTo("50");
+        assertThat(idempotencyRecordRepository.findAll()).noneMatch(r -> r.getIdemKey().equals("oversized-1"));
+    }
+
+    private Account newAccount(String name, String amount) {
+        User user = userRepository.findByUsername("idempotent-user").orElseThrow();
+        return accountRepository.save(new Account(name, new BigDecimal(amount), user));
+    }
+
+    private MockHttpServletResponse transfer(Account account, String body, String key) throws Exception {
+        return mockMvc.perform(patch("/api/accounts/" + account.getId() + "/transfer-funds")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse createTransaction(String body, String key) throws Exception {
+        return mockMvc.perform(post("/api/transactions")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andReturn().getResponse();
+    }
+}
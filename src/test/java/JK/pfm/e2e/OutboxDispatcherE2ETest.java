@@ -0,0 +1,163 @@
+package JK.pfm.e2e;
+
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.repository.OutboxEventRepository;
+import JK.pfm.service.OutboxDispatcher;
+import JK.pfm.service.OutboxService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Outbox delivery against a real database: commit visibility, per-user ordering across
+ * failures, skipping of claimed events and giving up after the last attempt.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_outbox;DB_CLOSE_DELAY=-1",
+    // runs are triggered by the test
+    "pfm.outbox.poll-interval-ms=3600000",
+    "pfm.outbox.retry-backoff-ms=0",
+    "pfm.outbox.max-attempts=3"
+})
+@ActiveProfiles("test")
+class OutboxDispatcherE2ETest {
+
+    private static final Long ALICE = 1001L;
+    private static final Long BOB   = 1002L;
+
+    @Autowired private OutboxService outbox;
+    @Autowired private OutboxDispatcher dispatcher;
+    @Autowired private OutboxEventRepository repository;
+    @Autowired private RecordingListener listener;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        repository.deleteAll();
+        listener.received.clear();
+        listener.failures.clear();
+    }
+
+    @Test
+    void committedEvent_isDeliveredOnce() {
+        Long id = append(ALICE, OutboxEvent.ACCOUNT_CLOSED, Map.of("accountId", 5));
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+        assertThat(dispatcher.dispatch()).isZero();
+
+        assertThat(listener.received).extracting(OutboxEvent::getId).containsExactly(id);
+        assertThat(listener.received.get(0).getPayload()).isEqualTo("{\"accountId\":5}");
+        assertThat(repository.findById(id).orElseThrow().getProcessedAt()).isNotNull();
+    }
+
+    @Test
+    void rolledBackWrite_leavesNoEvent() {
+        tx.executeWithoutResult(status -> {
+            outbox.append(ALICE, OutboxEvent.ACCOUNT_CLOSED, 5L, Map.of());
+            status.setRollbackOnly();
+        });
+
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void failedEvent_holdsBackLaterEventsOfSameUserOnly() {
+        Long first  = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 1));
+        Long bob    = append(BOB, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 1));
+        Long second = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 2));
+        listener.failures.put(first, 1);
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+        assertThat(listener.received).extracting(OutboxEvent::getId).containsExactlyInAnyOrder(first, bob);
+        OutboxEvent retried = repository.findById(first).orElseThrow();
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).contains("listener failure");
+        assertThat(repository.findById(second).orElseThrow().getClaimToken()).isNull();
+
+        assertThat(dispatcher.dispatch()).isEqualTo(2);
+        assertThat(listener.received).filteredOn(e -> e.getUserId().equals(ALICE))
+            .extracting(OutboxEvent::getId).containsExactly(first, first, second);
+    }
+
+    @Test
+    void eventClaimedElsewhere_isSkippedWithUsersLaterEvents() {
+        Long claimed = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 1));
+        Long later   = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 2));
+        Long bob     = append(BOB, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 1));
+        LocalDateTime now = LocalDateTime.now();
+        tx.executeWithoutResult(status ->
+            repository.claim(List.of(claimed), "other-node", now.plusMinutes(1), now));
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+        assertThat(listener.received).extracting(OutboxEvent::getId).containsExactly(bob);
+        assertThat(repository.findById(later).orElseThrow().getProcessedAt()).isNull();
+    }
+
+    @Test
+    void lastAttempt_marksFailedAndUnblocksUser() {
+        Long poison = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 1));
+        Long next   = append(ALICE, OutboxEvent.TRANSACTION_CREATED, Map.of("n", 2));
+        listener.failures.put(poison, Integer.MAX_VALUE);
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+        OutboxEvent failed = repository.findById(poison).orElseThrow();
+        assertThat(failed.isFailed()).isTrue();
+        assertThat(failed.getAttempts()).isEqualTo(3);
+        assertThat(repository.findById(next).orElseThrow().getProcessedAt()).isNotNull();
+
+        // purging keeps failed events for inspection
+        tx.executeWithoutResult(status -> repository.deleteProcessedBefore(LocalDateTime.now().plusDays(1)));
+        assertThat(repository.findAll()).extracting(OutboxEvent::getId).containsExactly(poison);
+    }
+
+    private Long append(Long userId, String type, Object payload) {
+        return tx.execute(status -> outbox.append(userId, type, null, payload).getId());
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    /**
+     * Records every delivery; fails an event as many times as configured in {@link #failures}.
+     */
+    static class RecordingListener {
+
+        final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+        final Map<Long, Integer> failures = new ConcurrentHashMap<>();
+
+        @EventListener
+        public void on(OutboxEvent event) {
+            received.add(event);
+            Integer remaining = failures.computeIfPresent(event.getId(), (id, n) -> n - 1);
+            if (remaining != null && remaining >= 0) {
+                throw new IllegalStateException("listener failure");
+            }
+        }
+    }
+}
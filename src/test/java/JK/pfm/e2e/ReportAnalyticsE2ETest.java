@@ -0,0 +1,187 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.ChangeAccountNameDto;
+import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.Category;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reports served from the in-memory columns: results match the SQL queries, and writes made
+ * after the columns were loaded show up through the change feed.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_analytics;DB_CLOSE_DELAY=-1",
+    "pfm.analytics.enabled=true",
+    "pfm.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReportAnalyticsE2ETest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private final LocalDate today = LocalDate.now();
+    private String token;
+    private Account main;
+    private Long foodId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        User user  = register("analytics-user");
+        User other = register("analytics-other");
+        token = JWTUtil.generateToken("analytics-user");
+
+        foodId = categoryRepository.findIdByName("Food").orElseThrow();
+        Category food = categoryRepository.findById(foodId).orElseThrow();
+        main = accountRepository.save(new Account("Main", new BigDecimal("1000"), user));
+        Account spare = accountRepository.save(new Account("Spare", new BigDecimal("1000"), other));
+
+        transactionRepository.save(new Transaction(today, new BigDecimal("12.40"), main, food, "Expense", "lunch"));
+        transactionRepository.save(new Transaction(today, new BigDecimal("7.60"), main, food, "Expense", "coffee"));
+        transactionRepository.save(new Transaction(today, new BigDecimal("500"), main, food, "Deposit", "refund"));
+        transactionRepository.save(new Transaction(today, new BigDecimal("99"), spare, food, "Expense", "not mine"));
+    }
+
+    @Test
+    @Order(1)
+    void summary_matchesSql() throws Exception {
+        List<Long> accounts = List.of(main.getId());
+        BigDecimal spending = transactionRepository.sumByTypeAndDate("Expense", accounts, today, today);
+        BigDecimal income   = transactionRepository.sumByTypeAndDate("Deposit", accounts, today, today);
+
+        summary()
+            .andExpect(jsonPath("$.totalSpending").value(spending.doubleValue()))
+            .andExpect(jsonPath("$.totalIncome").value(income.doubleValue()));
+        assertThat(spending).isEqualByComparingTo("20.00");
+        assertThat(meterRegistry.get("pfm.analytics.users").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @Order(2)
+    void spendingByCategoryAndAccount_matchSql() throws Exception {
+        mockMvc.perform(get("/api/reports/spending-by-category")
+                .param("startDate", today.toString())
+                .param("endDate", today.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].categoryName").value("Food"))
+            .andExpect(jsonPath("$[0].totalAmount").value(20.0));
+
+        spendingByAccount()
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].accountName").value("Main"))
+            .andExpect(jsonPath("$[0].totalAmount").value(20.0));
+    }
+
+    @Test
+    @Order(3)
+    void dailyTrends_coverOnlyTheUsersTransactions() throws Exception {
+        mockMvc.perform(get("/api/reports/daily-trends")
+                .param("startDate", today.toString())
+                .param("endDate", today.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].totalExpense").value(20.0));
+    }
+
+    @Test
+    @Order(4)
+    void newAndDeletedTransactions_areApplied() throws Exception {
+        String created = mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new TransactionCreationRequest(today, new BigDecimal("30.00"), foodId, "Main", "Expense", "dinner")))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        summary().andExpect(jsonPath("$.totalSpending").value(50.0));
+
+        mockMvc.perform(delete("/api/transactions/{id}", id).header("Authorization", "Bearer " + token))
+            .andExpect(status().is2xxSuccessful());
+
+        summary().andExpect(jsonPath("$.totalSpending").value(20.0));
+    }
+
+    @Test
+    @Order(5)
+    void accountRename_isApplied() throws Exception {
+        mockMvc.perform(patch("/api/accounts/{id}/name", main.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ChangeAccountNameDto("Everyday")))
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().is2xxSuccessful());
+
+        spendingByAccount().andExpect(jsonPath("$[*].accountName", containsInAnyOrder("Everyday")));
+    }
+
+    private ResultActions summary() throws Exception {
+        return mockMvc.perform(get("/api/reports/summary")
+                .param("startDate", today.toString())
+                .param("endDate", today.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk());
+    }
+
+    private ResultActions spendingByAccount() throws Exception {
+        return mockMvc.perform(get("/api/reports/spending-by-account")
+                .param("startDate", today.toString())
+                .param("endDate", today.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk());
+    }
+
+    private User register(String username) throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto(username, "P@ssword123"))))
+            .andExpect(status().isCreated());
+        return userRepository.findByUsername(username).orElseThrow();
+    }
+}
@@ -0,0 +1,132 @@
+package JK.pfm.e2e;
+
+import JK.pfm.Util.SqlBudgetTestSupport;
+import JK.pfm.service.BalanceSnapshotScheduler;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and row budgets for the {@code /api/reports} endpoints (the flows covered by
+ * {@code ReportControllerTest}), checked against a small and a large dataset.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReportSqlBudgetTest extends SqlBudgetTestSupport {
+
+    @Autowired private BalanceSnapshotScheduler balanceSnapshots;
+
+    private final Map<Integer, String> tokens = new HashMap<>();
+
+    @BeforeAll
+    void seed() throws Exception {
+        tokens.put(SMALL, seedUser("report-budget-small", SMALL));
+        tokens.put(LARGE, seedUser("report-budget-large", LARGE));
+        // month-end balances the comparisons read instead of recomputing them
+        LocalDate today = LocalDate.now();
+        balanceSnapshots.snapshot(today.withDayOfMonth(1).minusDays(1));
+        balanceSnapshots.snapshot(today.withDayOfYear(1).minusDays(1));
+    }
+
+    // budgets include the data version lookup that tags every response with an ETag
+    private void expect(int size, String path, long maxStatements, long maxRows) throws Exception {
+        String token = tokens.get(size);
+        sqlBudget.assertWithin("GET " + path + " [" + size + " txns]", maxStatements, maxRows,
+            () -> mockMvc.perform(auth(get(path), token)).andExpect(status().isOk()));
+    }
+
+    private static String range(String path) {
+        LocalDate end = LocalDate.now();
+        return path + "?startDate=" + end.minusDays(6) + "&endDate=" + end;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void summary(int size) throws Exception {
+        expect(size, range("/api/reports/summary"), 6, 7);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void spendingByCategory(int size) throws Exception {
+        expect(size, range("/api/reports/spending-by-category"), 5, 7);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void spendingByAccount(int size) throws Exception {
+        expect(size, range("/api/reports/spending-by-account"), 5, 7);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void balance(int size) throws Exception {
+        expect(size, "/api/reports/balance", 4, 4);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void dailyTrends(int size) throws Exception {
+        // the user's account IDs, then one row per day and type over the 7-day window
+        expect(size, range("/api/reports/daily-trends"), 5, 16);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void monthlyCashflow(int size) throws Exception {
+        expect(size, "/api/reports/monthly-cashflow", 24, 31);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void balanceBreakdown(int size) throws Exception {
+        expect(size, "/api/reports/balance-breakdown", 4, 5);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void expenseAndPrediction(int size) throws Exception {
+        expect(size, "/api/reports/expense-and-prediction", 14, 15);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void expenseForCategory(int size) throws Exception {
+        Long food = categoryRepository.findIdByName("Food").orElseThrow();
+        expect(size, "/api/reports/expense-for-category?categoryId=" + food, 24, 25);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void balanceChange(int size) throws Exception {
+        // flows of both months in one query, current balances and last month's snapshot in another
+        expect(size, "/api/reports/balance-change", 4, 4);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void compareYearOverYear(int size) throws Exception {
+        expect(size, "/api/reports/compare?period=YEAR", 4, 4);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void monthlyCashflowRevalidated(int size) throws Exception {
+        String token = tokens.get(size);
+        String etag = mockMvc.perform(auth(get("/api/reports/monthly-cashflow"), token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // unchanged data: the user lookup and the data version, no report queries
+        sqlBudget.assertWithin("GET /api/reports/monthly-cashflow If-None-Match [" + size + " txns]", 2, 2,
+            () -> mockMvc.perform(auth(get("/api/reports/monthly-cashflow"), token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()));
+    }
+}
@@ -0,0 +1,196 @@
+package JK.pfm.e2e;
+
+import JK.pfm.PersonalFinanceManagerApplication;
+import JK.pfm.model.JobLease;
+import JK.pfm.model.JobRun;
+import JK.pfm.repository.JobLeaseRepository;
+import JK.pfm.repository.JobRunRepository;
+import JK.pfm.service.BudgetService;
+import JK.pfm.service.JobLeaseService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Job leasing against a real database. Other cluster nodes are simulated by extra
+ * {@link JobLeaseService} instances with their own node IDs sharing the same tables, or by a
+ * second application context on the same database.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_leases;DB_CLOSE_DELAY=-1",
+    "pfm.scheduler.node-id=node-a",
+    "pfm.outbox.poll-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class SchedulerLeaseE2ETest {
+
+    @Autowired private JobLeaseService jobLeases;
+    @Autowired private JobLeaseRepository leaseRepository;
+    @Autowired private JobRunRepository runRepository;
+    @Autowired private BudgetService budgetService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        runRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentNodes_onlyOneAcquiresLease() throws Exception {
+        List<JobLeaseService> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            nodes.add(node("node-" + i, 60_000));
+        }
+        CyclicBarrier start = new CyclicBarrier(nodes.size());
+        ExecutorService pool = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<Optional<JobLeaseService.Lease>>> futures = new ArrayList<>();
+            for (JobLeaseService node : nodes) {
+                Callable<Optional<JobLeaseService.Lease>> acquire = () -> {
+                    start.await();
+                    return node.tryAcquire("race");
+                };
+                futures.add(pool.submit(acquire));
+            }
+            int winners = 0;
+            for (Future<Optional<JobLeaseService.Lease>> future : futures) {
+                if (future.get().isPresent()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void leasedJob_skipsWhileAnotherNodeHoldsLease_andHoldsItUntilNextSchedule() {
+        JobLeaseService other = node("node-b", 60_000);
+        JobLeaseService.Lease held = other.tryAcquire("next-month-budgets").orElseThrow();
+
+        assertThat(budgetService.createNextMonthBudgets()).isZero();
+        assertThat(runRepository.findTop20ByJobNameOrderByIdDesc("next-month-budgets")).isEmpty();
+
+        other.release(held);
+        assertThat(budgetService.createNextMonthBudgets()).isZero();
+
+        List<JobRun> runs = runRepository.findTop20ByJobNameOrderByIdDesc("next-month-budgets");
+        assertThat(runs).hasSize(1);
+        JobRun run = runs.get(0);
+        assertThat(run.getOwner()).isEqualTo("node-a");
+        assertThat(run.getStatus()).isEqualTo(JobRun.SUCCEEDED);
+        assertThat(run.getItemsProcessed()).isZero();
+        assertThat(run.getDurationMs()).isNotNull();
+        assertThat(run.getFencingToken()).isGreaterThan(held.fencingToken());
+
+        // kept until a minute before the next midnight run, so a late scheduler on another node
+        // does not repeat it
+        JobLease lease = leaseRepository.findById("next-month-budgets").orElseThrow();
+        assertThat(lease.getLeaseUntil()).isEqualTo(LocalDate.now().plusDays(1).atStartOfDay().minusMinutes(1));
+        assertThat(other.tryAcquire("next-month-budgets")).isEmpty();
+    }
+
+    @Test
+    void secondApplicationContext_skipsRunCompletedByFirst() {
+        try (ConfigurableApplicationContext nodeB = startNode("node-b")) {
+            BudgetService budgetsOnB = nodeB.getBean(BudgetService.class);
+
+            assertThat(budgetService.createNextMonthBudgets()).isZero();
+            // node B's scheduler fires after node A has already finished
+            assertThat(budgetsOnB.createNextMonthBudgets()).isZero();
+
+            assertThat(runRepository.findTop20ByJobNameOrderByIdDesc("next-month-budgets"))
+                .extracting(JobRun::getOwner).containsExactly("node-a");
+        }
+    }
+
+    @Test
+    void directRun_releasesLeaseWhenDone() throws Throwable {
+        assertThat(jobLeases.run("adhoc", () -> 1)).contains(1);
+
+        assertThat(node("node-b", 60_000).tryAcquire("adhoc")).isPresent();
+    }
+
+    @Test
+    void expiredLease_isTakenOverWithHigherFencingToken() throws Exception {
+        JobLeaseService crashed = node("node-b", 1);
+        JobLeaseService.Lease stale = crashed.tryAcquire("takeover").orElseThrow();
+        Thread.sleep(20);
+
+        JobLeaseService.Lease fresh = jobLeases.tryAcquire("takeover").orElseThrow();
+
+        assertThat(fresh.owner()).isEqualTo("node-a");
+        assertThat(fresh.fencingToken()).isGreaterThan(stale.fencingToken());
+    }
+
+    @Test
+    void staleFence_rejectsWritesAndRecordsFailure() {
+        JobLeaseService slow = node("node-slow", 1);
+        JobLeaseService other = node("node-b", 60_000);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> slow.run("fenced", () -> {
+            Thread.sleep(20);
+            other.tryAcquire("fenced").orElseThrow();
+            return tx.execute(status -> {
+                slow.checkFence();
+                return 1;
+            });
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining("stale");
+
+        JobRun run = runRepository.findTop20ByJobNameOrderByIdDesc("fenced").get(0);
+        assertThat(run.getOwner()).isEqualTo("node-slow");
+        assertThat(run.getStatus()).isEqualTo(JobRun.FAILED);
+        assertThat(run.getError()).contains("stale");
+
+        // the newer holder's lease survives the slow node's release
+        assertThat(jobLeases.tryAcquire("fenced")).isEmpty();
+    }
+
+    @Test
+    void checkFence_outsideTransaction_isRejected() {
+        assertThatThrownBy(() -> jobLeases.run("no-tx", () -> {
+            jobLeases.checkFence();
+            return null;
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Starts the whole application a second time on the same database, as another cluster node.
+     */
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(PersonalFinanceManagerApplication.class)
+            .profiles("test")
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:pfm_leases;DB_CLOSE_DELAY=-1",
+                // the schema belongs to the first context
+                "spring.jpa.hibernate.ddl-auto=none",
+                "server.port=0",
+                "pfm.scheduler.node-id=" + nodeId,
+                "pfm.outbox.poll-interval-ms=3600000")
+            .run();
+    }
+
+    private JobLeaseService node(String nodeId, long leaseTtlMillis) {
+        return new JobLeaseService(leaseRepository, runRepository, transactionManager, leaseTtlMillis, nodeId);
+    }
+}
@@ -0,0 +1,248 @@
+package JK.pfm.e2e;
+
+import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.UserRegistrationDto;
+import JK.pfm.model.Account;
+import JK.pfm.model.ArchivedTransaction;
+import JK.pfm.model.Category;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.CategoryRepository;
+import JK.pfm.repository.JobLeaseRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.TransactionPartitionMaintenance;
+import JK.pfm.util.JWTUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Archival of old transactions: rows leave the live table, transaction listing still finds them
+ * when the range reaches back far enough, and the ledger balance is unchanged.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pfm_archive;DB_CLOSE_DELAY=-1",
+    "pfm.transactions.archive.enabled=true",
+    "pfm.transactions.archive.horizon-months=12",
+    "pfm.transactions.archive.batch-size=2",
+    "pfm.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransactionArchiveE2ETest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AccountRepository accountRepository;
+    @Autowired private CategoryRepository categoryRepository;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private ArchivedTransactionRepository archivedTransactionRepository;
+    @Autowired private JobLeaseRepository jobLeaseRepository;
+    @Autowired private SavingsGoalRepository savingsGoalRepository;
+    @Autowired private TransactionArchiveService archive;
+    @Autowired private TransactionPartitionMaintenance partitions;
+
+    private String token;
+    private Account account;
+    private LocalDate old;
+    private LocalDate recent;
+    private SavingsGoal goal;
+    private Transaction linked;
+
+    @BeforeAll
+    void seed() throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegistrationDto("archive-user", "P@ssword123"))))
+            .andExpect(status().isCreated());
+        token = JWTUtil.generateToken("archive-user");
+
+        User user = userRepository.findByUsername("archive-user").orElseThrow();
+        Category food = categoryRepository.findById(categoryRepository.findIdByName("Food").orElseThrow()).orElseThrow();
+        // balance matches the ledger: 100 + 40 - 30 + 50
+        account = accountRepository.save(new Account("Main", new BigDecimal("160"), user));
+
+        old    = archive.horizon().minusMonths(6);
+        recent = LocalDate.now();
+        transactionRepository.save(new Transaction(old, new BigDecimal("100"), account, food, "Deposit", "old-1"));
+        goal = savingsGoalRepository.save(new SavingsGoal("Trip", new BigDecimal("500"), "summer", user));
+        linked = new Transaction(old.plusDays(1), new BigDecimal("40"), account, food, "Deposit", "old-2");
+        linked.setSavingsGoal(goal);
+        linked.setFingerprint(42L);
+        linked.setPossibleDuplicate(true);
+        linked = transactionRepository.save(linked);
+        transactionRepository.save(new Transaction(old.plusDays(2), new BigDecimal("30"), account, food, "Expense", "old-3"));
+        transactionRepository.save(new Transaction(recent, new BigDecimal("50"), account, food, "Deposit", "recent"));
+
+        // three old rows in batches of two
+        assertThat(archive.archive()).isEqualTo(3);
+    }
+
+    @Test
+    void oldRows_moveToArchive() {
+        assertThat(transactionRepository.findAll()).extracting(Transaction::getDescription).containsExactly("recent");
+        assertThat(archivedTransactionRepository.count()).isEqualTo(3);
+        // the seeding run holds the lease until the next schedule
+        jobLeaseRepository.deleteAll();
+        assertThat(archive.archive()).isZero();
+        assertThat(jobLeaseRepository.findById("transaction-archive")).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void archivedRows_keepGoalLinkFingerprintAndDuplicateFlag() {
+        ArchivedTransaction archived = archivedTransactionRepository.findById(linked.getId()).orElseThrow();
+        assertThat(archived.getSavingsGoal().getId()).isEqualTo(goal.getId());
+        assertThat(archived.getFingerprint()).isEqualTo(42L);
+        assertThat(archived.getPossibleDuplicate()).isTrue();
+
+        Transaction restored = archived.toTransaction();
+        assertThat(restored.getSavingsGoal().getId()).isEqualTo(goal.getId());
+        assertThat(restored.getFingerprint()).isEqualTo(42L);
+        assertThat(restored.getPossibleDuplicate()).isTrue();
+    }
+
+    @Test
+    void listing_withoutStartDate_mergesArchivedRows() throws Exception {
+        mockMvc.perform(get("/api/transactions").header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].description", contains("recent", "old-3", "old-2", "old-1")));
+    }
+
+    @Test
+    void listing_withFiltersBeforeHorizon_filtersArchivedRows() throws Exception {
+        mockMvc.perform(get("/api/transactions")
+                .param("startDate", old.toString())
+                .param("endDate", old.plusDays(1).toString())
+                .param("type", "Deposit")
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].description", contains("old-2", "old-1")));
+    }
+
+    @Test
+    void sync_fullAndIncremental_keepArchivedRows() throws Exception {
+        mockMvc.perform(get("/api/sync").header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactions[*].description", containsInAnyOrder("recent", "old-3", "old-2", "old-1")));
+
+        // the feed still lists the inserts of the archived rows
+        mockMvc.perform(get("/api/sync").param("since", "1").header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactions[*].description", containsInAnyOrder("recent", "old-3", "old-2", "old-1")))
+            .andExpect(jsonPath("$.deleted").doesNotExist());
+    }
+
+    @Test
+    void listing_recentRange_readsLiveTableOnly() throws Exception {
+        mockMvc.perform(get("/api/transactions")
+                .param("startDate", archive.horizon().toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].description").value("recent"));
+    }
+
+    @Test
+    void reports_rangeBeforeHorizon_includeArchivedRows() throws Exception {
+        mockMvc.perform(get("/api/reports/summary")
+                .param("startDate", old.toString())
+                .param("endDate", recent.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalSpending").value(30.0))
+            .andExpect(jsonPath("$.totalIncome").value(190.0));
+
+        mockMvc.perform(get("/api/reports/spending-by-category")
+                .param("startDate", old.toString())
+                .param("endDate", recent.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].categoryName").value("Food"))
+            .andExpect(jsonPath("$[0].totalAmount").value(30.0));
+
+        mockMvc.perform(get("/api/reports/daily-trends")
+                .param("startDate", old.toString())
+                .param("endDate", recent.toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(4)))
+            .andExpect(jsonPath("$[2].totalExpense").value(30.0));
+    }
+
+    @Test
+    void budgetSpending_countsArchivedExpensesOnEveryEndpoint() throws Exception {
+        Long food = categoryRepository.findIdByName("Food").orElseThrow();
+        String created = mockMvc.perform(post("/api/budgets")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                    new BudgetCreationRequest(new BigDecimal("100"), old, old.plusDays(5), food))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.spent").value(30.0))
+            .andReturn().getResponse().getContentAsString();
+        long budgetId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(get("/api/budgets/spent/" + budgetId).header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(content().string("30.00"));
+        mockMvc.perform(get("/api/budgets/vs-actual").header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].actual").value(30.0));
+    }
+
+    @Test
+    void balancesAtCutoffBeforeHorizon_rollBackArchivedRows() throws Exception {
+        // the end of old + 1 day: the two old deposits, before the archived expense and the recent deposit
+        mockMvc.perform(get("/api/reports/compare")
+                .param("period", "CUSTOM")
+                .param("startDate", old.toString())
+                .param("endDate", old.plusDays(1).toString())
+                .param("previousStartDate", old.minusDays(10).toString())
+                .param("previousEndDate", old.minusDays(5).toString())
+                .header("Authorization", "Bearer " + token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.metrics[?(@.name == 'accountBalance')].current", contains(140.0)))
+            .andExpect(jsonPath("$.metrics[?(@.name == 'accountBalance')].previous", contains(0.0)));
+    }
+
+    @Test
+    void ledgerBalance_includesArchivedRows() {
+        assertThat(accountRepository.findLedgerBalance(account.getId()).orElseThrow().getLedgerBalance())
+            .isEqualByComparingTo("160");
+        assertThat(accountRepository.findLedgerMismatches(account.getId(), account.getId())).isEmpty();
+    }
+
+    @Test
+    void partitionMaintenance_isNoOpOutsideMySql() {
+        assertThat(partitions.maintain()).isZero();
+    }
+}
@@ -0,0 +1,130 @@
+package JK.pfm.e2e;
+
+import JK.pfm.Util.SqlBudgetTestSupport;
+import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.model.Account;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement and row budgets for the {@code /api/transactions} endpoints (the flows covered
+ * by {@code TransactionControllerTest}), checked against a small and a large dataset.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionSqlBudgetTest extends SqlBudgetTestSupport {
+
+    private final Map<Integer, String> tokens = new HashMap<>();
+    private final Map<Integer, Long> transactionIds = new HashMap<>();
+
+    @BeforeAll
+    void seed() throws Exception {
+        for (int size : new int[] {SMALL, LARGE}) {
+            String username = "txn-budget-" + size;
+            tokens.put(size, seedUser(username, size));
+            Long userId = userRepository.findByUsername(username).orElseThrow().getId();
+            List<Long> accountIds = accountRepository.findByUserIdAndActiveTrue(userId).stream()
+                .map(Account::getId)
+                .toList();
+            transactionIds.put(size, transactionRepository.findTop5ByAccountIdInOrderByIdDesc(accountIds).get(0).getId());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void createTransaction(int size) throws Exception {
+        Long food = categoryRepository.findIdByName("Food").orElseThrow();
+        AtomicInteger run = new AtomicInteger();
+
+        // includes the outbox insert and the budget index check (no budget covers this date);
+        // each run posts a new transaction, which the duplicate filter clears without a query
+        sqlBudget.assertWithin("POST /api/transactions [" + size + " txns]", 11, 7,
+            () -> mockMvc.perform(auth(post("/api/transactions"), tokens.get(size))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    // dated well before the seeded data so the listing budgets below are unaffected
+                    .content(objectMapper.writeValueAsString(new TransactionCreationRequest(
+                        fixedDay().minusYears(3), new BigDecimal("7.25"), food, "Checking", "Expense",
+                        "budget " + run.incrementAndGet()))))
+                .andExpect(status().isCreated()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void searchTransactions(int size) throws Exception {
+        String token = tokens.get(size);
+        String path = "/api/transactions/search?q=pay&limit=10";
+
+        // the first search builds the user's index; afterwards a search is the change feed
+        // lookup and the page of matches, never a scan of the user's rows
+        sqlBudget.assertWithin("GET " + path + " [" + size + " txns]", 5, 15,
+            () -> mockMvc.perform(auth(get(path), token)).andExpect(status().isOk()),
+            () -> mockMvc.perform(auth(get(path), token)).andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void getTransactionById(int size) throws Exception {
+        String token = tokens.get(size);
+        Long id = transactionIds.get(size);
+
+        sqlBudget.assertWithin("GET /api/transactions/{id} [" + size + " txns]", 2, 2,
+            () -> mockMvc.perform(auth(get("/api/transactions/" + id), token)).andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void listTransactionsForDay(int size) throws Exception {
+        String token = tokens.get(size);
+        String path = "/api/transactions?startDate=" + fixedDay() + "&endDate=" + fixedDay();
+
+        // tagged list GETs include the data version lookup for their ETag
+        sqlBudget.assertWithin("GET /api/transactions?day [" + size + " txns]", 4, 6,
+            () -> mockMvc.perform(auth(get(path), token)).andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void recentTransactions(int size) throws Exception {
+        String token = tokens.get(size);
+
+        sqlBudget.assertWithin("GET /api/transactions/recent [" + size + " txns]", 5, 10,
+            () -> mockMvc.perform(auth(get("/api/transactions/recent"), token)).andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SMALL, LARGE})
+    void recentTransactionsRevalidated_untilNextWrite(int size) throws Exception {
+        String token = tokens.get(size);
+        String etag = mockMvc.perform(auth(get("/api/transactions/recent"), token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        sqlBudget.assertWithin("GET /api/transactions/recent If-None-Match [" + size + " txns]", 2, 2,
+            () -> mockMvc.perform(auth(get("/api/transactions/recent"), token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()));
+
+        // any write advances the data version
+        Long food = categoryRepository.findIdByName("Food").orElseThrow();
+        mockMvc.perform(auth(post("/api/transactions"), token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionCreationRequest(
+                    fixedDay().minusYears(3), new BigDecimal("3.10"), food, "Checking", "Expense", "revalidation"))))
+            .andExpect(status().isCreated());
+        mockMvc.perform(auth(get("/api/transactions/recent"), token).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+}
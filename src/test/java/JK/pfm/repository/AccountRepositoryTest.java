@@ -1,10 +1,18 @@
 package JK.pfm.repository;
 
+import JK.pfm.dto.AccountLedgerBalance;
 import JK.pfm.model.Account;
+import JK.pfm.model.BalanceEntry;
+import JK.pfm.model.Category;
+import JK.pfm.model.Transaction;
 import JK.pfm.model.User;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -190,5 +198,67 @@ class AccountRepositoryTest {
         assertEquals(new BigDecimal("20.00"), sum);
     }
 
+    @Test
+    void findActiveBalancesByUserId_includesPendingDeltas(){
+        activeA = new Account("A-one", BigDecimal.TEN, user);
+        activeA.setVersion(0L);
+        em.persist(activeA);
+
+        activeB = new Account("B-two", BigDecimal.TEN, user);
+        activeB.setVersion(0L);
+        em.persist(activeB);
+
+        inactive = new Account("inactive", BigDecimal.TEN, user);
+        inactive.setVersion(0L);
+        inactive.setIsActive(false);
+        em.persist(inactive);
+
+        em.persist(new BalanceEntry(activeA, new BigDecimal("-4"), null, false, LocalDateTime.now()));
+        em.persist(new BalanceEntry(activeA, new BigDecimal("100"), null, true, LocalDateTime.now()));
+        em.flush();
+
+        List<Object[]> rows = repo.findActiveBalancesByUserId(user.getId());
+
+        assertThat(rows).extracting(r -> r[0], r -> r[1], r -> ((BigDecimal) r[2]).intValueExact())
+            .containsExactly(
+                tuple(activeA.getId(), "A-one", 6),
+                tuple(activeB.getId(), "B-two", 10));
+    }
+
+    @Test
+    void findLedgerMismatches_returnsOnlyDriftedAccounts(){
+        Category category = new Category("cat");
+        category.setIsDefault(false);
+        em.persist(category);
+
+        Account balanced = new Account("balanced", new BigDecimal("70"), user);
+        balanced.setVersion(0L);
+        em.persist(balanced);
+        em.persist(new Transaction(LocalDate.now(), new BigDecimal("100"), balanced, category, "Deposit", "in"));
+        em.persist(new Transaction(LocalDate.now(), new BigDecimal("30"), balanced, category, "Expense", "out"));
 
+        Account drifted = new Account("drifted", new BigDecimal("95"), user);
+        drifted.setVersion(0L);
+        em.persist(drifted);
+        em.persist(new Transaction(LocalDate.now(), new BigDecimal("100"), drifted, category, "Deposit", "in"));
+
+        Account empty = new Account("empty", new BigDecimal("5"), other);
+        empty.setVersion(0L);
+        em.persist(empty);
+        em.flush();
+
+        List<AccountLedgerBalance> mismatches = repo.findLedgerMismatches(0L, Long.MAX_VALUE);
+
+        assertThat(mismatches)
+            .extracting(AccountLedgerBalance::getAccountId, AccountLedgerBalance::getUserId)
+            .containsExactlyInAnyOrder(tuple(drifted.getId(), user.getId()), tuple(empty.getId(), other.getId()));
+        AccountLedgerBalance row = mismatches.stream()
+            .filter(m -> m.getAccountId().equals(drifted.getId())).findFirst().orElseThrow();
+        assertThat(row.getStoredBalance()).isEqualByComparingTo("95");
+        assertThat(row.getLedgerBalance()).isEqualByComparingTo("100");
+
+        assertThat(repo.findLedgerMismatches(0L, balanced.getId())).isEmpty();
+        assertEquals(empty.getId(), repo.findMaxId());
+    }
 }
+
@@ -0,0 +1,121 @@
+package JK.pfm.repository;
+
+import JK.pfm.dto.AccountLedgerBalance;
+import JK.pfm.model.Account;
+import JK.pfm.model.BalanceEntry;
+import JK.pfm.model.Category;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class BalanceEntryRepositoryTest {
+
+    @Autowired
+    private BalanceEntryRepository repo;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private User user;
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("user1");
+        user.setPassword("pw");
+        user = em.persistAndFlush(user);
+
+        first = new Account("first", new BigDecimal("100"), user);
+        first.setVersion(0L);
+        em.persist(first);
+
+        second = new Account("second", new BigDecimal("50"), user);
+        second.setVersion(0L);
+        em.persist(second);
+    }
+
+    @Test
+    void sumPending_ignoresAppliedEntries() {
+        entry(first, "20", false);
+        entry(first, "5", false);
+        entry(first, "-30", true);
+        em.flush();
+
+        assertThat(repo.sumPending(first.getId())).isEqualByComparingTo("25");
+        assertThat(repo.sumPending(second.getId())).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void lockPending_thenMarkApplied_foldsEntries() {
+        entry(first, "20", false);
+        entry(first, "5", false);
+        entry(first, "-30", true);
+        em.flush();
+
+        List<BalanceEntryRepository.PendingEntry> pending = repo.lockPending(first.getId());
+        assertThat(pending).extracting(BalanceEntryRepository.PendingEntry::getDelta)
+            .usingComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+            .containsExactlyInAnyOrder(new BigDecimal("20"), new BigDecimal("5"));
+
+        int updated = repo.markApplied(pending.stream().map(BalanceEntryRepository.PendingEntry::getId).toList());
+        em.clear();
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(repo.sumPending(first.getId())).isEqualByComparingTo("0");
+        assertThat(repo.findByAccountIdOrderByIdDesc(first.getId())).hasSize(3).allMatch(BalanceEntry::isApplied);
+    }
+
+    @Test
+    void findAccountIdsWithPending_oldestFirst() {
+        entry(second, "1", false);
+        entry(first, "1", false);
+        entry(first, "-1", true);
+        em.flush();
+
+        assertThat(repo.findAccountIdsWithPending(PageRequest.of(0, 10)))
+            .containsExactly(second.getId(), first.getId());
+        assertThat(repo.findAccountIdsWithPending(PageRequest.of(0, 1)))
+            .containsExactly(second.getId());
+    }
+
+    @Test
+    void balanceReads_includePendingDeltas() {
+        Category category = new Category("cat");
+        category.setIsDefault(false);
+        em.persist(category);
+        // checkpoint 100 + pending 20 matches a ledger of 120
+        em.persist(new Transaction(LocalDate.now(), new BigDecimal("120"), first, category, "Deposit", "in"));
+        entry(first, "20", false);
+        em.flush();
+
+        assertThat(accountRepository.getTotalBalanceByUserId(user.getId())).isEqualByComparingTo("170");
+
+        AccountLedgerBalance balance = accountRepository.findLedgerBalance(first.getId()).orElseThrow();
+        assertThat(balance.getStoredBalance()).isEqualByComparingTo("120");
+        assertThat(balance.getLedgerBalance()).isEqualByComparingTo("120");
+        assertThat(accountRepository.findLedgerMismatches(first.getId(), first.getId())).isEmpty();
+    }
+
+    private void entry(Account account, String delta, boolean applied) {
+        em.persist(new BalanceEntry(account, new BigDecimal(delta), null, applied, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,108 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.BalanceEntry;
+import JK.pfm.model.BalanceSnapshot;
+import JK.pfm.model.Category;
+import JK.pfm.model.SavingsGoal;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class BalanceSnapshotRepositoryTest {
+
+    @Autowired
+    private BalanceSnapshotRepository repo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private final LocalDate monthEnd = LocalDate.now().minusMonths(1).with(TemporalAdjusters.lastDayOfMonth());
+
+    private User user;
+    private User empty;
+
+    @BeforeEach
+    void setUp() {
+        user  = em.persist(new User("user1", "pw"));
+        empty = em.persist(new User("user2", "pw"));
+
+        Account main = new Account("main", new BigDecimal("1000"), user);
+        main.setVersion(0L);
+        em.persist(main);
+        Account closed = new Account("closed", new BigDecimal("500"), user);
+        closed.setVersion(0L);
+        closed.setIsActive(false);
+        em.persist(closed);
+        em.persist(new BalanceEntry(main, new BigDecimal("20"), null, false, LocalDateTime.now()));
+
+        SavingsGoal goal = new SavingsGoal("trip", new BigDecimal("1000"), "", user);
+        goal.setCurrentAmount(new BigDecimal("400"));
+        em.persist(goal);
+
+        Category food = em.persist(new Category("Food"));
+        Category transfer = em.persist(new Category("Fund Transfer"));
+        LocalDate after = monthEnd.plusDays(1);
+        em.persist(new Transaction(after, new BigDecimal("300"), main, food, "Deposit", "pay"));
+        em.persist(new Transaction(after, new BigDecimal("50"), main, food, "Expense", "lunch"));
+        em.persist(new Transaction(after, new BigDecimal("100"), main, transfer, "Expense", "Deposit to savings"));
+        // excluded: on or before the month end, closed account
+        em.persist(new Transaction(monthEnd, new BigDecimal("70"), main, food, "Expense", "dinner"));
+        em.persist(new Transaction(after, new BigDecimal("80"), closed, food, "Expense", "old card"));
+        em.flush();
+    }
+
+    @Test
+    void computeBalancesAt_subtractsActivityAfterCutoff() {
+        List<Object[]> rows = repo.computeBalancesAt(null, monthEnd);
+
+        assertThat(rows).hasSize(2);
+        Object[] first = rows.get(0);
+        assertThat(first[0]).isEqualTo(user.getId());
+        // 1000 + 20 pending - (300 - 50 - 100)
+        assertThat((BigDecimal) first[1]).isEqualByComparingTo("870");
+        assertThat((BigDecimal) first[2]).isEqualByComparingTo("300");
+        assertThat((BigDecimal) rows.get(1)[1]).isEqualByComparingTo("0");
+        assertThat((BigDecimal) rows.get(1)[2]).isEqualByComparingTo("0");
+
+        assertThat(repo.computeBalancesAt(empty.getId(), monthEnd)).hasSize(1);
+    }
+
+    @Test
+    void findBalances_returnsCurrentTotalsWithStoredSnapshots() {
+        BalanceSnapshot snapshot = new BalanceSnapshot(user.getId(), monthEnd);
+        snapshot.setAccountsBalance(new BigDecimal("870"));
+        snapshot.setSavingsBalance(new BigDecimal("300"));
+        snapshot.setTakenAt(LocalDateTime.now());
+        em.persistAndFlush(snapshot);
+
+        List<Object[]> rows = repo.findBalances(user.getId(), List.of(monthEnd, monthEnd.minusMonths(1)));
+
+        assertThat(rows).hasSize(1);
+        Object[] row = rows.get(0);
+        assertThat((BigDecimal) row[0]).isEqualByComparingTo("1020");
+        assertThat((BigDecimal) row[1]).isEqualByComparingTo("400");
+        assertThat(row[2]).isEqualTo(monthEnd);
+        assertThat((BigDecimal) row[3]).isEqualByComparingTo("870");
+        assertThat((BigDecimal) row[4]).isEqualByComparingTo("300");
+
+        List<Object[]> none = repo.findBalances(empty.getId(), List.of(monthEnd));
+        assertThat(none).hasSize(1);
+        assertThat((BigDecimal) none.get(0)[0]).isEqualByComparingTo("0");
+        assertThat(none.get(0)[2]).isNull();
+    }
+}
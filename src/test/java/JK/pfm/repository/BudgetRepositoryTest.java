@@ -1,9 +1,8 @@
 package JK.pfm.repository;
 
-import JK.pfm.model.Account;
+import JK.pfm.dto.BudgetVsActualDTO;
 import JK.pfm.model.Budget;
 import JK.pfm.model.Category;
-import JK.pfm.model.Transaction;
 import JK.pfm.model.User;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -50,49 +49,39 @@ class BudgetRepositoryTest {
     }
     
     @Test
-    void getTotalSpentOnBudget_filtersByCategoryDateAccount(){
-        LocalDate start = LocalDate.of(2025, 1, 1);
-        LocalDate end   = LocalDate.of(2025, 1, 31);
-        
-        Category targetCat   = em.persist(new Category("target"));
-        targetCat.setIsDefault(false);
-        em.flush();
-
-        Category otherCat    = em.persist(new Category("other"));
-        otherCat.setIsDefault(false);
-        em.flush();
-        
-        User u = em.persist(new User("u","pw"));
-        Account acct1 = new Account("A1", BigDecimal.ZERO, u);
-        acct1.setVersion(0L);
-        em.persist(acct1);
+    void findBudgetsVsActual_readsCountersInOneQuery(){
+        LocalDate jan = LocalDate.of(2025, 1, 1);
+        LocalDate feb = LocalDate.of(2025, 2, 1);
 
-        Account acct2 = new Account("A2", BigDecimal.ZERO, u);
-        acct2.setVersion(0L);
-        em.persist(acct2);
+        Category food = em.persist(new Category("vs-food"));
+        Category rent = em.persist(new Category("vs-rent"));
 
-        em.flush();
-        
-        //valid transactions
-        em.persist(new Transaction (start, BigDecimal.valueOf(10), acct1, targetCat, "Expense", "t1"));
-        em.persist(new Transaction (start.plusDays(5), BigDecimal.valueOf(5), acct1, targetCat, "Expense", "t2"));
-        em.persist(new Transaction (start, BigDecimal.valueOf(30), acct1, targetCat, "Expense", "t3"));
-        
-        //invalid transactions
-        em.persist(new Transaction (start.plusDays(3), BigDecimal.valueOf(10), acct1, otherCat, "Expense", "wrong category"));
-        em.persist(new Transaction (start.minusDays(1), BigDecimal.valueOf(10), acct1, targetCat, "Expense", "too early"));
-        em.persist(new Transaction (end.plusDays(1), BigDecimal.valueOf(10), acct1, targetCat, "Expense", "too late"));
-        em.persist(new Transaction (start.plusDays(2), BigDecimal.valueOf(10), acct2, targetCat, "Expense", "wrong acc"));
-        
+        Budget janFood = new Budget(BigDecimal.valueOf(100), jan, jan.plusMonths(1).minusDays(1), food, user);
+        janFood.setSpent(BigDecimal.valueOf(42));
+        em.persist(janFood);
+        // not backfilled yet
+        Budget janRent = em.persist(new Budget(BigDecimal.valueOf(500), jan, jan.plusMonths(1).minusDays(1), rent, user));
+        Budget febFood = new Budget(BigDecimal.valueOf(80), feb, feb.plusMonths(1).minusDays(1), food, user);
+        febFood.setSpent(BigDecimal.valueOf(7));
+        em.persist(febFood);
+        Budget othersBudget = new Budget(BigDecimal.valueOf(999), jan, jan.plusMonths(1).minusDays(1), food, other);
+        othersBudget.setSpent(BigDecimal.valueOf(500));
+        em.persist(othersBudget);
         em.flush();
         em.clear();
-        
-        BigDecimal total = repo.getTotalSpentOnBudget(
-        targetCat.getId(), start, end, List.of(acct1.getId())
-        );
-        assertEquals(new BigDecimal("45.00"), total);
-        }
-    
+
+        List<BudgetVsActualDTO> all = repo.findBudgetsVsActual(user.getId(), null, null);
+        assertEquals(List.of(janFood.getId(), janRent.getId(), febFood.getId()),
+            all.stream().map(BudgetVsActualDTO::getBudgetId).toList());
+        assertEquals(0, new BigDecimal("42").compareTo(all.get(0).getActual()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(all.get(1).getActual()));
+        assertEquals(0, new BigDecimal("7").compareTo(all.get(2).getActual()));
+        assertEquals(0, new BigDecimal("58").compareTo(all.get(0).getDifference()));
+
+        List<BudgetVsActualDTO> february = repo.findBudgetsVsActual(user.getId(), feb, feb.plusDays(27));
+        assertEquals(List.of(febFood.getId()), february.stream().map(BudgetVsActualDTO::getBudgetId).toList());
+    }
+
     @Test
     void findMonthlyBudgets (){
         LocalDate today = LocalDate.now();
@@ -0,0 +1,77 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.Category;
+import JK.pfm.model.CategoryRule;
+import JK.pfm.model.User;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CategoryRuleRepositoryTest {
+
+    @Autowired
+    private CategoryRuleRepository repo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private User user;
+    private Category food;
+    private CategoryRule late;
+    private CategoryRule first;
+
+    @BeforeEach
+    void setUp() {
+        user = em.persist(new User("user1", "pw"));
+        User other = em.persist(new User("user2", "pw"));
+        food = em.persist(new Category("Food"));
+
+        late = new CategoryRule("KEYWORD", "rimi", food, user);
+        late.setPriority(5);
+        late = em.persist(late);
+        first = new CategoryRule("PREFIX", "max", food, user);
+        first.setPriority(1);
+        first = em.persist(first);
+        em.persist(new CategoryRule("KEYWORD", "other", food, other));
+        em.flush();
+    }
+
+    @Test
+    void findMatcherRowsByUserId_inRuleOrder() {
+        List<Object[]> rows = repo.findMatcherRowsByUserId(user.getId());
+
+        assertThat(rows).extracting(r -> r[0], r -> r[1], r -> r[2], r -> r[5])
+            .containsExactly(
+                tuple(first.getId(), "PREFIX", "max", food.getId()),
+                tuple(late.getId(), "KEYWORD", "rimi", food.getId()));
+        assertThat(repo.findByUserIdOrderByPriorityAscIdAsc(user.getId()))
+            .extracting(CategoryRule::getId)
+            .containsExactly(first.getId(), late.getId());
+    }
+
+    @Test
+    void findStampByUserId_changesOnUpdate() {
+        Object[] before = repo.findStampByUserId(user.getId()).get(0);
+        assertThat(((Number) before[0]).longValue()).isEqualTo(2L);
+        assertThat(before[1]).isEqualTo(first.getId());
+
+        late.setPattern("rimi riga");
+        em.flush();
+        Object[] after = repo.findStampByUserId(user.getId()).get(0);
+
+        assertThat(((Number) after[2]).longValue()).isEqualTo(((Number) before[2]).longValue() + 1);
+
+        Object[] none = repo.findStampByUserId(-1L).get(0);
+        assertThat(((Number) none[0]).longValue()).isZero();
+        assertThat(none[1]).isNull();
+    }
+}
@@ -205,5 +205,45 @@ class RecurringExpenseRepositoryTest {
         assertFalse(names.contains("wrongAcct"), "wrong account should be filtered out");
         assertFalse(names.contains("boundary"),  "boundary date should be filtered out");
 
-    } 
+    }
+
+    @Test
+    void findActiveSchedulesByUserId_onlyActiveExpensesOnActiveAccounts() {
+        LocalDate today = LocalDate.now();
+        Account closed = new Account("closed", BigDecimal.TEN, user);
+        closed.setVersion(0L);
+        closed.setIsActive(false);
+        em.persist(closed);
+
+        RecurringExpense rent = schedule("rent", account, today.plusDays(3), true);
+        schedule("paused", account, today.plusDays(3), false);
+        schedule("undated", account, null, true);
+        schedule("onClosed", closed, today.plusDays(3), true);
+        em.flush();
+
+        List<Object[]> rows = repo.findActiveSchedulesByUserId(user.getId());
+
+        assertEquals(1, rows.size());
+        Object[] row = rows.get(0);
+        assertEquals(rent.getId(), row[0]);
+        assertEquals("rent", row[1]);
+        assertEquals("MONTHLY", row[3]);
+        assertEquals(today.minusMonths(1), row[4]);
+        assertEquals(today.plusDays(3), row[5]);
+        assertEquals(account.getId(), row[6]);
+        assertTrue(repo.findActiveSchedulesByUserId(user.getId() + 1).isEmpty());
+    }
+
+    private RecurringExpense schedule(String name, Account on, LocalDate nextDueDate, boolean active) {
+        RecurringExpense expense = new RecurringExpense();
+        expense.setAccount(on);
+        expense.setCategory(category);
+        expense.setName(name);
+        expense.setAmount(BigDecimal.ONE);
+        expense.setFrequency("MONTHLY");
+        expense.setStartDate(LocalDate.now().minusMonths(1));
+        expense.setNextDueDate(nextDueDate);
+        expense.setActive(active);
+        return em.persist(expense);
+    }
 }
@@ -0,0 +1,114 @@
+package JK.pfm.repository;
+
+import JK.pfm.model.Category;
+import JK.pfm.model.User;
+import JK.pfm.model.UserSettings;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Second-level and query cache behaviour. Runs without a test transaction so every
+ * repository call commits and later calls can be served from the cache.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+  @Autowired EntityManagerFactory emf;
+  @Autowired CategoryRepository categoryRepo;
+  @Autowired UserRepository userRepo;
+  @Autowired UserSettingsRepository settingsRepo;
+  @Autowired PlatformTransactionManager txManager;
+
+  Statistics stats;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @AfterEach
+  void tearDown() {
+    settingsRepo.deleteAll();
+    userRepo.deleteAll();
+    categoryRepo.deleteAll();
+  }
+
+  @Test
+  void categoryFindById_servedFromCache() {
+    Long id = categoryRepo.save(new Category("Cached")).getId();
+    categoryRepo.findById(id);
+
+    stats.clear();
+    Optional<Category> again = categoryRepo.findById(id);
+
+    assertThat(again).map(Category::getName).contains("Cached");
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    assertThat(stats.getSecondLevelCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void findIdByName_servedFromQueryCache() {
+    Long id = categoryRepo.save(new Category("Fund Transfer")).getId();
+    categoryRepo.findIdByName("Fund Transfer");
+
+    stats.clear();
+    Optional<Long> again = categoryRepo.findIdByName("Fund Transfer");
+
+    assertThat(again).contains(id);
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    assertThat(stats.getQueryCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void queryCache_invalidatedByInsert() {
+    assertThat(categoryRepo.findByName("Late")).isEmpty();
+
+    categoryRepo.save(new Category("Late"));
+
+    assertThat(categoryRepo.findByName("Late")).isPresent();
+  }
+
+  @Test
+  void updateIsDefault_evictsReadOnlyCategory() {
+    Category saved = categoryRepo.save(new Category("Flag"));
+    assertThat(categoryRepo.findById(saved.getId()).get().getIsDefault()).isFalse();
+
+    categoryRepo.updateIsDefault(saved.getId(), true);
+
+    assertThat(categoryRepo.findById(saved.getId()).get().getIsDefault()).isTrue();
+  }
+
+  @Test
+  void userSettings_readWriteCacheReflectsUpdates() {
+    User user = new TransactionTemplate(txManager).execute(status -> {
+      User u = userRepo.save(new User("cacheUser", "pw"));
+      settingsRepo.save(new UserSettings(u, "EUR"));
+      return u;
+    });
+    settingsRepo.findById(user.getId());
+
+    stats.clear();
+    UserSettings cached = settingsRepo.findById(user.getId()).get();
+    assertThat(stats.getPrepareStatementCount()).isZero();
+
+    cached.setCurrency("USD");
+    settingsRepo.save(cached);
+
+    assertThat(settingsRepo.findById(user.getId()).get().getCurrency()).isEqualTo("USD");
+  }
+}
@@ -5,16 +5,21 @@ import JK.pfm.dto.CategoryListDto;
 import JK.pfm.dto.ExpenseByAccountDTO;
 import JK.pfm.dto.ExpenseByCategoryDTO;
 import JK.pfm.model.Account;
+import JK.pfm.model.ArchivedTransaction;
 import JK.pfm.model.Category;
+import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.Transaction;
 import JK.pfm.model.User;
 import JK.pfm.model.UserCategoryPreference;
+import JK.pfm.specifications.TransactionSpecifications;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -23,6 +28,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.TestPropertySource;
@@ -36,6 +43,7 @@ class TransactionRepositoryTest {
 
   @Autowired TestEntityManager em;
   @Autowired TransactionRepository repo;
+  @Autowired ArchivedTransactionRepository archiveRepo;
 
   private User user;
     private User other;
@@ -398,93 +406,104 @@ class TransactionRepositoryTest {
         BigDecimal sum = repo.getAccountBalanceUpTo(user.getId(), LocalDate.now().plusDays(5));
         assertEquals(new BigDecimal("5.00"), sum);
     }
+
+    @Test
+    void getAccountBalanceUpTo_includesArchivedTransactions(){
+        var live     = new Transaction(LocalDate.now(), new BigDecimal("10"), acc1, cat1, "Deposit", "live");
+        var archived = new Transaction(LocalDate.now().minusYears(3), new BigDecimal("4"), acc1, cat1, "Expense", "archived");
+        em.persist(live);
+        em.persist(archived);
+        em.flush();
+
+        archiveRepo.copyFromLive(List.of(archived.getId()), LocalDateTime.now());
+        repo.deleteAllByIdInBulk(List.of(archived.getId()));
+        em.clear();
+
+        assertThat(repo.findAll()).extracting(Transaction::getDescription).containsExactly("live");
+        assertThat(archiveRepo.findByFilters(user.getId(), null, null, null, null, "Expense"))
+            .extracting(ArchivedTransaction::getId).containsExactly(archived.getId());
+        assertThat(repo.getAccountBalanceUpTo(user.getId(), LocalDate.now())).isEqualByComparingTo("6");
+    }
     
     @Test
-    void netSavingsMonthlyBalance_filtersAndSumsCorrectly() {
-    List<Long> accountIds = List.of(acc1.getId());
-    LocalDate start = LocalDate.now().with(TemporalAdjusters.firstDayOfMonth());
-    LocalDate end   = start.with(TemporalAdjusters.lastDayOfMonth());
+    void findMonthlySavingsActivity_groupsCountsAndNetByMonth() {
+    LocalDate thisMonth = LocalDate.now().with(TemporalAdjusters.firstDayOfMonth());
+    LocalDate lastMonth = thisMonth.minusMonths(1);
+    Category transfer = new Category("Fund Transfer");
+    em.persist(transfer);
 
-    // make sure there's a “Savings” category
-    Category cat = new Category("Fund Transfer");
-    em.persist(cat);
+    em.persist(new Transaction(lastMonth.plusDays(3), new BigDecimal("100"), acc1, transfer, "Expense", "Deposit to savings"));
+    em.persist(new Transaction(lastMonth.plusDays(4), new BigDecimal("30"), acc1, transfer, "Deposit", "Withdraw from savings"));
+    em.persist(new Transaction(lastMonth.plusDays(5), new BigDecimal("9"), acc1, cat1, "Expense", "Deposit to savings"));
+    // activity without savings still counts as an active month
+    em.persist(new Transaction(thisMonth, new BigDecimal("5"), acc1, cat1, "Expense", "coffee"));
+    // excluded: other account, before the range
+    em.persist(new Transaction(thisMonth, new BigDecimal("50"), acc2, transfer, "Expense", "Deposit to savings"));
+    em.persist(new Transaction(lastMonth.minusDays(1), new BigDecimal("70"), acc1, transfer, "Expense", "Deposit to savings"));
+    em.flush();
+    em.clear();
 
-    // 2 valid savings transactions (one deposit, one withdrawal)
-    var txn1 = new Transaction(
-        start, 
-        new BigDecimal("100"), 
-        acc1, 
-        cat, 
-        "Expense", 
-        "Deposit to savings"
-    );
+    List<Object[]> rows = repo.findMonthlySavingsActivity(
+        List.of(acc1.getId()), lastMonth, thisMonth.with(TemporalAdjusters.lastDayOfMonth()));
 
-    var txn2 = new Transaction(
-        start.plusDays(5), 
-        new BigDecimal("30"), 
-        acc1, 
-        cat, 
-        "Deposit", 
-        "Withdraw from savings"
-    );
+    assertThat(rows).extracting(r -> ((Number) r[1]).intValue(), r -> ((Number) r[2]).longValue(), r -> ((BigDecimal) r[3]).intValueExact())
+        .containsExactlyInAnyOrder(
+            tuple(lastMonth.getMonthValue(), 3L, 70),
+            tuple(thisMonth.getMonthValue(), 1L, 0));
+    }
 
-    // excluded: before date range
-    var txn3 = new Transaction(
-        start.minusDays(1), 
-        new BigDecimal("10"), 
-        acc1, 
-        cat, 
-        "Expense", 
-        "Deposit to savings"
-    );
+    @Test
+    void findMonthlyGoalActivity_onlyTransfersLinkedToTheGoal() {
+    LocalDate thisMonth = LocalDate.now().with(TemporalAdjusters.firstDayOfMonth());
+    Category transfer = new Category("Fund Transfer");
+    em.persist(transfer);
+    SavingsGoal trip = em.persist(new SavingsGoal("Trip", new BigDecimal("1000"), "", user));
+    SavingsGoal car  = em.persist(new SavingsGoal("Car", new BigDecimal("5000"), "", user));
 
-    // excluded: after date range
-    var txn4 = new Transaction(
-        end.plusDays(1), 
-        new BigDecimal("10"), 
-        acc1, 
-        cat, 
-        "Deposit", 
-        "Withdraw from savings"
-    );
+    Transaction in  = new Transaction(thisMonth, new BigDecimal("200"), acc1, transfer, "Expense", "Deposit to savings");
+    Transaction out = new Transaction(thisMonth.plusDays(1), new BigDecimal("50"), acc2, transfer, "Deposit", "Withdraw from savings");
+    Transaction other = new Transaction(thisMonth, new BigDecimal("80"), acc1, transfer, "Expense", "Deposit to savings");
+    in.setSavingsGoal(trip);
+    out.setSavingsGoal(trip);
+    other.setSavingsGoal(car);
+    em.persist(in);
+    em.persist(out);
+    em.persist(other);
+    em.flush();
+    em.clear();
 
-    // excluded: wrong account
-    var txn5 = new Transaction(
-        start.plusDays(2), 
-        new BigDecimal("20"), 
-        acc2, 
-        cat, 
-        "Expense", 
-        "Deposit to savings"
-    );
+    List<Object[]> rows = repo.findMonthlyGoalActivity(
+        trip.getId(), thisMonth, thisMonth.with(TemporalAdjusters.lastDayOfMonth()));
 
-    // excluded: non‐savings category
-    Category otherCat = new Category("Other");
-    otherCat.setIsDefault(false);
-    em.persist(otherCat);
-    var txn6 = new Transaction(
-        start.plusDays(2),
-        new BigDecimal("20"),
-        acc1,
-        otherCat,
-        "Expense",
-        "Deposit to savings"
-    );
+    assertThat(rows).hasSize(1);
+    assertThat(((Number) rows.get(0)[2]).longValue()).isEqualTo(2L);
+    assertThat((BigDecimal) rows.get(0)[3]).isEqualByComparingTo("150");
+    }
 
-    em.persist(txn1);
-    em.persist(txn2);
-    em.persist(txn3);
-    em.persist(txn4);
-    em.persist(txn5);
-    em.persist(txn6);
+    @Test
+    void clearSavingsGoal_unlinksOnlyThatGoalsTransfers() {
+    LocalDate today = LocalDate.now();
+    Category transfer = new Category("Fund Transfer");
+    em.persist(transfer);
+    SavingsGoal trip = em.persist(new SavingsGoal("Trip", new BigDecimal("1000"), "", user));
+    SavingsGoal car  = em.persist(new SavingsGoal("Car", new BigDecimal("5000"), "", user));
+
+    Transaction toTrip = new Transaction(today, new BigDecimal("200"), acc1, transfer, "Expense", "Deposit to savings");
+    Transaction toCar  = new Transaction(today, new BigDecimal("80"), acc1, transfer, "Expense", "Deposit to savings");
+    toTrip.setSavingsGoal(trip);
+    toCar.setSavingsGoal(car);
+    em.persist(toTrip);
+    em.persist(toCar);
     em.flush();
     em.clear();
 
-    BigDecimal sum = repo.netSavingsMonthlyBalance(accountIds, start, end);
-    // expected: 100 (deposit) – 30 (withdraw) = 70
-    assertEquals(new BigDecimal("70.00"), sum);
-}
-    
+    assertThat(repo.clearSavingsGoal(trip.getId())).isEqualTo(1);
+    em.clear();
+
+    assertThat(em.find(Transaction.class, toTrip.getId()).getSavingsGoal()).isNull();
+    assertThat(em.find(Transaction.class, toCar.getId()).getSavingsGoal().getId()).isEqualTo(car.getId());
+    }
+
     @Test
     void netSavingsBalanceUpToCutoffDate() {
     LocalDate today = LocalDate.now();
@@ -559,7 +578,84 @@ class TransactionRepositoryTest {
     // expected: 100 (deposit) – 30 (withdraw) = 70
     assertEquals(new BigDecimal("70.00"), sum);
     }
-    
-    
-    
+
+    @Test
+    void streamSearchRows_userRowsFromDate() {
+    LocalDate today = LocalDate.now();
+    Transaction kept = em.persist(new Transaction(today, new BigDecimal("10"), acc1, cat1, "Expense", "Netflix"));
+    Transaction noCategory = em.persist(new Transaction(today, new BigDecimal("5"), acc2, null, "Deposit", "Refund"));
+    em.persist(new Transaction(today.minusYears(3), new BigDecimal("10"), acc1, cat1, "Expense", "old"));
+    Account otherAcc = new Account("other", new BigDecimal("100"), other);
+    otherAcc.setVersion(0L);
+    em.persist(otherAcc);
+    em.persist(new Transaction(today, new BigDecimal("10"), otherAcc, cat1, "Expense", "foreign"));
+    em.flush();
+    em.clear();
+
+    List<Object[]> rows;
+    try (Stream<Object[]> stream = repo.streamSearchRows(user.getId(), today.minusYears(1))) {
+        rows = stream.toList();
+    }
+
+    assertThat(rows).extracting(r -> r[0], r -> r[2], r -> r[3], r -> r[4], r -> r[5])
+        .containsExactlyInAnyOrder(
+            tuple(kept.getId(), acc1.getId(), cat1.getId(), "Expense", "Netflix"),
+            tuple(noCategory.getId(), acc2.getId(), null, "Deposit", "Refund"));
+    assertThat(repo.findSearchRows(List.of(kept.getId()))).hasSize(1);
+    }
+
+    @Test
+    void descriptionContainsAndBefore_pageByKeyset() {
+    LocalDate day = LocalDate.of(2026, 5, 1);
+    Transaction a = em.persist(new Transaction(day.plusDays(1), new BigDecimal("1"), acc1, cat1, "Expense", "NETFLIX.COM"));
+    Transaction b = em.persist(new Transaction(day, new BigDecimal("1"), acc1, cat1, "Expense", "netflix"));
+    Transaction c = em.persist(new Transaction(day, new BigDecimal("1"), acc1, cat1, "Expense", "Netflix family"));
+    em.persist(new Transaction(day, new BigDecimal("1"), acc1, cat1, "Expense", "Spotify"));
+    em.flush();
+    em.clear();
+
+    Specification<Transaction> spec = Specification
+        .where(TransactionSpecifications.belongsToUser(user.getId()))
+        .and(TransactionSpecifications.descriptionContains("netflix"));
+    Sort sort = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+
+    List<Transaction> first = repo.findBy(spec, q -> q.sortBy(sort).limit(2).all());
+    Transaction last = first.get(1);
+    List<Transaction> next = repo.findBy(spec.and(TransactionSpecifications.before(last.getDate(), last.getId())),
+        q -> q.sortBy(sort).limit(2).all());
+
+    assertThat(first).extracting(Transaction::getId).containsExactly(a.getId(), c.getId());
+    assertThat(next).extracting(Transaction::getId).containsExactly(b.getId());
+    }
+
+    @Test
+    void fingerprints_streamedAfterIdAndLookedUp() {
+    Transaction first = new Transaction(LocalDate.now(), new BigDecimal("10"), acc1, cat1, "Expense", "a");
+    first.setFingerprint(111L);
+    Transaction second = new Transaction(LocalDate.now(), new BigDecimal("10"), acc1, cat1, "Expense", "b");
+    second.setFingerprint(222L);
+    Transaction otherAccount = new Transaction(LocalDate.now(), new BigDecimal("10"), acc2, cat1, "Expense", "a");
+    otherAccount.setFingerprint(111L);
+    em.persist(first);
+    em.persist(second);
+    em.persist(otherAccount);
+    // saved before fingerprints existed
+    em.persist(new Transaction(LocalDate.now(), new BigDecimal("10"), acc1, cat1, "Expense", "c"));
+    em.flush();
+    em.clear();
+
+    List<Object[]> all;
+    try (Stream<Object[]> stream = repo.streamFingerprints(acc1.getId(), 0L)) {
+        all = stream.toList();
+    }
+    List<Object[]> after;
+    try (Stream<Object[]> stream = repo.streamFingerprints(acc1.getId(), first.getId())) {
+        after = stream.toList();
+    }
+
+    assertThat(all).extracting(r -> r[1]).containsExactlyInAnyOrder(111L, 222L);
+    assertThat(after).extracting(r -> r[0], r -> r[1]).containsExactly(tuple(second.getId(), 222L));
+    assertTrue(repo.existsByAccountIdAndFingerprint(acc1.getId(), 222L));
+    assertFalse(repo.existsByAccountIdAndFingerprint(acc2.getId(), 222L));
+    }
 }
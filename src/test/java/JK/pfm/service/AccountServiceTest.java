@@ -6,6 +6,7 @@ import JK.pfm.dto.ChangeAccountNameDto;
 import JK.pfm.dto.SavingsFundTransferDTO;
 import JK.pfm.dto.TransactionCreationRequest;
 import JK.pfm.model.Account;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.CategoryRepository;
@@ -26,9 +27,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -49,6 +52,8 @@ public class AccountServiceTest {
     @Mock UserRepository       userRepository;
     @Mock CategoryRepository   categoryRepository;
     @Mock TransactionService   transactionService;
+    @Spy AccountBalanceService balances = new AccountBalanceService(null, null, null, null, false, 500);
+    @Mock OutboxService outbox;
   
     @InjectMocks
     AccountService accountService;
@@ -290,6 +295,8 @@ public class AccountServiceTest {
     verify(accountRepository).save(argThat(a ->
       a.getId().equals(id) && Boolean.FALSE.equals(a.getIsActive())
     ));
+    // and downstream consumers are notified after commit
+    verify(outbox).append(eq(1L), eq(OutboxEvent.ACCOUNT_CLOSED), eq(id), any());
   }
     
     @Test
@@ -2,7 +2,9 @@
 package JK.pfm.service;
 
 import JK.pfm.dto.BudgetCreationRequest;
+import JK.pfm.dto.BudgetVsActualDTO;
 import JK.pfm.dto.UpdateBudgetAmountDto;
+import JK.pfm.dto.filters.DateRangeFilter;
 import JK.pfm.model.Budget;
 import JK.pfm.model.Category;
 import JK.pfm.model.User;
@@ -10,8 +12,8 @@ import JK.pfm.repository.BudgetRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.UserRepository;
 import JK.pfm.service.BudgetService;
-import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
+import JK.pfm.service.budget.BudgetTracker;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
@@ -28,7 +30,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -47,8 +48,9 @@ import org.springframework.web.server.ResponseStatusException;
 public class BudgetServiceTest {
     @Mock UserRepository       userRepository;
     @Mock BudgetRepository budgetRepository;
-    @Mock AccountUtil accountUtil;
     @Mock CategoryRepository categoryRepository;
+    @Mock JobLeaseService jobLeases;
+    @Mock BudgetTracker budgetTracker;
     
     @InjectMocks
     BudgetService budgetService;
@@ -58,7 +60,6 @@ public class BudgetServiceTest {
     private Budget budget;
     private BudgetCreationRequest req;
     private Category category;
-    private List<Long> stubAccountIds;
     
     
     @BeforeEach
@@ -108,39 +109,31 @@ public class BudgetServiceTest {
   }
     
     @Test
-    void getTotalSpentOnBudget_happyPath_delegatesAndReturns() {
-    // override the findById stub
+    void getTotalSpentOnBudget_happyPath_returnsTrackedSpending() {
     when(budgetRepository.findById(5L))
       .thenReturn(Optional.of(budget));
-    
-    // stub account IDs
-    stubAccountIds = List.of(10L,11L);
-    when(accountUtil.getUserAccountIds())
-      .thenReturn(stubAccountIds);
-
-    // prepare the repository’s sum
     BigDecimal expected = new BigDecimal("1234.56");
-    when(budgetRepository.getTotalSpentOnBudget(
-           eq(budget.getCategory().getId()),
-           eq(budget.getStartDate()),
-           eq(budget.getEndDate()),
-           eq(stubAccountIds)))
-      .thenReturn(expected);
-
-    // call
+    when(budgetTracker.spent(budget)).thenReturn(expected);
+
     BigDecimal actual = budgetService.getTotalSpentOnBudget(5L);
 
-    // verify delegation
-    verify(accountUtil).getUserAccountIds();
-    verify(budgetRepository).getTotalSpentOnBudget(
-      budget.getCategory().getId(),
-      budget.getStartDate(),
-      budget.getEndDate(),
-      stubAccountIds
-    );
+    verify(budgetTracker).spent(budget);
+    assertThat(actual).isSameAs(expected);
+  }
+
+    @Test
+    void getBudgetsVsActual_delegatesWithUserAndPeriod() {
+    LocalDate start = LocalDate.of(2025, 1, 1);
+    LocalDate end   = LocalDate.of(2025, 1, 31);
+    List<BudgetVsActualDTO> expected = List.of(
+        new BudgetVsActualDTO(5L, "Food", new BigDecimal("300"), new BigDecimal("120")));
+    when(budgetRepository.findBudgetsVsActual(1L, start, end)).thenReturn(expected);
 
-    // assert return value
+    List<BudgetVsActualDTO> actual = budgetService.getBudgetsVsActual(new DateRangeFilter(start, end));
+
+    verify(budgetRepository).findBudgetsVsActual(1L, start, end);
     assertThat(actual).isSameAs(expected);
+    assertThat(actual.get(0).getDifference()).isEqualByComparingTo("180");
   }
   
     @Test
@@ -201,6 +194,7 @@ void saveBudget_happyPath_persistsAndReturnsBudget() {
     assertThat(toSave.getEndDate()).isEqualTo(request.getEndDate());
     assertThat(toSave.getCategory()).isSameAs(category);
     assertThat(toSave.getUser()).isSameAs(stubUser);
+    verify(budgetTracker).track(toSave);
 
     // assert returned object has the stub ID
     assertThat(saved.getId()).isEqualTo(77L);
@@ -283,6 +277,7 @@ void saveBudget_happyPath_persistsAndReturnsBudget() {
     Budget savedArg = captor.getValue();
     assertThat(savedArg.getId()).isEqualTo(id);
     assertThat(savedArg.getAmount()).isEqualByComparingTo(newAmt);
+    verify(budgetTracker).evaluate(savedArg);
     }
     
     @Test
@@ -412,9 +407,10 @@ void saveBudget_happyPath_persistsAndReturnsBudget() {
     ArgumentCaptor<Budget> captor = ArgumentCaptor.forClass(Budget.class);
 
     // act
-    budgetService.createNextMonthBudgets();
+    int created = budgetService.createNextMonthBudgets();
 
     // assert
+    assertThat(created).isEqualTo(1);
     verify(budgetRepository).save(captor.capture());
     Budget next = captor.getValue();
 
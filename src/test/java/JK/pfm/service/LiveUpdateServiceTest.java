@@ -0,0 +1,201 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.BudgetAlert;
+import JK.pfm.dto.LiveEvent;
+import JK.pfm.model.Account;
+import JK.pfm.model.Budget;
+import JK.pfm.model.OutboxEvent;
+import JK.pfm.model.Transaction;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+public class LiveUpdateServiceTest {
+
+    private AccountRepository accountRepository;
+    private RecordingService service;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        when(accountRepository.getTotalBalanceByUserId(1L)).thenReturn(new BigDecimal("250.00"));
+        service = new RecordingService(accountRepository, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void subscribe_thenOutboxEvent_deliversEventAndBalance() {
+        service.release.countDown();
+        service.subscribe(1L);
+        // let the initial balance go out first, a buffer of two would otherwise drop it
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.sent.size() == 1);
+
+        service.onOutboxEvent(created(1L, 7L, 1L));
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+            assertThat(service.names()).containsExactly("balance", "transaction-created", "balance"));
+        assertThat(service.sent.get(1)).contains("\"transactionId\":7");
+        assertThat(service.sent.get(2)).contains("250.00");
+    }
+
+    @Test
+    void slowClient_fullBuffer_dropsOldestEvents() throws Exception {
+        service.subscribe(1L);
+        // the sender is now blocked writing the initial balance
+        assertThat(service.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (long id = 1; id <= 5; id++) {
+            service.onOutboxEvent(created(id, id, 1L));
+        }
+        service.release.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+            assertThat(service.names()).containsExactly("balance", "transaction-created", "balance"));
+        assertThat(service.sent.get(1)).contains("\"transactionId\":5");
+    }
+
+    @Test
+    void budgetAlert_isDeliveredWithoutBalance() {
+        service.release.countDown();
+        service.subscribe(1L);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.sent.size() == 1);
+
+        User user = new User();
+        user.setId(1L);
+        Budget budget = new Budget(new BigDecimal("100"), null, null, null, user);
+        budget.setId(3L);
+        budget.setSpent(new BigDecimal("85"));
+        service.onOutboxEvent(outboxEvent(1L, 1L, OutboxEvent.BUDGET_THRESHOLD, BudgetAlert.of(budget, 80)));
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+            assertThat(service.names()).containsExactly("balance", "budget-alert"));
+        assertThat(service.sent.get(1)).contains("\"budgetId\":3").contains("\"threshold\":80");
+    }
+
+    @Test
+    void redeliveredOutboxEvent_isPushedOnce() {
+        service.release.countDown();
+        service.subscribe(1L);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.sent.size() == 1);
+
+        service.onOutboxEvent(created(4L, 7L, 1L));
+        service.onOutboxEvent(created(4L, 7L, 1L));
+        service.onOutboxEvent(created(5L, 8L, 1L));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.sent.size() == 5);
+        assertThat(service.names())
+            .containsExactly("balance", "transaction-created", "balance", "transaction-created", "balance");
+        assertThat(service.sent.get(3)).contains("\"transactionId\":8");
+    }
+
+    @Test
+    void otherOutboxEventTypes_areNotPushed() {
+        service.release.countDown();
+        service.subscribe(1L);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.sent.size() == 1);
+
+        service.onOutboxEvent(outboxEvent(1L, 1L, OutboxEvent.ACCOUNT_CLOSED, Map.of("accountId", 10)));
+
+        verify(accountRepository).getTotalBalanceByUserId(1L);
+        assertThat(service.names()).containsExactly("balance");
+    }
+
+    @Test
+    void outboxEvent_withoutConnection_isIgnored() {
+        service.onOutboxEvent(created(1L, 7L, 2L));
+
+        assertThat(service.connectionCount(2L)).isZero();
+        verify(accountRepository, never()).getTotalBalanceByUserId(anyLong());
+    }
+
+    private static OutboxEvent created(Long eventId, Long transactionId, Long userId) {
+        return outboxEvent(eventId, userId, OutboxEvent.TRANSACTION_CREATED,
+            LiveEvent.of(LiveEvent.TRANSACTION_CREATED, transaction(transactionId, userId)));
+    }
+
+    private static OutboxEvent outboxEvent(Long eventId, Long userId, String type, Object payload) {
+        OutboxEvent event = new OutboxEvent(userId, type, null, RecordingService.toJson(payload), LocalDateTime.now());
+        ReflectionTestUtils.setField(event, "id", eventId);
+        return event;
+    }
+
+    private static Transaction transaction(Long id, Long userId) {
+        User user = new User();
+        user.setId(userId);
+        Account account = new Account("Main", new BigDecimal("100"), user);
+        account.setId(10L);
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccount(account);
+        transaction.setAmount(BigDecimal.ONE);
+        transaction.setType("Expense");
+        return transaction;
+    }
+
+    /**
+     * Records sent events as text instead of writing to a response; blocks until released.
+     */
+    private static final class RecordingService extends LiveUpdateService {
+
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        RecordingService(AccountRepository accountRepository, int bufferSize) {
+            super(accountRepository, 0L, bufferSize);
+        }
+
+        @Override
+        protected void send(SseEmitter emitter, SseEventBuilder event) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(event.build().stream()
+                .map(part -> part.getData() instanceof String s ? s : toJson(part.getData()))
+                .collect(Collectors.joining()));
+        }
+
+        List<String> names() {
+            return sent.stream()
+                .map(text -> text.substring("event:".length(), text.indexOf('\n')))
+                .toList();
+        }
+
+        private static String toJson(Object value) {
+            try {
+                return new ObjectMapper().findAndRegisterModules().writeValueAsString(value);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.AccountLedgerBalance;
+import JK.pfm.model.Account;
+import JK.pfm.model.BalanceDiscrepancy;
+import JK.pfm.model.User;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BalanceDiscrepancyRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ReconciliationServiceTest {
+    @Mock AccountRepository accountRepository;
+    @Mock BalanceDiscrepancyRepository discrepancyRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    // default (non-journal) mode only touches Account.amount
+    private final AccountBalanceService balances = new AccountBalanceService(null, null, null, null, false, 500);
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(1L);
+        account = new Account("Main", new BigDecimal("95"), user);
+        account.setId(7L);
+        when(discrepancyRepository.save(any(BalanceDiscrepancy.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void reconcile_scansAllChunks() {
+        when(accountRepository.findMaxId()).thenReturn(25L);
+
+        ReconciliationService.Result result = service(false, 10).reconcile();
+
+        assertThat(result.chunks()).isEqualTo(3);
+        verify(accountRepository).findLedgerMismatches(1L, 10L);
+        verify(accountRepository).findLedgerMismatches(11L, 20L);
+        verify(accountRepository).findLedgerMismatches(21L, 25L);
+    }
+
+    @Test
+    void reconcile_scanRunsInNamedReadOnlyTransactions_soItCanUseTheReplica() {
+        when(accountRepository.findMaxId()).thenReturn(25L);
+
+        service(false, 10).reconcile();
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeast(4)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues())
+            .filteredOn(TransactionDefinition::isReadOnly)
+            .hasSize(4)
+            .allSatisfy(definition -> assertThat(definition.getName())
+                .isEqualTo("JK.pfm.service.ReconciliationService.scan"));
+    }
+
+    @Test
+    void reconcile_confirmedMismatch_isRecordedWithoutCorrection() {
+        givenMismatch();
+
+        ReconciliationService.Result result = service(false, 100).reconcile();
+
+        ArgumentCaptor<BalanceDiscrepancy> saved = ArgumentCaptor.forClass(BalanceDiscrepancy.class);
+        verify(discrepancyRepository).save(saved.capture());
+        assertThat(saved.getValue().getAccountId()).isEqualTo(7L);
+        assertThat(saved.getValue().getUserId()).isEqualTo(1L);
+        assertThat(saved.getValue().getDifference()).isEqualByComparingTo("-5");
+        assertThat(saved.getValue().isCorrected()).isFalse();
+        assertThat(account.getAmount()).isEqualByComparingTo("95");
+        assertThat(result.discrepancies()).isEqualTo(1);
+        assertThat(result.corrected()).isZero();
+    }
+
+    @Test
+    void reconcile_autoCorrect_resetsBalanceToLedger() {
+        givenMismatch();
+
+        ReconciliationService.Result result = service(true, 100).reconcile();
+
+        assertThat(account.getAmount()).isEqualByComparingTo("100");
+        verify(accountRepository).save(account);
+        assertThat(result.corrected()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_balancedOnRecheck_recordsNothing() {
+        givenMismatch();
+        when(accountRepository.findLedgerBalance(7L)).thenReturn(Optional.of(
+            new AccountLedgerBalance(7L, 1L, new BigDecimal("95"), new BigDecimal("95.00"))));
+
+        ReconciliationService.Result result = service(true, 100).reconcile();
+
+        assertThat(result.candidates()).isEqualTo(1);
+        assertThat(result.discrepancies()).isZero();
+        verify(discrepancyRepository, never()).save(any());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void reconcile_noAccounts_doesNotScan() {
+        when(accountRepository.findMaxId()).thenReturn(null);
+
+        ReconciliationService.Result result = service(false, 100).reconcile();
+
+        assertThat(result.chunks()).isZero();
+        verify(accountRepository, never()).findLedgerMismatches(anyLong(), anyLong());
+    }
+
+    private void givenMismatch() {
+        when(accountRepository.findMaxId()).thenReturn(7L);
+        when(accountRepository.findLedgerMismatches(1L, 7L)).thenReturn(List.of(
+            new AccountLedgerBalance(7L, 1L, new BigDecimal("95"), new BigDecimal("100"))));
+        when(accountRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(account));
+        when(accountRepository.findLedgerBalance(7L)).thenReturn(Optional.of(
+            new AccountLedgerBalance(7L, 1L, new BigDecimal("95"), new BigDecimal("100"))));
+    }
+
+    private ReconciliationService service(boolean autoCorrect, int chunkSize) {
+        return new ReconciliationService(accountRepository, discrepancyRepository, balances,
+            transactionManager, autoCorrect, chunkSize, 2);
+    }
+}
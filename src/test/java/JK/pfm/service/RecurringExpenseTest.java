@@ -17,6 +17,8 @@ import JK.pfm.repository.TransactionRepository;
 import JK.pfm.repository.UserRepository;
 import JK.pfm.service.RecurringExpenseService;
 import JK.pfm.util.SecurityUtil;
+import JK.pfm.service.budget.BudgetTracker;
+import JK.pfm.service.projection.CashFlowProjectionService;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
@@ -34,6 +36,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -52,6 +55,11 @@ public class RecurringExpenseTest {
     @Mock AccountRepository accountRepository;
     @Mock CategoryRepository categoryRepository;
     @Mock UserRepository userRepository;
+    @Spy AccountBalanceService balances = new AccountBalanceService(null, null, null, null, false, 500);
+    @Mock OutboxService outbox;
+    @Mock JobLeaseService jobLeases;
+    @Mock BudgetTracker budgetTracker;
+    @Mock CashFlowProjectionService projections;
     
     @InjectMocks
     RecurringExpenseService recurringExpenseService;
@@ -3,17 +3,20 @@ package JK.pfm.service;
 
 import JK.pfm.dto.CashFlowDTO;
 import JK.pfm.dto.ChangesVsLastMonthDTO;
+import JK.pfm.dto.PeriodComparisonDTO;
 import JK.pfm.dto.RecurringExpenseCreation;
 import JK.pfm.dto.UpdatePaymentAmountDto;
 import JK.pfm.dto.UpdatePaymentNextDueDateDto;
 import JK.pfm.dto.UpdateRecurringExpenseAccountDto;
 import JK.pfm.dto.filters.DateRangeFilter;
+import JK.pfm.dto.filters.PeriodComparisonFilter;
 import JK.pfm.model.Account;
 import JK.pfm.model.Category;
 import JK.pfm.model.RecurringExpense;
 import JK.pfm.model.Transaction;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.ArchivedTransactionRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.RecurringExpenseRepository;
 import JK.pfm.repository.SavingsGoalRepository;
@@ -23,6 +26,11 @@ import JK.pfm.service.AccountService;
 import JK.pfm.service.RecurringExpenseService;
 import JK.pfm.service.ReportService;
 import JK.pfm.service.SavingsGoalService;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.analytics.TransactionAnalytics;
+import JK.pfm.service.analytics.TransactionColumns;
+import JK.pfm.service.report.ComparisonPeriods;
+import JK.pfm.service.report.PeriodComparisonService;
 import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
 import java.math.BigDecimal;
@@ -51,6 +59,7 @@ import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -69,6 +78,10 @@ public class ReportServiceTest {
     @Mock SavingsGoalService savingsGoalService;
     @Mock SavingsGoalRepository savingsGoalRepository;
     @Mock AccountUtil accountUtil;
+    @Mock TransactionAnalytics analytics;
+    @Mock PeriodComparisonService periodComparison;
+    @Mock ArchivedTransactionRepository archivedTransactionRepository;
+    @Mock TransactionArchiveService archive;
     
     @InjectMocks
     ReportService reportService;
@@ -157,6 +170,47 @@ public class ReportServiceTest {
     verify(transactionRepository).sumByTypeAndDate("Expense", accountIds, start, end);
     verify(transactionRepository).sumByTypeAndDate("Deposit", accountIds, start, end);
     }
+
+    @Test
+    void getSpendingAndIncomeSummary_analyticsEnabled_readsColumnsInsteadOfRepository() {
+    List<Long> accountIds = List.of(42L);
+    when(accountUtil.getUserAccountIds()).thenReturn(accountIds);
+    LocalDate start = LocalDate.of(2025, 1, 1);
+    LocalDate end   = LocalDate.of(2025, 1, 31);
+
+    TransactionColumns columns = Mockito.mock(TransactionColumns.class);
+    when(analytics.find(1L)).thenReturn(Optional.of(columns));
+    when(columns.sumByTypeAndDate("Expense", accountIds, start, end)).thenReturn(new BigDecimal("12.50"));
+    when(columns.sumByTypeAndDate("Deposit", accountIds, start, end)).thenReturn(new BigDecimal("40.00"));
+
+    Map<String, BigDecimal> result = reportService.getSpendingAndIncomeSummary(new DateRangeFilter(start, end));
+
+    assertThat(result.get("totalSpending")).isEqualByComparingTo("12.50");
+    assertThat(result.get("totalIncome")).isEqualByComparingTo("40.00");
+    verify(transactionRepository, never()).sumByTypeAndDate(any(), any(), any(), any());
+    }
+
+    @Test
+    void getSpendingAndIncomeSummary_rangeReachesArchive_addsArchivedSumsAndSkipsColumns() {
+    List<Long> accountIds = List.of(42L);
+    when(accountUtil.getUserAccountIds()).thenReturn(accountIds);
+    LocalDate start = LocalDate.of(2020, 1, 1);
+    LocalDate end   = LocalDate.of(2025, 1, 31);
+    when(archive.reachesArchive(start)).thenReturn(true);
+
+    TransactionColumns columns = Mockito.mock(TransactionColumns.class);
+    when(analytics.find(1L)).thenReturn(Optional.of(columns));
+    when(transactionRepository.sumByTypeAndDate("Expense", accountIds, start, end)).thenReturn(new BigDecimal("10.00"));
+    when(transactionRepository.sumByTypeAndDate("Deposit", accountIds, start, end)).thenReturn(new BigDecimal("20.00"));
+    when(archivedTransactionRepository.sumByTypeAndDate("Expense", accountIds, start, end)).thenReturn(new BigDecimal("5.00"));
+    when(archivedTransactionRepository.sumByTypeAndDate("Deposit", accountIds, start, end)).thenReturn(new BigDecimal("7.00"));
+
+    Map<String, BigDecimal> result = reportService.getSpendingAndIncomeSummary(new DateRangeFilter(start, end));
+
+    assertThat(result.get("totalSpending")).isEqualByComparingTo("15.00");
+    assertThat(result.get("totalIncome")).isEqualByComparingTo("27.00");
+    verifyNoInteractions(columns);
+    }
     
     @Test
     void getMonthlyCashFlow_allZeroSummary_returnsSevenZeroEntries() {
@@ -476,98 +530,31 @@ public class ReportServiceTest {
     }
     
     @Test
-    void getChanges_nonZeroValues_computesCorrectPercentages() {
-        // Arrange
-        ReportService serviceSpy = Mockito.spy(reportService);
+    void getChanges_mapsMonthOverMonthComparison() {
+        LocalDate today = LocalDate.now();
+        ComparisonPeriods periods = ComparisonPeriods.monthOverMonth(today);
+        when(periodComparison.compare(periods)).thenReturn(new PeriodComparisonDTO(
+            periods.currentStart(), periods.currentEnd(), periods.previousStart(), periods.previousEnd(),
+            List.of(
+                new PeriodComparisonDTO.Metric("Income", new BigDecimal("200"), new BigDecimal("100"), new BigDecimal("100")),
+                new PeriodComparisonDTO.Metric("Expense", new BigDecimal("80"), new BigDecimal("100"), new BigDecimal("-20")))));
+
+        List<ChangesVsLastMonthDTO> changes = reportService.getChanges();
+
+        assertThat(changes).extracting(ChangesVsLastMonthDTO::getName).containsExactly("Income", "Expense");
+        assertThat(changes).extracting(ChangesVsLastMonthDTO::getPercentage)
+            .containsExactly(new BigDecimal("100"), new BigDecimal("-20"));
+        verify(periodComparison).compare(periods);
+        verifyNoInteractions(transactionRepository, savingsGoalRepository);
+    }
 
-        List<Long> accountIds = List.of(10L, 20L);
-        when(accountUtil.getUserAccountIds()).thenReturn(accountIds);
+    @Test
+    void comparePeriods_resolvesFilterAndDelegates() {
+        PeriodComparisonFilter filter = new PeriodComparisonFilter(PeriodComparisonFilter.Period.YEAR);
+        PeriodComparisonDTO expected = new PeriodComparisonDTO(null, null, null, null, List.of());
+        when(periodComparison.compare(ComparisonPeriods.yearOverYear(LocalDate.now()))).thenReturn(expected);
 
-        LocalDate today = LocalDate.now();
-        LocalDate lastMonth = today.minusMonths(1);
-
-        LocalDate startThis = today.withDayOfMonth(1);
-        LocalDate endThis   = today.withDayOfMonth(today.lengthOfMonth());
-        LocalDate startLast = lastMonth.withDayOfMonth(1);
-        LocalDate endLast   = lastMonth.withDayOfMonth(lastMonth.lengthOfMonth());
-
-        // Build maps for this month and last month:
-        Map<String, BigDecimal> thisSummary = new HashMap<>();
-        thisSummary.put("totalIncome", new BigDecimal("200"));
-        thisSummary.put("totalSpending", new BigDecimal("80"));
-
-        Map<String, BigDecimal> lastSummary = new HashMap<>();
-        lastSummary.put("totalIncome", new BigDecimal("100"));
-        lastSummary.put("totalSpending", new BigDecimal("100"));
-
-        // Stub getSpendingAndIncomeSummary(...) in sequence: first call → thisSummary, second → lastSummary
-        doReturn(thisSummary)
-            .doReturn(lastSummary)
-            .when(serviceSpy)
-            .getSpendingAndIncomeSummary(any(DateRangeFilter.class));
-
-        // Stub savingsGoalRepository balances:
-        // currentSav = 300, lastSav = 150
-        when(savingsGoalRepository.getTotalBalanceByUserId(1L))
-            .thenReturn(new BigDecimal("300"));
-        when(savingsGoalRepository.getLastMonthBalanceByUserId(1L))
-            .thenReturn(new BigDecimal("150"));
-
-        // Stub getTotalUserBalance() → 1000
-        doReturn(new BigDecimal("1000")).when(serviceSpy).getTotalUserBalance();
-
-        // Stub transactionRepository.getAccountBalanceUpTo(userId, endLast) → 700
-        when(transactionRepository.getAccountBalanceUpTo(1L, endLast))
-            .thenReturn(new BigDecimal("700"));
-
-        // Act
-        List<ChangesVsLastMonthDTO> changes = serviceSpy.getChanges();
-
-        // Assert: five entries in order:
-        // 1. Income: percent = (200 - 100) *100 /100 = 100
-        // 2. Expense: percent = (80 - 100) *100 /100 = −20
-        // 3. Savings: percent = (300 - 150) *100 /150 = 100
-        // 4. totalBalance: lastTotal = lastAccounts(700) + lastSav(150) = 850
-        //    percent = (1000 - 850)*100 /850 ≈ 18 (floor from 17.65… rounds to 18)
-        // 5. accountBalance: percent = (currentTotal(1000) - lastAccounts(700))*100 /700 ≈ 43 (300*100/700=42.857… rounds to 43)
-        assertThat(changes).hasSize(5);
-
-        ChangesVsLastMonthDTO incomeDto   = changes.get(0);
-        ChangesVsLastMonthDTO expenseDto  = changes.get(1);
-        ChangesVsLastMonthDTO savingsDto  = changes.get(2);
-        ChangesVsLastMonthDTO totalDto    = changes.get(3);
-        ChangesVsLastMonthDTO accountDto  = changes.get(4);
-
-        assertThat(incomeDto.getName()).isEqualTo("Income");
-        assertThat(incomeDto.getPercentage()).isEqualByComparingTo(new BigDecimal("100"));
-
-        assertThat(expenseDto.getName()).isEqualTo("Expense");
-        assertThat(expenseDto.getPercentage()).isEqualByComparingTo(new BigDecimal("-20"));
-
-        assertThat(savingsDto.getName()).isEqualTo("Savings");
-        assertThat(savingsDto.getPercentage()).isEqualByComparingTo(new BigDecimal("100"));
-
-        assertThat(totalDto.getName()).isEqualTo("totalBalance");
-        assertThat(totalDto.getPercentage()).isEqualByComparingTo(new BigDecimal("18"));
-
-        assertThat(accountDto.getName()).isEqualTo("accountBalance");
-        assertThat(accountDto.getPercentage()).isEqualByComparingTo(new BigDecimal("43"));
-
-        // Verify getSpendingAndIncomeSummary called twice with correct filters:
-        ArgumentCaptor<DateRangeFilter> drfCaptor = ArgumentCaptor.forClass(DateRangeFilter.class);
-        verify(serviceSpy, times(2)).getSpendingAndIncomeSummary(drfCaptor.capture());
-        List<DateRangeFilter> capturedFilters = drfCaptor.getAllValues();
-        // First filter: this month
-        assertThat(capturedFilters.get(0).getStartDate()).isEqualTo(startThis);
-        assertThat(capturedFilters.get(0).getEndDate()).isEqualTo(endThis);
-        // Second filter: last month
-        assertThat(capturedFilters.get(1).getStartDate()).isEqualTo(startLast);
-        assertThat(capturedFilters.get(1).getEndDate()).isEqualTo(endLast);
-
-        verify(savingsGoalRepository).getTotalBalanceByUserId(1L);
-        verify(savingsGoalRepository).getLastMonthBalanceByUserId(1L);
-        verify(serviceSpy).getTotalUserBalance();
-        verify(transactionRepository).getAccountBalanceUpTo(1L, endLast);
+        assertThat(reportService.comparePeriods(filter)).isSameAs(expected);
     }
 
 }
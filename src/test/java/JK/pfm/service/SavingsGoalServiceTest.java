@@ -10,6 +10,7 @@ import JK.pfm.model.Category;
 import JK.pfm.model.SavingsGoal;
 import JK.pfm.model.User;
 import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.ArchivedTransactionRepository;
 import JK.pfm.repository.CategoryRepository;
 import JK.pfm.repository.SavingsGoalRepository;
 import JK.pfm.repository.TransactionRepository;
@@ -34,9 +35,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -54,11 +58,14 @@ import org.mockito.quality.Strictness;
 public class SavingsGoalServiceTest {
     @Mock SavingsGoalRepository savingsGoalRepository;
     @Mock TransactionRepository transactionRepository;
+    @Mock ArchivedTransactionRepository archivedTransactionRepository;
     @Mock CategoryRepository categoryRepository;
     @Mock TransactionService transactionService;
     @Mock AccountUtil accountUtil;
     @Mock UserRepository userRepository;
     @Mock AccountRepository accountRepository;
+    @Spy AccountBalanceService balances = new AccountBalanceService(null, null, null, null, false, 500);
+    @Mock OutboxService outbox;
     
     @InjectMocks
     SavingsGoalService savingsGoalService;
@@ -206,7 +213,9 @@ public class SavingsGoalServiceTest {
     // Act
     savingsGoalService.deleteSavingsGoal(10L);
 
-    // Assert: deleteById should be called
+    // Assert: linked transfers are unlinked, then deleteById should be called
+    verify(transactionRepository).clearSavingsGoal(10L);
+    verify(archivedTransactionRepository).clearSavingsGoal(10L);
     verify(savingsGoalRepository).deleteById(10L);
     }
     
@@ -280,26 +289,17 @@ public class SavingsGoalServiceTest {
     // Pick two offsets, e.g. i=9 (oldest) and i=2, as “months with transactions”
     LocalDate month9 = today.minusMonths(9);
     LocalDate start9 = month9.withDayOfMonth(1);
-    LocalDate end9   = month9.withDayOfMonth(month9.lengthOfMonth());
     String label9    = start9.getMonth().toString().substring(0, 3);
 
     LocalDate month2 = today.minusMonths(2);
     LocalDate start2 = month2.withDayOfMonth(1);
-    LocalDate end2   = month2.withDayOfMonth(month2.lengthOfMonth());
     String label2    = start2.getMonth().toString().substring(0, 3);
 
-    // Stub existsByAccountIdInAndDateBetween(...) → true for those two months only
-    when(transactionRepository.existsByAccountIdInAndDateBetween(accountIds, start9, end9))
-        .thenReturn(true);
-    when(transactionRepository.existsByAccountIdInAndDateBetween(accountIds, start2, end2))
-        .thenReturn(true);
-    // All other months default to false (Mockito returns false)
-
-    // Stub netSavingsMonthlyBalance(...) for those two months
-    when(transactionRepository.netSavingsMonthlyBalance(accountIds, start9, end9))
-        .thenReturn(new BigDecimal("123.45"));
-    when(transactionRepository.netSavingsMonthlyBalance(accountIds, start2, end2))
-        .thenReturn(new BigDecimal("67.89"));
+    // One grouped row per month with transactions, in no particular order
+    when(transactionRepository.findMonthlySavingsActivity(eq(accountIds), any(), any()))
+        .thenReturn(List.of(
+            new Object[] {month2.getYear(), month2.getMonthValue(), 1L, new BigDecimal("67.89")},
+            new Object[] {month9.getYear(), month9.getMonthValue(), 3L, new BigDecimal("123.45")}));
 
     // Act
     Map<String, BigDecimal> result = savingsGoalService.getNetMonthlyBalance();
@@ -312,19 +312,25 @@ public class SavingsGoalServiceTest {
         entry(label2, new BigDecimal("67.89"))
       );
 
-    // Verify existsBy... was called for each of the last 10 months
-    for (int i = 9; i >= 0; i--) {
-      LocalDate m = today.minusMonths(i);
-      LocalDate start = m.withDayOfMonth(1);
-      LocalDate end   = m.withDayOfMonth(m.lengthOfMonth());
-      verify(transactionRepository).existsByAccountIdInAndDateBetween(accountIds, start, end);
+    // one query covers the whole window
+    verify(transactionRepository).findMonthlySavingsActivity(
+        accountIds, start9, today.withDayOfMonth(today.lengthOfMonth()));
+    verifyNoMoreInteractions(transactionRepository);
     }
+    
+    @Test
+    void getGoalNetMonthlyBalance_currentMonthOnly_usesOneQuery() {
+    LocalDate today = LocalDate.now();
+    when(transactionRepository.findMonthlyGoalActivity(eq(10L), any(), any()))
+        .thenReturn(List.<Object[]>of(new Object[] {today.getYear(), today.getMonthValue(), 2L, new BigDecimal("150")}));
+
+    Map<String, BigDecimal> result = savingsGoalService.getGoalNetMonthlyBalance(10L);
 
-    // Verify netSavingsMonthlyBalance(...) was called only for the two “true” months
-    verify(transactionRepository).netSavingsMonthlyBalance(accountIds, start9, end9);
-    verify(transactionRepository).netSavingsMonthlyBalance(accountIds, start2, end2);
+    assertThat(result).containsExactly(entry(today.getMonth().toString().substring(0, 3), new BigDecimal("150")));
+    verify(transactionRepository).findMonthlyGoalActivity(
+        10L, today.minusMonths(9).withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth()));
     }
-    
+
     @Test
     void transferFunds_accountNotFound_throws404() {
         // Arrange
@@ -453,7 +459,7 @@ public class SavingsGoalServiceTest {
             .thenReturn(Optional.of(cat));
 
         // Stub transactionService.call (void)
-        when(transactionService.saveTransaction(any(TransactionCreationRequest.class)))
+        when(transactionService.saveTransaction(any(TransactionCreationRequest.class), any(SavingsGoal.class)))
         .thenReturn(null);
         // Stub save on savingsGoalRepository
         when(savingsGoalRepository.save(any(SavingsGoal.class)))
@@ -472,7 +478,7 @@ public class SavingsGoalServiceTest {
         // Verify transactionService was called with a deposit transaction
         ArgumentCaptor<TransactionCreationRequest> txCaptor =
             ArgumentCaptor.forClass(TransactionCreationRequest.class);
-        verify(transactionService).saveTransaction(txCaptor.capture());
+        verify(transactionService).saveTransaction(txCaptor.capture(), same(goal));
         TransactionCreationRequest txReq = txCaptor.getValue();
         assertThat(txReq.getType()).isEqualTo("Deposit");
         assertThat(txReq.getAmount()).isEqualByComparingTo("100");
@@ -510,7 +516,7 @@ public class SavingsGoalServiceTest {
             .isInstanceOf(RuntimeException.class)
             .hasMessage("Insufficient funds in account");
 
-        verify(transactionService, never()).saveTransaction(any());
+        verify(transactionService, never()).saveTransaction(any(), any());
         verify(savingsGoalRepository, never()).save(any());
     }
 
@@ -528,7 +534,7 @@ public class SavingsGoalServiceTest {
         when(categoryRepository.findByName("Fund Transfer"))
             .thenReturn(Optional.of(cat));
 
-        when(transactionService.saveTransaction(any(TransactionCreationRequest.class)))
+        when(transactionService.saveTransaction(any(TransactionCreationRequest.class), any(SavingsGoal.class)))
         .thenReturn(null);
         when(savingsGoalRepository.save(any(SavingsGoal.class)))
             .thenAnswer(inv -> inv.getArgument(0));
@@ -546,7 +552,7 @@ public class SavingsGoalServiceTest {
         // Verify transactionService was called with an expense transaction
         ArgumentCaptor<TransactionCreationRequest> txCaptor =
             ArgumentCaptor.forClass(TransactionCreationRequest.class);
-        verify(transactionService).saveTransaction(txCaptor.capture());
+        verify(transactionService).saveTransaction(txCaptor.capture(), same(goal));
         TransactionCreationRequest txReq = txCaptor.getValue();
         assertThat(txReq.getType()).isEqualTo("Expense");
         assertThat(txReq.getDescription()).isEqualTo("Deposit to savings");
@@ -588,7 +594,7 @@ public class SavingsGoalServiceTest {
                 assertThat(rse.getReason()).isEqualTo("Incorret transaction type");
             });
 
-        verify(transactionService, never()).saveTransaction(any());
+        verify(transactionService, never()).saveTransaction(any(), any());
         verify(savingsGoalRepository, never()).save(any());
     }
 
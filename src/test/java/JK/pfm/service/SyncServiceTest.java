@@ -0,0 +1,200 @@
+package JK.pfm.service;
+
+import JK.pfm.dto.SyncResponse;
+import JK.pfm.model.Account;
+import JK.pfm.model.SyncChange;
+import JK.pfm.model.SyncCursor;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.BudgetRepository;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.repository.SavingsGoalRepository;
+import JK.pfm.repository.SyncChangeRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.repository.UserCategoryPreferenceRepository;
+import JK.pfm.util.SecurityUtil;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class SyncServiceTest {
+    @Mock SyncChangeRepository syncChangeRepository;
+    @Mock SyncCursorRepository syncCursorRepository;
+    @Mock AccountRepository accountRepository;
+    @Mock TransactionRepository transactionRepository;
+    @Mock BudgetRepository budgetRepository;
+    @Mock RecurringExpenseRepository recurringExpenseRepository;
+    @Mock SavingsGoalRepository savingsGoalRepository;
+    @Mock UserCategoryPreferenceRepository userCategoryPreferenceRepository;
+    @Mock TransactionArchiveService archive;
+
+    @InjectMocks
+    SyncService syncService;
+
+    private MockedStatic<SecurityUtil> securityUtilMock;
+
+    @BeforeEach
+    void setUp() {
+        securityUtilMock = mockStatic(SecurityUtil.class);
+        securityUtilMock.when(SecurityUtil::getUserId).thenReturn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilMock.close();
+    }
+
+    @Test
+    void getChanges_withoutCursor_returnsSnapshotAtCurrentCursor() {
+        Account account = account(10L);
+        when(syncCursorRepository.findById(1L)).thenReturn(Optional.of(new SyncCursor(1L, 42L)));
+        when(accountRepository.findByUserIdAndActiveTrue(1L)).thenReturn(List.of(account));
+        when(transactionRepository.findAll(any(Specification.class))).thenReturn(List.of(transaction(5L, account)));
+        when(archive.findArchived(1L, null, null, null, null, null)).thenReturn(List.of(transaction(2L, account)));
+
+        SyncResponse response = syncService.getChanges(null);
+
+        assertThat(response.isFull()).isTrue();
+        assertThat(response.getCursor()).isEqualTo(42L);
+        assertThat(response.getAccounts()).containsExactly(account);
+        assertThat(response.getTransactions()).extracting(Transaction::getId).containsExactly(5L, 2L);
+        verify(syncChangeRepository, never()).findByUserIdAndSeqGreaterThanOrderBySeqAsc(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getChanges_withCursor_returnsChangedRecordsAndTombstones() {
+        Account account = account(10L);
+        when(syncChangeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(eq(1L), eq(7L), any(Pageable.class)))
+            .thenReturn(List.of(
+                new SyncChange(1L, SyncChange.ACCOUNT, 10L, 8L, false),
+                new SyncChange(1L, SyncChange.TRANSACTION, 5L, 9L, false),
+                new SyncChange(1L, SyncChange.BUDGET, 3L, 10L, true)));
+        when(accountRepository.findAllById(Set.of(10L))).thenReturn(List.of(account));
+        when(transactionRepository.findAllById(Set.of(5L))).thenReturn(List.of(transaction(5L, account)));
+
+        SyncResponse response = syncService.getChanges(7L);
+
+        assertThat(response.isFull()).isFalse();
+        assertThat(response.isHasMore()).isFalse();
+        assertThat(response.getCursor()).isEqualTo(10L);
+        assertThat(response.getAccounts()).containsExactly(account);
+        assertThat(response.getTransactions()).extracting(Transaction::getId).containsExactly(5L);
+        assertThat(response.getDeleted()).singleElement()
+            .satisfies(t -> {
+                assertThat(t.getType()).isEqualTo(SyncChange.BUDGET);
+                assertThat(t.getId()).isEqualTo(3L);
+            });
+        verify(budgetRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getChanges_recordGoneSinceChange_isReportedAsDeleted() {
+        when(syncChangeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(eq(1L), eq(7L), any(Pageable.class)))
+            .thenReturn(List.of(new SyncChange(1L, SyncChange.TRANSACTION, 5L, 8L, false)));
+        when(transactionRepository.findAllById(Set.of(5L))).thenReturn(List.of());
+
+        SyncResponse response = syncService.getChanges(7L);
+
+        assertThat(response.getTransactions()).isEmpty();
+        assertThat(response.getDeleted()).extracting(t -> t.getId()).containsExactly(5L);
+    }
+
+    @Test
+    void getChanges_transactionArchivedSinceChange_isReadFromArchive_likeInSnapshot() {
+        Account account = account(10L);
+        when(syncChangeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(eq(1L), eq(7L), any(Pageable.class)))
+            .thenReturn(List.of(
+                new SyncChange(1L, SyncChange.TRANSACTION, 5L, 8L, false),
+                new SyncChange(1L, SyncChange.TRANSACTION, 6L, 9L, false)));
+        when(transactionRepository.findAllById(Set.of(5L, 6L))).thenReturn(List.of(transaction(6L, account)));
+        when(archive.findArchivedById(Set.of(5L))).thenReturn(List.of(transaction(5L, account)));
+
+        SyncResponse response = syncService.getChanges(7L);
+
+        assertThat(response.getTransactions()).extracting(Transaction::getId).containsExactly(6L, 5L);
+        assertThat(response.getDeleted()).isEmpty();
+    }
+
+    @Test
+    void getChanges_closedAccount_isReportedAsDeleted_likeInSnapshot() {
+        Account closed = account(10L);
+        closed.setIsActive(false);
+        when(syncChangeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(eq(1L), eq(7L), any(Pageable.class)))
+            .thenReturn(List.of(new SyncChange(1L, SyncChange.ACCOUNT, 10L, 8L, false)));
+        when(accountRepository.findAllById(Set.of(10L))).thenReturn(List.of(closed));
+
+        SyncResponse response = syncService.getChanges(7L);
+
+        assertThat(response.getAccounts()).isEmpty();
+        assertThat(response.getDeleted()).singleElement()
+            .satisfies(t -> {
+                assertThat(t.getType()).isEqualTo(SyncChange.ACCOUNT);
+                assertThat(t.getId()).isEqualTo(10L);
+            });
+    }
+
+    @Test
+    void getChanges_morePagesAvailable_setsHasMoreAndLastSeqAsCursor() {
+        List<SyncChange> changes = new ArrayList<>();
+        for (long seq = 1; seq <= SyncService.PAGE_SIZE + 1; seq++) {
+            changes.add(new SyncChange(1L, SyncChange.BUDGET, seq, seq, true));
+        }
+        when(syncChangeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(eq(1L), eq(100L), any(Pageable.class)))
+            .thenReturn(changes);
+
+        SyncResponse response = syncService.getChanges(100L);
+
+        assertThat(response.isHasMore()).isTrue();
+        assertThat(response.getCursor()).isEqualTo(SyncService.PAGE_SIZE);
+        assertThat(response.getDeleted()).hasSize(SyncService.PAGE_SIZE);
+    }
+
+    @Test
+    void getChanges_negativeCursor_throwsBadRequest() {
+        assertThatThrownBy(() -> syncService.getChanges(-1L))
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting("statusCode")
+            .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static Account account(Long id) {
+        Account account = new Account("Main", new BigDecimal("100"), null);
+        account.setId(id);
+        return account;
+    }
+
+    private static Transaction transaction(Long id, Account account) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccount(account);
+        return transaction;
+    }
+}
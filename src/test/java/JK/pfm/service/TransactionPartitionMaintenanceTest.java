@@ -0,0 +1,72 @@
+package JK.pfm.service;
+
+import java.time.YearMonth;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class TransactionPartitionMaintenanceTest {
+
+    private static final YearMonth OCT_2026 = YearMonth.of(2026, 10);
+
+    @Test
+    void missingPartitions_onlyCatchAll_startsAtCurrentMonth() {
+        List<YearMonth> missing = TransactionPartitionMaintenance.missingPartitions(
+            List.of("p_history", "p_future"), OCT_2026, 3);
+
+        assertThat(missing).containsExactly(
+            YearMonth.of(2026, 10), YearMonth.of(2026, 11), YearMonth.of(2026, 12), YearMonth.of(2027, 1));
+    }
+
+    @Test
+    void missingPartitions_continuesAfterLatestExisting() {
+        List<YearMonth> missing = TransactionPartitionMaintenance.missingPartitions(
+            List.of("p_history", "p202610", "p202611", "p_future"), OCT_2026, 3);
+
+        assertThat(missing).containsExactly(YearMonth.of(2026, 12), YearMonth.of(2027, 1));
+    }
+
+    @Test
+    void missingPartitions_fillsMonthsSkippedWhileJobWasDown() {
+        List<YearMonth> missing = TransactionPartitionMaintenance.missingPartitions(
+            List.of("p202607", "p_future"), OCT_2026, 1);
+
+        assertThat(missing).containsExactly(
+            YearMonth.of(2026, 8), YearMonth.of(2026, 9), YearMonth.of(2026, 10), YearMonth.of(2026, 11));
+    }
+
+    @Test
+    void missingPartitions_alreadyAhead_returnsNothing() {
+        List<YearMonth> missing = TransactionPartitionMaintenance.missingPartitions(
+            List.of("p202702", "p_future"), OCT_2026, 3);
+
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    void reorganizeStatement_splitsCatchAll() {
+        String sql = TransactionPartitionMaintenance.reorganizeStatement(
+            List.of(YearMonth.of(2026, 12), YearMonth.of(2027, 1)));
+
+        assertThat(sql).isEqualTo("ALTER TABLE transactions REORGANIZE PARTITION p_future INTO ("
+            + "PARTITION p202612 VALUES LESS THAN ('2027-01-01'), "
+            + "PARTITION p202701 VALUES LESS THAN ('2027-02-01'), "
+            + "PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+    }
+
+    @Test
+    void checkSchemaMode_partitionedWithUpdate_fails() {
+        assertThatThrownBy(() -> TransactionPartitionMaintenance.checkSchemaMode("update", true))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("partitioned");
+    }
+
+    @Test
+    void checkSchemaMode_partitionedWithValidate_orUnpartitionedWithUpdate_passes() {
+        assertThatCode(() -> TransactionPartitionMaintenance.checkSchemaMode("validate", true)).doesNotThrowAnyException();
+        assertThatCode(() -> TransactionPartitionMaintenance.checkSchemaMode("none", true)).doesNotThrowAnyException();
+        assertThatCode(() -> TransactionPartitionMaintenance.checkSchemaMode("update", false)).doesNotThrowAnyException();
+    }
+}
@@ -1,6 +1,9 @@
 package JK.pfm.service;
 
+import JK.pfm.dto.LiveEvent;
 import JK.pfm.dto.TransactionCreationRequest;
+import JK.pfm.dto.TransactionSearchPage;
+import JK.pfm.dto.filters.TransactionSearchFilter;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -10,6 +13,7 @@ import java.time.LocalDate;
 
 import JK.pfm.model.Account;
 import JK.pfm.model.Category;
+import JK.pfm.model.OutboxEvent;
 import JK.pfm.model.Transaction;
 import JK.pfm.repository.AccountRepository;
 import JK.pfm.repository.CategoryRepository;
@@ -17,6 +21,11 @@ import JK.pfm.repository.TransactionRepository;
 import JK.pfm.service.TransactionService;
 import JK.pfm.util.AccountUtil;
 import JK.pfm.util.SecurityUtil;
+import JK.pfm.service.budget.BudgetTracker;
+import JK.pfm.service.categorization.TransactionCategorizer;
+import JK.pfm.service.dedup.DuplicateDetector;
+import JK.pfm.service.search.DescriptionIndex;
+import JK.pfm.service.search.TransactionSearchIndex;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.*;
@@ -35,6 +44,13 @@ class TransactionServiceTest {
     @Mock AccountRepository accountRepository;
     @Mock CategoryRepository categoryRepository;
     @Mock AccountUtil accountUtil;
+    @Spy AccountBalanceService balances = new AccountBalanceService(null, null, null, null, false, 500);
+    @Mock OutboxService outbox;
+    @Mock TransactionArchiveService archive;
+    @Mock BudgetTracker budgetTracker;
+    @Mock TransactionCategorizer categorizer;
+    @Mock TransactionSearchIndex searchIndex;
+    @Mock DuplicateDetector duplicates;
     
     @InjectMocks TransactionService service;
 
@@ -92,6 +108,46 @@ class TransactionServiceTest {
         assertThat(tx.getAmount()).isEqualByComparingTo("30.00");
         assertThat(dummyAccount.getAmount()).isEqualByComparingTo("70.00");
         verify(transactionRepository).save(tx);
+
+        ArgumentCaptor<LiveEvent> event = ArgumentCaptor.forClass(LiveEvent.class);
+        verify(outbox).append(any(), eq(OutboxEvent.TRANSACTION_CREATED), any(), event.capture());
+        assertThat(event.getValue().getEvent()).isEqualTo(LiveEvent.TRANSACTION_CREATED);
+        assertThat(event.getValue().getAccountBalance()).isEqualByComparingTo("70.00");
+        verify(budgetTracker).record(tx, 1);
+        verify(duplicates).screen(dummyAccount, tx, true);
+        verify(duplicates).recorded(dummyAccount, tx);
+    }
+
+    @Test
+    void saveDuplicate_rejectedByPolicy_notSaved() {
+        TransactionCreationRequest req = new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("30.00"), 5L, "Checking", "Expense", "Lunch");
+        when(accountRepository.findByUserIdAndNameAndActiveTrue(1L, "Checking"))
+            .thenReturn(Optional.of(dummyAccount));
+        when(categoryRepository.findById(5L)).thenReturn(Optional.of(dummyCategory));
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Possible duplicate transaction"))
+            .when(duplicates).screen(same(dummyAccount), any(Transaction.class), eq(true));
+
+        assertThatThrownBy(() -> service.saveTransaction(req))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(transactionRepository, never()).save(any());
+        assertThat(dummyAccount.getAmount()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void saveWithAllowDuplicate_onlyFingerprints() {
+        TransactionCreationRequest req = new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("3.00"), 5L, "Checking", "Expense", "Coffee");
+        req.setAllowDuplicate(true);
+        when(accountRepository.findByUserIdAndNameAndActiveTrue(1L, "Checking"))
+            .thenReturn(Optional.of(dummyAccount));
+        when(categoryRepository.findById(5L)).thenReturn(Optional.of(dummyCategory));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Transaction tx = service.saveTransaction(req);
+
+        verify(duplicates).screen(dummyAccount, tx, false);
     }
 
     @Test
@@ -117,6 +173,35 @@ class TransactionServiceTest {
             .hasMessageContaining("Not enough funds");
     }
     
+    @Test
+    void saveWithoutCategory_usesMatchingRule() {
+        TransactionCreationRequest req = new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("12.00"), null, "Checking", "Expense", "RIMI Riga");
+        when(accountRepository.findByUserIdAndNameAndActiveTrue(1L, "Checking"))
+            .thenReturn(Optional.of(dummyAccount));
+        when(categorizer.categorize(1L, "RIMI Riga", new BigDecimal("12.00"))).thenReturn(Optional.of(5L));
+        when(categoryRepository.findById(5L)).thenReturn(Optional.of(dummyCategory));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Transaction tx = service.saveTransaction(req);
+
+        assertThat(tx.getCategory()).isSameAs(dummyCategory);
+    }
+
+    @Test
+    void saveWithoutCategory_noMatchingRule_throwsBadRequest() {
+        TransactionCreationRequest req = new TransactionCreationRequest(
+            LocalDate.now(), new BigDecimal("12.00"), null, "Checking", "Expense", "unknown");
+        when(accountRepository.findByUserIdAndNameAndActiveTrue(1L, "Checking"))
+            .thenReturn(Optional.of(dummyAccount));
+        when(categorizer.categorize(1L, "unknown", new BigDecimal("12.00"))).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.saveTransaction(req))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verify(transactionRepository, never()).save(any());
+    }
+
     @Test
 void saveDeposit_increasesBalance() {
     // Arrange: a 100.00‐balance account
@@ -172,6 +257,7 @@ void deleteExpense_refundsAccount() {
     assertThat(dummyAccount.getAmount()).isEqualByComparingTo("70.00");
     verify(accountRepository).save(dummyAccount);
     verify(transactionRepository).deleteById(99L);
+    verify(budgetTracker).record(expense, -1);
 }
 
 @Test
@@ -312,7 +398,76 @@ void getTransactionsByFilters_delegatesWithSort() {
   );
 }
 
+@SuppressWarnings("unchecked")
+@Test
+void getTransactionsByFilters_rangeBeforeHorizon_mergesArchivedRows() {
+  LocalDate start = LocalDate.of(2020, 1, 1);
+  Transaction live = new Transaction(LocalDate.of(2020, 3, 1), BigDecimal.ONE, null, null, "Expense", "live");
+  live.setId(50L);
+  Transaction older = new Transaction(LocalDate.of(2020, 2, 1), BigDecimal.ONE, null, null, "Expense", "archived");
+  older.setId(10L);
+  Transaction newer = new Transaction(LocalDate.of(2020, 4, 1), BigDecimal.ONE, null, null, "Expense", "archived");
+  newer.setId(20L);
+
+  when(transactionRepository.findAll(
+      Mockito.<Specification<Transaction>>any(),
+      Mockito.any(org.springframework.data.domain.Sort.class)
+    ))
+    .thenReturn(List.of(live));
+  when(archive.reachesArchive(start)).thenReturn(true);
+  when(archive.findArchived(1L, start, null, null, null, null)).thenReturn(List.of(newer, older));
+
+  List<Transaction> out = service.getTransactionsByFilters(start, null, null, null, 1L, null);
+
+  assertThat(out).containsExactly(newer, live, older);
+}
+
+@Test
+void getTransactionsByFilters_recentRange_skipsArchive() {
+  LocalDate today = LocalDate.now();
+  when(archive.reachesArchive(today)).thenReturn(false);
+
+  service.getTransactionsByFilters(today, today, null, null, 1L, null);
 
+  verify(archive, never()).findArchived(any(), any(), any(), any(), any(), any());
+}
 
+@Test
+void searchTransactions_usesIndex_andLoadsPageInOrder() {
+  DescriptionIndex index = mock(DescriptionIndex.class);
+  TransactionSearchFilter filter = new TransactionSearchFilter("Net SUB");
+  filter.setLimit(2);
+  when(searchIndex.find(1L)).thenReturn(Optional.of(index));
+  when(index.search(List.of("net", "sub"), filter, 3)).thenReturn(List.of(9L, 7L, 4L));
+  Transaction t9 = new Transaction(LocalDate.of(2026, 5, 2), BigDecimal.ONE, null, null, "Expense", "Netflix sub");
+  t9.setId(9L);
+  Transaction t7 = new Transaction(LocalDate.of(2026, 5, 1), BigDecimal.ONE, null, null, "Expense", "Netflix sub");
+  t7.setId(7L);
+  Transaction t4 = new Transaction(LocalDate.of(2026, 4, 1), BigDecimal.ONE, null, null, "Expense", "Netflix sub");
+  t4.setId(4L);
+  when(transactionRepository.findAllById(List.of(9L, 7L, 4L))).thenReturn(List.of(t4, t9, t7));
+
+  TransactionSearchPage page = service.searchTransactions(filter);
+
+  assertThat(page.transactions()).containsExactly(t9, t7);
+  assertThat(page.nextDate()).isEqualTo(LocalDate.of(2026, 5, 1));
+  assertThat(page.nextId()).isEqualTo(7L);
+}
 
+@Test
+void searchTransactions_withoutIndex_scansAndKeepsWordStarts() {
+  when(searchIndex.find(1L)).thenReturn(Optional.empty());
+  Transaction hit = new Transaction(LocalDate.of(2026, 5, 2), BigDecimal.ONE, null, null, "Expense", "Netflix subscription");
+  hit.setId(9L);
+  Transaction midWord = new Transaction(LocalDate.of(2026, 5, 1), BigDecimal.ONE, null, null, "Expense", "Cabinet subscription");
+  midWord.setId(8L);
+  when(transactionRepository.findBy(Mockito.<Specification<Transaction>>any(), any()))
+      .thenReturn(List.of(hit, midWord));
+
+  TransactionSearchPage page = service.searchTransactions(new TransactionSearchFilter("net sub"));
+
+  assertThat(page.transactions()).containsExactly(hit);
+  assertThat(page.nextId()).isNull();
+  verify(transactionRepository, never()).findAllById(any());
+}
 }
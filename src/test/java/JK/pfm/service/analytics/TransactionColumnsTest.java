@@ -0,0 +1,121 @@
+package JK.pfm.service.analytics;
+
+import JK.pfm.dto.ExpenseByAccountDTO;
+import JK.pfm.dto.ExpenseByCategoryDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TransactionColumnsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private TransactionColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new TransactionColumns(null, 5, 2);
+        columns.add(row(1, DAY, "10.25", 100, "Main", 7L, "Food", "Expense", false));
+        columns.add(row(2, DAY.plusDays(1), "4.75", 100, "Main", 8L, "Transport", "Expense", false));
+        columns.add(row(3, DAY, "100.00", 100, "Main", 9L, "Salary", "Deposit", false));
+        columns.add(row(4, DAY, "50.00", 200, "Card", 7L, "Food", "Expense", false));
+        // left out of the reports: excluded category, savings transfer, no category
+        columns.add(row(5, DAY, "30.00", 100, "Main", 10L, "Savings", "Expense", false));
+        columns.add(row(6, DAY, "20.00", 100, "Main", 7L, "Food", "Expense", true));
+        columns.add(row(7, DAY, "1.00", 100, "Main", null, null, "Expense", false));
+    }
+
+    @Test
+    void sumByTypeAndDate_appliesReportExclusions() {
+        assertThat(columns.sumByTypeAndDate("Expense", List.of(100L, 200L), DAY, DAY.plusDays(1)))
+            .isEqualTo(new BigDecimal("65.00"));
+        assertThat(columns.sumByTypeAndDate("Expense", List.of(100L), DAY, DAY))
+            .isEqualTo(new BigDecimal("10.25"));
+        assertThat(columns.sumByTypeAndDate("Deposit", List.of(100L), DAY, DAY))
+            .isEqualTo(new BigDecimal("100.00"));
+        assertThat(columns.sumByTypeAndDate("Refund", List.of(100L), DAY, DAY)).isZero();
+    }
+
+    @Test
+    void findExpensesByCategory_groupsByName_andKeepsSavingsTransfers() {
+        List<ExpenseByCategoryDTO> result = columns.findExpensesByCategory(List.of(100L, 200L), DAY, DAY.plusDays(1));
+
+        assertThat(result).extracting(ExpenseByCategoryDTO::getCategoryName).containsExactlyInAnyOrder("Food", "Transport");
+        assertThat(result).filteredOn(r -> r.getCategoryName().equals("Food"))
+            .extracting(ExpenseByCategoryDTO::getTotalAmount).containsExactly(new BigDecimal("80.25"));
+    }
+
+    @Test
+    void findExpensesByAccount_onlyRequestedAccounts() {
+        List<ExpenseByAccountDTO> result = columns.findExpensesByAccount(List.of(200L), DAY, DAY);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getAccountName()).isEqualTo("Card");
+        assertThat(result.get(0).getTotalAmount()).isEqualTo(new BigDecimal("50.00"));
+        assertThat(columns.findExpensesByAccount(List.of(200L), null, DAY)).isEmpty();
+    }
+
+    @Test
+    void getDailyTrends_sumsEveryRowPerDayAndType() {
+        List<Object[]> rows = columns.getDailyTrends(List.of(100L, 200L), DAY, DAY.plusDays(1));
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).containsExactly(DAY, "Expense", new BigDecimal("111.25"));
+        assertThat(rows.get(1)).containsExactly(DAY, "Deposit", new BigDecimal("100.00"));
+        assertThat(rows.get(2)).containsExactly(DAY.plusDays(1), "Expense", new BigDecimal("4.75"));
+    }
+
+    @Test
+    void getDailyTrends_onlyRequestedAccounts_andWideRangesStayCheap() {
+        List<Object[]> rows = columns.getDailyTrends(List.of(200L), LocalDate.MIN.plusDays(1), LocalDate.MAX);
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0)).containsExactly(DAY, "Expense", new BigDecimal("50.00"));
+    }
+
+    @Test
+    void apply_replacesChangedRows_dropsDeleted_andRenamesAccounts() {
+        columns.apply(List.of(1L, 4L),
+            List.<Object[]>of(row(1, DAY, "12.00", 100, "Main", 7L, "Food", "Expense", false)),
+            List.<Object[]>of(new Object[] {100L, "Everyday"}),
+            6);
+
+        assertThat(columns.getSeq()).isEqualTo(6);
+        assertThat(columns.size()).isEqualTo(6);
+        assertThat(columns.sumByTypeAndDate("Expense", List.of(100L, 200L), DAY, DAY))
+            .isEqualTo(new BigDecimal("12.00"));
+        assertThat(columns.findExpensesByAccount(List.of(100L), DAY, DAY))
+            .extracting(ExpenseByAccountDTO::getAccountName).containsExactly("Everyday");
+    }
+
+    @Test
+    void apply_olderSequence_isIgnored() {
+        columns.apply(List.of(1L), List.of(), List.of(), 4);
+
+        assertThat(columns.getSeq()).isEqualTo(5);
+        assertThat(columns.size()).isEqualTo(7);
+    }
+
+    @Test
+    void add_skipsRowsBeforeFrom_andGrowsArrays() {
+        TransactionColumns recent = new TransactionColumns(DAY, 0, 1);
+        recent.add(row(1, DAY.minusDays(1), "5.00", 100, "Main", 7L, "Food", "Expense", false));
+        for (int i = 0; i < 100; i++) {
+            recent.add(row(10 + i, DAY, "1.00", 100, "Main", 7L, "Food", "Expense", false));
+        }
+
+        assertThat(recent.size()).isEqualTo(100);
+        assertThat(recent.sumByTypeAndDate("Expense", List.of(100L), DAY.minusDays(1), DAY))
+            .isEqualTo(new BigDecimal("100.00"));
+        assertThat(recent.bytes()).isGreaterThanOrEqualTo(100L * TransactionColumns.BYTES_PER_ROW);
+    }
+
+    private static Object[] row(long id, LocalDate date, String amount, long accountId, String accountName,
+                                Long categoryId, String categoryName, String type, boolean skipInTotals) {
+        return new Object[] {id, date, new BigDecimal(amount), accountId, accountName, categoryId, categoryName,
+            type, skipInTotals};
+    }
+}
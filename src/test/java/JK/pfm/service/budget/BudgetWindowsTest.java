@@ -0,0 +1,57 @@
+package JK.pfm.service.budget;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class BudgetWindowsTest {
+
+    private static final LocalDate JAN = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void find_monthlyBudgets_matchesOnlyTheContainingMonth() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int m = 0; m < 12; m++) {
+            LocalDate start = JAN.plusMonths(m);
+            rows.add(window(100 + m, 7L, start, start.plusMonths(1).minusDays(1)));
+        }
+        BudgetWindows windows = BudgetWindows.of(rows);
+
+        assertThat(windows.find(7L, LocalDate.of(2026, 3, 15))).containsExactly(102L);
+        assertThat(windows.find(7L, LocalDate.of(2026, 3, 31))).containsExactly(102L);
+        assertThat(windows.find(7L, LocalDate.of(2026, 4, 1))).containsExactly(103L);
+        assertThat(windows.find(7L, LocalDate.of(2025, 12, 31))).isEmpty();
+        assertThat(windows.find(7L, LocalDate.of(2027, 1, 1))).isEmpty();
+        assertThat(windows.find(8L, LocalDate.of(2026, 3, 15))).isEmpty();
+    }
+
+    @Test
+    void find_overlappingWindows_returnsEveryMatch() {
+        BudgetWindows windows = BudgetWindows.of(new ArrayList<>(List.of(
+            window(1, 7L, JAN, LocalDate.of(2026, 12, 31)),   // whole year
+            window(2, 7L, JAN.plusMonths(2), JAN.plusMonths(3).minusDays(1)),
+            window(3, 7L, JAN.plusMonths(5), JAN.plusMonths(6).minusDays(1)))));
+
+        assertThat(windows.find(7L, LocalDate.of(2026, 3, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(windows.find(7L, LocalDate.of(2026, 5, 10))).containsExactly(1L);
+        assertThat(windows.find(7L, LocalDate.of(2026, 6, 1))).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void matches_comparesCountAndHighestId() {
+        BudgetWindows windows = BudgetWindows.of(new ArrayList<>(List.of(
+            window(4, 7L, JAN, JAN.plusDays(30)),
+            window(9, 8L, JAN, JAN.plusDays(30)))));
+
+        assertThat(windows.matches(2, 9L)).isTrue();
+        assertThat(windows.matches(1, 9L)).isFalse();
+        assertThat(windows.matches(2, 10L)).isFalse();
+        assertThat(BudgetWindows.of(List.of()).matches(0, null)).isTrue();
+    }
+
+    private static Object[] window(long id, Long categoryId, LocalDate start, LocalDate end) {
+        return new Object[] {id, categoryId, start, end};
+    }
+}
@@ -0,0 +1,126 @@
+package JK.pfm.service.categorization;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class CategoryMatcherTest {
+
+    @Test
+    void match_keywordsAnywhereCaseInsensitive() {
+        CategoryMatcher matcher = CategoryMatcher.compile(List.of(
+            rule(1L, "KEYWORD", "rimi", 10L),
+            rule(2L, "KEYWORD", "netflix", 20L),
+            rule(3L, "KEYWORD", "he", 30L),
+            rule(4L, "KEYWORD", "she", 40L)), 0L);
+
+        assertThat(matcher.match("Card payment RIMI Riga", null)).isEqualTo(10L);
+        assertThat(matcher.match("NETFLIX.COM", null)).isEqualTo(20L);
+        // "she" ends where "he" does; the earlier rule wins
+        assertThat(matcher.match("ushers", null)).isEqualTo(30L);
+        assertThat(matcher.match("nothing here", null)).isEqualTo(30L);
+        assertThat(matcher.match("no match", null)).isNull();
+        assertThat(matcher.match(null, BigDecimal.ONE)).isNull();
+    }
+
+    @Test
+    void match_lowestRankWinsAcrossAutomatonAndFallbacks() {
+        CategoryMatcher matcher = CategoryMatcher.compile(List.of(
+            rule(5L, "REGEX", "^salary \\d{4}$", 1L),
+            rule(1L, "PREFIX", "sal", 2L),
+            rule(2L, "KEYWORD", "salary", 3L),
+            rule(3L, "AMOUNT", null, new BigDecimal("1000"), null, 4L)), 0L);
+
+        assertThat(matcher.match("Salary 2026", null)).isEqualTo(1L);
+        assertThat(matcher.match("Salary October", null)).isEqualTo(2L);
+        // prefix only at the start
+        assertThat(matcher.match("monthly salary", null)).isEqualTo(3L);
+        assertThat(matcher.match("bonus", new BigDecimal("1500"))).isEqualTo(4L);
+        assertThat(matcher.match("bonus", new BigDecimal("999.99"))).isNull();
+    }
+
+    @Test
+    void match_amountRangeNarrowsRules() {
+        CategoryMatcher matcher = CategoryMatcher.compile(List.of(
+            rule(1L, "KEYWORD", "amazon", new BigDecimal("100"), null, 10L),
+            rule(2L, "KEYWORD", "amazon", null, null, 20L),
+            rule(3L, "REGEX", "fuel|petrol", BigDecimal.ZERO, new BigDecimal("80"), 30L)), 0L);
+
+        assertThat(matcher.match("AMAZON EU", new BigDecimal("250"))).isEqualTo(10L);
+        assertThat(matcher.match("AMAZON EU", new BigDecimal("25"))).isEqualTo(20L);
+        assertThat(matcher.match("Circle K petrol", new BigDecimal("80"))).isEqualTo(30L);
+        assertThat(matcher.match("Circle K petrol", new BigDecimal("80.01"))).isNull();
+        assertThat(matcher.match("Circle K petrol", null)).isNull();
+    }
+
+    @Test
+    void compile_skipsInvalidRulesAndHandlesNonAsciiPatterns() {
+        CategoryMatcher matcher = CategoryMatcher.compile(List.of(
+            rule(1L, "REGEX", "([unclosed", 10L),
+            rule(2L, "DAILY", "x", 20L),
+            rule(3L, "KEYWORD", "", 30L),
+            rule(4L, "KEYWORD", "ĀBOLI", 40L),
+            rule(5L, "KEYWORD", "東京", 50L)), 7L);
+
+        assertThat(matcher.match("x ([unclosed", null)).isNull();
+        assertThat(matcher.match("tirgus āboli", null)).isEqualTo(40L);
+        assertThat(matcher.match("東京 station", null)).isEqualTo(50L);
+        assertThat(matcher.isCurrent(5, 5L, 7L)).isTrue();
+        assertThat(matcher.isCurrent(5, 5L, 8L)).isFalse();
+        assertThat(CategoryMatcher.compile(List.of(), null).match("anything", BigDecimal.TEN)).isNull();
+    }
+
+    @Test
+    void isSafeRegex_rejectsBacktrackingConstructs() {
+        assertThat(List.of("fuel|petrol", "^salary \\d{4}$", "(?i)rimi\\s+riga", "(card|cash) payment",
+                "(ab)?c", "[(a+)+]", "\\Q(a+)+\\E"))
+            .allMatch(CategoryMatcher::isSafeRegex);
+        assertThat(List.of("(a+)+", "(a|ab)*", "((a+)b)+", "(\\w+\\s?)*$", "(a)\\1", "(?=x)y", "(?<!y)z",
+                "x".repeat(CategoryMatcher.MAX_REGEX_LENGTH + 1)))
+            .noneMatch(CategoryMatcher::isSafeRegex);
+    }
+
+    @Test
+    void compile_skipsUnsafeRegexSavedBeforeTheLimits() {
+        CategoryMatcher matcher = CategoryMatcher.compile(List.<Object[]>of(
+            rule(1L, "REGEX", "(a+)+$", 10L)), 0L);
+
+        assertThat(matcher.match("aaaa", null)).isNull();
+    }
+
+    @Test
+    void match_regexPastDeadline_countsAsNoMatch() {
+        List<Object[]> rows = List.of(
+            rule(1L, "REGEX", "a+b", 10L),
+            rule(2L, "AMOUNT", null, BigDecimal.ZERO, null, 20L));
+        CategoryMatcher expired = CategoryMatcher.compile(rows, 0L, 0);
+
+        // quadratic backtracking over a long description reads far past the first deadline check
+        assertThat(expired.match("a".repeat(10_000), BigDecimal.ONE)).isEqualTo(20L);
+        assertThat(expired.match("aab", BigDecimal.ONE)).isEqualTo(10L);
+        assertThat(CategoryMatcher.compile(rows, 0L).match("a".repeat(500) + "b", BigDecimal.ONE)).isEqualTo(10L);
+    }
+
+    @Test
+    void match_manyRules_scansOnce() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 2000; i++) {
+            rows.add(rule(i, "KEYWORD", "merchant" + i + "x", i));
+        }
+        CategoryMatcher matcher = CategoryMatcher.compile(rows, 0L);
+
+        assertThat(matcher.match("POS merchant1999x Riga", null)).isEqualTo(1999L);
+        assertThat(matcher.match("POS merchant19 Riga", null)).isNull();
+    }
+
+    private static Object[] rule(Long id, String type, String pattern, Long categoryId) {
+        return rule(id, type, pattern, null, null, categoryId);
+    }
+
+    private static Object[] rule(Long id, String type, String pattern,
+                                 BigDecimal min, BigDecimal max, Long categoryId) {
+        return new Object[] {id, type, pattern, min, max, categoryId};
+    }
+}
@@ -0,0 +1,69 @@
+package JK.pfm.service.categorization;
+
+import JK.pfm.repository.CategoryRuleRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TransactionCategorizerTest {
+
+    @Mock CategoryRuleRepository ruleRepository;
+
+    private TransactionCategorizer categorizer;
+
+    @BeforeEach
+    void setUp() {
+        categorizer = new TransactionCategorizer(ruleRepository, 10, 50);
+        when(ruleRepository.findMatcherRowsByUserId(1L)).thenReturn(List.<Object[]>of(
+            new Object[] {3L, "KEYWORD", "rimi", null, null, 5L}));
+        stamp(1L, 3L, 0L);
+    }
+
+    @Test
+    void categorize_unchangedRules_compiledOnce() {
+        assertThat(categorizer.categorize(1L, "RIMI Riga", BigDecimal.TEN)).contains(5L);
+        assertThat(categorizer.categorize(1L, "Maxima", BigDecimal.TEN)).isEmpty();
+
+        verify(ruleRepository, times(2)).findStampByUserId(1L);
+        verify(ruleRepository, times(1)).findMatcherRowsByUserId(1L);
+    }
+
+    @Test
+    void categorize_editedRule_recompiles() {
+        categorizer.categorize(1L, "RIMI Riga", BigDecimal.TEN);
+        when(ruleRepository.findMatcherRowsByUserId(1L)).thenReturn(List.<Object[]>of(
+            new Object[] {3L, "KEYWORD", "maxima", null, null, 6L}));
+        stamp(1L, 3L, 1L);
+
+        assertThat(categorizer.categorize(1L, "Maxima", BigDecimal.TEN)).contains(6L);
+        verify(ruleRepository, times(2)).findMatcherRowsByUserId(1L);
+    }
+
+    @Test
+    void categorize_noRules() {
+        when(ruleRepository.findMatcherRowsByUserId(2L)).thenReturn(List.of());
+        when(ruleRepository.findStampByUserId(2L))
+            .thenReturn(List.<Object[]>of(new Object[] {0L, null, null}));
+
+        assertThat(categorizer.categorize(2L, "RIMI", BigDecimal.TEN)).isEmpty();
+        assertThat(categorizer.categorize(2L, "RIMI", BigDecimal.TEN)).isEmpty();
+        verify(ruleRepository, times(1)).findMatcherRowsByUserId(2L);
+    }
+
+    private void stamp(long count, Long maxId, Long versionSum) {
+        when(ruleRepository.findStampByUserId(1L))
+            .thenReturn(List.<Object[]>of(new Object[] {count, maxId, versionSum}));
+    }
+}
@@ -0,0 +1,163 @@
+package JK.pfm.service.dedup;
+
+import JK.pfm.model.Account;
+import JK.pfm.model.Transaction;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.AccountBalanceService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DuplicateDetectorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 5, 4);
+
+    @Mock TransactionRepository transactionRepository;
+    @Mock AccountBalanceService balances;
+
+    private Account account;
+    private long lunch;
+
+    @BeforeEach
+    void setUp() {
+        account = new Account();
+        account.setId(10L);
+        account.setVersion(3L);
+        lunch = TransactionFingerprint.of(10L, DAY, new BigDecimal("12.50"), "Expense", "Lunch");
+        when(transactionRepository.streamFingerprints(10L, 0L))
+            .thenAnswer(inv -> Stream.<Object[]>of(new Object[] {1L, lunch}));
+        when(transactionRepository.existsByAccountIdAndFingerprint(10L, lunch)).thenReturn(true);
+    }
+
+    @Test
+    void screen_newTransaction_filterAnswersWithoutQuery() {
+        DuplicateDetector detector = detector("flag", false);
+        Transaction tx = tx("12.50", "Dinner");
+
+        detector.screen(account, tx, true);
+
+        assertThat(tx.getFingerprint()).isNotNull();
+        assertThat(tx.getPossibleDuplicate()).isNull();
+        verify(transactionRepository, never()).existsByAccountIdAndFingerprint(10L, tx.getFingerprint());
+    }
+
+    @Test
+    void screen_repeat_flaggedOrRejected() {
+        Transaction repeat = tx("12.5", "  LUNCH ");
+        detector("flag", false).screen(account, repeat, true);
+        assertThat(repeat.getPossibleDuplicate()).isTrue();
+
+        assertThatThrownBy(() -> detector("reject", false).screen(account, tx("12.50", "lunch"), true))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        Transaction allowed = tx("12.50", "Lunch");
+        detector("reject", false).screen(account, allowed, false);
+        assertThat(allowed.getPossibleDuplicate()).isNull();
+    }
+
+    @Test
+    void screen_accountChangedElsewhere_readsNewerFingerprintsFirst() {
+        DuplicateDetector detector = detector("flag", false);
+        detector.screen(account, tx("1.00", "warm up"), true);
+
+        long taxi = TransactionFingerprint.of(10L, DAY, new BigDecimal("8.00"), "Expense", "Taxi");
+        when(transactionRepository.streamFingerprints(10L, 1L))
+            .thenAnswer(inv -> Stream.<Object[]>of(new Object[] {2L, taxi}));
+        when(transactionRepository.existsByAccountIdAndFingerprint(10L, taxi)).thenReturn(true);
+        account.setVersion(4L);
+
+        Transaction repeat = tx("8.00", "Taxi");
+        detector.screen(account, repeat, true);
+
+        assertThat(repeat.getPossibleDuplicate()).isTrue();
+        verify(transactionRepository, times(1)).streamFingerprints(10L, 0L);
+        verify(transactionRepository).streamFingerprints(10L, 1L);
+    }
+
+    @Test
+    void screen_recordedTransaction_isKnownWithoutReload() {
+        DuplicateDetector detector = detector("flag", false);
+        Transaction first = tx("40.00", "Groceries");
+        detector.screen(account, first, true);
+        first.setId(5L);
+        detector.recorded(account, first);
+        when(transactionRepository.existsByAccountIdAndFingerprint(10L, first.getFingerprint())).thenReturn(true);
+
+        Transaction second = tx("40.00", "Groceries");
+        detector.screen(account, second, true);
+
+        assertThat(second.getPossibleDuplicate()).isTrue();
+        verify(transactionRepository, times(1)).streamFingerprints(10L, 0L);
+    }
+
+    @Test
+    void screen_journalOrAllow() {
+        Transaction tx = tx("12.50", "Dinner");
+        detector("flag", true).screen(account, tx, true);
+        verify(transactionRepository).existsByAccountIdAndFingerprint(10L, tx.getFingerprint());
+        verify(transactionRepository, never()).streamFingerprints(10L, 0L);
+
+        Transaction allowed = tx("12.50", "Lunch");
+        DuplicateDetector allow = detector("allow", false);
+        allow.screen(account, allowed, true);
+        assertThat(allowed.getFingerprint()).isEqualTo(lunch);
+        assertThat(allowed.getPossibleDuplicate()).isNull();
+        verify(transactionRepository, never()).streamFingerprints(anyLong(), anyLong());
+    }
+
+    @Test
+    void fingerprint_normalizesDescriptionAndAmount() {
+        assertThat(TransactionFingerprint.of(10L, DAY, new BigDecimal("12.5"), "Expense", "lunch  \t box"))
+            .isEqualTo(TransactionFingerprint.of(10L, DAY, new BigDecimal("12.50"), "Expense", " Lunch Box"));
+        assertThat(TransactionFingerprint.of(11L, DAY, new BigDecimal("12.50"), "Expense", "Lunch")).isNotEqualTo(lunch);
+        assertThat(TransactionFingerprint.of(10L, DAY.plusDays(1), new BigDecimal("12.50"), "Expense", "Lunch")).isNotEqualTo(lunch);
+        assertThat(TransactionFingerprint.of(10L, DAY, new BigDecimal("12.50"), "Deposit", "Lunch")).isNotEqualTo(lunch);
+    }
+
+    @Test
+    void filter_hasNoFalseNegatives_andFewFalsePositives() {
+        FingerprintFilter filter = new FingerprintFilter(10_000);
+        for (long i = 0; i < 10_000; i++) {
+            filter.add(TransactionFingerprint.of(1L, DAY, BigDecimal.valueOf(i), "Expense", "x"), i);
+        }
+        int falsePositives = 0;
+        for (long i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(TransactionFingerprint.of(1L, DAY, BigDecimal.valueOf(i), "Expense", "x"))).isTrue();
+            if (filter.mightContain(TransactionFingerprint.of(2L, DAY, BigDecimal.valueOf(i), "Expense", "x"))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.maxId()).isEqualTo(9_999L);
+        assertThat(filter.isFull()).isFalse();
+    }
+
+    private DuplicateDetector detector(String policy, boolean journal) {
+        when(balances.isJournalEnabled()).thenReturn(journal);
+        return new DuplicateDetector(transactionRepository, balances, policy, 16);
+    }
+
+    private static Transaction tx(String amount, String description) {
+        return new Transaction(DAY, new BigDecimal(amount), null, null, "Expense", description);
+    }
+}
@@ -0,0 +1,205 @@
+package JK.pfm.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class ExportWritersTest {
+
+    private static final List<ExportColumn> COLUMNS = List.of(
+        ExportColumn.of("id", ExportColumn.Type.LONG),
+        ExportColumn.of("date", ExportColumn.Type.DATE),
+        ExportColumn.of("amount", ExportColumn.Type.DECIMAL),
+        ExportColumn.of("note", ExportColumn.Type.STRING),
+        ExportColumn.of("active", ExportColumn.Type.BOOLEAN));
+
+    private static final List<Object[]> ROWS = List.of(
+        new Object[] {5L, LocalDate.of(2026, 10, 1), new BigDecimal("12.50"), "plain", true},
+        new Object[] {3L, LocalDate.of(2025, 1, 31), new BigDecimal("-0.01"), "with, comma", false},
+        new Object[] {7L, null, null, "say \"hi\"", null},
+        new Object[] {1_000_000_000_000L, LocalDate.of(2026, 10, 2), new BigDecimal("123456789012345678901234.5"), "plain", true},
+        new Object[] {null, LocalDate.of(1999, 12, 31), BigDecimal.ZERO, null, false});
+
+    @Test
+    void csv_quotesOnlyWhenNeeded() throws IOException {
+        String csv = new String(write(CsvExportWriter::new), StandardCharsets.UTF_8);
+
+        assertThat(csv.split("\r\n")).containsExactly(
+            "id,date,amount,note,active",
+            "5,2026-10-01,12.50,plain,true",
+            "3,2025-01-31,-0.01,\"with, comma\",false",
+            "7,,,\"say \"\"hi\"\"\",",
+            "1000000000000,2026-10-02,123456789012345678901234.5,plain,true",
+            ",1999-12-31,0,,false");
+    }
+
+    @Test
+    void ndjson_writesOneObjectPerLine() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        String ndjson = new String(write(out -> new NdjsonExportWriter(mapper.getFactory(), out)),
+            StandardCharsets.UTF_8);
+
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(ROWS.size());
+        assertThat(lines[0]).isEqualTo("{\"id\":5,\"date\":\"2026-10-01\",\"amount\":12.50,\"note\":\"plain\",\"active\":true}");
+        assertThat(mapper.readTree(lines[2]).get("date").isNull()).isTrue();
+        assertThat(mapper.readTree(lines[2]).get("note").asText()).isEqualTo("say \"hi\"");
+    }
+
+    @Test
+    void columnar_roundTripsAcrossRowGroups() throws IOException {
+        byte[] bytes = write(out -> new ColumnarExportWriter(out, 2));
+
+        Decoded decoded = decode(bytes);
+        assertThat(decoded.columns).isEqualTo(COLUMNS);
+        assertThat(decoded.rows).hasSize(ROWS.size());
+        for (int i = 0; i < ROWS.size(); i++) {
+            assertThat(decoded.rows.get(i)).as("row %d", i).containsExactly(ROWS.get(i));
+        }
+    }
+
+    @Test
+    void columnar_isSmallerThanCsvForRepetitiveData() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            rows.add(new Object[] {i, LocalDate.of(2026, 1, 1).plusDays(i % 300), new BigDecimal(i % 1000).movePointLeft(2),
+                i % 3 == 0 ? "Groceries" : "Rent", i % 2 == 0});
+        }
+        byte[] columnar = write(out -> new ColumnarExportWriter(out, 4096), rows);
+        byte[] csv = write(CsvExportWriter::new, rows);
+
+        assertThat(decode(columnar).rows).hasSize(10_000);
+        assertThat(columnar.length).isLessThan(csv.length / 3);
+    }
+
+    // ---------------------------------------------------------------------------------------
+
+    private interface WriterFactory {
+        ExportWriter open(OutputStream out) throws IOException;
+    }
+
+    private static byte[] write(WriterFactory factory) throws IOException {
+        return write(factory, ROWS);
+    }
+
+    private static byte[] write(WriterFactory factory, List<Object[]> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = factory.open(out);
+        writer.begin(COLUMNS);
+        for (Object[] row : rows) {
+            writer.write(row);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private record Decoded(List<ExportColumn> columns, List<Object[]> rows) {}
+
+    /** Reference decoder for the layout documented on {@link ColumnarExportWriter}. */
+    private static Decoded decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertThat(magic).isEqualTo(ColumnarExportWriter.MAGIC);
+        assertThat(in.readUnsignedByte()).isEqualTo(ColumnarExportWriter.VERSION);
+
+        List<ExportColumn> columns = new ArrayList<>();
+        long columnCount = varLong(in);
+        for (int c = 0; c < columnCount; c++) {
+            columns.add(new ExportColumn(string(in), ExportColumn.Type.values()[in.readUnsignedByte()]));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        int groupRows;
+        while ((groupRows = (int) varLong(in)) > 0) {
+            Object[][] group = new Object[groupRows][columns.size()];
+            for (int c = 0; c < columns.size(); c++) {
+                byte[] present = new byte[(groupRows + 7) / 8];
+                in.readFully(present);
+                List<Integer> filled = new ArrayList<>();
+                for (int r = 0; r < groupRows; r++) {
+                    if ((present[r >> 3] & (1 << (r & 7))) != 0) {
+                        filled.add(r);
+                    }
+                }
+                ExportColumn.Type type = columns.get(c).type();
+                switch (type) {
+                    case LONG, DATE -> {
+                        long previous = 0;
+                        for (int r : filled) {
+                            previous += unZigZag(varLong(in));
+                            group[r][c] = type == ExportColumn.Type.DATE ? LocalDate.ofEpochDay(previous) : previous;
+                        }
+                    }
+                    case DECIMAL -> {
+                        for (int r : filled) {
+                            long header = varLong(in);
+                            int scale = (int) unZigZag(header >>> 1);
+                            BigInteger unscaled;
+                            if ((header & 1) == 1) {
+                                byte[] raw = new byte[(int) varLong(in)];
+                                in.readFully(raw);
+                                unscaled = new BigInteger(raw);
+                            } else {
+                                unscaled = BigInteger.valueOf(unZigZag(varLong(in)));
+                            }
+                            group[r][c] = new BigDecimal(unscaled, scale);
+                        }
+                    }
+                    case STRING -> {
+                        String[] dictionary = new String[(int) varLong(in)];
+                        for (int d = 0; d < dictionary.length; d++) {
+                            dictionary[d] = string(in);
+                        }
+                        for (int r : filled) {
+                            group[r][c] = dictionary[(int) varLong(in)];
+                        }
+                    }
+                    case BOOLEAN -> {
+                        byte[] bits = new byte[(filled.size() + 7) / 8];
+                        in.readFully(bits);
+                        for (int i = 0; i < filled.size(); i++) {
+                            group[filled.get(i)][c] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+                        }
+                    }
+                }
+            }
+            rows.addAll(List.of(group));
+        }
+        assertThat(in.read()).isEqualTo(-1);
+        return new Decoded(columns, rows);
+    }
+
+    private static String string(DataInputStream in) throws IOException {
+        byte[] raw = new byte[(int) varLong(in)];
+        in.readFully(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static long varLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,224 @@
+package JK.pfm.service.idempotency;
+
+import JK.pfm.model.IdempotencyRecord;
+import JK.pfm.repository.IdempotencyRecordRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyServiceTest {
+
+    @Mock IdempotencyRecordRepository repository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    private IdempotencyService service;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(repository, transactionManager, true, 24, 100, 2000, 60000);
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void retry_replaysFirstResponse_withoutExecutingAgain() {
+        IdempotentResponse first = service.execute(1L, "key-1", "hash-a", () -> respond(201, "created"));
+        IdempotentResponse retry = service.execute(1L, "key-1", "hash-a", () -> respond(201, "again"));
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry).isSameAs(first);
+        assertThat(new String(retry.body(), StandardCharsets.UTF_8)).isEqualTo("created");
+        verify(repository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+
+        // keys are per user
+        service.execute(2L, "key-1", "hash-a", () -> respond(201, "other user"));
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void sameKey_differentRequest_isRejected() {
+        service.execute(1L, "key-1", "hash-a", () -> respond(201, "created"));
+
+        assertThatThrownBy(() -> service.execute(1L, "key-1", "hash-b", () -> respond(201, "other")))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasMessageContaining("422");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void transientFailure_releasesKey_soRetryExecutes() {
+        IdempotencyRecord claimed = new IdempotencyRecord(1L, "key-1", "hash-a", LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        when(repository.findByUserIdAndIdemKey(1L, "key-1")).thenReturn(Optional.of(claimed));
+
+        assertThat(service.execute(1L, "key-1", "hash-a", () -> respond(409, "Not enough funds")).status()).isEqualTo(409);
+        verify(repository).deleteUnexecuted(any());
+
+        assertThatThrownBy(() -> service.execute(1L, "key-1", "hash-a", () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        verify(repository, times(2)).deleteUnexecuted(any());
+
+        assertThat(service.execute(1L, "key-1", "hash-a", () -> respond(201, "created")).status()).isEqualTo(201);
+        assertThat(executions).hasValue(3);
+    }
+
+    @Test
+    void keyCompletedOnAnotherNode_replaysStoredResponse() {
+        IdempotencyRecord stored = new IdempotencyRecord(1L, "key-1", "hash-a", LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        stored.complete(200, "application/json", null, "{\"id\":5}".getBytes(StandardCharsets.UTF_8));
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repository.findByUserIdAndIdemKey(1L, "key-1")).thenReturn(Optional.of(stored));
+
+        IdempotentResponse response = service.execute(1L, "key-1", "hash-a", () -> respond(200, "executed"));
+
+        assertThat(executions).hasValue(0);
+        assertThat(response.status()).isEqualTo(200);
+        assertThat(new String(response.body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":5}");
+    }
+
+    @Test
+    void keyClaimedOnAnotherNode_waitsThenGivesUpWith409() {
+        service = new IdempotencyService(repository, transactionManager, true, 24, 100, 120, 60000);
+        IdempotencyRecord claimed = new IdempotencyRecord(1L, "key-1", "hash-a", LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repository.findByUserIdAndIdemKey(1L, "key-1")).thenReturn(Optional.of(claimed));
+
+        assertThatThrownBy(() -> service.execute(1L, "key-1", "hash-a", () -> respond(200, "executed")))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasMessageContaining("409");
+        assertThat(executions).hasValue(0);
+        verify(repository, never()).deleteAbandoned(anyLong(), any());
+    }
+
+    @Test
+    void executedClaimWithoutResponse_isNotTakenOver() {
+        LocalDateTime longAgo = LocalDateTime.now().minusMinutes(5);
+        IdempotencyRecord executed = new IdempotencyRecord(1L, "key-1", "hash-a", longAgo, longAgo.plusHours(1));
+        executed.markExecuted();
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenThrow(new DataIntegrityViolationException("uk"));
+        when(repository.findByUserIdAndIdemKey(1L, "key-1")).thenReturn(Optional.of(executed));
+
+        assertThatThrownBy(() -> service.execute(1L, "key-1", "hash-a", () -> respond(201, "again")))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasMessageContaining("409");
+        assertThat(executions).hasValue(0);
+        verify(repository, never()).deleteAbandoned(anyLong(), any());
+    }
+
+    @Test
+    void writeTransaction_marksClaim_andFailsOnceClaimIsTakenOver() {
+        NoResourceTransactionManager transactions = new NoResourceTransactionManager();
+        service = new IdempotencyService(repository, transactions, true, 24, 100, 2000, 60000);
+        TransactionTemplate write = new TransactionTemplate(transactions);
+
+        // a request whose write committed keeps its claim, even if it fails afterwards
+        when(repository.markExecuted(any())).thenReturn(1);
+        assertThatThrownBy(() -> service.execute(1L, "key-1", "hash-a", () -> {
+            write.executeWithoutResult(status -> executions.incrementAndGet());
+            throw new IllegalStateException("after commit");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("after commit");
+        verify(repository).markExecuted(any());
+        verify(repository, never()).deleteUnexecuted(any());
+
+        // a stalled request whose claim was taken over cannot commit
+        when(repository.markExecuted(any())).thenReturn(0);
+        assertThatThrownBy(() -> service.execute(1L, "key-2", "hash-a", () -> {
+            write.executeWithoutResult(status -> executions.incrementAndGet());
+            return respond(201, "created");
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining("taken over");
+        verify(repository).deleteUnexecuted(any());
+    }
+
+    @Test
+    void concurrentDuplicates_waitForFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<IdempotentResponse>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(5)) {
+            results.add(pool.submit(() -> service.execute(1L, "key-1", "hash-a", () -> {
+                started.countDown();
+                await(release);
+                return respond(201, "created");
+            })));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> service.execute(1L, "key-1", "hash-a", () -> respond(201, "duplicate"))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+        }
+
+        for (Future<IdempotentResponse> result : results) {
+            assertThat(new String(result.get().body(), StandardCharsets.UTF_8)).isEqualTo("created");
+        }
+        assertThat(executions).hasValue(1);
+        verify(repository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    /** Runs transaction listeners and synchronizations without a database. */
+    private static final class NoResourceTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private IdempotentResponse respond(int status, String body) {
+        executions.incrementAndGet();
+        return new IdempotentResponse(status, "application/json", null, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
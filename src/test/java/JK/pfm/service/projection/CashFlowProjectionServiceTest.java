@@ -0,0 +1,98 @@
+package JK.pfm.service.projection;
+
+import JK.pfm.dto.CashFlowProjectionDTO;
+import JK.pfm.repository.AccountRepository;
+import JK.pfm.repository.RecurringExpenseRepository;
+import JK.pfm.repository.SyncCursorRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CashFlowProjectionServiceTest {
+
+    @Mock AccountRepository accountRepository;
+    @Mock RecurringExpenseRepository recurringExpenseRepository;
+    @Mock SyncCursorRepository syncCursorRepository;
+
+    private CashFlowProjectionService service;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        service = new CashFlowProjectionService(accountRepository, recurringExpenseRepository, syncCursorRepository, 2);
+        when(accountRepository.findActiveBalancesByUserId(1L))
+            .thenReturn(List.<Object[]>of(new Object[] {10L, "main", new BigDecimal("100")}));
+        when(recurringExpenseRepository.findActiveSchedulesByUserId(1L))
+            .thenReturn(List.<Object[]>of(new Object[] {5L, "rent", new BigDecimal("30"), "MONTHLY",
+                today, today.plusDays(1), 10L}));
+        when(syncCursorRepository.findSeqByUserId(1L)).thenReturn(Optional.of(7L));
+    }
+
+    @Test
+    void project_sameSequence_servedFromCache() {
+        CashFlowProjectionDTO first = service.project(1L, 3);
+        CashFlowProjectionDTO second = service.project(1L, 3);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.from()).isEqualTo(today.plusDays(1));
+        assertThat(first.to()).isEqualTo(today.plusMonths(3));
+        assertThat(first.days()).hasSize(3);
+        assertThat(first.accounts().get(0).endingBalance()).isEqualByComparingTo("10");
+        verify(accountRepository, times(1)).findActiveBalancesByUserId(1L);
+        verify(recurringExpenseRepository, times(1)).findActiveSchedulesByUserId(1L);
+    }
+
+    @Test
+    void project_sequenceMoved_recomputes() {
+        CashFlowProjectionDTO first = service.project(1L, 3);
+        when(syncCursorRepository.findSeqByUserId(1L)).thenReturn(Optional.of(8L));
+
+        CashFlowProjectionDTO second = service.project(1L, 3);
+
+        assertThat(second).isNotSameAs(first);
+        verify(recurringExpenseRepository, times(2)).findActiveSchedulesByUserId(1L);
+    }
+
+    @Test
+    void project_evictsLeastRecentlyUsed() {
+        service.project(1L, 1);
+        service.project(1L, 2);
+        service.project(1L, 1);
+        service.project(1L, 3);  // evicts months=2
+
+        service.project(1L, 1);
+        service.project(1L, 2);
+
+        verify(recurringExpenseRepository, times(4)).findActiveSchedulesByUserId(1L);
+    }
+
+    @Test
+    void project_horizonOutOfRange_throwsBadRequest() {
+        assertThatThrownBy(() -> service.project(1L, 25))
+            .isInstanceOf(ResponseStatusException.class)
+            .satisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> service.project(1L, 0))
+            .isInstanceOf(ResponseStatusException.class);
+
+        verifyNoInteractions(accountRepository, recurringExpenseRepository);
+    }
+}
@@ -0,0 +1,114 @@
+package JK.pfm.service.projection;
+
+import JK.pfm.dto.CashFlowProjectionDTO;
+import JK.pfm.dto.CashFlowProjectionDTO.AccountProjection;
+import JK.pfm.dto.CashFlowProjectionDTO.ProjectedDay;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class CashFlowProjectorTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void next_monthlyAndAnnual_returnToStartDayAfterShortMonth() {
+        LocalDate start = LocalDate.of(2026, 1, 31);
+
+        LocalDate feb = RecurringSchedule.next("MONTHLY", start, start);
+        LocalDate mar = RecurringSchedule.next("monthly", feb, start);
+        LocalDate apr = RecurringSchedule.next("MONTHLY", mar, start);
+
+        assertThat(List.of(feb, mar, apr)).containsExactly(
+            LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 4, 30));
+        // moved by hand to the 15th: stays there
+        assertThat(RecurringSchedule.next("MONTHLY", LocalDate.of(2026, 5, 15), start))
+            .isEqualTo(LocalDate.of(2026, 6, 15));
+
+        LocalDate leap = LocalDate.of(2028, 2, 29);
+        LocalDate y2029 = RecurringSchedule.next("ANNUALLY", leap, leap);
+        assertThat(y2029).isEqualTo(LocalDate.of(2029, 2, 28));
+        assertThat(RecurringSchedule.next("ANNUALLY", LocalDate.of(2031, 2, 28), leap))
+            .isEqualTo(LocalDate.of(2032, 2, 29));
+        assertThat(RecurringSchedule.next("WEEKLY", start, start)).isEqualTo(LocalDate.of(2026, 2, 7));
+
+        assertThat(RecurringSchedule.supports("DAILY")).isFalse();
+        assertThatThrownBy(() -> RecurringSchedule.next("DAILY", start, start))
+            .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void project_mergesSchedulesInDateOrderAndFlagsOverdraft() {
+        List<Object[]> accounts = List.<Object[]>of(
+            account(1L, "main", "1000"),
+            account(2L, "card", "50"));
+        List<Object[]> schedules = List.<Object[]>of(
+            schedule(10L, "rent", "600", "MONTHLY", LocalDate.of(2026, 1, 5), 1L),
+            schedule(11L, "gym", "20", "WEEKLY", LocalDate.of(2026, 1, 5), 2L),
+            schedule(12L, "insurance", "500", "ANNUALLY", LocalDate.of(2026, 2, 1), 1L));
+
+        CashFlowProjectionDTO result = CashFlowProjector.project(accounts, schedules, FROM, LocalDate.of(2026, 2, 28));
+
+        ProjectedDay first = result.days().get(0);
+        assertThat(first.date()).isEqualTo(LocalDate.of(2026, 1, 5));
+        assertThat(first.payments()).extracting(p -> p.recurringExpenseId()).containsExactly(10L, 11L);
+        assertThat(first.balances()).extracting(b -> b.accountId(), b -> b.balance().intValueExact())
+            .containsExactly(tuple(1L, 400), tuple(2L, 30));
+        assertThat(result.days()).extracting(ProjectedDay::date).isSorted();
+        // gym weekly from Jan 5 to Feb 23: 8 payments; rent twice; insurance once
+        assertThat(result.days().stream().mapToInt(d -> d.payments().size()).sum()).isEqualTo(11);
+
+        AccountProjection main = result.accounts().get(0);
+        assertThat(main.endingBalance()).isEqualByComparingTo("-700");
+        assertThat(main.overdraftDate()).isEqualTo(LocalDate.of(2026, 2, 1));
+        assertThat(main.lowestBalanceDate()).isEqualTo(LocalDate.of(2026, 2, 5));
+
+        AccountProjection card = result.accounts().get(1);
+        assertThat(card.startingBalance()).isEqualByComparingTo("50");
+        assertThat(card.endingBalance()).isEqualByComparingTo("-110");
+        assertThat(card.overdraftDate()).isEqualTo(LocalDate.of(2026, 1, 19));
+    }
+
+    @Test
+    void project_overdueSchedule_catchesUpOncePerDay() {
+        List<Object[]> schedules = List.<Object[]>of(
+            schedule(10L, "weekly", "10", "WEEKLY", FROM.minusWeeks(2), 1L));
+
+        CashFlowProjectionDTO result = CashFlowProjector.project(
+            List.<Object[]>of(account(1L, "main", "100")), schedules, FROM, FROM.plusDays(7));
+
+        // Dec 18, Dec 25 and Jan 1 are charged on Jan 1, 2 and 3; the next is Jan 8
+        assertThat(result.days()).extracting(ProjectedDay::date).containsExactly(
+            FROM, FROM.plusDays(1), FROM.plusDays(2), FROM.plusDays(7));
+        assertThat(result.accounts().get(0).endingBalance()).isEqualByComparingTo("60");
+        assertThat(result.accounts().get(0).overdraftDate()).isNull();
+    }
+
+    @Test
+    void project_skipsUnknownAccountsAndFrequencies() {
+        List<Object[]> schedules = List.<Object[]>of(
+            schedule(10L, "daily", "10", "DAILY", FROM, 1L),
+            schedule(11L, "elsewhere", "10", "MONTHLY", FROM, 9L));
+
+        CashFlowProjectionDTO result = CashFlowProjector.project(
+            List.<Object[]>of(account(1L, "main", "100")), schedules, FROM, FROM.plusMonths(3));
+
+        assertThat(result.days()).isEmpty();
+        assertThat(result.accounts().get(0).lowestBalance()).isEqualByComparingTo("100");
+        assertThat(result.accounts().get(0).lowestBalanceDate()).isNull();
+    }
+
+    private static Object[] account(Long id, String name, String balance) {
+        return new Object[] {id, name, new BigDecimal(balance)};
+    }
+
+    private static Object[] schedule(Long id, String name, String amount, String frequency,
+                                     LocalDate nextDueDate, Long accountId) {
+        return new Object[] {id, name, new BigDecimal(amount), frequency, nextDueDate, nextDueDate, accountId};
+    }
+}
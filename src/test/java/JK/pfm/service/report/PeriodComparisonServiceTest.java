@@ -0,0 +1,187 @@
+package JK.pfm.service.report;
+
+import JK.pfm.dto.PeriodComparisonDTO;
+import JK.pfm.dto.filters.PeriodComparisonFilter;
+import JK.pfm.repository.ArchivedTransactionRepository;
+import JK.pfm.repository.BalanceSnapshotRepository;
+import JK.pfm.repository.TransactionRepository;
+import JK.pfm.service.TransactionArchiveService;
+import JK.pfm.service.analytics.TransactionAnalytics;
+import JK.pfm.service.analytics.TransactionColumns;
+import JK.pfm.util.AccountUtil;
+import JK.pfm.util.SecurityUtil;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PeriodComparisonServiceTest {
+
+    @Mock TransactionRepository transactionRepository;
+    @Mock ArchivedTransactionRepository archivedTransactionRepository;
+    @Mock BalanceSnapshotRepository balanceSnapshotRepository;
+    @Mock TransactionArchiveService archive;
+    @Mock TransactionAnalytics analytics;
+    @Mock AccountUtil accountUtil;
+
+    @InjectMocks
+    PeriodComparisonService service;
+
+    private MockedStatic<SecurityUtil> securityUtilMock;
+    private final LocalDate today = LocalDate.now();
+    private final ComparisonPeriods monthly = ComparisonPeriods.monthOverMonth(today);
+
+    @BeforeEach
+    void setUp() {
+        securityUtilMock = mockStatic(SecurityUtil.class);
+        securityUtilMock.when(SecurityUtil::getUserId).thenReturn(1L);
+        when(analytics.find(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtilMock.close();
+    }
+
+    @Test
+    void compare_monthOverMonth_usesOneFlowQueryAndStoredSnapshot() {
+        when(transactionRepository.sumPeriodFlows(1L, monthly.currentStart(), monthly.currentEnd(),
+                monthly.previousStart(), monthly.previousEnd()))
+            .thenReturn(row(new BigDecimal("200"), new BigDecimal("80"), new BigDecimal("100"), new BigDecimal("100")));
+        // current accounts 700, savings 300; last month end accounts 700, savings 150
+        when(balanceSnapshotRepository.findBalances(1L, List.of(monthly.currentEnd(), monthly.previousEnd())))
+            .thenReturn(row(new BigDecimal("700"), new BigDecimal("300"), monthly.previousEnd(),
+                            new BigDecimal("700"), new BigDecimal("150")));
+
+        PeriodComparisonDTO result = service.compare(monthly);
+
+        assertThat(result.metrics())
+            .extracting(PeriodComparisonDTO.Metric::name, m -> m.percentage().intValue())
+            .containsExactly(
+                tuple("Income", 100),
+                tuple("Expense", -20),
+                tuple("Savings", 100),
+                tuple("totalBalance", 18),     // 1000 vs 850
+                tuple("accountBalance", 0));
+        assertThat(result.previousEnd()).isEqualTo(monthly.previousEnd());
+        verify(balanceSnapshotRepository, never()).computeBalancesAt(any(), any());
+        verifyNoInteractions(archivedTransactionRepository);
+    }
+
+    @Test
+    void compare_missingSnapshot_computesBalanceAtPeriodEnd() {
+        when(transactionRepository.sumPeriodFlows(anyLong(), any(), any(), any(), any()))
+            .thenReturn(row(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        when(balanceSnapshotRepository.findBalances(eq(1L), any()))
+            .thenReturn(row(new BigDecimal("500"), BigDecimal.ZERO, null, null, null));
+        when(balanceSnapshotRepository.computeBalancesAt(1L, monthly.previousEnd()))
+            .thenReturn(row(1L, new BigDecimal("400"), BigDecimal.ZERO));
+
+        PeriodComparisonDTO result = service.compare(monthly);
+
+        assertThat(result.metrics().get(4).current()).isEqualByComparingTo("500");
+        assertThat(result.metrics().get(4).previous()).isEqualByComparingTo("400");
+        assertThat(result.metrics().get(4).percentage()).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void compare_pastCustomRanges_neverUseCurrentBalances() {
+        LocalDate start = today.minusMonths(3).withDayOfMonth(1);
+        ComparisonPeriods periods = ComparisonPeriods.custom(start, start.plusMonths(1).minusDays(1), null, null);
+        when(transactionRepository.sumPeriodFlows(anyLong(), any(), any(), any(), any()))
+            .thenReturn(row(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        when(balanceSnapshotRepository.findBalances(eq(1L), any()))
+            .thenReturn(List.<Object[]>of(
+                new Object[] {new BigDecimal("999"), BigDecimal.ZERO, periods.currentEnd(), new BigDecimal("120"), BigDecimal.ZERO},
+                new Object[] {new BigDecimal("999"), BigDecimal.ZERO, periods.previousEnd(), new BigDecimal("100"), BigDecimal.ZERO}));
+
+        PeriodComparisonDTO result = service.compare(periods);
+
+        assertThat(periods.previousEnd()).isEqualTo(start.minusDays(1));
+        assertThat(result.metrics().get(4).current()).isEqualByComparingTo("120");
+        assertThat(result.metrics().get(4).previous()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void compare_reachingArchive_addsArchivedFlows() {
+        ComparisonPeriods yearly = ComparisonPeriods.yearOverYear(today);
+        when(archive.reachesArchive(yearly.previousStart())).thenReturn(true);
+        when(transactionRepository.sumPeriodFlows(anyLong(), any(), any(), any(), any()))
+            .thenReturn(row(new BigDecimal("10"), new BigDecimal("5"), new BigDecimal("20"), new BigDecimal("5")));
+        when(archivedTransactionRepository.sumPeriodFlows(anyLong(), any(), any(), any(), any()))
+            .thenReturn(row(BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("30"), new BigDecimal("5")));
+        when(balanceSnapshotRepository.findBalances(eq(1L), any()))
+            .thenReturn(row(BigDecimal.ZERO, BigDecimal.ZERO, yearly.previousEnd(), BigDecimal.ZERO, BigDecimal.ZERO));
+
+        PeriodComparisonDTO result = service.compare(yearly);
+
+        assertThat(result.metrics().get(0).previous()).isEqualByComparingTo("50");
+        assertThat(result.metrics().get(1).previous()).isEqualByComparingTo("10");
+        verifyNoInteractions(analytics);
+    }
+
+    @Test
+    void compare_withColumns_sumsInMemory() {
+        TransactionColumns columns = Mockito.mock(TransactionColumns.class);
+        when(analytics.find(1L)).thenReturn(Optional.of(columns));
+        when(accountUtil.getUserAccountIds()).thenReturn(List.of(10L));
+        when(columns.sumByTypeAndDate(eq("Deposit"), eq(List.of(10L)), any(), any())).thenReturn(new BigDecimal("40"));
+        when(columns.sumByTypeAndDate(eq("Expense"), eq(List.of(10L)), any(), any())).thenReturn(new BigDecimal("20"));
+        when(balanceSnapshotRepository.findBalances(eq(1L), any()))
+            .thenReturn(row(BigDecimal.ZERO, BigDecimal.ZERO, null, null, null));
+        when(balanceSnapshotRepository.computeBalancesAt(eq(1L), any()))
+            .thenReturn(row(1L, BigDecimal.ZERO, BigDecimal.ZERO));
+
+        PeriodComparisonDTO result = service.compare(monthly);
+
+        assertThat(result.metrics().get(0).current()).isEqualByComparingTo("40");
+        assertThat(result.metrics().get(1).previous()).isEqualByComparingTo("20");
+        verify(transactionRepository, never()).sumPeriodFlows(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void periods_resolveFromFilter() {
+        PeriodComparisonFilter filter = new PeriodComparisonFilter(PeriodComparisonFilter.Period.CUSTOM);
+        filter.setStartDate(LocalDate.of(2026, 3, 1));
+        filter.setEndDate(LocalDate.of(2026, 3, 31));
+        filter.setPreviousStartDate(LocalDate.of(2025, 3, 1));
+        filter.setPreviousEndDate(LocalDate.of(2025, 3, 31));
+
+        assertThat(ComparisonPeriods.of(filter, today)).isEqualTo(new ComparisonPeriods(
+            LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+        assertThat(ComparisonPeriods.yearOverYear(LocalDate.of(2026, 10, 19))).isEqualTo(new ComparisonPeriods(
+            LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+        assertThat(ComparisonPeriods.monthOverMonth(LocalDate.of(2026, 3, 31))).isEqualTo(new ComparisonPeriods(
+            LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28)));
+
+        filter.setPreviousEndDate(null);
+        assertThat(filter.isValidRange()).isFalse();
+    }
+
+    private static List<Object[]> row(Object... values) {
+        return List.<Object[]>of(values);
+    }
+}
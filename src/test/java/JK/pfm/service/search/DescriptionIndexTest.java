@@ -0,0 +1,100 @@
+package JK.pfm.service.search;
+
+import JK.pfm.dto.filters.TransactionSearchFilter;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DescriptionIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private DescriptionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DescriptionIndex(null, 5, 2);
+        index.add(row(1, DAY, 100, 7L, "Expense", "NETFLIX.COM subscription"));
+        index.add(row(2, DAY.plusDays(1), 100, 7L, "Expense", "Netflix family plan"));
+        index.add(row(3, DAY, 200, 8L, "Expense", "Spotify subscription"));
+        index.add(row(4, DAY, 100, null, "Deposit", "Refund netflix"));
+        index.add(row(5, DAY.minusDays(1), 100, 7L, "Expense", "Cabinet"));
+        index.add(row(6, null, 100, 7L, "Expense", "netflix undated"));
+    }
+
+    @Test
+    void words_splitsOnNonLetters_lowerCase_distinct() {
+        assertThat(DescriptionIndex.words("NETFLIX.COM  netflix-Family 2026"))
+            .containsExactly("netflix", "com", "family", "2026");
+        assertThat(DescriptionIndex.words("Ābols, 東京")).containsExactly("ābols", "東京");
+        assertThat(DescriptionIndex.words(" - ")).isEmpty();
+        assertThat(DescriptionIndex.words(null)).isEmpty();
+    }
+
+    @Test
+    void search_everyWordIsAWordPrefix_newestFirst() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+
+        assertThat(index.search(List.of("net"), filter, 10)).containsExactly(2L, 4L, 1L, 6L);
+        assertThat(index.search(List.of("net", "sub"), filter, 10)).containsExactly(1L);
+        // "net" inside "Cabinet" is not a word start
+        assertThat(index.search(List.of("binet"), filter, 10)).isEmpty();
+        assertThat(index.search(List.of("netflix", "zzz"), filter, 10)).isEmpty();
+        assertThat(index.search(List.of(), filter, 10)).isEmpty();
+        assertThat(DescriptionIndex.matches("Cabinet subscription", List.of("net", "sub"))).isFalse();
+        assertThat(DescriptionIndex.matches("NETFLIX.COM subscription", List.of("net", "sub"))).isTrue();
+    }
+
+    @Test
+    void search_appliesFilters() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        filter.setStartDate(DAY);
+        filter.setEndDate(DAY);
+        assertThat(index.search(List.of("net"), filter, 10)).containsExactly(4L, 1L);
+
+        filter = new TransactionSearchFilter();
+        filter.setType("Expense");
+        filter.setCategoryId(7L);
+        assertThat(index.search(List.of("net"), filter, 10)).containsExactly(2L, 1L, 6L);
+
+        filter = new TransactionSearchFilter();
+        filter.setAccountId(200L);
+        assertThat(index.search(List.of("sub"), filter, 10)).containsExactly(3L);
+    }
+
+    @Test
+    void search_keysetPages_coverEveryDatedMatchOnce() {
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        assertThat(index.search(List.of("net"), filter, 2)).containsExactly(2L, 4L);
+
+        filter.setAfterDate(DAY);
+        filter.setAfterId(4L);
+        assertThat(index.search(List.of("net"), filter, 2)).containsExactly(1L);
+    }
+
+    @Test
+    void apply_replacesChangedRows_andAsksForRebuild() {
+        index.apply(List.of(2L, 3L), List.<Object[]>of(
+            row(3, DAY, 200, 8L, "Expense", "Netflix gift card")), 6);
+
+        TransactionSearchFilter filter = new TransactionSearchFilter();
+        assertThat(index.search(List.of("netflix"), filter, 10)).containsExactly(4L, 3L, 1L, 6L);
+        assertThat(index.search(List.of("spotify"), filter, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.getSeq()).isEqualTo(6);
+
+        // an older read is ignored
+        index.apply(List.of(1L), List.of(), 6);
+        assertThat(index.search(List.of("netflix", "com"), filter, 10)).containsExactly(1L);
+
+        assertThat(index.needsRebuild()).isFalse();
+        index.apply(List.of(1L, 3L, 4L, 5L), List.of(), 7);
+        assertThat(index.needsRebuild()).isTrue();
+    }
+
+    private static Object[] row(long id, LocalDate date, long accountId, Long categoryId, String type, String description) {
+        return new Object[] {id, date, accountId, categoryId, type, description};
+    }
+}